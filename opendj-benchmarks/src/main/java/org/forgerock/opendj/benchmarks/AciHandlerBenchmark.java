@@ -0,0 +1,226 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.forgerock.opendj.benchmarks;
+
+import static org.forgerock.opendj.server.embedded.ConfigParameters.configParams;
+import static org.forgerock.opendj.server.embedded.ConnectionParameters.connectionParams;
+import static org.forgerock.opendj.server.embedded.EmbeddedDirectoryServer.manageEmbeddedDirectoryServer;
+import static org.forgerock.opendj.server.embedded.SetupParameters.setupParams;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.Entry;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.requests.Requests;
+import org.forgerock.opendj.server.embedded.EmbeddedDirectoryServer;
+import org.opends.server.api.AccessControlHandler;
+import org.opends.server.core.AccessControlConfigManager;
+import org.opends.server.protocols.internal.InternalClientConnection;
+import org.opends.server.protocols.internal.InternalSearchOperation;
+import org.opends.server.types.SearchResultEntry;
+import org.opends.server.util.StaticUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the ACI evaluation done by the access control handler for each
+ * entry returned by a search.
+ * <p>
+ * ACI evaluation needs the users and their groups, so this benchmark sets up
+ * and starts an embedded server, with the generated entries and a set of ACIs
+ * typical of a user directory on the suffix entry. The server is set up from
+ * the archive copied next to the benchmarks jar by the build, or from the
+ * archive given by the {@code opendj.archive} system property.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AciHandlerBenchmark {
+    /** The system property providing the path of the server archive. */
+    public static final String ARCHIVE_PROPERTY = "opendj.archive";
+
+    private static final String[] ACIS = {
+        "(targetattr=\"*\")(version 3.0; acl \"Self read\"; "
+            + "allow (read,search,compare) userdn=\"ldap:///self\";)",
+        "(targetattr=\"telephoneNumber || mobile || homePhone || pager\")(version 3.0; acl \"Self write\"; "
+            + "allow (write) userdn=\"ldap:///self\";)",
+        "(targetattr=\"cn || sn || givenName || uid || mail || telephoneNumber\")"
+            + "(targetfilter=\"(objectClass=inetOrgPerson)\")(version 3.0; acl \"Authenticated read\"; "
+            + "allow (read,search,compare) userdn=\"ldap:///all\";)",
+        "(targetattr=\"userPassword\")(version 3.0; acl \"Protect passwords\"; "
+            + "deny (read,search,compare) userdn=\"ldap:///anyone\";)",
+        "(target=\"ldap:///ou=People," + BenchmarkData.SUFFIX + "\")(targetattr=\"*\")(version 3.0; "
+            + "acl \"Administrators\"; allow (all) groupdn=\"ldap:///cn=Administrators," + BenchmarkData.SUFFIX
+            + "\";)"
+    };
+
+    /** The number of user entries to generate. */
+    @Param({ "10000" })
+    public int numUsers;
+
+    private File serverRoot;
+    private EmbeddedDirectoryServer server;
+    private AccessControlHandler<?> accessControlHandler;
+    private InternalSearchOperation searchOperation;
+    private SearchResultEntry[] entries;
+    private int next;
+
+    /**
+     * Sets up and starts the server, then prepares a search on behalf of one of
+     * the users.
+     *
+     * @throws Exception
+     *             If the server cannot be set up or started.
+     */
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        final List<Entry> generatedEntries = BenchmarkData.generateEntries(numUsers);
+        for (final Entry entry : generatedEntries) {
+            if (entry.getName().equals(DN.valueOf(BenchmarkData.SUFFIX))) {
+                entry.addAttribute("aci", (Object[]) ACIS);
+            }
+        }
+
+        final File tempDir = Files.createTempDirectory("opendj-benchmarks").toFile();
+        final File ldifFile = new File(tempDir, "data.ldif");
+        BenchmarkData.writeLDIF(generatedEntries, ldifFile);
+
+        // The archive contains the "opendj" directory
+        serverRoot = new File(tempDir, "opendj");
+        final int[] ports = findFreePorts(3);
+        server = manageEmbeddedDirectoryServer(
+                configParams()
+                    .serverRootDirectory(serverRoot.getPath())
+                    .configurationFile(serverRoot.toPath().resolve("config").resolve("config.ldif").toString()),
+                connectionParams()
+                    .bindDn("cn=Directory Manager")
+                    .bindPassword("password")
+                    .hostName("localhost")
+                    .ldapPort(ports[0])
+                    .adminPort(ports[1]),
+                System.out,
+                System.err);
+        server.extractArchiveForSetup(getArchive());
+        server.setup(
+                setupParams()
+                    .backendType("pdb")
+                    .baseDn(BenchmarkData.SUFFIX)
+                    .ldifFile(ldifFile.getPath())
+                    .jmxPort(ports[2]));
+        server.start();
+
+        accessControlHandler = AccessControlConfigManager.getInstance().getAccessControlHandler();
+        final List<Entry> users = BenchmarkData.userEntries(generatedEntries);
+        final InternalClientConnection connection = new InternalClientConnection(users.get(0).getName());
+        searchOperation = new InternalSearchOperation(connection, InternalClientConnection.nextOperationID(),
+                InternalClientConnection.nextMessageID(), Requests.newSearchRequest(
+                        DN.valueOf(BenchmarkData.SUFFIX), SearchScope.WHOLE_SUBTREE, "(objectClass=inetOrgPerson)"));
+
+        final List<org.opends.server.types.Entry> serverEntries = BenchmarkData.toServerEntries(users);
+        entries = new SearchResultEntry[serverEntries.size()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = new SearchResultEntry(serverEntries.get(i));
+        }
+    }
+
+    private static File getArchive() throws Exception {
+        final String archive = System.getProperty(ARCHIVE_PROPERTY);
+        if (archive != null) {
+            return new File(archive);
+        }
+        final File benchmarksJar =
+                new File(AciHandlerBenchmark.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        return new File(benchmarksJar.getParentFile(), "opendj.zip");
+    }
+
+    private static int[] findFreePorts(final int nbPorts) throws IOException {
+        final ServerSocket[] sockets = new ServerSocket[nbPorts];
+        final int[] ports = new int[nbPorts];
+        try {
+            for (int i = 0; i < nbPorts; i++) {
+                sockets[i] = new ServerSocket(0);
+                ports[i] = sockets[i].getLocalPort();
+            }
+        } finally {
+            StaticUtils.close(sockets);
+        }
+        return ports;
+    }
+
+    /** Stops the server and deletes its files. */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (server != null) {
+            server.stop(getClass().getName(), LocalizableMessage.raw("Benchmark done"));
+        }
+        if (serverRoot != null) {
+            StaticUtils.recursiveDelete(serverRoot.getParentFile());
+        }
+    }
+
+    private SearchResultEntry nextEntry() {
+        final int index = next;
+        next = index + 1 < entries.length ? index + 1 : 0;
+        return entries[index];
+    }
+
+    /**
+     * Checks whether an entry may be returned by the search.
+     *
+     * @return Whether the entry may be returned.
+     */
+    @Benchmark
+    public boolean maySend() {
+        return accessControlHandler.maySend(searchOperation, nextEntry());
+    }
+
+    /**
+     * Removes from an entry returned by the search the attributes the user may
+     * not read.
+     *
+     * @return The filtered entry.
+     */
+    @Benchmark
+    public SearchResultEntry filterEntry() {
+        final SearchResultEntry entry = nextEntry();
+        final SearchResultEntry filteredEntry = new SearchResultEntry(
+                entry.filterEntry(Collections.<String> emptySet(), false, false, false));
+        accessControlHandler.filterEntry(searchOperation, entry, filteredEntry);
+        return filteredEntry;
+    }
+}
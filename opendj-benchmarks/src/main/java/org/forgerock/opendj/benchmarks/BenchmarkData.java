@@ -0,0 +1,154 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.forgerock.opendj.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.opendj.adapter.server3x.Converters;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.Entry;
+import org.forgerock.opendj.ldif.EntryGenerator;
+import org.forgerock.opendj.ldif.LDIFEntryWriter;
+import org.opends.server.core.DirectoryServer;
+
+/**
+ * Realistic data shared by the benchmarks, generated from a MakeLDIF template.
+ * <p>
+ * The default template is the one used by {@code makeldif} and {@code setup
+ * --sampleData}: users with a dozen attributes below {@code ou=People}. Another
+ * template can be used by setting the {@code opendj.benchmark.template} system
+ * property to its path. Entries are generated with a fixed random seed so that
+ * successive runs, hence successive commits, are measured against the same data.
+ */
+public final class BenchmarkData {
+    /** The base DN of the generated entries. */
+    public static final String SUFFIX = "dc=example,dc=com";
+
+    /** The system property providing the path of the MakeLDIF template to use. */
+    public static final String TEMPLATE_PROPERTY = "opendj.benchmark.template";
+
+    private static final int RANDOM_SEED = 1;
+
+    private static boolean serverBootstrapped;
+
+    /**
+     * Generates the entries of the benchmark data set, branch entries first.
+     *
+     * @param numUsers
+     *            The number of user entries to generate.
+     * @return The generated entries.
+     * @throws IOException
+     *             If the template cannot be read.
+     */
+    public static List<Entry> generateEntries(final int numUsers) throws IOException {
+        final String templatePath = System.getProperty(TEMPLATE_PROPERTY);
+        final List<Entry> entries = new ArrayList<>();
+        try (EntryGenerator generator = templatePath != null ? new EntryGenerator(templatePath)
+                                                             : new EntryGenerator()) {
+            generator.setRandomSeed(RANDOM_SEED).setConstant("numusers", numUsers);
+            while (generator.hasNext()) {
+                entries.add(generator.readEntry());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the generated user entries, that is the entries which are not
+     * branch entries.
+     *
+     * @param entries
+     *            The generated entries.
+     * @return The user entries.
+     */
+    public static List<Entry> userEntries(final List<Entry> entries) {
+        final List<Entry> users = new ArrayList<>();
+        for (final Entry entry : entries) {
+            if (entry.getAttribute("uid") != null) {
+                users.add(entry);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Returns the names of the provided entries.
+     *
+     * @param entries
+     *            The entries.
+     * @return The names of the entries, in the same order.
+     */
+    public static List<DN> names(final List<Entry> entries) {
+        final List<DN> names = new ArrayList<>(entries.size());
+        for (final Entry entry : entries) {
+            names.add(entry.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Bootstraps the server structures, including its default schema, needed to
+     * use the server types without running a server.
+     */
+    public static synchronized void bootstrapServer() {
+        if (!serverBootstrapped) {
+            DirectoryServer.bootstrapClient();
+            serverBootstrapped = true;
+        }
+    }
+
+    /**
+     * Converts entries to server entries. The server must have been
+     * bootstrapped first.
+     *
+     * @param entries
+     *            The entries to convert.
+     * @return The server entries, in the same order.
+     */
+    public static List<org.opends.server.types.Entry> toServerEntries(final List<Entry> entries) {
+        final List<org.opends.server.types.Entry> serverEntries = new ArrayList<>(entries.size());
+        for (final Entry entry : entries) {
+            serverEntries.add(Converters.to(entry));
+        }
+        return serverEntries;
+    }
+
+    /**
+     * Writes entries to a LDIF file.
+     *
+     * @param entries
+     *            The entries to write.
+     * @param ldifFile
+     *            The file to write.
+     * @throws IOException
+     *             If the file cannot be written.
+     */
+    public static void writeLDIF(final List<Entry> entries, final File ldifFile) throws IOException {
+        try (LDIFEntryWriter writer = new LDIFEntryWriter(new FileOutputStream(ldifFile))) {
+            for (final Entry entry : entries) {
+                writer.writeEntry(entry);
+            }
+        }
+    }
+
+    private BenchmarkData() {
+        // Not used.
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.forgerock.opendj.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks DN parsing, normalization and comparison, using the names of the
+ * generated entries.
+ * <p>
+ * The names are parsed in turn, so that the thread local cache of parsed DNs
+ * behaves as with the requests of many clients.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DNBenchmark {
+    /** The number of user entries to generate. */
+    @Param({ "10000" })
+    public int numUsers;
+
+    private String[] dnStrings;
+    private DN[] dns;
+    private DN suffix;
+    private int next;
+
+    /**
+     * Generates the names used by the benchmarks.
+     *
+     * @throws Exception
+     *             If the entries cannot be generated.
+     */
+    @Setup
+    public void setup() throws Exception {
+        final List<DN> names = BenchmarkData.names(BenchmarkData.generateEntries(numUsers));
+        dns = names.toArray(new DN[names.size()]);
+        dnStrings = new String[dns.length];
+        for (int i = 0; i < dns.length; i++) {
+            dnStrings[i] = dns[i].toString();
+        }
+        suffix = DN.valueOf(BenchmarkData.SUFFIX);
+    }
+
+    private int nextIndex() {
+        final int index = next;
+        next = index + 1 < dns.length ? index + 1 : 0;
+        return index;
+    }
+
+    /**
+     * Parses a DN string.
+     *
+     * @return The parsed DN.
+     */
+    @Benchmark
+    public DN parse() {
+        return DN.valueOf(dnStrings[nextIndex()]);
+    }
+
+    /**
+     * Parses a DN string, then normalizes the DN, as done for every DN used as
+     * a key of a backend.
+     *
+     * @return The normalized DN.
+     */
+    @Benchmark
+    public ByteString parseAndNormalize() {
+        return DN.valueOf(dnStrings[nextIndex()]).toNormalizedByteString();
+    }
+
+    /**
+     * Compares two parsed DNs.
+     *
+     * @return The result of the comparison.
+     */
+    @Benchmark
+    public int compare() {
+        final int index = nextIndex();
+        return dns[index].compareTo(dns[dns.length - 1 - index]);
+    }
+
+    /**
+     * Checks whether a parsed DN is below the suffix, as done when routing an
+     * operation to its backend.
+     *
+     * @return Whether the DN is below the suffix.
+     */
+    @Benchmark
+    public boolean isSubordinateOrEqualTo() {
+        return dns[nextIndex()].isSubordinateOrEqualTo(suffix);
+    }
+}
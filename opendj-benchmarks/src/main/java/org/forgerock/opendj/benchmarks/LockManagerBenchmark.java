@@ -0,0 +1,116 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.forgerock.opendj.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.types.LockManager;
+import org.opends.server.types.LockManager.DNLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the acquisition and release of entry locks, done for each
+ * operation reading or writing an entry.
+ * <p>
+ * The lock manager is shared by all the benchmark threads, as it is by the
+ * worker threads of the server. Each thread locks entries picked at random, so
+ * that threads sometimes contend for the same entry or the same lock table
+ * bucket.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class LockManagerBenchmark {
+    /** The number of user entries to generate. */
+    @Param({ "10000" })
+    public int numUsers;
+
+    private final LockManager lockManager = new LockManager();
+    private DN[] dns;
+
+    /**
+     * Generates the names of the entries to lock.
+     *
+     * @throws Exception
+     *             If the entries cannot be generated.
+     */
+    @Setup
+    public void setup() throws Exception {
+        final List<DN> names = BenchmarkData.names(BenchmarkData.generateEntries(numUsers));
+        dns = names.toArray(new DN[names.size()]);
+    }
+
+    private DN randomDN() {
+        return dns[ThreadLocalRandom.current().nextInt(dns.length)];
+    }
+
+    /**
+     * Acquires and releases the read lock of an entry, as done by searches and
+     * compares.
+     *
+     * @return The acquired lock.
+     */
+    @Benchmark
+    public DNLock readLockEntry() {
+        final DNLock lock = lockManager.tryReadLockEntry(randomDN());
+        lock.unlock();
+        return lock;
+    }
+
+    /**
+     * Acquires and releases the write lock of an entry, as done by modify
+     * operations.
+     *
+     * @return The acquired lock.
+     */
+    @Benchmark
+    public DNLock writeLockEntry() {
+        final DNLock lock = lockManager.tryWriteLockEntry(randomDN());
+        lock.unlock();
+        return lock;
+    }
+
+    /**
+     * Acquires and releases the write lock of the subtree of an entry, as done
+     * by add, delete and modify DN operations.
+     *
+     * @return The acquired lock.
+     */
+    @Benchmark
+    public DNLock writeLockSubtree() {
+        final DNLock lock = lockManager.tryWriteLockSubtree(randomDN());
+        lock.unlock();
+        return lock;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.forgerock.opendj.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.SearchFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the evaluation of search filters against entries, done for each
+ * candidate entry of a search.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchFilterBenchmark {
+    /** The number of user entries to generate. */
+    @Param({ "10000" })
+    public int numUsers;
+
+    /** The filter to evaluate. */
+    @Param({
+        "(uid=user.5000)",
+        "(&(objectClass=inetOrgPerson)(st=CA))",
+        "(|(cn=Aaron*)(sn=*son)(mail=user.1*))",
+        "(&(objectClass=person)(!(l=Austin))(telephoneNumber=*5*))"
+    })
+    public String filter;
+
+    private SearchFilter searchFilter;
+    private Entry[] entries;
+    private int next;
+
+    /**
+     * Generates the entries and parses the filter used by the benchmarks.
+     *
+     * @throws Exception
+     *             If the entries cannot be generated or the filter is invalid.
+     */
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkData.bootstrapServer();
+        final List<Entry> users =
+                BenchmarkData.toServerEntries(BenchmarkData.userEntries(BenchmarkData.generateEntries(numUsers)));
+        entries = users.toArray(new Entry[users.size()]);
+        searchFilter = SearchFilter.createFilterFromString(filter);
+    }
+
+    /**
+     * Parses the filter, as done for each search request.
+     *
+     * @return The parsed filter.
+     * @throws DirectoryException
+     *             If the filter is invalid.
+     */
+    @Benchmark
+    public SearchFilter parse() throws DirectoryException {
+        return SearchFilter.createFilterFromString(filter);
+    }
+
+    /**
+     * Evaluates the filter against an entry.
+     *
+     * @return Whether the entry matches the filter.
+     * @throws DirectoryException
+     *             If the filter cannot be evaluated.
+     */
+    @Benchmark
+    public boolean matchesEntry() throws DirectoryException {
+        final int index = next;
+        next = index + 1 < entries.length ? index + 1 : 0;
+        return searchFilter.matchesEntry(entries[index]);
+    }
+}
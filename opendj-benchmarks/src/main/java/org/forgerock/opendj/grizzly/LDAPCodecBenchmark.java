@@ -0,0 +1,196 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.forgerock.opendj.grizzly;
+
+import static org.forgerock.opendj.ldap.CommonLDAPOptions.LDAP_DECODE_OPTIONS;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.benchmarks.BenchmarkData;
+import org.forgerock.opendj.io.AbstractLDAPMessageHandler;
+import org.forgerock.opendj.io.LDAP;
+import org.forgerock.opendj.io.LDAPWriter;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.DecodeOptions;
+import org.forgerock.opendj.ldap.Entry;
+import org.forgerock.opendj.ldap.Filter;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.requests.Requests;
+import org.forgerock.opendj.ldap.requests.SearchRequest;
+import org.forgerock.opendj.ldap.responses.Responses;
+import org.forgerock.opendj.ldap.responses.SearchResultEntry;
+import org.forgerock.util.Options;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.memory.ByteBufferWrapper;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the ASN.1 encoding and decoding of LDAP messages with the Grizzly
+ * {@link ASN1BufferWriter} and {@link ASN1BufferReader}, as done by the LDAP
+ * connection handler for each request and response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LDAPCodecBenchmark {
+    /** Passes the decoded messages to the black hole. */
+    private static final class BlackholeHandler extends AbstractLDAPMessageHandler {
+        private final Blackhole blackhole;
+
+        private BlackholeHandler(final Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void searchRequest(final int messageID, final SearchRequest request)
+                throws DecodeException, IOException {
+            blackhole.consume(request);
+        }
+
+        @Override
+        public void searchResultEntry(final int messageID, final SearchResultEntry entry)
+                throws DecodeException, IOException {
+            blackhole.consume(entry);
+        }
+    }
+
+    /** The number of user entries to generate. */
+    @Param({ "10000" })
+    public int numUsers;
+
+    private final MemoryManager<?> memoryManager = MemoryManager.DEFAULT_MEMORY_MANAGER;
+    private final DecodeOptions decodeOptions = Options.defaultOptions().get(LDAP_DECODE_OPTIONS);
+    private SearchResultEntry[] entries;
+    private byte[][] encodedEntries;
+    private byte[][] encodedSearchRequests;
+    private int next;
+
+    /**
+     * Generates the entries and the encoded messages used by the benchmarks.
+     *
+     * @throws Exception
+     *             If the entries cannot be generated.
+     */
+    @Setup
+    public void setup() throws Exception {
+        final List<Entry> users = BenchmarkData.userEntries(BenchmarkData.generateEntries(numUsers));
+        final DN suffix = DN.valueOf(BenchmarkData.SUFFIX);
+        entries = new SearchResultEntry[users.size()];
+        encodedEntries = new byte[users.size()][];
+        encodedSearchRequests = new byte[users.size()][];
+        for (int i = 0; i < entries.length; i++) {
+            final Entry user = users.get(i);
+            entries[i] = Responses.newSearchResultEntry(user);
+
+            LDAPWriter<ASN1BufferWriter> writer = GrizzlyUtils.getWriter(memoryManager, 3);
+            writer.writeSearchResultEntry(i + 1, entries[i]);
+            encodedEntries[i] = toByteArray(writer);
+
+            writer = GrizzlyUtils.getWriter(memoryManager, 3);
+            writer.writeSearchRequest(i + 1, Requests.newSearchRequest(suffix, SearchScope.WHOLE_SUBTREE,
+                    Filter.equality("uid", user.parseAttribute("uid").asString()), "cn", "mail", "telephoneNumber"));
+            encodedSearchRequests[i] = toByteArray(writer);
+        }
+    }
+
+    private static byte[] toByteArray(final LDAPWriter<ASN1BufferWriter> writer) {
+        final Buffer buffer = writer.getASN1Writer().getBuffer();
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        buffer.tryDispose();
+        GrizzlyUtils.recycleWriter(writer);
+        return bytes;
+    }
+
+    private int nextIndex() {
+        final int index = next;
+        next = index + 1 < entries.length ? index + 1 : 0;
+        return index;
+    }
+
+    /**
+     * Encodes a search result entry, as done for each entry returned by a
+     * search.
+     *
+     * @return The number of encoded bytes.
+     * @throws IOException
+     *             If the entry cannot be encoded.
+     */
+    @Benchmark
+    public int encodeSearchResultEntry() throws IOException {
+        final int index = nextIndex();
+        final LDAPWriter<ASN1BufferWriter> writer = GrizzlyUtils.getWriter(memoryManager, 3);
+        writer.writeSearchResultEntry(index + 1, entries[index]);
+        final Buffer buffer = writer.getASN1Writer().getBuffer();
+        final int size = buffer.remaining();
+        buffer.tryDispose();
+        GrizzlyUtils.recycleWriter(writer);
+        return size;
+    }
+
+    /**
+     * Decodes a search result entry, as done by clients and by the proxy
+     * backend.
+     *
+     * @param blackhole
+     *            Consumes the decoded entry.
+     * @throws IOException
+     *             If the entry cannot be decoded.
+     */
+    @Benchmark
+    public void decodeSearchResultEntry(final Blackhole blackhole) throws IOException {
+        decode(encodedEntries[nextIndex()], blackhole);
+    }
+
+    /**
+     * Decodes a search request, as done for each search received by the
+     * server.
+     *
+     * @param blackhole
+     *            Consumes the decoded request.
+     * @throws IOException
+     *             If the request cannot be decoded.
+     */
+    @Benchmark
+    public void decodeSearchRequest(final Blackhole blackhole) throws IOException {
+        decode(encodedSearchRequests[nextIndex()], blackhole);
+    }
+
+    private void decode(final byte[] message, final Blackhole blackhole) throws IOException {
+        try (ASN1BufferReader reader = new ASN1BufferReader(0, new ByteBufferWrapper(ByteBuffer.wrap(message)))) {
+            LDAP.getReader(reader, decodeOptions).readMessage(new BlackholeHandler(blackhole));
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.opends.server.backends.pluggable.EntryIDSet.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.benchmarks.BenchmarkData;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.Entry;
+import org.opends.server.backends.pluggable.EntryIDSet.EntryIDSetCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the operations on entry ID sets done when evaluating indexed
+ * search filters, and their codecs.
+ * <p>
+ * The sets are the ones of equality indexes of the state ("st") and city ("l")
+ * attributes of the generated entries, with entry IDs assigned in generation
+ * order as an import does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EntryIDSetBenchmark {
+    /** The number of entry ID sets in each union. */
+    private static final int UNION_SIZE = 5;
+
+    /** The number of user entries to generate. */
+    @Param({ "100000" })
+    public int numUsers;
+
+    /**
+     * The codec of the index, which also determines the representation of the
+     * decoded sets: V1 and V2 decode to sorted arrays, V4 to compressed bitmaps.
+     */
+    @Param({ "V1", "V2", "V4" })
+    public String codecVersion;
+
+    private EntryIDSetCodec codec;
+    private ByteString[] keys;
+    private EntryIDSet[] stateSets;
+    private EntryIDSet[] citySets;
+    private ByteString[] encodedStateSets;
+    private long[] entryIDs;
+    private int next;
+
+    /**
+     * Builds the index entry ID sets used by the benchmarks.
+     *
+     * @throws Exception
+     *             If the entries cannot be generated.
+     */
+    @Setup
+    public void setup() throws Exception {
+        switch (codecVersion) {
+        case "V1":
+            codec = CODEC_V1;
+            break;
+        case "V2":
+            codec = CODEC_V2;
+            break;
+        case "V4":
+            codec = CODEC_V4;
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown codec " + codecVersion);
+        }
+
+        final Map<String, List<Long>> stateIDs = new TreeMap<>();
+        final Map<String, List<Long>> cityIDs = new TreeMap<>();
+        long entryID = 0;
+        for (final Entry entry : BenchmarkData.generateEntries(numUsers)) {
+            entryID++;
+            if (entry.getAttribute("st") != null) {
+                addID(stateIDs, entry.parseAttribute("st").asString(), entryID);
+                addID(cityIDs, entry.parseAttribute("l").asString(), entryID);
+            }
+        }
+
+        keys = toKeys(stateIDs);
+        encodedStateSets = encode(stateIDs);
+        stateSets = decode(keys, encodedStateSets);
+        citySets = decode(toKeys(cityIDs), encode(cityIDs));
+        entryIDs = new long[(int) Math.min(entryID, 1024)];
+        for (int i = 0; i < entryIDs.length; i++) {
+            entryIDs[i] = 1 + (entryID * i) / entryIDs.length;
+        }
+    }
+
+    private static void addID(final Map<String, List<Long>> index, final String key, final long entryID) {
+        List<Long> ids = index.get(key);
+        if (ids == null) {
+            ids = new ArrayList<>();
+            index.put(key, ids);
+        }
+        ids.add(entryID);
+    }
+
+    private static ByteString[] toKeys(final Map<String, List<Long>> index) {
+        final List<ByteString> keys = new ArrayList<>(index.size());
+        for (final String key : index.keySet()) {
+            keys.add(ByteString.valueOfUtf8(key));
+        }
+        return keys.toArray(new ByteString[keys.size()]);
+    }
+
+    private ByteString[] encode(final Map<String, List<Long>> index) {
+        final List<ByteString> encodedSets = new ArrayList<>(index.size());
+        for (final List<Long> ids : index.values()) {
+            final long[] sortedIDs = new long[ids.size()];
+            for (int i = 0; i < sortedIDs.length; i++) {
+                sortedIDs[i] = ids.get(i);
+            }
+            encodedSets.add(codec.encode(newDefinedSet(sortedIDs)));
+        }
+        return encodedSets.toArray(new ByteString[encodedSets.size()]);
+    }
+
+    private EntryIDSet[] decode(final ByteString[] keys, final ByteString[] encodedSets) {
+        final EntryIDSet[] sets = new EntryIDSet[encodedSets.length];
+        for (int i = 0; i < sets.length; i++) {
+            sets[i] = codec.decode(keys[i], encodedSets[i]);
+        }
+        return sets;
+    }
+
+    private int nextIndex() {
+        final int index = next;
+        next = index + 1 < stateSets.length ? index + 1 : 0;
+        return index;
+    }
+
+    /**
+     * Intersects the sets of a state and of a city, as done to evaluate an AND
+     * filter.
+     *
+     * @return The intersection.
+     */
+    @Benchmark
+    public EntryIDSet intersection() {
+        final int index = nextIndex();
+        final EntryIDSet result = newUndefinedSet();
+        result.retainAll(stateSets[index]);
+        result.retainAll(citySets[index % citySets.length]);
+        return result;
+    }
+
+    /**
+     * Unites the sets of several states, as done to evaluate an OR filter.
+     *
+     * @return The union.
+     */
+    @Benchmark
+    public EntryIDSet union() {
+        final int index = nextIndex();
+        final List<EntryIDSet> sets = new ArrayList<>(UNION_SIZE);
+        for (int i = 0; i < UNION_SIZE; i++) {
+            sets.add(stateSets[(index + i) % stateSets.length]);
+        }
+        return newSetFromUnion(sets);
+    }
+
+    /**
+     * Checks whether a set contains an entry ID, as done when checking the
+     * candidates of a search against an index.
+     *
+     * @return Whether the set contains the entry ID.
+     */
+    @Benchmark
+    public boolean contains() {
+        final int index = nextIndex();
+        return stateSets[index].contains(new EntryID(entryIDs[index % entryIDs.length]));
+    }
+
+    /**
+     * Encodes a set, as done when writing an index.
+     *
+     * @return The encoded set.
+     */
+    @Benchmark
+    public ByteString encode() {
+        return codec.encode(stateSets[nextIndex()]);
+    }
+
+    /**
+     * Decodes a set, as done when reading an index.
+     *
+     * @return The decoded set.
+     */
+    @Benchmark
+    public EntryIDSet decode() {
+        final int index = nextIndex();
+        return codec.decode(keys[index], encodedStateSets[index]);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.benchmarks.BenchmarkData;
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.api.CompressedSchema;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.types.Entry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the encoding of entries to the id2entry tree of the pluggable
+ * backends, and their decoding, done for each entry read from a backend.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ID2EntryBenchmark {
+    /** The number of user entries to generate. */
+    @Param({ "10000" })
+    public int numUsers;
+
+    /** Whether entries are compressed, as with the "entries-compressed" backend property. */
+    @Param({ "false", "true" })
+    public boolean compressed;
+
+    private DataConfig dataConfig;
+    private ID2Entry id2entry;
+    private CompressedSchema compressedSchema;
+    private Entry[] entries;
+    private ByteString[] encodedEntries;
+    private int next;
+
+    /**
+     * Generates the entries and their encoded form used by the benchmarks.
+     *
+     * @throws Exception
+     *             If the entries cannot be generated or encoded.
+     */
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkData.bootstrapServer();
+        final List<Entry> users =
+                BenchmarkData.toServerEntries(BenchmarkData.userEntries(BenchmarkData.generateEntries(numUsers)));
+        entries = users.toArray(new Entry[users.size()]);
+
+        dataConfig = new DataConfig.Builder().compress(compressed).encode(false).build();
+        id2entry = new ID2Entry(new TreeName(BenchmarkData.SUFFIX, "id2entry"), dataConfig);
+        compressedSchema = DirectoryServer.getDefaultCompressedSchema();
+        encodedEntries = new ByteString[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            encodedEntries[i] = id2entry.entryToDatabase(entries[i], dataConfig);
+        }
+    }
+
+    private int nextIndex() {
+        final int index = next;
+        next = index + 1 < entries.length ? index + 1 : 0;
+        return index;
+    }
+
+    /**
+     * Encodes an entry, as done when adding or modifying an entry.
+     *
+     * @return The encoded entry.
+     * @throws Exception
+     *             If the entry cannot be encoded.
+     */
+    @Benchmark
+    public ByteString encode() throws Exception {
+        return id2entry.entryToDatabase(entries[nextIndex()], dataConfig);
+    }
+
+    /**
+     * Decodes an entry, as done for each entry read from a backend.
+     *
+     * @return The decoded entry.
+     * @throws Exception
+     *             If the entry cannot be decoded.
+     */
+    @Benchmark
+    public Entry decode() throws Exception {
+        return id2entry.entryFromDatabase(encodedEntries[nextIndex()], compressedSchema);
+    }
+}
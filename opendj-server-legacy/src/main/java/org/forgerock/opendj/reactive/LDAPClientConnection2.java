@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2010-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.forgerock.opendj.reactive;
 
@@ -1799,12 +1800,21 @@ public final class LDAPClientConnection2 extends ClientConnection implements TLS
 
         @Override
         public void onNext(final Response response) {
+            if (done || cancelled) {
+                // The responses can no longer be written: do not block the worker thread again for each of them.
+                return;
+            }
             try {
                 if (queue.offer(response, writeTimeoutMillis, TimeUnit.MILLISECONDS)) {
                     drain();
                 } else {
-                    // If we've gotten here, then the write timed out.
-                    onError(new ClosedChannelException().fillInStackTrace());
+                    // If we've gotten here, then the write timed out. As the client does not read the responses
+                    // queued for it, disconnect it so that the operations in progress are cancelled and release
+                    // their worker threads, rather than waiting for the queued responses to be written.
+                    final ClosedChannelException e = new ClosedChannelException();
+                    onError(e);
+                    disconnect(DisconnectReason.IO_ERROR, false,
+                            ERR_IO_ERROR_ON_CLIENT_CONNECTION.get(getExceptionMessage(e)));
                     return;
                 }
             } catch (InterruptedException e) {
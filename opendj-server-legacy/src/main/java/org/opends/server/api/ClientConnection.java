@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.api;
 
@@ -124,6 +125,12 @@ public abstract class ClientConnection
    */
   private Object saslAuthState;
 
+  /**
+   * The opaque information cached by the access control handler for the
+   * authenticated identity of this client connection.
+   */
+  private volatile Object accessControlState;
+
   /** A string representation of the time that this client connection was established. */
   private final String connectTimeString;
 
@@ -1155,6 +1162,36 @@ public abstract class ClientConnection
   }
 
 
+
+  /**
+   * Retrieves an opaque set of information that the access control
+   * handler caches for this client connection.
+   *
+   * @return  An opaque set of information cached by the access
+   *          control handler, or {@code null} if there is none.
+   */
+  public final Object getAccessControlState()
+  {
+    return accessControlState;
+  }
+
+
+
+  /**
+   * Specifies an opaque set of information that the access control
+   * handler caches for this client connection. The access control
+   * handler is responsible for checking that it still applies to the
+   * authenticated identity of the client connection.
+   *
+   * @param  accessControlState  An opaque set of information cached
+   *                             by the access control handler.
+   */
+  public final void setAccessControlState(Object accessControlState)
+  {
+    this.accessControlState = accessControlState;
+  }
+
+
   /**
    * Return the lowest level channel associated with a connection.
    * This is normally the channel associated with the socket
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.api;
 
@@ -24,6 +25,7 @@ import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.server.config.server.GroupImplementationCfg;
 import org.opends.server.core.ServerContext;
 import org.opends.server.types.DirectoryException;
@@ -203,6 +205,21 @@ public abstract class Group<T extends GroupImplementationCfg>
    */
   public abstract boolean supportsNestedGroups();
 
+  /**
+   * Retrieves the attribute type used to explicitly list the DNs of
+   * the members of this group in its entry, if the membership of this
+   * group only depends on this list.  The group manager indexes the
+   * memberships of such groups, instead of evaluating them.
+   *
+   * @return  The attribute type listing the DNs of the members of this
+   *          group, or {@code null} if the members of this group are
+   *          not explicitly listed in its entry.
+   */
+  public AttributeType getMemberListAttributeType()
+  {
+    return null;
+  }
+
   /**
    * Retrieves a list of the DNs of any nested groups whose members
    * should be considered members of this group.
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.api;
 
@@ -40,6 +41,7 @@ import org.opends.server.core.ModifyDNOperation;
 import org.opends.server.core.ModifyOperation;
 import org.opends.server.core.PersistentSearch;
 import org.opends.server.core.PersistentSearch.CancellationCallback;
+import org.opends.server.core.PersistentSearchRouter;
 import org.opends.server.core.SearchOperation;
 import org.opends.server.core.ServerContext;
 import org.opends.server.monitors.LocalBackendMonitor;
@@ -79,6 +81,8 @@ public abstract class LocalBackend<C extends Configuration> extends Backend<C>
 
   /** The set of persistent searches registered with this backend. */
   private final ConcurrentLinkedQueue<PersistentSearch> persistentSearches = new ConcurrentLinkedQueue<>();
+  /** Routes the change notifications to the persistent searches registered with this backend. */
+  private final PersistentSearchRouter persistentSearchRouter = new PersistentSearchRouter();
 
   /** The backend monitor associated with this backend. */
   private LocalBackendMonitor backendMonitor;
@@ -668,6 +672,7 @@ public abstract class LocalBackend<C extends Configuration> extends Backend<C>
   public void registerPersistentSearch(PersistentSearch persistentSearch) throws DirectoryException
   {
     persistentSearches.add(persistentSearch);
+    persistentSearchRouter.register(persistentSearch);
 
     persistentSearch.registerCancellationCallback(new CancellationCallback()
     {
@@ -675,6 +680,7 @@ public abstract class LocalBackend<C extends Configuration> extends Backend<C>
       public void persistentSearchCancelled(PersistentSearch psearch)
       {
         persistentSearches.remove(psearch);
+        persistentSearchRouter.deregister(psearch);
       }
     });
   }
@@ -691,6 +697,17 @@ public abstract class LocalBackend<C extends Configuration> extends Backend<C>
     return persistentSearches;
   }
 
+  /**
+   * Returns the router of the change notifications to the persistent searches
+   * currently active against this local backend.
+   *
+   * @return the router of the change notifications to the persistent searches
+   */
+  public PersistentSearchRouter getPersistentSearchRouter()
+  {
+    return persistentSearchRouter;
+  }
+
   /**
    * Retrieves the total number of entries contained in this backend,
    * if that information is available.
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.api;
 
@@ -25,6 +26,7 @@ import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.ldap.Assertion;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ConditionResult;
+import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.DecodeException;
 import org.forgerock.opendj.ldap.schema.MatchingRule;
 import org.forgerock.opendj.server.config.server.VirtualAttributeCfg;
@@ -32,6 +34,7 @@ import org.opends.server.core.SearchOperation;
 import org.opends.server.types.Attribute;
 import org.opends.server.types.Entry;
 import org.opends.server.types.InitializationException;
+import org.opends.server.types.SearchFilter;
 import org.opends.server.types.VirtualAttributeRule;
 
 /**
@@ -128,6 +131,24 @@ public abstract class VirtualAttributeProvider
 
 
 
+  /**
+   * Indicates whether the values generated by this virtual attribute
+   * provider for an entry may be generated once and reused by the
+   * copies of that entry built for a single operation, such as the
+   * entries returned by a search, rather than generated each time
+   * they are accessed.
+   *
+   * @return  {@code true} if the values generated for an entry may be
+   *          reused for the duration of an operation, or
+   *          {@code false} if not.
+   */
+  public boolean mayCacheValues()
+  {
+    return false;
+  }
+
+
+
   /**
    * Generates an unmodifiable attribute with the values for the provided entry.
    *
@@ -512,5 +533,33 @@ public abstract class VirtualAttributeProvider
    */
   public abstract void processSearch(VirtualAttributeRule rule,
                                      SearchOperation searchOperation);
+
+
+
+  /**
+   * Retrieves the DNs of the entries which may match the provided
+   * search filter component targeting this virtual attribute, if
+   * they can be determined without evaluating every entry.  This
+   * allows the backends to combine the component with the components
+   * of the same search filter which are evaluated against the
+   * attribute indexes.  The returned entries are still checked
+   * against the whole search filter.
+   *
+   * @param  rule    The virtual attribute rule which defines the
+   *                 constraints for the virtual attribute.
+   * @param  filter  The search filter component targeting the
+   *                 attribute type of the virtual attribute rule.
+   * @param  limit   The maximum number of DNs to return.
+   *
+   * @return  The DNs of the entries which may match the provided
+   *          search filter component, or {@code null} if they cannot
+   *          be determined or if there are more than {@code limit}.
+   */
+  public Collection<DN> getCandidateEntryDNs(VirtualAttributeRule rule,
+                                             SearchFilter filter,
+                                             int limit)
+  {
+    return null;
+  }
 }
 
@@ -13,6 +13,7 @@
  *
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2010-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -346,8 +347,7 @@ public class Aci implements Comparable<Aci>
         //this point.
         return hasNoExtOpOrTargetControl(aci.getTargets())
             && haveSimilarRights(aci, matchCtx)
-            && AciTargets.isTargetApplicable(aci, matchCtx)
-            && AciTargets.isTargetFilterApplicable(aci, matchCtx)
+            && matchCtx.isEntryTargetApplicable(aci)
             && AciTargets.isTargAttrFiltersApplicable(aci, matchCtx)
             && AciTargets.isTargetAttrApplicable(aci, matchCtx);
       }
@@ -13,6 +13,7 @@
  *
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -24,7 +25,9 @@ import java.net.InetAddress;
 import java.security.cert.Certificate;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
@@ -157,6 +160,15 @@ abstract class AciContainer implements AciTargetMatchContext, AciEvalContext {
     /** Flag used to determine if ACI all attributes target matched. */
     private int evalAllAttributes;
 
+    /** The candidate ACIs of the resource entry, computed once for all of its attributes. */
+    private List<Aci> candidateAcis;
+    /** The generation of the ACI list the candidate ACIs come from. */
+    private long aciListGeneration;
+    /** The results of the target and targetfilter rules of the candidate ACIs for the resource entry. */
+    private final Map<Aci, Boolean> entryTargetMatches = new IdentityHashMap<>();
+    /** The identity bind rule results of the client connection, lazily retrieved. */
+    private BindRuleResultCache bindRuleResults;
+
     /** String used to hold a control OID string. */
     private String controlOID;
     /** String used to hold an extended operation OID string. */
@@ -460,6 +472,33 @@ abstract class AciContainer implements AciTargetMatchContext, AciEvalContext {
         return isFirst;
     }
 
+  /**
+   * Returns the candidate ACIs of the resource entry. They are retrieved from
+   * the ACI list the first time, then reused for all the attributes of the
+   * resource entry.
+   *
+   * @param aciList The ACI list to retrieve the candidate ACIs from.
+   * @return The candidate ACIs of the resource entry.
+   */
+    List<Aci> getCandidateAcis(AciList aciList) {
+      if (candidateAcis == null) {
+        aciListGeneration = aciList.getGeneration();
+        candidateAcis = aciList.getCandidateAcis(getResourceDN());
+      }
+      return candidateAcis;
+    }
+
+    @Override
+    public boolean isEntryTargetApplicable(Aci aci) {
+      Boolean matches = entryTargetMatches.get(aci);
+      if (matches == null) {
+        matches = AciTargets.isTargetApplicable(aci, this)
+            && AciTargets.isTargetFilterApplicable(aci, this);
+        entryTargetMatches.put(aci, matches);
+      }
+      return matches;
+    }
+
     @Override
     public void setIsFirstAttribute(boolean val) {
         isFirst=val;
@@ -647,6 +686,22 @@ abstract class AciContainer implements AciTargetMatchContext, AciEvalContext {
       return matched;
     }
 
+    @Override
+    public EnumEvalResult evaluateIdentityBindRule(KeywordBindRule rule) {
+      // Only cache the results evaluated on behalf of the authenticated
+      // identity of the client connection
+      if (useAuthzid || proxiedAuthorization
+          || authInfo != clientConnection.getAuthenticationInfo()
+          || authorizationEntry != authInfo.getAuthorizationEntry()) {
+        return rule.evaluate(this);
+      }
+      if (bindRuleResults == null) {
+        bindRuleResults = BindRuleResultCache.getInstance(
+            clientConnection, authorizationEntry, aciListGeneration);
+      }
+      return bindRuleResults.evaluate(rule, this);
+    }
+
     @Override
     public boolean isMemberOf(Group<?> group) {
         try {
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -133,6 +134,16 @@ public interface AciEvalContext
      */
     boolean isMemberOf(Group<?> group);
 
+    /**
+     * Evaluates a keyword bind rule whose result only depends on the
+     * authenticated identity of the client, such as a groupdn bind rule.
+     * The result may be remembered for the client connection, as long as
+     * its authenticated identity, the ACIs and the groups do not change.
+     * @param rule The keyword bind rule to evaluate.
+     * @return An enumeration evaluation result.
+     */
+    EnumEvalResult evaluateIdentityBindRule(KeywordBindRule rule);
+
   /**
    * Returns true if the hashtable of ACIs that matched the targattrfilters
    * keyword evaluation is empty.  Used in a geteffectiverights control
@@ -14,6 +14,7 @@
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
  * Portions Copyright 2013 Manuel Gaupp
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -478,7 +479,6 @@ public final class AciHandler extends
    */
   boolean accessAllowed(AciContainer container)
   {
-    DN dn = container.getResourceDN();
     // For ACI_WRITE_ADD and ACI_WRITE_DELETE set the ACI_WRITE
     // right.
     if (container.hasRights(ACI_WRITE_ADD)
@@ -512,8 +512,8 @@ public final class AciHandler extends
       }
     }
 
-    // First get all allowed candidate ACIs.
-    List<Aci> candidates = aciList.getCandidateAcis(dn);
+    // First get all allowed candidate ACIs, once for all the attributes of the entry.
+    List<Aci> candidates = container.getCandidateAcis(aciList);
     /*
      * Create an applicable list of ACIs by target matching each
      * candidate ACI against the container's target match view.
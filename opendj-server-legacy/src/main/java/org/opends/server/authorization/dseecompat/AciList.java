@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -20,12 +21,14 @@ import static org.opends.messages.AccessControlMessages.*;
 import static org.opends.server.authorization.dseecompat.AciHandler.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -58,6 +61,19 @@ public class AciList {
   private final ReentrantReadWriteLock lock =
           new ReentrantReadWriteLock();
 
+  /** The maximum number of parent DNs whose inherited ACIs are cached. */
+  private static final int MAX_CACHED_SCOPES = 10000;
+
+  /**
+   * The ACIs inherited from each recently evaluated parent DN, excluding the
+   * global ACIs. Populated under the read lock, cleared under the write lock.
+   */
+  private final Map<DN, List<Aci>> inheritedAcisCache =
+          new ConcurrentHashMap<>();
+
+  /** Incremented under the write lock each time the ACI list changes. */
+  private volatile long generation;
+
   /** The configuration DN used to compare against the global ACI entry DN. */
   private final DN configDN;
 
@@ -76,12 +92,15 @@ public class AciList {
    * and are included in the candidate set only if they have no
    * "target" keyword rules, or if the target keyword rule matches for
    * the specified base DN.
+   * <p>
+   * The ACIs inherited from the parents of the base DN are cached by parent
+   * DN, so that the entries of a same subtree do not walk up the DIT again.
    *
    * @param baseDN  The DN to check.
    * @return A list of candidate ACIs that might be applicable.
    */
   public List<Aci> getCandidateAcis(DN baseDN) {
-    List<Aci> candidates = new LinkedList<>();
+    List<Aci> candidates = new ArrayList<>();
     if(baseDN == null)
     {
       return candidates;
@@ -90,35 +109,28 @@ public class AciList {
     lock.readLock().lock();
     try
     {
-      //Save the baseDN in case we need to evaluate a global ACI.
-      DN entryDN=baseDN;
-      while (baseDN != null) {
+      if (!baseDN.isRootDN()) {
         List<Aci> acis = aciList.get(baseDN);
         if (acis != null) {
-          //Check if there are global ACIs. Global ACI has a NULL DN.
-          if (baseDN.isRootDN()) {
-            for (Aci aci : acis) {
-              AciTargets targets = aci.getTargets();
-              //If there is a target, evaluate it to see if this ACI should
-              //be included in the candidate set.
-              if (targets != null
-                  && AciTargets.isTargetApplicable(aci, targets, entryDN))
-              {
-                  candidates.add(aci);  //Add this ACI to the candidates.
-              }
-            }
-          } else {
-            candidates.addAll(acis);
-          }
+          candidates.addAll(acis);
         }
-        if(baseDN.isRootDN()) {
-          break;
+        DN parentDN = baseDN.parent();
+        if (parentDN != null && !parentDN.isRootDN()) {
+          candidates.addAll(getInheritedAcis(parentDN));
         }
-        DN parentDN=baseDN.parent();
-        if(parentDN == null) {
-          baseDN=DN.rootDN();
-        } else {
-          baseDN=parentDN;
+      }
+      //Check if there are global ACIs. Global ACI has a NULL DN.
+      List<Aci> globalAcis = aciList.get(DN.rootDN());
+      if (globalAcis != null) {
+        for (Aci aci : globalAcis) {
+          AciTargets targets = aci.getTargets();
+          //If there is a target, evaluate it to see if this ACI should
+          //be included in the candidate set.
+          if (targets != null
+              && AciTargets.isTargetApplicable(aci, targets, baseDN))
+          {
+              candidates.add(aci);  //Add this ACI to the candidates.
+          }
         }
       }
       return candidates;
@@ -129,6 +141,53 @@ public class AciList {
     }
   }
 
+  /**
+   * Returns the ACIs of the provided DN and of all its parents, excluding the
+   * global ACIs. Must be called with the read lock held.
+   *
+   * @param dn  The DN which is not the root DN.
+   * @return The ACIs inherited by the children of the provided DN.
+   */
+  private List<Aci> getInheritedAcis(DN dn) {
+    List<Aci> inheritedAcis = inheritedAcisCache.get(dn);
+    if (inheritedAcis != null) {
+      return inheritedAcis;
+    }
+
+    inheritedAcis = new ArrayList<>();
+    for (DN scopeDN = dn; scopeDN != null && !scopeDN.isRootDN();
+         scopeDN = scopeDN.parent()) {
+      List<Aci> acis = aciList.get(scopeDN);
+      if (acis != null) {
+        inheritedAcis.addAll(acis);
+      }
+    }
+    inheritedAcis = Collections.unmodifiableList(inheritedAcis);
+    if (inheritedAcisCache.size() < MAX_CACHED_SCOPES) {
+      inheritedAcisCache.put(dn, inheritedAcis);
+    }
+    return inheritedAcis;
+  }
+
+  /**
+   * Returns the generation of the ACI list, which changes each time ACIs are
+   * added, modified, renamed or removed.
+   *
+   * @return The generation of the ACI list.
+   */
+  public long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Records that the ACI list changed. Must be called with the write lock
+   * held.
+   */
+  private void aciListChanged() {
+    inheritedAcisCache.clear();
+    generation++;
+  }
+
   /**
    * Add all the ACI from a set of entries to the ACI list. There is no need
    * to check for global ACIs since they are processe by the AciHandler at
@@ -156,6 +215,7 @@ public class AciList {
     }
     finally
     {
+      aciListChanged();
       lock.writeLock().unlock();
     }
   }
@@ -177,6 +237,7 @@ public class AciList {
     }
     finally
     {
+      aciListChanged();
       lock.writeLock().unlock();
     }
   }
@@ -217,6 +278,7 @@ public class AciList {
     }
     finally
     {
+      aciListChanged();
       lock.writeLock().unlock();
     }
   }
@@ -306,6 +368,7 @@ public class AciList {
     }
     finally
     {
+      aciListChanged();
       lock.writeLock().unlock();
     }
   }
@@ -360,6 +423,7 @@ public class AciList {
     }
     finally
     {
+      aciListChanged();
       lock.writeLock().unlock();
     }
   }
@@ -387,6 +451,7 @@ public class AciList {
     }
     finally
     {
+      aciListChanged();
       lock.writeLock().unlock();
     }
   }
@@ -431,6 +496,7 @@ public class AciList {
     }
     finally
     {
+      aciListChanged();
       lock.writeLock().unlock();
     }
   }
@@ -13,6 +13,7 @@
  *
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -68,6 +69,16 @@ public interface AciTargetMatchContext {
      */
     boolean isFirstAttribute();
 
+    /**
+     * Checks the target and targetfilter rules of an ACI against the
+     * resource entry. Those rules do not depend on the attribute being
+     * evaluated, so the result may be remembered for the resource entry.
+     * @param aci The ACI to match.
+     * @return True if the target and targetfilter rules of the ACI match
+     * the resource entry.
+     */
+    boolean isEntryTargetApplicable(Aci aci);
+
     /**
      * Set to true if the first attribute of the resource entry is
      * being evaluated.
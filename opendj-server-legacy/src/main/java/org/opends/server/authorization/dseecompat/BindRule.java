@@ -13,6 +13,7 @@
  *
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -42,6 +43,8 @@ public class BindRule {
     private final EnumBooleanTypes booleanType;
     /** The keyword of a simple bind rule. */
     private final EnumBindRuleKeyword keyword;
+    /** True if the simple bind rule only depends on the authenticated identity of the client. */
+    private final boolean identityRule;
 
     /** Regular expression group position of a bind rule keyword. */
     private static final int keywordPos = 1;
@@ -87,6 +90,7 @@ public class BindRule {
     private BindRule(EnumBindRuleKeyword keyword, KeywordBindRule rule) {
         this.keyword=keyword;
         this.keywordRuleMap.put(keyword.toString(), rule);
+        this.identityRule = BindRuleResultCache.isCacheable(rule);
         this.booleanType = null;
         this.left = null;
         this.right = null;
@@ -127,6 +131,7 @@ public class BindRule {
      */
     private BindRule(BindRule left, BindRule right, EnumBooleanTypes booleanType) {
         this.keyword = null;
+        this.identityRule = false;
         this.booleanType = booleanType;
         this.left = left;
         this.right = right;
@@ -464,7 +469,11 @@ public class BindRule {
         //Simple bind rules have a null booleanType enumeration.
         if(this.booleanType == null) {
             KeywordBindRule rule=keywordRuleMap.get(keyword.toString());
-            ret = rule.evaluate(evalCtx);
+            if (identityRule) {
+                ret = evalCtx.evaluateIdentityBindRule(rule);
+            } else {
+                ret = rule.evaluate(evalCtx);
+            }
         } else {
             ret = evalComplex(left.evaluate(evalCtx),right.evaluate(evalCtx));
         }
@@ -0,0 +1,156 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.authorization.dseecompat;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.opends.server.api.ClientConnection;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.types.AuthenticationInfo;
+import org.opends.server.types.Entry;
+
+/**
+ * Caches, for a client connection, the results of the keyword bind rules
+ * which only depend on the authenticated identity of the client: the groupdn,
+ * authmethod and ssf bind rules, and the userdn bind rules which do not refer
+ * to the resource entry.
+ * <p>
+ * A cache is only valid for the authentication information, the authorization
+ * entry and the security strength factor of the client connection it was
+ * created for, for one generation of the ACI list and for one state of the
+ * groups. {@link #getInstance} replaces it as soon as any of them changes.
+ * <p>
+ * This class is thread safe.
+ */
+final class BindRuleResultCache
+{
+  /** The maximum number of bind rule results cached for a client connection. */
+  private static final int MAX_RESULTS = 1000;
+
+  private final AuthenticationInfo authInfo;
+  private final Entry authorizationEntry;
+  private final int ssf;
+  private final long aciGeneration;
+  private final long membershipToken;
+  private final ConcurrentMap<KeywordBindRule, EnumEvalResult> results = new ConcurrentHashMap<>();
+
+  private BindRuleResultCache(AuthenticationInfo authInfo, Entry authorizationEntry, int ssf,
+      long aciGeneration, long membershipToken)
+  {
+    this.authInfo = authInfo;
+    this.authorizationEntry = authorizationEntry;
+    this.ssf = ssf;
+    this.aciGeneration = aciGeneration;
+    this.membershipToken = membershipToken;
+  }
+
+  /**
+   * Returns the cache of the provided client connection, creating a new one
+   * if the cached results no longer apply to its authenticated identity.
+   *
+   * @param clientConnection
+   *          The client connection whose bind rule results are cached.
+   * @param authorizationEntry
+   *          The authorization entry of the evaluated operation, which must
+   *          be the one of the client connection.
+   * @param aciGeneration
+   *          The generation of the ACI list the evaluated ACIs come from.
+   * @return The cache of the client connection.
+   */
+  static BindRuleResultCache getInstance(ClientConnection clientConnection, Entry authorizationEntry,
+      long aciGeneration)
+  {
+    final AuthenticationInfo authInfo = clientConnection.getAuthenticationInfo();
+    final int ssf = clientConnection.getSSF();
+    // Read the token before evaluating any bind rule,
+    // so that a cached result is never older than its token
+    final long membershipToken = DirectoryServer.getGroupManager().membershipToken();
+    final Object state = clientConnection.getAccessControlState();
+    if (state instanceof BindRuleResultCache)
+    {
+      final BindRuleResultCache cache = (BindRuleResultCache) state;
+      if (cache.authInfo == authInfo
+          && cache.authorizationEntry == authorizationEntry
+          && cache.ssf == ssf
+          && cache.aciGeneration == aciGeneration
+          && cache.membershipToken == membershipToken)
+      {
+        return cache;
+      }
+    }
+    final BindRuleResultCache cache =
+        new BindRuleResultCache(authInfo, authorizationEntry, ssf, aciGeneration, membershipToken);
+    clientConnection.setAccessControlState(cache);
+    return cache;
+  }
+
+  /**
+   * Evaluates the provided keyword bind rule, or returns its cached result.
+   *
+   * @param rule
+   *          A keyword bind rule for which {@link #isCacheable(KeywordBindRule)}
+   *          returns {@code true}.
+   * @param evalCtx
+   *          The evaluation context, which must be evaluated on behalf of the
+   *          authenticated identity of the client connection.
+   * @return An enumeration evaluation result.
+   */
+  EnumEvalResult evaluate(KeywordBindRule rule, AciEvalContext evalCtx)
+  {
+    EnumEvalResult result = results.get(rule);
+    if (result == null)
+    {
+      result = rule.evaluate(evalCtx);
+      // Failures, such as hitting a system limit, are not cached
+      if ((result == EnumEvalResult.TRUE || result == EnumEvalResult.FALSE)
+          && results.size() < MAX_RESULTS)
+      {
+        results.put(rule, result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of cached bind rule results.
+   *
+   * @return The number of cached bind rule results.
+   */
+  int size()
+  {
+    return results.size();
+  }
+
+  /**
+   * Indicates whether the result of the provided keyword bind rule only
+   * depends on the authenticated identity of the client.
+   *
+   * @param rule
+   *          The keyword bind rule.
+   * @return {@code true} if the result of the keyword bind rule can be cached.
+   */
+  static boolean isCacheable(KeywordBindRule rule)
+  {
+    if (rule instanceof UserDN)
+    {
+      return !((UserDN) rule).refersToResource();
+    }
+    return rule instanceof GroupDN
+        || rule instanceof AuthMethod
+        || rule instanceof SSF;
+  }
+}
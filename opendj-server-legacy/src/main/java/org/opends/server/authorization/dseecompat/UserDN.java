@@ -13,6 +13,7 @@
  *
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -183,6 +184,23 @@ public class UserDN implements KeywordBindRule {
         return matched.getRet(type, undefined);
     }
 
+    /**
+     * Indicates whether this userdn bind rule compares the client DN with the
+     * resource entry, which is the case of the "ldap:///self" and
+     * "ldap:///parent" URLs. The evaluation of the other userdn bind rules only
+     * depends on the authenticated identity of the client.
+     * @return  True if the evaluation depends on the resource entry.
+     */
+    boolean refersToResource() {
+        for (UserDNTypeURL dnTypeURL : urlList) {
+            EnumUserDNType dnType = dnTypeURL.getUserDNType();
+            if (dnType == EnumUserDNType.SELF || dnType == EnumUserDNType.PARENT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Performs an evaluation of a single UserDNTypeURL of a userdn bind
      * rule using the evaluation context provided. This method is called
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.backends;
 
@@ -26,8 +27,8 @@ import static org.opends.server.util.LDIFWriter.*;
 import static org.opends.server.util.ServerConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
+import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
@@ -197,6 +198,18 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
   private Set<DN> baseDNs;
   /** The set of supported controls for this backend. */
   private final Set<String> supportedControls = Collections.singleton(OID_ECL_COOKIE_EXCHANGE_CONTROL);
+
+  /** Use one formatter per thread as DateFormat is not thread-safe. */
+  private static final ThreadLocal<DateFormat> CHANGE_TIME_FORMAT = new ThreadLocal<DateFormat>()
+  {
+    @Override
+    protected DateFormat initialValue()
+    {
+      final SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT_GMT_TIME);
+      dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+      return dateFormat;
+    }
+  };
   /** Whether the base changelog entry has subordinates. */
   private Boolean baseEntryHasSubordinates;
 
@@ -737,39 +750,20 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     }
     else if (filter.getFilterType() == FilterType.AND)
     {
-      // TODO: it looks like it could be generalized to N components, not only two
-      final Collection<SearchFilter> components = filter.getFilterComponents();
-      final SearchFilter filters[] = components.toArray(new SearchFilter[0]);
-      long upper1 = -1;
-      long lower1 = -1;
-      long upper2 = -1;
-      long lower2 = -1;
-      if (filters.length > 0)
-      {
-        ChangeNumberRange range1 = optimizeSearchUsingFilter(filters[0]);
-        upper1 = range1.upperBound;
-        lower1 = range1.lowerBound;
-      }
-      if (filters.length > 1)
-      {
-        ChangeNumberRange range2 = optimizeSearchUsingFilter(filters[1]);
-        upper2 = range2.upperBound;
-        lower2 = range2.lowerBound;
-      }
-      if (upper1 == -1)
+      // the range is the intersection of the ranges of all the components
+      for (SearchFilter component : filter.getFilterComponents())
       {
-        range.upperBound = upper2;
-      }
-      else if (upper2 == -1)
-      {
-        range.upperBound = upper1;
-      }
-      else
-      {
-        range.upperBound = Math.min(upper1, upper2);
+        final ChangeNumberRange componentRange = optimizeSearchUsingFilter(component);
+        if (range.upperBound == -1)
+        {
+          range.upperBound = componentRange.upperBound;
+        }
+        else if (componentRange.upperBound != -1)
+        {
+          range.upperBound = Math.min(range.upperBound, componentRange.upperBound);
+        }
+        range.lowerBound = Math.max(range.lowerBound, componentRange.lowerBound);
       }
-
-      range.lowerBound = Math.max(lower1, lower2);
     }
     return range;
   }
@@ -1138,35 +1132,84 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
   private static Entry createEntryFromMsg(final DN baseDN, final long changeNumber, final String cookie,
       final UpdateMsg msg) throws DirectoryException
   {
+    return createEntryFromMsg(baseDN, changeNumber, cookie, msg, true);
+  }
+
+  /**
+   * Creates a changelog entry, optionally without the attributes built from
+   * the changes of the update message, which are by far the most expensive to
+   * build.
+   *
+   * @see #addChangesAttributes(Entry, UpdateMsg)
+   */
+  private static Entry createEntryFromMsg(final DN baseDN, final long changeNumber, final String cookie,
+      final UpdateMsg msg, final boolean withChanges) throws DirectoryException
+  {
+    final Entry entry;
     if (msg instanceof AddMsg)
     {
-      return createAddMsg(baseDN, changeNumber, cookie, msg);
+      entry = createChangelogEntry(baseDN, changeNumber, cookie, (AddMsg) msg, "add", null);
+    }
+    else if (msg instanceof ModifyDNMsg)
+    {
+      final ModifyDNMsg modDNMsg = (ModifyDNMsg) msg;
+      entry = createChangelogEntry(baseDN, changeNumber, cookie, modDNMsg, "modrdn", null);
+      addAttribute(entry, "newrdn", modDNMsg.getNewRDN());
+      if (modDNMsg.getNewSuperior() != null)
+      {
+        addAttribute(entry, "newsuperior", modDNMsg.getNewSuperior());
+      }
+      addAttribute(entry, "deleteoldrdn", String.valueOf(modDNMsg.deleteOldRdn()));
     }
     else if (msg instanceof ModifyCommonMsg)
     {
-      return createModifyMsg(baseDN, changeNumber, cookie, msg);
+      entry = createChangelogEntry(baseDN, changeNumber, cookie, (ModifyCommonMsg) msg, "modify", null);
     }
     else if (msg instanceof DeleteMsg)
     {
       final DeleteMsg delMsg = (DeleteMsg) msg;
-      return createChangelogEntry(baseDN, changeNumber, cookie, delMsg, null, "delete", delMsg.getInitiatorsName());
+      return createChangelogEntry(baseDN, changeNumber, cookie, delMsg, "delete", delMsg.getInitiatorsName());
     }
-    throw new DirectoryException(ResultCode.OPERATIONS_ERROR,
-        LocalizableMessage.raw("Unexpected message type when trying to create changelog entry for dn %s : %s", baseDN,
-            msg.getClass()));
+    else
+    {
+      throw new DirectoryException(ResultCode.OPERATIONS_ERROR,
+          LocalizableMessage.raw("Unexpected message type when trying to create changelog entry for dn %s : %s",
+              baseDN, msg.getClass()));
+    }
+
+    if (withChanges)
+    {
+      addChangesAttributes(entry, msg);
+    }
+    return entry;
   }
 
   /**
-   * Creates an entry from an add message.
+   * Adds the 'changes' and 'changeInitiatorsName' attributes to a changelog
+   * entry created from an add or modify message. Building them requires
+   * decoding the changes of the message.
+   */
+  private static void addChangesAttributes(final Entry entry, final UpdateMsg msg)
+  {
+    if (msg instanceof AddMsg)
+    {
+      addAddChanges(entry, (AddMsg) msg);
+    }
+    else if (msg instanceof ModifyCommonMsg)
+    {
+      addModifyChanges(entry, (ModifyCommonMsg) msg);
+    }
+  }
+
+  /**
+   * Adds the changes of an add message to a changelog entry.
    * <p>
    * Map addMsg to an LDIF string for the 'changes' attribute, and pull out
    * change initiators name if available which is contained in the creatorsName
    * attribute.
    */
-  private static Entry createAddMsg(final DN baseDN, final long changeNumber, final String cookie, final UpdateMsg msg)
-      throws DirectoryException
+  private static void addAddChanges(final Entry entry, final AddMsg addMsg)
   {
-    final AddMsg addMsg = (AddMsg) msg;
     String changeInitiatorsName = null;
     String ldifChanges = null;
     try
@@ -1194,20 +1237,18 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
       logEncodingMessageError("add", addMsg.getDN(), e);
     }
 
-    return createChangelogEntry(baseDN, changeNumber, cookie, addMsg, ldifChanges, "add", changeInitiatorsName);
+    addChangesAttributes(entry, ldifChanges, changeInitiatorsName);
   }
 
   /**
-   * Creates an entry from a modify message.
+   * Adds the changes of a modify message to a changelog entry.
    * <p>
    * Map the modifyMsg to an LDIF string for the 'changes' attribute, and pull
    * out change initiators name if available which is contained in the
    * modifiersName attribute.
    */
-  private static Entry createModifyMsg(final DN baseDN, final long changeNumber, final String cookie,
-      final UpdateMsg msg) throws DirectoryException
+  private static void addModifyChanges(final Entry entry, final ModifyCommonMsg modifyMsg)
   {
-    final ModifyCommonMsg modifyMsg = (ModifyCommonMsg) msg;
     String changeInitiatorsName = null;
     String ldifChanges = null;
     try
@@ -1244,21 +1285,20 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
       logEncodingMessageError("modify", modifyMsg.getDN(), e);
     }
 
-    final boolean isModifyDNMsg = modifyMsg instanceof ModifyDNMsg;
-    final Entry entry = createChangelogEntry(baseDN, changeNumber, cookie, modifyMsg, ldifChanges,
-        isModifyDNMsg ? "modrdn" : "modify", changeInitiatorsName);
+    addChangesAttributes(entry, ldifChanges, changeInitiatorsName);
+  }
 
-    if (isModifyDNMsg)
+  private static void addChangesAttributes(final Entry entry, final String ldifChanges,
+      final String changeInitiatorsName)
+  {
+    if (ldifChanges != null)
     {
-      final ModifyDNMsg modDNMsg = (ModifyDNMsg) modifyMsg;
-      addAttribute(entry, "newrdn", modDNMsg.getNewRDN());
-      if (modDNMsg.getNewSuperior() != null)
-      {
-        addAttribute(entry, "newsuperior", modDNMsg.getNewSuperior());
-      }
-      addAttribute(entry, "deleteoldrdn", String.valueOf(modDNMsg.deleteOldRdn()));
+      addAttribute(entry, "changes", ldifChanges);
+    }
+    if (changeInitiatorsName != null)
+    {
+      addAttribute(entry, "changeInitiatorsName", changeInitiatorsName);
     }
-    return entry;
   }
 
   /**
@@ -1291,8 +1331,7 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
    * entry creation common to all types of msgs (ADD, DEL, MOD, MODDN).
    */
   private static Entry createChangelogEntry(final DN baseDN, final long changeNumber, final String cookie,
-      final LDAPUpdateMsg msg, final String ldifChanges, final String changeType,
-      final String changeInitiatorsName) throws DirectoryException
+      final LDAPUpdateMsg msg, final String changeType, final String changeInitiatorsName) throws DirectoryException
   {
     final CSN csn = msg.getCSN();
     String dnString;
@@ -1321,9 +1360,7 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     {
       addAttributeByType("changeNumber", String.valueOf(changeNumber), userAttrs, opAttrs);
     }
-    SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT_GMT_TIME);
-    dateFormat.setTimeZone(TimeZone.getTimeZone("UTC")); // ??
-    final String format = dateFormat.format(new Date(csn.getTime()));
+    final String format = CHANGE_TIME_FORMAT.get().format(new Date(csn.getTime()));
     addAttributeByType("changeTime", format, userAttrs, opAttrs);
     addAttributeByType("changeType", changeType, userAttrs, opAttrs);
     addAttributeByType("targetDN", msg.getDN().toString(), userAttrs, opAttrs);
@@ -1332,10 +1369,6 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     addAttributeByType("replicationCSN", csn.toString(), userAttrs, opAttrs);
     addAttributeByType("replicaIdentifier", Integer.toString(csn.getServerId()), userAttrs, opAttrs);
 
-    if (ldifChanges != null)
-    {
-      addAttributeByType("changes", ldifChanges, userAttrs, opAttrs);
-    }
     if (changeInitiatorsName != null)
     {
       addAttributeByType("changeInitiatorsName", changeInitiatorsName, userAttrs, opAttrs);
@@ -1370,6 +1403,33 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     return new Entry(DN.valueOf(dnString), CHANGELOG_ENTRY_OBJECT_CLASSES, userAttrs, opAttrs);
   }
 
+  /**
+   * Creates the changelog entry of the provided update message and sends it if
+   * it matches the base, scope and filter of the current search operation.
+   * <p>
+   * The attributes built from the changes of the message are only built when
+   * the search needs them, and after checking the entry when the filter does
+   * not reference them.
+   *
+   * @return {@code true} if search should continue, {@code false} otherwise
+   */
+  private static boolean sendEntryIfMatches(final SearchOperation searchOp, final ChangesUsage changesUsage,
+      final DN baseDN, final long changeNumber, final String entryCookie, final UpdateMsg msg,
+      final String controlsCookie) throws DirectoryException
+  {
+    final Entry entry = createEntryFromMsg(baseDN, changeNumber, entryCookie, msg, changesUsage.filtered);
+    if (!matchBaseAndScopeAndFilter(searchOp, entry))
+    {
+      // maybe the next entry will match?
+      return true;
+    }
+    if (changesUsage.returned && !changesUsage.filtered)
+    {
+      addChangesAttributes(entry, msg);
+    }
+    return searchOp.returnEntry(entry, getControls(controlsCookie));
+  }
+
   /**
    * Sends the entry if it matches the base, scope and filter of the current search operation.
    * It will also send the base changelog entry if it needs to be sent and was not sent before.
@@ -1489,6 +1549,74 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     }
   }
 
+  /**
+   * Describes how a search uses the 'changes' and 'changeInitiatorsName'
+   * attributes, built by decoding the changes of the update messages.
+   */
+  private static final class ChangesUsage
+  {
+    /** Whether the search filter references the attributes. */
+    private final boolean filtered;
+    /** Whether the search returns the attributes. */
+    private final boolean returned;
+
+    private ChangesUsage(final SearchOperation searchOp)
+    {
+      this.filtered = isReferencedBy(searchOp.getFilter());
+      this.returned = isRequestedBy(searchOp.getAttributes());
+    }
+
+    private static boolean isReferencedBy(final SearchFilter filter)
+    {
+      switch (filter.getFilterType())
+      {
+      case AND:
+      case OR:
+        for (SearchFilter component : filter.getFilterComponents())
+        {
+          if (isReferencedBy(component))
+          {
+            return true;
+          }
+        }
+        return false;
+      case NOT:
+        return isReferencedBy(filter.getNotComponent());
+      default:
+        // an extensible match without attribute type matches all the attributes
+        return filter.getAttributeType() == null || isChangesAttribute(filter.getAttributeType());
+      }
+    }
+
+    private static boolean isRequestedBy(final Set<String> attributes)
+    {
+      if (attributes == null || attributes.isEmpty())
+      {
+        return true;
+      }
+      for (String attribute : attributes)
+      {
+        if ("*".equals(attribute) || "+".equals(attribute) || attribute.startsWith("@"))
+        {
+          return true;
+        }
+        final int semicolonPos = attribute.indexOf(';');
+        final String name = semicolonPos != -1 ? attribute.substring(0, semicolonPos) : attribute;
+        if (isChangesAttribute(getServerContext().getSchema().getAttributeType(name)))
+        {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static boolean isChangesAttribute(final AttributeType attrType)
+    {
+      final String name = attrType.getNameOrOID();
+      return "changes".equalsIgnoreCase(name) || "changeInitiatorsName".equalsIgnoreCase(name);
+    }
+  }
+
   /** Describes the current search phase. */
   private enum SearchPhase
   {
@@ -1586,6 +1714,7 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
   private static class ChangeNumberEntrySender
   {
     private final SearchOperation searchOp;
+    private final ChangesUsage changesUsage;
     private final long lowestChangeNumber;
     private final long highestChangeNumber;
     private final SendEntryData<Long> sendEntryData;
@@ -1593,6 +1722,7 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     private ChangeNumberEntrySender(SearchOperation searchOp, SearchPhase startPhase, ChangeNumberRange range)
     {
       this.searchOp = searchOp;
+      this.changesUsage = new ChangesUsage(searchOp);
       this.sendEntryData = new SendEntryData<>(startPhase);
       this.lowestChangeNumber = range.lowerBound;
       this.highestChangeNumber = range.upperBound;
@@ -1630,8 +1760,8 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     {
       final DN baseDN = cnIndexRecord.getBaseDN();
       sendEntryData.initialSearchSendsEntry(cnIndexRecord.getChangeNumber());
-      final Entry entry = createEntryFromMsg(baseDN, cnIndexRecord.getChangeNumber(), cookie.toString(), updateMsg);
-      return sendEntryIfMatches(searchOp, entry, null);
+      return sendEntryIfMatches(
+          searchOp, changesUsage, baseDN, cnIndexRecord.getChangeNumber(), cookie.toString(), updateMsg, null);
     }
 
     private void persistentSearchSendEntry(long changeNumber, Entry entry) throws DirectoryException
@@ -1646,6 +1776,7 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
   /** Sends entries to clients for cookie-based searches. */
   private static class CookieEntrySender {
     private final SearchOperation searchOp;
+    private final ChangesUsage changesUsage;
     private final SearchPhase startPhase;
     private final Set<DN> excludedBaseDNs;
     private final MultiDomainServerState cookie;
@@ -1656,6 +1787,7 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
         Set<DN> excludedBaseDNs)
     {
       this.searchOp = searchOp;
+      this.changesUsage = new ChangesUsage(searchOp);
       this.startPhase = startPhase;
       this.cookie = cookie;
       this.excludedBaseDNs = excludedBaseDNs;
@@ -1696,8 +1828,7 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
       final SendEntryData<CSN> sendEntryData = getSendEntryData(baseDN, csn);
       sendEntryData.initialSearchSendsEntry(csn);
       final String cookieString = updateCookie(baseDN, updateMsg.getCSN());
-      final Entry entry = createEntryFromMsg(baseDN, 0, cookieString, updateMsg);
-      return sendEntryIfMatches(searchOp, entry, cookieString);
+      return sendEntryIfMatches(searchOp, changesUsage, baseDN, 0, cookieString, updateMsg, cookieString);
     }
 
     private void persistentSearchSendEntry(DN baseDN, UpdateMsg updateMsg)
@@ -1709,10 +1840,7 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
       {
         // multi threaded case: wait for the "initial search" phase to set the cookie
         final String cookieString = updateCookie(baseDN, updateMsg.getCSN());
-        final Entry cookieEntry = createEntryFromMsg(baseDN, 0, cookieString, updateMsg);
-        // FIXME JNR use this instead of previous line:
-        // entry.replaceAttribute(Attributes.create("changelogcookie", cookieString));
-        sendEntryIfMatches(searchOp, cookieEntry, cookieString);
+        sendEntryIfMatches(searchOp, changesUsage, baseDN, 0, cookieString, updateMsg, cookieString);
       }
     }
 
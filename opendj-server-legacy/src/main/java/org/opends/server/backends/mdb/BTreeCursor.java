@@ -0,0 +1,379 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.mdb;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.backends.pluggable.spi.Cursor;
+
+/**
+ * Cursor on a copy-on-write B+tree.
+ * <p>
+ * The cursor keeps the path from the root to the current leaf. Trees read from a snapshot never change, but the tree
+ * of a write transaction may be modified while the cursor is open, including through {@link #delete()}: the cursor
+ * then repositions itself from the key of the current record the next time it is used.
+ */
+final class BTreeCursor implements Cursor<ByteString, ByteString>
+{
+  /** The tree iterated by a cursor. */
+  interface TreeView
+  {
+    /**
+     * Returns the root of the tree.
+     *
+     * @return the root of the tree, or null if the tree is empty
+     */
+    Node root();
+
+    /**
+     * Returns a counter incremented each time the tree is modified.
+     *
+     * @return a counter incremented each time the tree is modified
+     */
+    long modCount();
+
+    /**
+     * Deletes a record from the tree.
+     *
+     * @param key
+     *          the key of the record to delete
+     * @throws UnsupportedOperationException
+     *           if the tree cannot be modified
+     */
+    void delete(ByteSequence key);
+  }
+
+  private enum State
+  {
+    /** The cursor has not been positioned yet, {@link #next()} moves to the first record. */
+    UNPOSITIONED,
+    /** The cursor is positioned on the record whose key is {@link #key}. */
+    ON_RECORD,
+    /** The cursor is positioned before the first record greater than or equal to {@link #key}. */
+    BEFORE_RECORD,
+    /** The cursor moved past the last record. */
+    EXHAUSTED
+  }
+
+  private final TreeView tree;
+  private Node[] nodes = new Node[8];
+  private int[] indexes = new int[8];
+  /** Number of nodes in the path, the leaf is at {@code depth - 1}. */
+  private int depth;
+  private long modCount;
+  private State state = State.UNPOSITIONED;
+  private ByteString key;
+  private ByteString value;
+
+  BTreeCursor(TreeView tree)
+  {
+    this.tree = tree;
+  }
+
+  @Override
+  public boolean next()
+  {
+    value = null;
+    switch (state)
+    {
+    case UNPOSITIONED:
+      return positionToFirstKey();
+    case EXHAUSTED:
+      return false;
+    case BEFORE_RECORD:
+      if (isStale())
+      {
+        seek(key);
+      }
+      return settle();
+    default:
+      if (isStale() && !seek(key))
+      {
+        // the current record has been deleted, the insertion point is the next record
+        return settle();
+      }
+      indexes[depth - 1]++;
+      return settle();
+    }
+  }
+
+  @Override
+  public boolean isDefined()
+  {
+    return state == State.ON_RECORD;
+  }
+
+  @Override
+  public ByteString getKey()
+  {
+    throwIfUndefined();
+    return key;
+  }
+
+  @Override
+  public ByteString getValue()
+  {
+    throwIfUndefined();
+    if (value == null)
+    {
+      if (isStale() && !seek(key))
+      {
+        throw new NoSuchElementException();
+      }
+      value = nodes[depth - 1].value(indexes[depth - 1]);
+    }
+    return value;
+  }
+
+  @Override
+  public void delete()
+  {
+    throwIfUndefined();
+    tree.delete(key);
+    value = null;
+  }
+
+  @Override
+  public boolean positionToKey(ByteSequence key)
+  {
+    value = null;
+    final ByteString searchedKey = key.toByteString();
+    if (tree.root() == null)
+    {
+      return exhausted();
+    }
+    if (seek(searchedKey))
+    {
+      this.key = searchedKey;
+      state = State.ON_RECORD;
+      return true;
+    }
+    this.key = searchedKey;
+    state = State.BEFORE_RECORD;
+    return false;
+  }
+
+  @Override
+  public boolean positionToKeyOrNext(ByteSequence key)
+  {
+    value = null;
+    if (tree.root() == null)
+    {
+      return exhausted();
+    }
+    seek(key);
+    return settle();
+  }
+
+  @Override
+  public boolean positionToLastKey()
+  {
+    value = null;
+    final Node root = tree.root();
+    if (root == null)
+    {
+      return exhausted();
+    }
+    startDescent(root);
+    Node node = root;
+    while (!node.isLeaf())
+    {
+      indexes[depth - 1] = node.size() - 1;
+      node = node.child(node.size() - 1);
+      push(node);
+    }
+    indexes[depth - 1] = node.size() - 1;
+    return settleBackward();
+  }
+
+  @Override
+  public boolean positionToIndex(int index)
+  {
+    value = null;
+    final Node root = tree.root();
+    if (root == null || index < 0 || index >= root.recordCount())
+    {
+      return exhausted();
+    }
+    startDescent(root);
+    Node node = root;
+    long remaining = index;
+    while (!node.isLeaf())
+    {
+      int i = 0;
+      while (remaining >= node.childRecordCount(i))
+      {
+        remaining -= node.childRecordCount(i);
+        i++;
+      }
+      indexes[depth - 1] = i;
+      node = node.child(i);
+      push(node);
+    }
+    indexes[depth - 1] = (int) remaining;
+    return settle();
+  }
+
+  @Override
+  public void close()
+  {
+    // Nothing to release, nodes are either in the heap or memory-mapped
+  }
+
+  private boolean positionToFirstKey()
+  {
+    final Node root = tree.root();
+    if (root == null)
+    {
+      return exhausted();
+    }
+    startDescent(root);
+    descendToFirstLeaf();
+    return settle();
+  }
+
+  /**
+   * Positions the cursor on the provided key, or on its insertion point if it does not exist.
+   *
+   * @return true if the key exists
+   */
+  private boolean seek(ByteSequence key)
+  {
+    final Node root = tree.root();
+    if (root == null)
+    {
+      depth = 0;
+      modCount = tree.modCount();
+      return false;
+    }
+    startDescent(root);
+    Node node = root;
+    while (!node.isLeaf())
+    {
+      final int i = node.childIndex(key);
+      indexes[depth - 1] = i;
+      node = node.child(i);
+      push(node);
+    }
+    final int i = node.searchKey(key);
+    indexes[depth - 1] = i >= 0 ? i : -(i + 1);
+    return i >= 0;
+  }
+
+  /** Moves forward to the record at the current position, or to the next one if the position is past a leaf. */
+  private boolean settle()
+  {
+    if (depth == 0)
+    {
+      return exhausted();
+    }
+    while (indexes[depth - 1] >= nodes[depth - 1].size())
+    {
+      if (!moveToNextLeaf())
+      {
+        return exhausted();
+      }
+    }
+    return onRecord();
+  }
+
+  /** Same as {@link #settle()} but moving backward, only needed for empty leaves. */
+  private boolean settleBackward()
+  {
+    if (indexes[depth - 1] < 0)
+    {
+      return exhausted();
+    }
+    return onRecord();
+  }
+
+  private boolean onRecord()
+  {
+    key = nodes[depth - 1].key(indexes[depth - 1]);
+    state = State.ON_RECORD;
+    return true;
+  }
+
+  private boolean exhausted()
+  {
+    depth = 0;
+    state = State.EXHAUSTED;
+    return false;
+  }
+
+  private boolean moveToNextLeaf()
+  {
+    for (int level = depth - 2; level >= 0; level--)
+    {
+      if (indexes[level] + 1 < nodes[level].size())
+      {
+        indexes[level]++;
+        depth = level + 1;
+        push(nodes[level].child(indexes[level]));
+        descendToFirstLeaf();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void descendToFirstLeaf()
+  {
+    Node node = nodes[depth - 1];
+    indexes[depth - 1] = 0;
+    while (!node.isLeaf())
+    {
+      node = node.child(0);
+      push(node);
+      indexes[depth - 1] = 0;
+    }
+  }
+
+  private void startDescent(Node root)
+  {
+    depth = 0;
+    modCount = tree.modCount();
+    push(root);
+  }
+
+  private void push(Node node)
+  {
+    if (depth == nodes.length)
+    {
+      nodes = Arrays.copyOf(nodes, depth * 2);
+      indexes = Arrays.copyOf(indexes, depth * 2);
+    }
+    nodes[depth] = node;
+    indexes[depth] = 0;
+    depth++;
+  }
+
+  private boolean isStale()
+  {
+    return modCount != tree.modCount();
+  }
+
+  private void throwIfUndefined()
+  {
+    if (state != State.ON_RECORD)
+    {
+      throw new NoSuchElementException();
+    }
+  }
+}
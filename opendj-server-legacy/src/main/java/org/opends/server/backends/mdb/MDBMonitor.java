@@ -0,0 +1,68 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.mdb;
+
+import java.util.Map;
+
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.backends.mdb.MDBStore.Snapshot;
+import org.opends.server.backends.pluggable.spi.TreeName;
+
+/** Monitoring class for MDB, populating cn=monitor statistics from the last committed snapshot. */
+class MDBMonitor extends MonitorProvider<MonitorProviderCfg>
+{
+  private final String name;
+  private final MDBStore store;
+
+  MDBMonitor(String name, MDBStore store)
+  {
+    this.name = name;
+    this.store = store;
+  }
+
+  @Override
+  public String getMonitorInstanceName()
+  {
+    return name;
+  }
+
+  @Override
+  public MonitorData getMonitorData()
+  {
+    final Snapshot snapshot = store.getSnapshot();
+    final long usedBytes = snapshot.getUsedBytes();
+    final long liveBytes = snapshot.getLiveBytes();
+
+    final MonitorData monitorAttrs = new MonitorData();
+    monitorAttrs.add("MDBFile", store.getFile().getPath());
+    monitorAttrs.add("MDBFileSize", store.getCapacity());
+    monitorAttrs.add("MDBUsedBytes", usedBytes);
+    monitorAttrs.add("MDBLiveBytes", liveBytes);
+    monitorAttrs.add("MDBGarbageBytes", usedBytes - liveBytes);
+    monitorAttrs.add("MDBTransactionId", snapshot.getTransactionId());
+    monitorAttrs.add("MDBCommits", store.getCommitCount());
+    monitorAttrs.add("MDBTreeCount", snapshot.getRoots().size());
+    for (Map.Entry<TreeName, Long> root : snapshot.getRoots().entrySet())
+    {
+      final Node node = snapshot.root(root.getKey());
+      monitorAttrs.add("MDBTree", root.getKey()
+          + ", records=" + (node != null ? node.recordCount() : 0));
+    }
+    return monitorAttrs;
+  }
+}
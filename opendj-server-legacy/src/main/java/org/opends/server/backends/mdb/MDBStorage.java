@@ -0,0 +1,605 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.mdb;
+
+import static org.opends.messages.BackendMessages.*;
+import static org.opends.server.backends.pluggable.spi.StorageUtils.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.server.config.server.MDBBackendCfg;
+import org.forgerock.util.Reject;
+import org.opends.server.api.Backupable;
+import org.opends.server.api.DiskSpaceMonitorHandler;
+import org.opends.server.backends.mdb.MDBStore.ReadTxn;
+import org.opends.server.backends.mdb.MDBStore.WriteTxn;
+import org.opends.server.backends.pluggable.spi.AccessMode;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.Importer;
+import org.opends.server.backends.pluggable.spi.ReadOnlyStorageException;
+import org.opends.server.backends.pluggable.spi.ReadOperation;
+import org.opends.server.backends.pluggable.spi.SequentialCursor;
+import org.opends.server.backends.pluggable.spi.Storage;
+import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
+import org.opends.server.backends.pluggable.spi.StorageStatus;
+import org.opends.server.backends.pluggable.spi.StorageUtils;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.UpdateFunction;
+import org.opends.server.backends.pluggable.spi.WriteOperation;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.ServerContext;
+import org.opends.server.extensions.DiskSpaceMonitor;
+import org.opends.server.types.BackupConfig;
+import org.opends.server.types.BackupDirectory;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.RestoreConfig;
+import org.opends.server.util.BackupManager;
+
+/**
+ * Memory-mapped copy-on-write B+tree implementation of the {@link Storage} engine.
+ * <p>
+ * Read operations run against the last committed snapshot of the database and never block. Write operations are
+ * serialized: each one runs in its own write transaction which is committed when the operation completes, or simply
+ * discarded if the operation fails.
+ */
+public final class MDBStorage implements Storage, Backupable, ConfigurationChangeListener<MDBBackendCfg>,
+  DiskSpaceMonitorHandler
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The importer commits once this many bytes have been written, bounding the heap used by dirty nodes. */
+  private static final long IMPORT_COMMIT_THRESHOLD = 32 * MB;
+
+  /** Implementation of the {@link Importer} interface. */
+  private final class ImporterImpl implements Importer
+  {
+    private WriteTxn txn;
+    private long pendingBytes;
+
+    private ImporterImpl()
+    {
+      store.lockWrites();
+      try
+      {
+        txn = store.newWriteTxn();
+      }
+      finally
+      {
+        store.unlockWrites();
+      }
+    }
+
+    @Override
+    public synchronized void clearTree(TreeName treeName)
+    {
+      txn.deleteTree(treeName);
+      txn.openTree(treeName, true);
+    }
+
+    @Override
+    public synchronized void put(TreeName treeName, ByteSequence key, ByteSequence value)
+    {
+      txn.put(treeName, key, value);
+      pendingBytes += key.length() + value.length();
+      if (pendingBytes >= IMPORT_COMMIT_THRESHOLD)
+      {
+        commit(false);
+      }
+    }
+
+    @Override
+    public synchronized ByteString read(TreeName treeName, ByteSequence key)
+    {
+      return txn.read(treeName, key);
+    }
+
+    @Override
+    public synchronized SequentialCursor<ByteString, ByteString> openCursor(TreeName treeName)
+    {
+      // Commit so that the cursor iterates an immutable snapshot which later puts do not alter
+      commit(false);
+      return store.newReadTxn().openCursor(treeName);
+    }
+
+    private void commit(boolean forceSync)
+    {
+      store.lockWrites();
+      try
+      {
+        store.commit(txn, forceSync);
+        txn = store.newWriteTxn();
+        pendingBytes = 0;
+      }
+      finally
+      {
+        store.unlockWrites();
+      }
+    }
+
+    @Override
+    public synchronized void close()
+    {
+      try
+      {
+        commit(true);
+      }
+      finally
+      {
+        MDBStorage.this.close();
+      }
+    }
+  }
+
+  /** Read-only implementation of the {@link WriteableTransaction} interface. */
+  private static final class ReadOnlyTxn implements WriteableTransaction
+  {
+    private final ReadTxn delegate;
+
+    ReadOnlyTxn(ReadTxn delegate)
+    {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public ByteString read(TreeName treeName, ByteSequence key)
+    {
+      return delegate.read(treeName, key);
+    }
+
+    @Override
+    public Cursor<ByteString, ByteString> openCursor(TreeName treeName)
+    {
+      return delegate.openCursor(treeName);
+    }
+
+    @Override
+    public long getRecordCount(TreeName treeName)
+    {
+      return delegate.getRecordCount(treeName);
+    }
+
+    @Override
+    public void openTree(TreeName treeName, boolean createOnDemand)
+    {
+      if (createOnDemand && !delegate.containsTree(treeName))
+      {
+        throw new ReadOnlyStorageException();
+      }
+    }
+
+    @Override
+    public void deleteTree(TreeName treeName)
+    {
+      throw new ReadOnlyStorageException();
+    }
+
+    @Override
+    public void put(TreeName treeName, ByteSequence key, ByteSequence value)
+    {
+      throw new ReadOnlyStorageException();
+    }
+
+    @Override
+    public boolean update(TreeName treeName, ByteSequence key, UpdateFunction f)
+    {
+      throw new ReadOnlyStorageException();
+    }
+
+    @Override
+    public boolean delete(TreeName treeName, ByteSequence key)
+    {
+      throw new ReadOnlyStorageException();
+    }
+  }
+
+  private final ServerContext serverContext;
+  private final File backendDirectory;
+  private MDBBackendCfg config;
+  /** It is NULL when the storage is closed. */
+  private volatile MDBStore store;
+  private DiskSpaceMonitor diskMonitor;
+  private MDBMonitor monitor;
+  private StorageStatus storageStatus = StorageStatus.working();
+
+  /**
+   * Creates a new memory-mapped storage with the provided configuration.
+   *
+   * @param cfg
+   *          The configuration.
+   * @param serverContext
+   *          This server instance context
+   */
+  MDBStorage(final MDBBackendCfg cfg, ServerContext serverContext)
+  {
+    this.serverContext = serverContext;
+    backendDirectory = getBackendDirectory(cfg);
+    config = cfg;
+    cfg.addMDBChangeListener(this);
+  }
+
+  @Override
+  public void open(AccessMode accessMode) throws ConfigException, StorageRuntimeException
+  {
+    Reject.ifNull(accessMode, "accessMode must not be null");
+    open0(accessMode);
+  }
+
+  private void open0(AccessMode accessMode) throws ConfigException
+  {
+    if (store != null)
+    {
+      throw new IllegalStateException(
+          "Database is already open, either the backend is enabled or an import is currently running.");
+    }
+    if (accessMode.isWriteable())
+    {
+      setupStorageFiles(backendDirectory, config.getDBDirectoryPermissions(), config.dn());
+    }
+    store = MDBStore.open(new File(backendDirectory, MDBStore.DB_FILE_NAME), !accessMode.isWriteable(),
+        !config.isDBTxnNoSync());
+    logger.info(NOTE_MDB_BACKEND_STARTED, config.getBackendId(), store.getSnapshot().getUsedBytes());
+    monitor = new MDBMonitor(config.getBackendId() + " MDB Database", store);
+    DirectoryServer.registerMonitorProvider(monitor);
+    diskMonitor = serverContext.getDiskSpaceMonitor();
+    registerMonitoredDirectory(config);
+  }
+
+  @Override
+  public void close()
+  {
+    final MDBStore currentStore = store;
+    if (currentStore != null)
+    {
+      DirectoryServer.deregisterMonitorProvider(monitor);
+      monitor = null;
+      currentStore.lockWrites();
+      try
+      {
+        currentStore.close();
+        store = null;
+      }
+      finally
+      {
+        currentStore.unlockWrites();
+      }
+    }
+    config.removeMDBChangeListener(this);
+    if (diskMonitor != null)
+    {
+      diskMonitor.deregisterMonitoredDirectory(getDirectory(), this);
+    }
+  }
+
+  @Override
+  public <T> T read(final ReadOperation<T> operation) throws Exception
+  {
+    try
+    {
+      return operation.run(getStore().newReadTxn());
+    }
+    catch (final StorageRuntimeException e)
+    {
+      throw unwrap(e);
+    }
+  }
+
+  @Override
+  public Importer startImport() throws ConfigException, StorageRuntimeException
+  {
+    open0(AccessMode.READ_WRITE);
+    return new ImporterImpl();
+  }
+
+  @Override
+  public void write(final WriteOperation operation) throws Exception
+  {
+    final MDBStore currentStore = getStore();
+    try
+    {
+      if (currentStore.isReadOnly())
+      {
+        operation.run(new ReadOnlyTxn(currentStore.newReadTxn()));
+        return;
+      }
+      currentStore.lockWrites();
+      try
+      {
+        final WriteTxn txn = currentStore.newWriteTxn();
+        operation.run(txn);
+        currentStore.commit(txn, false);
+      }
+      finally
+      {
+        currentStore.unlockWrites();
+      }
+    }
+    catch (final StorageRuntimeException e)
+    {
+      throw unwrap(e);
+    }
+  }
+
+  private MDBStore getStore()
+  {
+    final MDBStore currentStore = store;
+    if (currentStore == null)
+    {
+      throw new IllegalStateException("Database is not open");
+    }
+    return currentStore;
+  }
+
+  private Exception unwrap(StorageRuntimeException e) throws Exception
+  {
+    if (e.getCause() != null)
+    {
+      throw (Exception) e.getCause();
+    }
+    throw e;
+  }
+
+  @Override
+  public Set<TreeName> listTrees()
+  {
+    final MDBStore currentStore = store;
+    if (currentStore == null)
+    {
+      return Collections.<TreeName> emptySet();
+    }
+    return new TreeSet<>(currentStore.getSnapshot().getRoots().keySet());
+  }
+
+  @Override
+  public boolean supportsBackupAndRestore()
+  {
+    return true;
+  }
+
+  @Override
+  public File getDirectory()
+  {
+    return getBackendDirectory(config);
+  }
+
+  private static File getBackendDirectory(MDBBackendCfg cfg)
+  {
+    return getDBDirectory(cfg.getDBDirectory(), cfg.getBackendId());
+  }
+
+  /** Filter to retrieve the database files to backup. */
+  private static final FileFilter BACKUP_FILES_FILTER = new FileFilter()
+  {
+    @Override
+    public boolean accept(File file)
+    {
+      return MDBStore.DB_FILE_NAME.equals(file.getName());
+    }
+  };
+
+  @Override
+  public ListIterator<Path> getFilesToBackup() throws DirectoryException
+  {
+    return BackupManager.getFiles(getDirectory(), BACKUP_FILES_FILTER, config.getBackendId()).listIterator();
+  }
+
+  @Override
+  public Path beforeRestore() throws DirectoryException
+  {
+    return null;
+  }
+
+  @Override
+  public boolean isDirectRestore()
+  {
+    // restore is done in an intermediate directory
+    return false;
+  }
+
+  @Override
+  public void afterRestore(Path restoreDirectory, Path saveDirectory) throws DirectoryException
+  {
+    // intermediate directory content is moved to database directory
+    File targetDirectory = getDirectory();
+    recursiveDelete(targetDirectory);
+    try
+    {
+      Files.move(restoreDirectory, targetDirectory.toPath());
+    }
+    catch(IOException e)
+    {
+      LocalizableMessage msg = ERR_CANNOT_RENAME_RESTORE_DIRECTORY.get(restoreDirectory, targetDirectory.getPath());
+      throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), msg);
+    }
+  }
+
+  @Override
+  public void createBackup(BackupConfig backupConfig) throws DirectoryException
+  {
+    // Committed data is never overwritten, but the meta records are: block commits while the file is copied
+    final MDBStore currentStore = store;
+    if (currentStore != null)
+    {
+      currentStore.lockWrites();
+    }
+    try
+    {
+      new BackupManager(config.getBackendId()).createBackup(this, backupConfig);
+    }
+    finally
+    {
+      if (currentStore != null)
+      {
+        currentStore.unlockWrites();
+      }
+    }
+  }
+
+  @Override
+  public void removeBackup(BackupDirectory backupDirectory, String backupID) throws DirectoryException
+  {
+    new BackupManager(config.getBackendId()).removeBackup(backupDirectory, backupID);
+  }
+
+  @Override
+  public void restoreBackup(RestoreConfig restoreConfig) throws DirectoryException
+  {
+    new BackupManager(config.getBackendId()).restoreBackup(this, restoreConfig);
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(MDBBackendCfg newCfg,
+      List<LocalizableMessage> unacceptableReasons)
+  {
+    return checkConfigurationDirectories(newCfg, unacceptableReasons);
+  }
+
+  /**
+   * Checks newly created backend has a valid configuration.
+   * @param cfg the new configuration
+   * @param unacceptableReasons the list of accumulated errors and their messages
+   * @return true if newly created backend has a valid configuration
+   */
+  static boolean isConfigurationAcceptable(MDBBackendCfg cfg, List<LocalizableMessage> unacceptableReasons)
+  {
+    return checkConfigurationDirectories(cfg, unacceptableReasons);
+  }
+
+  private static boolean checkConfigurationDirectories(MDBBackendCfg cfg,
+    List<LocalizableMessage> unacceptableReasons)
+  {
+    final ConfigChangeResult ccr = new ConfigChangeResult();
+    File newBackendDirectory = getBackendDirectory(cfg);
+
+    checkDBDirExistsOrCanCreate(newBackendDirectory, ccr, true);
+    checkDBDirPermissions(cfg.getDBDirectoryPermissions(), cfg.dn(), ccr);
+    if (!ccr.getMessages().isEmpty())
+    {
+      unacceptableReasons.addAll(ccr.getMessages());
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(MDBBackendCfg cfg)
+  {
+    final ConfigChangeResult ccr = new ConfigChangeResult();
+
+    try
+    {
+      File newBackendDirectory = getBackendDirectory(cfg);
+
+      // Create the directory if it doesn't exist.
+      if(!cfg.getDBDirectory().equals(config.getDBDirectory()))
+      {
+        checkDBDirExistsOrCanCreate(newBackendDirectory, ccr, false);
+        if (!ccr.getMessages().isEmpty())
+        {
+          return ccr;
+        }
+
+        ccr.setAdminActionRequired(true);
+        ccr.addMessage(NOTE_CONFIG_DB_DIR_REQUIRES_RESTART.get(config.getDBDirectory(), cfg.getDBDirectory()));
+      }
+
+      if (!cfg.getDBDirectoryPermissions().equalsIgnoreCase(config.getDBDirectoryPermissions())
+          || !cfg.getDBDirectory().equals(config.getDBDirectory()))
+      {
+        checkDBDirPermissions(cfg.getDBDirectoryPermissions(), cfg.dn(), ccr);
+        if (!ccr.getMessages().isEmpty())
+        {
+          return ccr;
+        }
+
+        setDBDirPermissions(newBackendDirectory, cfg.getDBDirectoryPermissions(), cfg.dn(), ccr);
+        if (!ccr.getMessages().isEmpty())
+        {
+          return ccr;
+        }
+      }
+      if (diskMonitor != null)
+      {
+        registerMonitoredDirectory(cfg);
+      }
+      config = cfg;
+      final MDBStore currentStore = store;
+      if (currentStore != null)
+      {
+        currentStore.setSync(!config.isDBTxnNoSync());
+      }
+    }
+    catch (Exception e)
+    {
+      addErrorMessage(ccr, LocalizableMessage.raw(stackTraceToSingleLineString(e)));
+    }
+    return ccr;
+  }
+
+  private void registerMonitoredDirectory(MDBBackendCfg cfg)
+  {
+    diskMonitor.registerMonitoredDirectory(
+      cfg.getBackendId() + " backend",
+      getDirectory(),
+      cfg.getDiskLowThreshold(),
+      cfg.getDiskFullThreshold(),
+      this);
+  }
+
+  @Override
+  public void removeStorageFiles() throws StorageRuntimeException
+  {
+    StorageUtils.removeStorageFiles(backendDirectory);
+  }
+
+  @Override
+  public StorageStatus getStorageStatus()
+  {
+    return storageStatus;
+  }
+
+  @Override
+  public void diskFullThresholdReached(File directory, long thresholdInBytes) {
+    storageStatus = statusWhenDiskSpaceFull(directory, thresholdInBytes, config.getBackendId());
+  }
+
+  @Override
+  public void diskLowThresholdReached(File directory, long thresholdInBytes) {
+    storageStatus = statusWhenDiskSpaceLow(directory, thresholdInBytes, config.getBackendId());
+  }
+
+  @Override
+  public void diskSpaceRestored(File directory, long lowThresholdInBytes, long fullThresholdInBytes) {
+    storageStatus = StorageStatus.working();
+  }
+}
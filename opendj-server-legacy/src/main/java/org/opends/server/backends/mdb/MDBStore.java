@@ -0,0 +1,1274 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.mdb;
+
+import static org.opends.messages.BackendMessages.*;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.opends.server.backends.mdb.BTreeCursor.TreeView;
+import org.opends.server.backends.mdb.Node.DirtyNode;
+import org.opends.server.backends.mdb.Node.PersistentNode;
+import org.opends.server.backends.mdb.Node.Split;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.ReadOnlyStorageException;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.StorageInUseException;
+import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.UpdateFunction;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+
+/**
+ * A database file holding copy-on-write B+trees, read through memory mappings.
+ * <p>
+ * The file is append-only: a write transaction never modifies existing nodes, it copies the nodes it modifies in the
+ * heap and, when it commits, appends them to the file followed by a catalog recording the root of every tree. The
+ * commit completes by writing a meta record referencing the new catalog in one of the two meta slots at the start of
+ * the file, alternating between them.
+ * <p>
+ * Consequently:
+ * <ul>
+ * <li>readers work on an immutable snapshot of the database, they never block and are never blocked by the single
+ * writer,</li>
+ * <li>the nodes and the catalog of a commit are forced to disk before its meta record is written, so crash recovery
+ * only consists in selecting the most recent meta record whose catalog and roots are valid, falling back to the
+ * previous commit otherwise. Anything written after the end it records is overwritten by the next commit,</li>
+ * <li>the space used by replaced nodes is only reclaimed by compacting the file, which is done when it is opened for
+ * writing and after the commits leaving at least half of it as garbage. Writers are blocked while the live trees are
+ * copied to a new file replacing the current one, readers keep on reading the mappings of the replaced file.</li>
+ * </ul>
+ */
+final class MDBStore implements Closeable
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Name of the database file in the backend directory. */
+  static final String DB_FILE_NAME = "mdb.db";
+  private static final String COMPACTED_FILE_SUFFIX = ".compact";
+
+  /** "OpenDJMD". */
+  private static final long MAGIC = 0x4f70656e444a4d44L;
+  private static final int VERSION = 1;
+  private static final int META_SIZE = 64;
+  private static final int META_CONTENT_SIZE = 8 + 4 + 4 + 8 + 8 + 8;
+  /** Start of the first node, the beginning of the file holds the two meta slots. */
+  static final int DATA_START = 4096;
+  private static final byte CATALOG = 0x03;
+  /** Type, number of trees and length of a catalog. */
+  private static final int CATALOG_HEADER_SIZE = 1 + 4 + 4;
+
+  private static final long MB = 1024 * 1024;
+  private static final long MIN_GROWTH = 16 * MB;
+  private static final int FLUSH_THRESHOLD = (int) (8 * MB);
+  /** Package private for testing. */
+  static final long COMPACTION_MIN_SIZE = 64 * MB;
+
+  /** An immutable state of the database, as of a given commit. */
+  static final class Snapshot
+  {
+    private final long txnId;
+    private final long end;
+    private final long catalogLength;
+    private final MappedSegments segments;
+    private final Map<TreeName, Long> roots;
+
+    Snapshot(long txnId, long end, long catalogLength, MappedSegments segments, Map<TreeName, Long> roots)
+    {
+      this.txnId = txnId;
+      this.end = end;
+      this.catalogLength = catalogLength;
+      this.segments = segments;
+      this.roots = Collections.unmodifiableMap(roots);
+    }
+
+    boolean containsTree(TreeName treeName)
+    {
+      return roots.containsKey(treeName);
+    }
+
+    Map<TreeName, Long> getRoots()
+    {
+      return roots;
+    }
+
+    Node root(TreeName treeName)
+    {
+      final Long position = roots.get(treeName);
+      return position != null && position != 0 ? new PersistentNode(segments, position) : null;
+    }
+
+    long getTransactionId()
+    {
+      return txnId;
+    }
+
+    /**
+     * Returns the number of bytes of the file used by this snapshot, including garbage.
+     *
+     * @return the number of bytes of the file used by this snapshot, including garbage
+     */
+    long getUsedBytes()
+    {
+      return end;
+    }
+
+    /**
+     * Returns the number of bytes of the file which are reachable from this snapshot.
+     *
+     * @return the number of bytes of the file which are reachable from this snapshot
+     */
+    long getLiveBytes()
+    {
+      long live = DATA_START + catalogLength;
+      for (Long position : roots.values())
+      {
+        if (position != 0)
+        {
+          live += new PersistentNode(segments, position).subtreeBytes();
+        }
+      }
+      return live;
+    }
+  }
+
+  private final File file;
+  private final boolean readOnly;
+  /** Replaced when the file is compacted. Guarded by {@link #writeLock}. */
+  private RandomAccessFile raf;
+  /** Replaced when the file is compacted. Guarded by {@link #writeLock}. */
+  private FileChannel channel;
+  /** Replaced when the file is compacted. Guarded by {@link #writeLock}. */
+  private FileLock fileLock;
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private volatile boolean sync;
+  private volatile Snapshot snapshot;
+  /** Size of the file, greater than or equal to the end of the last commit. Guarded by {@link #writeLock}. */
+  private long capacity;
+  /** Number of used bytes above which compaction is attempted. Guarded by {@link #writeLock}. */
+  private long compactionThreshold = COMPACTION_MIN_SIZE;
+  private final AtomicLong commitCount = new AtomicLong();
+
+  private MDBStore(File file, boolean readOnly, boolean sync) throws IOException
+  {
+    this.file = file;
+    this.readOnly = readOnly;
+    this.sync = sync;
+    if (readOnly && !file.exists())
+    {
+      // Nothing has been written yet, behave as an empty database
+      raf = null;
+      channel = null;
+      fileLock = null;
+      snapshot = new Snapshot(0, DATA_START, 0, MappedSegments.EMPTY, new HashMap<TreeName, Long>());
+      return;
+    }
+
+    raf = new RandomAccessFile(file, readOnly ? "r" : "rw");
+    channel = raf.getChannel();
+    try
+    {
+      fileLock = lock(channel, readOnly);
+      if (fileLock == null)
+      {
+        throw new StorageInUseException(ERR_MDB_FILE_IN_USE.get(file).toString());
+      }
+      if (!readOnly && channel.size() < DATA_START)
+      {
+        initialize();
+      }
+      snapshot = recover();
+    }
+    catch (IOException | RuntimeException e)
+    {
+      raf.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens a database file, creating it if needed.
+   *
+   * @param file
+   *          the database file
+   * @param readOnly
+   *          whether the file is opened read-only
+   * @param sync
+   *          whether commits are synchronously written to disk
+   * @return the opened store
+   * @throws StorageRuntimeException
+   *           if the file cannot be opened
+   */
+  static MDBStore open(File file, boolean readOnly, boolean sync) throws StorageRuntimeException
+  {
+    try
+    {
+      final MDBStore store = new MDBStore(file, readOnly, sync);
+      if (!readOnly)
+      {
+        store.lockWrites();
+        try
+        {
+          store.compactIfNeeded();
+        }
+        finally
+        {
+          store.unlockWrites();
+        }
+      }
+      return store;
+    }
+    catch (IOException e)
+    {
+      throw new StorageRuntimeException(e);
+    }
+  }
+
+  private static FileLock lock(FileChannel channel, boolean shared) throws IOException
+  {
+    try
+    {
+      return channel.tryLock(0, Long.MAX_VALUE, shared);
+    }
+    catch (OverlappingFileLockException e)
+    {
+      // Already locked by this JVM
+      return null;
+    }
+  }
+
+  private void initialize() throws IOException
+  {
+    raf.setLength(DATA_START + MIN_GROWTH);
+    final ByteStringBuilder catalog = new ByteStringBuilder();
+    encodeCatalog(catalog, Collections.<TreeName, Long> emptyMap());
+    writeFully(ByteBuffer.wrap(catalog.getBackingArray(), 0, catalog.length()), DATA_START);
+    writeFully(ByteBuffer.allocate(META_SIZE), META_SIZE);
+    writeMeta(0, DATA_START, DATA_START + catalog.length());
+    channel.force(true);
+  }
+
+  /**
+   * Maps the file and selects the most recent meta record whose catalog and roots are valid. When the most recent meta
+   * record is not valid, the previous commit is recovered and the invalid meta record is erased so that it cannot be
+   * mistaken for a valid one once its nodes are partially overwritten by the next commit.
+   */
+  private Snapshot recover() throws IOException
+  {
+    capacity = channel.size();
+    final MappedSegments segments = MappedSegments.map(channel, capacity, null);
+    final long[] meta0 = readMeta(0);
+    final long[] meta1 = readMeta(1);
+    final boolean isMeta0Newest = meta1 == null || (meta0 != null && meta0[0] > meta1[0]);
+    final long[] newest = isMeta0Newest ? meta0 : meta1;
+    final long[] previous = isMeta0Newest ? meta1 : meta0;
+
+    Snapshot recovered = decodeSnapshot(segments, newest);
+    if (recovered == null && previous != null)
+    {
+      recovered = decodeSnapshot(segments, previous);
+      if (recovered != null && newest != null)
+      {
+        logger.warn(WARN_MDB_RECOVERED_PREVIOUS_COMMIT, file, newest[0], recovered.txnId);
+        if (!readOnly)
+        {
+          writeFully(ByteBuffer.allocate(META_SIZE), (newest[0] & 1) * META_SIZE);
+          channel.force(false);
+        }
+      }
+    }
+    if (recovered == null)
+    {
+      throw new StorageRuntimeException(ERR_MDB_CORRUPT_FILE.get(file).toString());
+    }
+    return recovered;
+  }
+
+  /**
+   * Reads a meta slot.
+   *
+   * @return the transaction ID, catalog position and end recorded in the slot, or null if the slot is not valid
+   */
+  private long[] readMeta(int slot) throws IOException
+  {
+    final ByteBuffer buffer = ByteBuffer.allocate(META_SIZE);
+    while (buffer.hasRemaining())
+    {
+      if (channel.read(buffer, slot * META_SIZE + buffer.position()) < 0)
+      {
+        return null;
+      }
+    }
+    buffer.flip();
+    final CRC32 crc = new CRC32();
+    crc.update(buffer.array(), 0, META_CONTENT_SIZE);
+    if (buffer.getLong() != MAGIC
+        || buffer.getInt() != VERSION
+        || buffer.getInt() != MappedSegments.SEGMENT_SHIFT)
+    {
+      return null;
+    }
+    final long txnId = buffer.getLong();
+    final long catalogPosition = buffer.getLong();
+    final long end = buffer.getLong();
+    if (buffer.getLong() != crc.getValue() || end > channel.size() || catalogPosition < DATA_START)
+    {
+      return null;
+    }
+    return new long[] { txnId, catalogPosition, end };
+  }
+
+  private void writeMeta(long txnId, long catalogPosition, long end) throws IOException
+  {
+    final ByteBuffer buffer = ByteBuffer.allocate(META_SIZE);
+    buffer.putLong(MAGIC).putInt(VERSION).putInt(MappedSegments.SEGMENT_SHIFT);
+    buffer.putLong(txnId).putLong(catalogPosition).putLong(end);
+    final CRC32 crc = new CRC32();
+    crc.update(buffer.array(), 0, META_CONTENT_SIZE);
+    buffer.putLong(crc.getValue());
+    buffer.clear();
+    writeFully(buffer, (txnId & 1) * META_SIZE);
+  }
+
+  private void writeFully(ByteBuffer buffer, long position) throws IOException
+  {
+    long pos = position;
+    while (buffer.hasRemaining())
+    {
+      pos += channel.write(buffer, pos);
+    }
+  }
+
+  private static void encodeCatalog(ByteStringBuilder builder, Map<TreeName, Long> roots)
+  {
+    final int start = builder.length();
+    builder.appendByte(CATALOG);
+    builder.appendInt(roots.size());
+    // length, filled once known
+    builder.appendInt(0);
+    for (Map.Entry<TreeName, Long> root : new TreeMap<>(roots).entrySet())
+    {
+      final byte[] name = root.getKey().toString().getBytes(StandardCharsets.UTF_8);
+      builder.appendInt(name.length);
+      builder.appendBytes(name);
+      builder.appendLong(root.getValue());
+    }
+    final int length = builder.length() - start;
+    final byte[] bytes = builder.getBackingArray();
+    for (int i = 0; i < 4; i++)
+    {
+      bytes[start + 5 + i] = (byte) (length >>> (24 - 8 * i));
+    }
+  }
+
+  /**
+   * Decodes the catalog referenced by a meta record, checking that the catalog and the root of every tree were
+   * completely written before the end recorded by the meta record.
+   *
+   * @return the snapshot recorded by the meta record, or null if the meta record is null or its commit is not valid
+   */
+  private Snapshot decodeSnapshot(MappedSegments segments, long[] meta)
+  {
+    if (meta == null)
+    {
+      return null;
+    }
+    final long txnId = meta[0];
+    final long catalogPosition = meta[1];
+    final long end = meta[2];
+    if (catalogPosition + CATALOG_HEADER_SIZE > end)
+    {
+      return null;
+    }
+    final ByteBuffer buffer = segments.segment(catalogPosition).duplicate();
+    final int offset = segments.offset(catalogPosition);
+    if (offset + CATALOG_HEADER_SIZE > buffer.capacity() || buffer.get(offset) != CATALOG)
+    {
+      return null;
+    }
+    final int size = buffer.getInt(offset + 1);
+    final int length = buffer.getInt(offset + 5);
+    if (size < 0 || length < CATALOG_HEADER_SIZE || catalogPosition + length > end
+        || offset + length > buffer.capacity())
+    {
+      return null;
+    }
+    buffer.limit(offset + length);
+    buffer.position(offset + CATALOG_HEADER_SIZE);
+    final Map<TreeName, Long> roots = new HashMap<>();
+    try
+    {
+      for (int i = 0; i < size; i++)
+      {
+        final int nameLength = buffer.getInt();
+        if (nameLength < 0 || nameLength > buffer.remaining())
+        {
+          return null;
+        }
+        final byte[] name = new byte[nameLength];
+        buffer.get(name);
+        final long root = buffer.getLong();
+        if (root != 0 && !Node.isValidNode(segments, root, catalogPosition))
+        {
+          return null;
+        }
+        roots.put(TreeName.valueOf(new String(name, StandardCharsets.UTF_8)), root);
+      }
+    }
+    catch (BufferUnderflowException | IllegalArgumentException e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+    return !buffer.hasRemaining() ? new Snapshot(txnId, end, length, segments, roots) : null;
+  }
+
+  File getFile()
+  {
+    return file;
+  }
+
+  boolean isReadOnly()
+  {
+    return readOnly;
+  }
+
+  void setSync(boolean sync)
+  {
+    this.sync = sync;
+  }
+
+  Snapshot getSnapshot()
+  {
+    return snapshot;
+  }
+
+  long getCapacity()
+  {
+    return snapshot.segments.capacity();
+  }
+
+  long getCommitCount()
+  {
+    return commitCount.get();
+  }
+
+  /**
+   * Returns a transaction reading the last committed state of the database.
+   *
+   * @return a transaction reading the last committed state of the database
+   */
+  ReadTxn newReadTxn()
+  {
+    return new ReadTxn(snapshot);
+  }
+
+  /**
+   * Returns a new write transaction. The caller must hold the write lock until the transaction is committed or
+   * discarded.
+   *
+   * @return a new write transaction
+   */
+  WriteTxn newWriteTxn()
+  {
+    if (readOnly)
+    {
+      throw new ReadOnlyStorageException();
+    }
+    return new WriteTxn(snapshot);
+  }
+
+  /** Prevents write transactions from starting or committing, for example while the file is backed up. */
+  void lockWrites()
+  {
+    writeLock.lock();
+  }
+
+  void unlockWrites()
+  {
+    writeLock.unlock();
+  }
+
+  /**
+   * Commits a write transaction. The caller must hold the write lock.
+   *
+   * @param txn
+   *          the transaction to commit
+   * @param forceSync
+   *          whether to write the commit to disk even if the store is not synchronous
+   * @throws StorageRuntimeException
+   *           if the commit could not be written
+   */
+  void commit(WriteTxn txn, boolean forceSync) throws StorageRuntimeException
+  {
+    if (!writeLock.isHeldByCurrentThread() || txn.base != snapshot)
+    {
+      throw new IllegalStateException("Write transactions must be committed while holding the write lock");
+    }
+    if (!txn.isModified())
+    {
+      if (forceSync)
+      {
+        force();
+      }
+      return;
+    }
+
+    try
+    {
+      final Writer writer = new Writer(snapshot.end);
+      final Map<TreeName, Long> roots = new HashMap<>(snapshot.roots);
+      for (TreeState tree : txn.trees.values())
+      {
+        if (!tree.modified)
+        {
+          continue;
+        }
+        if (!tree.exists)
+        {
+          roots.remove(tree.name);
+        }
+        else
+        {
+          roots.put(tree.name, tree.root != null ? writer.write(tree.root).position : 0L);
+        }
+      }
+      final int catalogLength = writer.encodeCatalog(roots);
+      final long catalogPosition = writer.append();
+      writer.flush();
+      // Even when commits are not synchronous, the meta record must never reach the disk before the nodes it references
+      channel.force(false);
+      final long txnId = snapshot.txnId + 1;
+      writeMeta(txnId, catalogPosition, writer.end());
+      if (sync || forceSync)
+      {
+        channel.force(false);
+      }
+      snapshot = new Snapshot(txnId, writer.end(), catalogLength,
+          MappedSegments.map(channel, capacity, snapshot.segments), roots);
+      commitCount.incrementAndGet();
+    }
+    catch (IOException e)
+    {
+      throw new StorageRuntimeException(e);
+    }
+    compactIfNeeded();
+  }
+
+  private void force()
+  {
+    try
+    {
+      channel.force(false);
+    }
+    catch (IOException e)
+    {
+      throw new StorageRuntimeException(e);
+    }
+  }
+
+  private void ensureCapacity(long required) throws IOException
+  {
+    if (required > capacity)
+    {
+      long newCapacity = Math.max(required, capacity + Math.max(capacity / 8, MIN_GROWTH));
+      newCapacity = (newCapacity + MB - 1) / MB * MB;
+      raf.setLength(newCapacity);
+      capacity = newCapacity;
+    }
+  }
+
+  /**
+   * Replaces the file with a copy of the live trees of the last commit when at least half of the file is garbage. The
+   * caller must hold the write lock. Readers are not blocked: they keep on reading the mappings of the replaced file.
+   */
+  private void compactIfNeeded()
+  {
+    final long usedBytes = snapshot.getUsedBytes();
+    if (usedBytes <= compactionThreshold || snapshot.getLiveBytes() >= usedBytes / 2)
+    {
+      return;
+    }
+
+    final File compactedFile = new File(file.getPath() + COMPACTED_FILE_SUFFIX);
+    MDBStore compacted = null;
+    try
+    {
+      Files.deleteIfExists(compactedFile.toPath());
+      compacted = new MDBStore(compactedFile, false, false);
+      compacted.bulkLoad(snapshot);
+      Files.move(compactedFile.toPath(), file.toPath(),
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (IOException | StorageRuntimeException e)
+    {
+      // The file may still be mapped on some platforms, keep on using the uncompacted file until it has doubled
+      logger.traceException(e);
+      if (compacted != null)
+      {
+        close(compacted.raf);
+      }
+      compactedFile.delete();
+      compactionThreshold = usedBytes * 2;
+      return;
+    }
+
+    final RandomAccessFile replacedFile = raf;
+    raf = compacted.raf;
+    channel = compacted.channel;
+    fileLock = compacted.fileLock;
+    capacity = compacted.capacity;
+    snapshot = compacted.snapshot;
+    compactionThreshold = COMPACTION_MIN_SIZE;
+    close(replacedFile);
+    logger.info(NOTE_MDB_COMPACTED, file, usedBytes, snapshot.getUsedBytes());
+  }
+
+  private static void close(RandomAccessFile file)
+  {
+    try
+    {
+      file.close();
+    }
+    catch (IOException e)
+    {
+      logger.traceException(e);
+    }
+  }
+
+  /** Writes all the trees of the source snapshot, leaves first, as densely as possible. */
+  private void bulkLoad(Snapshot source) throws IOException
+  {
+    final Writer writer = new Writer(snapshot.end);
+    final Map<TreeName, Long> roots = new HashMap<>();
+    for (Map.Entry<TreeName, Long> tree : new TreeMap<>(source.roots).entrySet())
+    {
+      final Node root = source.root(tree.getKey());
+      roots.put(tree.getKey(), root != null ? writer.copy(root) : 0L);
+    }
+    final int catalogLength = writer.encodeCatalog(roots);
+    final long catalogPosition = writer.append();
+    writer.flush();
+    channel.force(false);
+    writeMeta(snapshot.txnId + 1, catalogPosition, writer.end());
+    channel.force(false);
+    raf.setLength(writer.end());
+    capacity = writer.end();
+    snapshot = new Snapshot(snapshot.txnId + 1, writer.end(), catalogLength,
+        MappedSegments.map(channel, capacity, null), roots);
+  }
+
+  @Override
+  public void close()
+  {
+    if (raf == null)
+    {
+      return;
+    }
+    try
+    {
+      if (!readOnly && channel.isOpen())
+      {
+        channel.force(true);
+      }
+      // Closing the channel releases the lock, mappings stay valid for readers still using them
+      raf.close();
+    }
+    catch (IOException e)
+    {
+      throw new StorageRuntimeException(e);
+    }
+  }
+
+  /** Result of writing a subtree. */
+  private static final class Written
+  {
+    private final long position;
+    private final long recordCount;
+    private final long subtreeBytes;
+
+    Written(long position, long recordCount, long subtreeBytes)
+    {
+      this.position = position;
+      this.recordCount = recordCount;
+      this.subtreeBytes = subtreeBytes;
+    }
+  }
+
+  /** Appends nodes at the end of the file, buffering them in the heap. */
+  private final class Writer
+  {
+    private final ByteStringBuilder pending = new ByteStringBuilder();
+    private final ByteStringBuilder record = new ByteStringBuilder();
+    /** Position in the file of the first byte of {@link #pending}. */
+    private long pendingStart;
+
+    Writer(long end)
+    {
+      this.pendingStart = end;
+    }
+
+    long end()
+    {
+      return pendingStart + pending.length();
+    }
+
+    Written write(Node node) throws IOException
+    {
+      if (node instanceof PersistentNode)
+      {
+        final PersistentNode persistent = (PersistentNode) node;
+        return new Written(persistent.position(), persistent.recordCount(), persistent.subtreeBytes());
+      }
+      final DirtyNode dirty = (DirtyNode) node;
+      if (dirty.isLeaf())
+      {
+        return writeLeaf(dirty.keys, dirty.values);
+      }
+      final List<Written> children = new ArrayList<>(dirty.size());
+      for (Node child : dirty.children)
+      {
+        children.add(write(child));
+      }
+      return writeBranch(children, dirty.keys);
+    }
+
+    private Written writeLeaf(List<ByteString> keys, List<ByteString> values) throws IOException
+    {
+      record.clear();
+      final int length = Node.encodeLeaf(record, keys, values);
+      return new Written(append(), keys.size(), length);
+    }
+
+    private Written writeBranch(List<Written> children, List<ByteString> separators) throws IOException
+    {
+      final long[] positions = new long[children.size()];
+      final long[] recordCounts = new long[children.size()];
+      long childrenBytes = 0;
+      long recordCount = 0;
+      for (int i = 0; i < positions.length; i++)
+      {
+        final Written child = children.get(i);
+        positions[i] = child.position;
+        recordCounts[i] = child.recordCount;
+        childrenBytes += child.subtreeBytes;
+        recordCount += child.recordCount;
+      }
+      record.clear();
+      final int length = Node.encodeBranch(record, positions, recordCounts, childrenBytes, separators);
+      return new Written(append(), recordCount, childrenBytes + length);
+    }
+
+    int encodeCatalog(Map<TreeName, Long> roots)
+    {
+      record.clear();
+      MDBStore.encodeCatalog(record, roots);
+      return record.length();
+    }
+
+    /**
+     * Copies a tree into densely packed nodes.
+     *
+     * @return the position of the root of the copy
+     */
+    long copy(Node root) throws IOException
+    {
+      final List<Written> level = new ArrayList<>();
+      final List<ByteString> firstKeys = new ArrayList<>();
+      final DirtyNode leaf = DirtyNode.newLeaf();
+      copyLeaves(root, leaf, level, firstKeys);
+      if (leaf.size() > 0)
+      {
+        firstKeys.add(leaf.key(0));
+        level.add(writeLeaf(leaf.keys, leaf.values));
+      }
+      if (level.isEmpty())
+      {
+        return 0;
+      }
+
+      List<Written> children = level;
+      List<ByteString> childFirstKeys = firstKeys;
+      while (children.size() > 1)
+      {
+        final List<Written> parents = new ArrayList<>();
+        final List<ByteString> parentFirstKeys = new ArrayList<>();
+        int start = 0;
+        int size = Node.HEADER_SIZE;
+        for (int i = 0; i < children.size(); i++)
+        {
+          final int childSize = Node.branchChildSize(i > start ? childFirstKeys.get(i) : null);
+          if (i - start >= 2 && size + childSize > Node.MAX_NODE_SIZE)
+          {
+            parents.add(writeBranch(children.subList(start, i), childFirstKeys.subList(start + 1, i)));
+            parentFirstKeys.add(childFirstKeys.get(start));
+            start = i;
+            size = Node.HEADER_SIZE + Node.branchChildSize(null);
+          }
+          else
+          {
+            size += childSize;
+          }
+        }
+        parents.add(writeBranch(children.subList(start, children.size()),
+            childFirstKeys.subList(start + 1, children.size())));
+        parentFirstKeys.add(childFirstKeys.get(start));
+        children = parents;
+        childFirstKeys = parentFirstKeys;
+      }
+      return children.get(0).position;
+    }
+
+    private void copyLeaves(Node node, DirtyNode leaf, List<Written> level, List<ByteString> firstKeys)
+        throws IOException
+    {
+      if (!node.isLeaf())
+      {
+        for (int i = 0; i < node.size(); i++)
+        {
+          copyLeaves(node.child(i), leaf, level, firstKeys);
+        }
+        return;
+      }
+      for (int i = 0; i < node.size(); i++)
+      {
+        leaf.insertRecord(leaf.size(), node.key(i), node.value(i));
+        if (leaf.isOverflowing())
+        {
+          // Move the last record to the next leaf so that leaves stay below the maximum size
+          final int last = leaf.size() - 1;
+          final ByteString key = leaf.key(last);
+          final ByteString value = leaf.value(last);
+          leaf.removeRecord(last);
+          firstKeys.add(leaf.key(0));
+          level.add(writeLeaf(leaf.keys, leaf.values));
+          for (int j = leaf.size() - 1; j >= 0; j--)
+          {
+            leaf.removeRecord(j);
+          }
+          leaf.insertRecord(0, key, value);
+        }
+      }
+    }
+
+    /**
+     * Appends the current record.
+     *
+     * @return the position of the record in the file
+     */
+    long append() throws IOException
+    {
+      final int length = record.length();
+      if (length > MappedSegments.SEGMENT_SIZE)
+      {
+        throw new StorageRuntimeException(ERR_MDB_RECORD_TOO_LARGE.get(length, file).toString());
+      }
+      long position = end();
+      final long nextSegmentStart = MappedSegments.nextSegmentStart(position);
+      if (position + length > nextSegmentStart)
+      {
+        // Nodes never span two segments, skip the end of the current segment
+        flush();
+        pendingStart = nextSegmentStart;
+        position = nextSegmentStart;
+      }
+      pending.appendBytes(record);
+      if (pending.length() >= FLUSH_THRESHOLD)
+      {
+        flush();
+      }
+      return position;
+    }
+
+    void flush() throws IOException
+    {
+      if (pending.length() > 0)
+      {
+        ensureCapacity(end());
+        writeFully(ByteBuffer.wrap(pending.getBackingArray(), 0, pending.length()), pendingStart);
+        pendingStart += pending.length();
+        pending.clear();
+      }
+    }
+  }
+
+  /** A transaction reading an immutable snapshot. */
+  static final class ReadTxn implements ReadableTransaction
+  {
+    private final Snapshot snapshot;
+
+    ReadTxn(Snapshot snapshot)
+    {
+      this.snapshot = snapshot;
+    }
+
+    boolean containsTree(TreeName treeName)
+    {
+      return snapshot.containsTree(treeName);
+    }
+
+    @Override
+    public ByteString read(TreeName treeName, ByteSequence key)
+    {
+      return find(snapshot.root(treeName), key);
+    }
+
+    @Override
+    public Cursor<ByteString, ByteString> openCursor(TreeName treeName)
+    {
+      final Node root = snapshot.root(treeName);
+      return new BTreeCursor(new TreeView()
+      {
+        @Override
+        public Node root()
+        {
+          return root;
+        }
+
+        @Override
+        public long modCount()
+        {
+          return 0;
+        }
+
+        @Override
+        public void delete(ByteSequence key)
+        {
+          throw new UnsupportedOperationException();
+        }
+      });
+    }
+
+    @Override
+    public long getRecordCount(TreeName treeName)
+    {
+      final Node root = snapshot.root(treeName);
+      return root != null ? root.recordCount() : 0;
+    }
+  }
+
+  private static ByteString find(Node root, ByteSequence key)
+  {
+    final Node leaf = findLeaf(root, key);
+    if (leaf == null)
+    {
+      return null;
+    }
+    final int index = leaf.searchKey(key);
+    return index >= 0 ? leaf.value(index) : null;
+  }
+
+  private static Node findLeaf(Node root, ByteSequence key)
+  {
+    Node node = root;
+    while (node != null && !node.isLeaf())
+    {
+      node = node.child(node.childIndex(key));
+    }
+    return node;
+  }
+
+  /** The state of a tree in a write transaction. */
+  private static final class TreeState implements TreeView
+  {
+    private final TreeName name;
+    private Node root;
+    private boolean exists;
+    private boolean modified;
+    private long modCount;
+    /** Branches of the path to the leaf found by the last call to {@link #descend(ByteSequence)}. */
+    private DirtyNode[] pathNodes = new DirtyNode[8];
+    private int[] pathIndexes = new int[8];
+    private int pathLength;
+
+    TreeState(TreeName name, Snapshot base)
+    {
+      this.name = name;
+      this.exists = base.containsTree(name);
+      this.root = base.root(name);
+    }
+
+    @Override
+    public Node root()
+    {
+      return root;
+    }
+
+    @Override
+    public long modCount()
+    {
+      return modCount;
+    }
+
+    void create()
+    {
+      if (!exists)
+      {
+        exists = true;
+        modified = true;
+      }
+    }
+
+    void clear()
+    {
+      exists = false;
+      root = null;
+      modified = true;
+      modCount++;
+    }
+
+    void put(ByteString key, ByteString value)
+    {
+      create();
+      modified = true;
+      modCount++;
+      if (root == null)
+      {
+        final DirtyNode leaf = DirtyNode.newLeaf();
+        leaf.insertRecord(0, key, value);
+        root = leaf;
+        return;
+      }
+
+      DirtyNode node = descend(key);
+      final int index = node.searchKey(key);
+      if (index >= 0)
+      {
+        node.setValue(index, value);
+        return;
+      }
+      node.insertRecord(-(index + 1), key, value);
+
+      int level = pathLength - 1;
+      while (node.isOverflowing())
+      {
+        final Split split = node.split();
+        if (level < 0)
+        {
+          root = DirtyNode.newBranch(node, split.separator, split.upper);
+          return;
+        }
+        final DirtyNode parent = pathNodes[level];
+        parent.insertChild(pathIndexes[level] + 1, split.separator, split.upper);
+        node = parent;
+        level--;
+      }
+    }
+
+    @Override
+    public void delete(ByteSequence key)
+    {
+      remove(key);
+    }
+
+    boolean remove(ByteSequence key)
+    {
+      final Node leaf = findLeaf(root, key);
+      if (leaf == null || leaf.searchKey(key) < 0)
+      {
+        return false;
+      }
+      modified = true;
+      modCount++;
+
+      DirtyNode node = descend(key);
+      node.removeRecord(node.searchKey(key));
+      int level = pathLength - 1;
+      while (node.size() == 0 && level >= 0)
+      {
+        final DirtyNode parent = pathNodes[level];
+        parent.removeChild(pathIndexes[level]);
+        node = parent;
+        level--;
+      }
+      if (root.size() == 0)
+      {
+        root = null;
+      }
+      while (root != null && !root.isLeaf() && root.size() == 1)
+      {
+        root = root.child(0);
+      }
+      return true;
+    }
+
+    /** Makes the path from the root to the leaf which may contain the key dirty, and records it. */
+    private DirtyNode descend(ByteSequence key)
+    {
+      DirtyNode node = dirty(root);
+      root = node;
+      int depth = 0;
+      while (!node.isLeaf())
+      {
+        final int index = node.childIndex(key);
+        if (depth == pathNodes.length)
+        {
+          pathNodes = Arrays.copyOf(pathNodes, depth * 2);
+          pathIndexes = Arrays.copyOf(pathIndexes, depth * 2);
+        }
+        pathNodes[depth] = node;
+        pathIndexes[depth] = index;
+        depth++;
+        node.invalidateRecordCount();
+        final DirtyNode child = dirty(node.child(index));
+        node.setChild(index, child);
+        node = child;
+      }
+      pathLength = depth;
+      return node;
+    }
+
+    private static DirtyNode dirty(Node node)
+    {
+      return node instanceof DirtyNode ? (DirtyNode) node : DirtyNode.copyOf(node);
+    }
+  }
+
+  /** A write transaction, only one can be in progress at any time. */
+  final class WriteTxn implements WriteableTransaction
+  {
+    private final Snapshot base;
+    private final Map<TreeName, TreeState> trees = new HashMap<>();
+
+    private WriteTxn(Snapshot base)
+    {
+      this.base = base;
+    }
+
+    private TreeState tree(TreeName treeName)
+    {
+      TreeState tree = trees.get(treeName);
+      if (tree == null)
+      {
+        tree = new TreeState(treeName, base);
+        trees.put(treeName, tree);
+      }
+      return tree;
+    }
+
+    boolean isModified()
+    {
+      for (TreeState tree : trees.values())
+      {
+        if (tree.modified)
+        {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    boolean containsTree(TreeName treeName)
+    {
+      final TreeState tree = trees.get(treeName);
+      return tree != null ? tree.exists : base.containsTree(treeName);
+    }
+
+    @Override
+    public ByteString read(TreeName treeName, ByteSequence key)
+    {
+      final TreeState tree = trees.get(treeName);
+      return find(tree != null ? tree.root : base.root(treeName), key);
+    }
+
+    @Override
+    public Cursor<ByteString, ByteString> openCursor(TreeName treeName)
+    {
+      return new BTreeCursor(tree(treeName));
+    }
+
+    @Override
+    public long getRecordCount(TreeName treeName)
+    {
+      final TreeState tree = trees.get(treeName);
+      final Node root = tree != null ? tree.root : base.root(treeName);
+      return root != null ? root.recordCount() : 0;
+    }
+
+    @Override
+    public void openTree(TreeName treeName, boolean createOnDemand)
+    {
+      if (createOnDemand)
+      {
+        tree(treeName).create();
+      }
+    }
+
+    @Override
+    public void deleteTree(TreeName treeName)
+    {
+      tree(treeName).clear();
+    }
+
+    @Override
+    public void put(TreeName treeName, ByteSequence key, ByteSequence value)
+    {
+      tree(treeName).put(key.toByteString(), value.toByteString());
+    }
+
+    @Override
+    public boolean update(TreeName treeName, ByteSequence key, UpdateFunction f)
+    {
+      final ByteSequence oldValue = read(treeName, key);
+      final ByteSequence newValue = f.computeNewValue(oldValue);
+      if (Objects.equals(newValue, oldValue))
+      {
+        return false;
+      }
+      if (newValue == null)
+      {
+        tree(treeName).remove(key);
+      }
+      else
+      {
+        tree(treeName).put(key.toByteString(), newValue.toByteString());
+      }
+      return true;
+    }
+
+    @Override
+    public boolean delete(TreeName treeName, ByteSequence key)
+    {
+      return tree(treeName).remove(key);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.mdb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Read-only memory mappings of a database file.
+ * <p>
+ * A single mapping cannot exceed 2GB, so the file is mapped in segments of {@link #SEGMENT_SIZE} bytes. Nodes are
+ * written so that they never span two segments. Mappings are never modified once created: when the file grows, a new
+ * instance is created which reuses the complete segments of the previous one, and remaps the last one. Readers still
+ * using the previous instance can safely keep on reading the nodes they know about.
+ */
+final class MappedSegments
+{
+  static final int SEGMENT_SHIFT = 30;
+  static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+  private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+  /** Mappings of an absent database file. */
+  static final MappedSegments EMPTY = new MappedSegments(new ByteBuffer[0], 0);
+
+  private final ByteBuffer[] buffers;
+  private final long capacity;
+
+  private MappedSegments(ByteBuffer[] buffers, long capacity)
+  {
+    this.buffers = buffers;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Maps the provided file.
+   *
+   * @param channel
+   *          the file channel
+   * @param capacity
+   *          the number of bytes to map
+   * @param previous
+   *          the previous mappings of the same file, whose complete segments are reused
+   * @return the mappings
+   * @throws IOException
+   *           if the file cannot be mapped
+   */
+  static MappedSegments map(FileChannel channel, long capacity, MappedSegments previous) throws IOException
+  {
+    final int nbSegments = (int) ((capacity + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+    final ByteBuffer[] buffers = new ByteBuffer[nbSegments];
+    for (int i = 0; i < nbSegments; i++)
+    {
+      final long start = ((long) i) << SEGMENT_SHIFT;
+      final long size = Math.min(SEGMENT_SIZE, capacity - start);
+      if (previous != null && i < previous.buffers.length && previous.buffers[i].capacity() == size)
+      {
+        buffers[i] = previous.buffers[i];
+      }
+      else
+      {
+        buffers[i] = channel.map(MapMode.READ_ONLY, start, size);
+      }
+    }
+    return new MappedSegments(buffers, capacity);
+  }
+
+  long capacity()
+  {
+    return capacity;
+  }
+
+  ByteBuffer segment(long position)
+  {
+    return buffers[(int) (position >>> SEGMENT_SHIFT)];
+  }
+
+  int offset(long position)
+  {
+    return (int) (position & SEGMENT_MASK);
+  }
+
+  /**
+   * Returns the start of the segment following the one containing the provided position.
+   *
+   * @param position
+   *          a position in the file
+   * @return the start of the next segment
+   */
+  static long nextSegmentStart(long position)
+  {
+    return ((position >>> SEGMENT_SHIFT) + 1) << SEGMENT_SHIFT;
+  }
+}
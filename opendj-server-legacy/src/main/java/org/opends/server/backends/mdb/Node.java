@@ -0,0 +1,698 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.mdb;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+
+/**
+ * A node of a copy-on-write B+tree.
+ * <p>
+ * Leaf nodes hold records sorted by key. Branch nodes hold {@code size()} children and {@code size() - 1}
+ * separators: separator {@code i} is lower than or equal to every key of child {@code i + 1} and greater than every
+ * key of child {@code i}. Branches also record the number of records of each child, so that the number of records of
+ * a tree and the record at a given index can be found without visiting every leaf.
+ * <p>
+ * A node is either persistent, in which case it is an immutable view on the memory-mapped database file, or dirty,
+ * in which case it is a mutable copy owned by the single write transaction which modified it.
+ * <p>
+ * The persistent format of a node is:
+ * <pre>
+ * byte  type (leaf or branch)
+ * int   size
+ * int   length of the node in bytes
+ * long  number of records in the subtree
+ * long  number of bytes of all the nodes of the subtree
+ * leaf:   int[size] offsets of the records, each record being int keyLength, key, int valueLength, value
+ * branch: long[size] positions of the children, long[size] number of records of the children,
+ *         int[size - 1] offsets of the separators, each separator being int length, bytes
+ * </pre>
+ * Offsets are relative to the start of the node. A node never spans two memory-mapped segments.
+ */
+abstract class Node
+{
+  static final byte LEAF = 0x01;
+  static final byte BRANCH = 0x02;
+  static final int HEADER_SIZE = 1 + 4 + 4 + 8 + 8;
+  private static final int LENGTH_OFFSET = 1 + 4;
+  private static final int RECORD_COUNT_OFFSET = LENGTH_OFFSET + 4;
+  private static final int SUBTREE_BYTES_OFFSET = RECORD_COUNT_OFFSET + 8;
+
+  /**
+   * Nodes larger than this are split. A node may nevertheless be larger than this when it holds a single record.
+   */
+  static final int MAX_NODE_SIZE = 8 * 1024;
+
+  abstract boolean isLeaf();
+
+  /**
+   * Returns the number of records of a leaf, or the number of children of a branch.
+   *
+   * @return the number of records of a leaf, or the number of children of a branch
+   */
+  abstract int size();
+
+  /**
+   * Returns the number of records in the subtree rooted at this node.
+   *
+   * @return the number of records in the subtree rooted at this node
+   */
+  abstract long recordCount();
+
+  abstract ByteString key(int index);
+
+  abstract ByteString value(int index);
+
+  abstract int compareKey(int index, ByteSequence key);
+
+  abstract Node child(int index);
+
+  abstract long childRecordCount(int index);
+
+  abstract ByteString separator(int index);
+
+  abstract int compareSeparator(int index, ByteSequence key);
+
+  /**
+   * Searches the provided key in this leaf.
+   *
+   * @param key
+   *          the key to search
+   * @return the index of the key if it is found, otherwise {@code -(insertion point) - 1}
+   */
+  final int searchKey(ByteSequence key)
+  {
+    int low = 0;
+    int high = size() - 1;
+    while (low <= high)
+    {
+      final int mid = (low + high) >>> 1;
+      final int cmp = compareKey(mid, key);
+      if (cmp < 0)
+      {
+        low = mid + 1;
+      }
+      else if (cmp > 0)
+      {
+        high = mid - 1;
+      }
+      else
+      {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * Returns the index of the child of this branch which may contain the provided key.
+   *
+   * @param key
+   *          the key to search
+   * @return the index of the child which may contain the key
+   */
+  final int childIndex(ByteSequence key)
+  {
+    int low = 0;
+    int high = size() - 2;
+    while (low <= high)
+    {
+      final int mid = (low + high) >>> 1;
+      if (compareSeparator(mid, key) <= 0)
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  static int leafRecordSize(ByteSequence key, ByteSequence value)
+  {
+    return 4 + 4 + key.length() + 4 + value.length();
+  }
+
+  static int branchChildSize(ByteSequence separator)
+  {
+    // child position, child record count, separator offset, separator length and bytes
+    return 8 + 8 + (separator != null ? 4 + 4 + separator.length() : 0);
+  }
+
+  /**
+   * Returns whether the header of a node completely written before the provided end is stored at the provided
+   * position. Used by crash recovery to check the roots referenced by a commit.
+   *
+   * @param segments
+   *          the mappings of the database file
+   * @param position
+   *          the position of the node
+   * @param end
+   *          the position before which the node must have been written
+   * @return true if a valid node header is stored at the provided position
+   */
+  static boolean isValidNode(MappedSegments segments, long position, long end)
+  {
+    if (position < MDBStore.DATA_START || position + HEADER_SIZE > end || end > segments.capacity())
+    {
+      return false;
+    }
+    final ByteBuffer buffer = segments.segment(position);
+    final int offset = segments.offset(position);
+    if (offset + HEADER_SIZE > buffer.capacity())
+    {
+      return false;
+    }
+    final byte type = buffer.get(offset);
+    final int size = buffer.getInt(offset + 1);
+    final int length = buffer.getInt(offset + LENGTH_OFFSET);
+    return (type == LEAF || type == BRANCH)
+        && size >= 0
+        && length >= HEADER_SIZE + (type == LEAF ? 4L : 16L) * size
+        && position + length <= end
+        && offset + length <= buffer.capacity();
+  }
+
+  /**
+   * Encodes a leaf.
+   *
+   * @return the length of the encoded leaf
+   */
+  static int encodeLeaf(ByteStringBuilder builder, List<ByteString> keys, List<ByteString> values)
+  {
+    final int size = keys.size();
+    final int start = builder.length();
+    int length = HEADER_SIZE + 4 * size;
+    for (int i = 0; i < size; i++)
+    {
+      length += 4 + keys.get(i).length() + 4 + values.get(i).length();
+    }
+    builder.appendByte(LEAF);
+    builder.appendInt(size);
+    builder.appendInt(length);
+    builder.appendLong(size);
+    builder.appendLong(length);
+    int offset = HEADER_SIZE + 4 * size;
+    for (int i = 0; i < size; i++)
+    {
+      builder.appendInt(offset);
+      offset += 4 + keys.get(i).length() + 4 + values.get(i).length();
+    }
+    for (int i = 0; i < size; i++)
+    {
+      builder.appendInt(keys.get(i).length());
+      builder.appendBytes(keys.get(i));
+      builder.appendInt(values.get(i).length());
+      builder.appendBytes(values.get(i));
+    }
+    assert builder.length() - start == length;
+    return length;
+  }
+
+  /**
+   * Encodes a branch.
+   *
+   * @return the length of the encoded branch
+   */
+  static int encodeBranch(ByteStringBuilder builder, long[] childPositions, long[] childRecordCounts,
+      long childrenBytes, List<ByteString> separators)
+  {
+    final int size = childPositions.length;
+    int length = HEADER_SIZE + 16 * size + 4 * (size - 1);
+    for (ByteString separator : separators)
+    {
+      length += 4 + separator.length();
+    }
+    long recordCount = 0;
+    for (long childRecordCount : childRecordCounts)
+    {
+      recordCount += childRecordCount;
+    }
+    builder.appendByte(BRANCH);
+    builder.appendInt(size);
+    builder.appendInt(length);
+    builder.appendLong(recordCount);
+    builder.appendLong(childrenBytes + length);
+    for (long childPosition : childPositions)
+    {
+      builder.appendLong(childPosition);
+    }
+    for (long childRecordCount : childRecordCounts)
+    {
+      builder.appendLong(childRecordCount);
+    }
+    int offset = HEADER_SIZE + 16 * size + 4 * (size - 1);
+    for (ByteString separator : separators)
+    {
+      builder.appendInt(offset);
+      offset += 4 + separator.length();
+    }
+    for (ByteString separator : separators)
+    {
+      builder.appendInt(separator.length());
+      builder.appendBytes(separator);
+    }
+    return length;
+  }
+
+  /** A node read from the memory-mapped database file. */
+  static final class PersistentNode extends Node
+  {
+    private final MappedSegments segments;
+    private final long position;
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final boolean leaf;
+    private final int size;
+
+    PersistentNode(MappedSegments segments, long position)
+    {
+      this.segments = segments;
+      this.position = position;
+      this.buffer = segments.segment(position);
+      this.offset = segments.offset(position);
+      this.leaf = buffer.get(offset) == LEAF;
+      this.size = buffer.getInt(offset + 1);
+    }
+
+    long position()
+    {
+      return position;
+    }
+
+    /**
+     * Returns the length of this node in the database file.
+     *
+     * @return the length of this node in the database file
+     */
+    int length()
+    {
+      return buffer.getInt(offset + LENGTH_OFFSET);
+    }
+
+    /**
+     * Returns the number of bytes used in the database file by the subtree rooted at this node.
+     *
+     * @return the number of bytes used in the database file by the subtree rooted at this node
+     */
+    long subtreeBytes()
+    {
+      return buffer.getLong(offset + SUBTREE_BYTES_OFFSET);
+    }
+
+    @Override
+    boolean isLeaf()
+    {
+      return leaf;
+    }
+
+    @Override
+    int size()
+    {
+      return size;
+    }
+
+    @Override
+    long recordCount()
+    {
+      return buffer.getLong(offset + RECORD_COUNT_OFFSET);
+    }
+
+    private int recordOffset(int index)
+    {
+      return offset + buffer.getInt(offset + HEADER_SIZE + 4 * index);
+    }
+
+    @Override
+    ByteString key(int index)
+    {
+      final int keyOffset = recordOffset(index);
+      return copy(keyOffset + 4, buffer.getInt(keyOffset));
+    }
+
+    @Override
+    ByteString value(int index)
+    {
+      final int keyOffset = recordOffset(index);
+      final int valueOffset = keyOffset + 4 + buffer.getInt(keyOffset);
+      return copy(valueOffset + 4, buffer.getInt(valueOffset));
+    }
+
+    @Override
+    int compareKey(int index, ByteSequence key)
+    {
+      final int keyOffset = recordOffset(index);
+      return compare(keyOffset + 4, buffer.getInt(keyOffset), key);
+    }
+
+    @Override
+    Node child(int index)
+    {
+      return new PersistentNode(segments, buffer.getLong(offset + HEADER_SIZE + 8 * index));
+    }
+
+    long childPosition(int index)
+    {
+      return buffer.getLong(offset + HEADER_SIZE + 8 * index);
+    }
+
+    @Override
+    long childRecordCount(int index)
+    {
+      return buffer.getLong(offset + HEADER_SIZE + 8 * size + 8 * index);
+    }
+
+    private int separatorOffset(int index)
+    {
+      return offset + buffer.getInt(offset + HEADER_SIZE + 16 * size + 4 * index);
+    }
+
+    @Override
+    ByteString separator(int index)
+    {
+      final int separatorOffset = separatorOffset(index);
+      return copy(separatorOffset + 4, buffer.getInt(separatorOffset));
+    }
+
+    @Override
+    int compareSeparator(int index, ByteSequence key)
+    {
+      final int separatorOffset = separatorOffset(index);
+      return compare(separatorOffset + 4, buffer.getInt(separatorOffset), key);
+    }
+
+    /** Compares bytes of the mapped buffer with the provided key, without copying them. */
+    private int compare(int bytesOffset, int length, ByteSequence key)
+    {
+      final int keyLength = key.length();
+      final int count = Math.min(length, keyLength);
+      for (int i = 0; i < count; i++)
+      {
+        final int b1 = buffer.get(bytesOffset + i) & 0xFF;
+        final int b2 = key.byteAt(i) & 0xFF;
+        if (b1 != b2)
+        {
+          return b1 - b2;
+        }
+      }
+      return length - keyLength;
+    }
+
+    private ByteString copy(int bytesOffset, int length)
+    {
+      final byte[] bytes = new byte[length];
+      final ByteBuffer view = buffer.duplicate();
+      view.position(bytesOffset);
+      view.get(bytes);
+      return ByteString.wrap(bytes);
+    }
+  }
+
+  /** A mutable node owned by a write transaction. */
+  static final class DirtyNode extends Node
+  {
+    private final boolean leaf;
+    /** Keys of a leaf, or separators of a branch. */
+    final ArrayList<ByteString> keys;
+    /** Values of a leaf. */
+    final ArrayList<ByteString> values;
+    /** Children of a branch. */
+    final ArrayList<Node> children;
+    /** Encoded size of this node. */
+    private int encodedSize;
+    /** Cached number of records of the subtree, or -1 if it must be computed. */
+    private long recordCount = -1;
+
+    private DirtyNode(boolean leaf, int capacity)
+    {
+      this.leaf = leaf;
+      this.keys = new ArrayList<>(capacity);
+      this.values = leaf ? new ArrayList<ByteString>(capacity) : null;
+      this.children = leaf ? null : new ArrayList<Node>(capacity + 1);
+      this.encodedSize = HEADER_SIZE;
+    }
+
+    static DirtyNode newLeaf()
+    {
+      return new DirtyNode(true, 16);
+    }
+
+    static DirtyNode newBranch(Node left, ByteString separator, Node right)
+    {
+      final DirtyNode branch = new DirtyNode(false, 16);
+      branch.children.add(left);
+      branch.encodedSize += branchChildSize(null);
+      branch.insertChild(1, separator, right);
+      return branch;
+    }
+
+    static DirtyNode copyOf(Node node)
+    {
+      final int size = node.size();
+      final DirtyNode copy = new DirtyNode(node.isLeaf(), size);
+      if (node.isLeaf())
+      {
+        for (int i = 0; i < size; i++)
+        {
+          copy.insertRecord(i, node.key(i), node.value(i));
+        }
+      }
+      else
+      {
+        copy.children.add(node.child(0));
+        copy.encodedSize += branchChildSize(null);
+        for (int i = 1; i < size; i++)
+        {
+          copy.insertChild(i, node.separator(i - 1), node.child(i));
+        }
+      }
+      return copy;
+    }
+
+    @Override
+    boolean isLeaf()
+    {
+      return leaf;
+    }
+
+    @Override
+    int size()
+    {
+      return leaf ? keys.size() : children.size();
+    }
+
+    @Override
+    long recordCount()
+    {
+      if (leaf)
+      {
+        return keys.size();
+      }
+      if (recordCount < 0)
+      {
+        long count = 0;
+        for (Node child : children)
+        {
+          count += child.recordCount();
+        }
+        recordCount = count;
+      }
+      return recordCount;
+    }
+
+    /** Must be called when the subtree rooted at this node is modified. */
+    void invalidateRecordCount()
+    {
+      recordCount = -1;
+    }
+
+    boolean isOverflowing()
+    {
+      return encodedSize > MAX_NODE_SIZE && size() > (leaf ? 1 : 3);
+    }
+
+    @Override
+    ByteString key(int index)
+    {
+      return keys.get(index);
+    }
+
+    @Override
+    ByteString value(int index)
+    {
+      return values.get(index);
+    }
+
+    @Override
+    int compareKey(int index, ByteSequence key)
+    {
+      return keys.get(index).compareTo(key);
+    }
+
+    @Override
+    Node child(int index)
+    {
+      return children.get(index);
+    }
+
+    @Override
+    long childRecordCount(int index)
+    {
+      return children.get(index).recordCount();
+    }
+
+    @Override
+    ByteString separator(int index)
+    {
+      return keys.get(index);
+    }
+
+    @Override
+    int compareSeparator(int index, ByteSequence key)
+    {
+      return keys.get(index).compareTo(key);
+    }
+
+    void insertRecord(int index, ByteString key, ByteString value)
+    {
+      keys.add(index, key);
+      values.add(index, value);
+      encodedSize += leafRecordSize(key, value);
+    }
+
+    void setValue(int index, ByteString value)
+    {
+      encodedSize += value.length() - values.get(index).length();
+      values.set(index, value);
+    }
+
+    void removeRecord(int index)
+    {
+      encodedSize -= leafRecordSize(keys.remove(index), values.remove(index));
+    }
+
+    /** Inserts a child at the provided index, with the separator lower than or equal to all its keys. */
+    void insertChild(int index, ByteString separator, Node child)
+    {
+      keys.add(index - 1, separator);
+      children.add(index, child);
+      encodedSize += branchChildSize(separator);
+      recordCount = -1;
+    }
+
+    void setChild(int index, Node child)
+    {
+      children.set(index, child);
+    }
+
+    /** Removes a child and the separator bounding it. */
+    void removeChild(int index)
+    {
+      children.remove(index);
+      if (!keys.isEmpty())
+      {
+        encodedSize -= branchChildSize(keys.remove(index > 0 ? index - 1 : 0));
+      }
+      else
+      {
+        encodedSize -= branchChildSize(null);
+      }
+      recordCount = -1;
+    }
+
+    /**
+     * Splits this overflowing node in two halves of similar encoded size. This node keeps the lower half.
+     *
+     * @return the separator and the node holding the upper half
+     */
+    Split split()
+    {
+      final int size = size();
+      final int half = encodedSize / 2;
+      int splitIndex = 1;
+      int lowerSize = HEADER_SIZE;
+      if (leaf)
+      {
+        while (splitIndex < size - 1)
+        {
+          lowerSize += leafRecordSize(keys.get(splitIndex - 1), values.get(splitIndex - 1));
+          if (lowerSize >= half)
+          {
+            break;
+          }
+          splitIndex++;
+        }
+        final DirtyNode upper = new DirtyNode(true, size - splitIndex);
+        for (int i = splitIndex; i < size; i++)
+        {
+          upper.insertRecord(i - splitIndex, keys.get(i), values.get(i));
+        }
+        for (int i = size - 1; i >= splitIndex; i--)
+        {
+          removeRecord(i);
+        }
+        return new Split(upper.keys.get(0), upper);
+      }
+
+      // Children [0, splitIndex) stay in this node, separator splitIndex - 1 moves up
+      splitIndex = 2;
+      while (splitIndex < size - 1)
+      {
+        lowerSize += branchChildSize(keys.get(splitIndex - 1));
+        if (lowerSize >= half)
+        {
+          break;
+        }
+        splitIndex++;
+      }
+      final ByteString separator = keys.get(splitIndex - 1);
+      final DirtyNode upper = new DirtyNode(false, size - splitIndex);
+      upper.children.add(children.get(splitIndex));
+      upper.encodedSize += branchChildSize(null);
+      for (int i = splitIndex + 1; i < size; i++)
+      {
+        upper.insertChild(i - splitIndex, keys.get(i - 1), children.get(i));
+      }
+      for (int i = size - 1; i >= splitIndex; i--)
+      {
+        children.remove(i);
+        encodedSize -= branchChildSize(keys.remove(i - 1));
+      }
+      recordCount = -1;
+      return new Split(separator, upper);
+    }
+  }
+
+  /** The result of splitting a node. */
+  static final class Split
+  {
+    final ByteString separator;
+    final DirtyNode upper;
+
+    Split(ByteString separator, DirtyNode upper)
+    {
+      this.separator = separator;
+      this.upper = upper;
+    }
+  }
+}
@@ -14,6 +14,7 @@
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
  * Portions Copyright 2014 Manuel Gaupp
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.backends.pluggable;
 
@@ -43,6 +44,7 @@ import org.forgerock.opendj.ldap.Assertion;
 import org.forgerock.opendj.ldap.ByteSequence;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.ModificationType;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.ldap.schema.MatchingRule;
 import org.forgerock.opendj.ldap.schema.Schema;
@@ -52,6 +54,7 @@ import org.forgerock.opendj.ldap.spi.Indexer;
 import org.forgerock.opendj.ldap.spi.IndexingOptions;
 import org.forgerock.opendj.server.config.meta.BackendIndexCfgDefn.IndexType;
 import org.forgerock.opendj.server.config.server.BackendIndexCfg;
+import org.opends.server.backends.pluggable.IndexFilter.CardinalityStatistics;
 import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
 import org.opends.server.backends.pluggable.spi.TreeName;
 import org.opends.server.backends.pluggable.spi.WriteOperation;
@@ -62,6 +65,7 @@ import org.opends.server.types.Attribute;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
 import org.opends.server.types.FilterType;
+import org.opends.server.types.Modification;
 import org.opends.server.types.SearchFilter;
 import org.opends.server.util.StaticUtils;
 
@@ -104,6 +108,11 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
       this.indexType = indexType;
     }
 
+    IndexType getIndexType()
+    {
+      return indexType;
+    }
+
     @Override
     public String toString()
     {
@@ -118,14 +127,20 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
   {
     private final AttributeType attributeType;
     private final Indexer indexer;
+    /**
+     * Whether each value has a single key which no other value has, as the normalized value in an
+     * equality index.
+     */
+    private final boolean keysIdentifyValues;
 
     private MatchingRuleIndex(EntryContainer entryContainer, AttributeType attributeType, State state, Indexer indexer,
-        int indexEntryLimit, CryptoSuite cryptoSuite)
+        boolean keysIdentifyValues, int indexEntryLimit, CryptoSuite cryptoSuite)
     {
       super(getIndexName(entryContainer, attributeType, indexer.getIndexID()),
           state, indexEntryLimit, entryContainer, cryptoSuite);
       this.attributeType = attributeType;
       this.indexer = indexer;
+      this.keysIdentifyValues = keysIdentifyValues;
     }
 
     Set<ByteString> indexEntry(Entry entry)
@@ -158,6 +173,96 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
       }
     }
 
+    /**
+     * Computes the keys modified by modifications which only add or delete values, from the added
+     * and deleted values only: large multi-valued attributes, like the members of static groups,
+     * are not indexed again on each modification.
+     *
+     * @return {@code false} if the modified keys must be computed from all the values of the old
+     *         and new entries
+     */
+    private boolean modifyEntry(Entry oldEntry, Entry newEntry, List<Modification> mods,
+        Map<ByteString, Boolean> modifiedKeys)
+    {
+      if (!keysIdentifyValues || !hasOnlyIndexedAttributeType(oldEntry) || !hasOnlyIndexedAttributeType(newEntry))
+      {
+        return false;
+      }
+      for (Modification mod : mods)
+      {
+        final Attribute modAttr = mod.getAttribute();
+        final AttributeType modType = modAttr.getAttributeDescription().getAttributeType();
+        if (attributeType.isSuperTypeOf(modType)
+            && (!attributeType.equals(modType)
+                || modAttr.isEmpty()
+                || (!ModificationType.ADD.equals(mod.getModificationType())
+                    && !ModificationType.DELETE.equals(mod.getModificationType()))))
+        {
+          return false;
+        }
+      }
+
+      final Set<ByteString> keys = new HashSet<>();
+      for (Modification mod : mods)
+      {
+        final Attribute modAttr = mod.getAttribute();
+        if (attributeType.equals(modAttr.getAttributeDescription().getAttributeType()))
+        {
+          for (ByteString value : modAttr)
+          {
+            final boolean wasPresent = hasValue(oldEntry, value);
+            final boolean isPresent = hasValue(newEntry, value);
+            if (wasPresent != isPresent)
+            {
+              keys.clear();
+              createKeys(value, keys);
+              for (ByteString key : keys)
+              {
+                modifiedKeys.put(key, isPresent);
+              }
+            }
+          }
+        }
+      }
+      return true;
+    }
+
+    private boolean hasOnlyIndexedAttributeType(Entry entry)
+    {
+      for (Attribute attr : entry.getAllAttributes(attributeType))
+      {
+        if (!attributeType.equals(attr.getAttributeDescription().getAttributeType()))
+        {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean hasValue(Entry entry, ByteString value)
+    {
+      for (Attribute attr : entry.getAllAttributes(attributeType))
+      {
+        if (!attr.isVirtual() && attr.contains(value))
+        {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void createKeys(ByteString value, Set<ByteString> keys)
+    {
+      try
+      {
+        indexer.createKeys(Schema.getDefaultSchema(), value, keys);
+      }
+      catch (DecodeException e)
+      {
+        logger.traceException(e);
+      }
+    }
+
     void indexEntry(Entry entry, Set<ByteString> keys)
     {
       for (Attribute attr : entry.getAllAttributes(attributeType))
@@ -291,6 +396,9 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
   private IndexingOptions indexingOptions;
   private final State state;
   private final CryptoSuite cryptoSuite;
+  /** The statistics of the filters evaluated against this attribute index, used to plan AND filters. */
+  private final Map<IndexFilterType, CardinalityStatistics> cardinalityStatistics =
+      CardinalityStatistics.newCardinalityStatistics();
 
   AttributeIndex(BackendIndexCfg config, State state, EntryContainer entryContainer, CryptoSuite cryptoSuite)
       throws ConfigException
@@ -311,6 +419,7 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
     final IndexingOptions indexingOptions = new IndexingOptionsImpl(config.getSubstringLength());
 
     Map<Indexer, Boolean> indexers = new HashMap<>();
+    Set<Indexer> valueKeyedIndexers = new HashSet<>();
     for(IndexType indexType : config.getIndexType()) {
       switch (indexType)
       {
@@ -322,8 +431,14 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
             getExtensibleIndexers(config.getAttribute(), config.getIndexExtensibleMatchingRule(), indexingOptions));
         break;
       case EQUALITY:
-        indexers.putAll(buildBaseIndexers(config.isConfidentialityEnabled(), false, indexType, attributeType,
-            indexingOptions));
+        final Map<Indexer, Boolean> equalityIndexers = buildBaseIndexers(config.isConfidentialityEnabled(), false,
+            indexType, attributeType, indexingOptions);
+        indexers.putAll(equalityIndexers);
+        if (!config.isConfidentialityEnabled())
+        {
+          // hashed keys could collide
+          valueKeyedIndexers.addAll(equalityIndexers.keySet());
+        }
         break;
       case SUBSTRING:
         indexers.putAll(buildBaseIndexers(false, config.isConfidentialityEnabled(), indexType, attributeType,
@@ -337,7 +452,8 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
         throw noMatchingRuleForIndexType(attributeType, indexType);
       }
     }
-    return buildIndexesForIndexers(entryContainer, attributeType, state, indexEntryLimit, indexers, cryptoSuite);
+    return buildIndexesForIndexers(entryContainer, attributeType, state, indexEntryLimit, indexers,
+        valueKeyedIndexers, cryptoSuite);
   }
 
   private Map<Indexer, Boolean> buildBaseIndexers(boolean protectIndexKeys, boolean protectIndexValues,
@@ -381,17 +497,18 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
 
   private static Map<String, MatchingRuleIndex> buildIndexesForIndexers(EntryContainer entryContainer,
       AttributeType attributeType, State state, int indexEntryLimit, Map<Indexer, Boolean> indexers,
-      CryptoSuite cryptoSuite)
+      Set<Indexer> valueKeyedIndexers, CryptoSuite cryptoSuite)
   {
     final Map<String, MatchingRuleIndex> indexes = new HashMap<>();
     for (Map.Entry<Indexer, Boolean> indexerEntry : indexers.entrySet())
     {
-      final String indexID = indexerEntry.getKey().getIndexID();
+      final Indexer indexer = indexerEntry.getKey();
+      final String indexID = indexer.getIndexID();
       if (!indexes.containsKey(indexID))
       {
         indexes.put(indexID,
-            new MatchingRuleIndex(entryContainer, attributeType, state, indexerEntry.getKey(),
-                indexEntryLimit, cryptoSuite));
+            new MatchingRuleIndex(entryContainer, attributeType, state, indexer,
+                valueKeyedIndexers.contains(indexer), indexEntryLimit, cryptoSuite));
       }
     }
     return indexes;
@@ -564,15 +681,20 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
    * @param entryID The ID of the entry that was modified.
    * @param oldEntry The entry before the modifications were applied.
    * @param newEntry The entry after the modifications were applied.
+   * @param mods The sequence of modifications made to the entry.
    * @throws StorageRuntimeException If an error occurs during an operation on a
    * storage.
    */
-  void modifyEntry(IndexBuffer buffer, EntryID entryID, Entry oldEntry, Entry newEntry) throws StorageRuntimeException
+  void modifyEntry(IndexBuffer buffer, EntryID entryID, Entry oldEntry, Entry newEntry, List<Modification> mods)
+      throws StorageRuntimeException
   {
     for (MatchingRuleIndex index : indexIdToIndexes.values())
     {
       TreeMap<ByteString, Boolean> modifiedKeys = new TreeMap<>();
-      index.modifyEntry(oldEntry, newEntry, modifiedKeys);
+      if (!index.modifyEntry(oldEntry, newEntry, mods, modifiedKeys))
+      {
+        index.modifyEntry(oldEntry, newEntry, modifiedKeys);
+      }
       for (Map.Entry<ByteString, Boolean> modifiedKey : modifiedKeys.entrySet())
       {
         if (modifiedKey.getValue())
@@ -1067,6 +1189,11 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
     return indexIdToIndexes;
   }
 
+  CardinalityStatistics getCardinalityStatistics(IndexFilterType indexFilterType)
+  {
+    return cardinalityStatistics.get(indexFilterType);
+  }
+
   /**
    * Retrieve the entry IDs that might match an extensible filter.
    *
@@ -96,7 +96,14 @@ class DefaultIndex extends AbstractTree implements Index
   final void afterOpen(WriteableTransaction txn, boolean createOnDemand)
   {
     final EnumSet<IndexFlag> flags = state.getIndexFlags(txn, getName());
-    codec = flags.contains(COMPACTED) ? CODEC_V2 : CODEC_V1;
+    if (flags.contains(BITMAP))
+    {
+      codec = CODEC_V4;
+    }
+    else
+    {
+      codec = flags.contains(COMPACTED) ? CODEC_V2 : CODEC_V1;
+    }
     if (cryptoSuite.isEncrypted())
     {
       codec = new EntryIDSet.EntryIDSetCodecV3(codec, cryptoSuite);
@@ -14,6 +14,7 @@
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
  * Portions copyright 2013 Manuel Gaupp
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.backends.pluggable;
 
@@ -32,6 +33,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -66,6 +68,8 @@ import org.opends.server.api.EntryCache;
 import org.opends.server.api.VirtualAttributeProvider;
 import org.opends.server.api.plugin.PluginResult.SubordinateDelete;
 import org.opends.server.api.plugin.PluginResult.SubordinateModifyDN;
+import org.opends.server.backends.pluggable.ParallelSearchEvaluator.Candidate;
+import org.opends.server.backends.pluggable.ParallelSearchEvaluator.EntryMatcher;
 import org.opends.server.backends.pluggable.spi.AccessMode;
 import org.opends.server.backends.pluggable.spi.Cursor;
 import org.opends.server.backends.pluggable.spi.ReadOperation;
@@ -758,8 +762,11 @@ public class EntryContainer
 
           // Combining server-side sort with paged result controls
           // requires us to use an entryIDSet where the entryIDs are ordered
-          // so further paging can restart where it previously stopped
-          long[] reorderedCandidateEntryIDs;
+          // so further paging can restart where it previously stopped.
+          // Without sorting, the candidates are iterated in ascending entry ID order
+          // straight from the candidate set, without copying them into an array,
+          // or evaluated by windows of entry IDs when a window size is configured.
+          long[] reorderedCandidateEntryIDs = null;
           if (candidateEntryIDs == null)
           {
             if (processSearchWithVirtualAttributeRule(searchOperation, true))
@@ -771,6 +778,14 @@ public class EntryContainer
             IndexFilter indexFilter = new IndexFilter(
                 EntryContainer.this, txn, searchOperation, debugBuffer, rootContainer.getMonitorProvider());
 
+            final int windowSize = config.getIndexedSearchWindowSize();
+            if (windowSize > 0 && sortRequest == null && debugBuffer == null
+                && searchIndexedByWindows(txn, indexFilter, windowSize,
+                    Math.min(getEntryIDSetLimit(searchOperation), windowSize), searchOperation, pageRequest))
+            {
+              return null;
+            }
+
             // Evaluate the filter against the attribute indexes.
             candidateEntryIDs = indexFilter.evaluate();
             if (!isBelowFilterThreshold(candidateEntryIDs))
@@ -828,10 +843,6 @@ public class EntryContainer
                 serverSideSortControlError(searchOperation, sortRequest, de);
               }
             }
-            else
-            {
-              reorderedCandidateEntryIDs = candidateEntryIDs.toLongArray();
-            }
           }
           else
           {
@@ -850,10 +861,11 @@ public class EntryContainer
             return null;
           }
 
-          if (reorderedCandidateEntryIDs != null)
+          if (candidateEntryIDs.isDefined())
           {
             rootContainer.getMonitorProvider().incrementIndexedSearchCount();
-            searchIndexed(txn, reorderedCandidateEntryIDs, candidatesAreInScope, searchOperation, pageRequest);
+            searchIndexed(txn, candidateEntryIDs, reorderedCandidateEntryIDs, candidatesAreInScope, searchOperation,
+                pageRequest);
           }
           else
           {
@@ -976,32 +988,32 @@ public class EntryContainer
     }
   }
 
+  /**
+   * Reads the entry IDs from the cursor into a compressed bitmap, so the memory used only depends on the number of
+   * entry IDs actually read rather than on the limit.
+   */
   private static EntryIDSet newIDSetFromCursor(SequentialCursor<?, EntryID> cursor, boolean includeCurrent,
       int idSetLimit)
   {
-    long entryIDs[] = new long[idSetLimit];
-    int offset = 0;
+    final EntryIDSet entryIDs = EntryIDSet.newBitmapSet();
+    int count = 0;
     if (includeCurrent)
     {
-      entryIDs[offset++] = cursor.getValue().longValue();
+      entryIDs.add(cursor.getValue());
+      count++;
     }
 
-    while(offset < idSetLimit && cursor.next())
+    while (count < idSetLimit && cursor.next())
     {
-      entryIDs[offset++] = cursor.getValue().longValue();
+      entryIDs.add(cursor.getValue());
+      count++;
     }
 
-    if (offset == idSetLimit && cursor.next())
+    if (count == idSetLimit && cursor.next())
     {
       return EntryIDSet.newUndefinedSet();
     }
-    else if (offset != idSetLimit)
-    {
-      entryIDs = Arrays.copyOf(entryIDs, offset);
-    }
-    Arrays.sort(entryIDs);
-
-    return EntryIDSet.newDefinedSet(entryIDs);
+    return entryIDs;
   }
 
   private <E1 extends Exception, E2 extends Exception>
@@ -1262,9 +1274,21 @@ public class EntryContainer
    * <li>discard entries that are not in scope
    * <li>return entry if it matches the filter
    * </ul>
+   * <p>
+   * When no sort order is requested, the candidates are iterated in ascending ID order straight from the candidate
+   * set instead of being copied into an array of IDs. The candidate set is fully evaluated before the first entry is
+   * returned: {@link #searchIndexedByWindows} evaluates it by windows of entry IDs instead when the backend is
+   * configured with an indexed search window size.
+   * <p>
+   * When the backend is configured with a search parallelism greater than one, large candidate sets are decoded and
+   * evaluated in parallel by batches, but the matching entries are still returned in order by the calling thread.
    *
+   * @param txn
+   *          The transaction.
+   * @param candidateEntryIDs
+   *          The defined set of candidate entry IDs.
    * @param entryIDReorderedSet
-   *          The candidate entry IDs.
+   *          The candidate entry IDs in the order they must be returned, or null to return them in ascending order.
    * @param candidatesAreInScope
    *          true if it is certain that every candidate entry is in the search scope.
    * @param searchOperation
@@ -1274,40 +1298,25 @@ public class EntryContainer
    * @throws DirectoryException
    *           If an error prevented the search from being processed.
    */
-  private void searchIndexed(ReadableTransaction txn, long[] entryIDReorderedSet, boolean candidatesAreInScope,
-      SearchOperation searchOperation, PagedResultsControl pageRequest) throws DirectoryException,
-      CanceledOperationException
+  private void searchIndexed(ReadableTransaction txn, EntryIDSet candidateEntryIDs, long[] entryIDReorderedSet,
+      boolean candidatesAreInScope, SearchOperation searchOperation, PagedResultsControl pageRequest)
+      throws DirectoryException, CanceledOperationException
   {
-    SearchScope searchScope = searchOperation.getScope();
-    DN aBaseDN = searchOperation.getBaseDN();
     boolean manageDsaIT = isManageDsaITOperation(searchOperation);
     boolean continueSearch = true;
 
     // Set the starting value.
-    Long beginEntryID = null;
-    if (pageRequest != null && pageRequest.getCookie().length() != 0)
-    {
-      // The cookie contains the ID of the next entry to be returned.
-      try
-      {
-        beginEntryID = pageRequest.getCookie().toLong();
-      }
-      catch (Exception e)
-      {
-        logger.traceException(e);
-        throw new DirectoryException(ResultCode.UNWILLING_TO_PERFORM,
-            ERR_INVALID_PAGED_RESULTS_COOKIE.get(pageRequest.getCookie().toHexString()), e);
-      }
-    }
-    else if (!manageDsaIT)
+    Long beginEntryID = getBeginEntryID(pageRequest);
+    if (beginEntryID == null && !manageDsaIT)
     {
       continueSearch = dn2uri.returnSearchReferences(txn, searchOperation);
     }
 
     // Make sure the candidate list is smaller than the lookthrough limit
+    final long nbCandidates = entryIDReorderedSet != null ? entryIDReorderedSet.length : candidateEntryIDs.size();
     int lookthroughLimit =
       searchOperation.getClientConnection().getLookthroughLimit();
-    if (lookthroughLimit > 0 && entryIDReorderedSet.length > lookthroughLimit)
+    if (lookthroughLimit > 0 && nbCandidates > lookthroughLimit)
     {
       //Lookthrough limit exceeded
       searchOperation.setResultCode(ResultCode.ADMIN_LIMIT_EXCEEDED);
@@ -1318,55 +1327,131 @@ public class EntryContainer
     // Iterate through the index candidates.
     if (continueSearch)
     {
-      final SearchFilter filter = searchOperation.getFilter();
-      for (int i = findStartIndex(beginEntryID, entryIDReorderedSet); i < entryIDReorderedSet.length; i++)
+      final Iterator<EntryID> candidates;
+      if (entryIDReorderedSet != null)
       {
-        EntryID entryID = new EntryID(entryIDReorderedSet[i]);
-        Entry entry;
-        try
-        {
-          entry = getEntry(txn, entryID);
-        }
-        catch (Exception e)
-        {
-          logger.traceException(e);
-          continue;
-        }
+        candidates = iterator(entryIDReorderedSet, findStartIndex(beginEntryID, entryIDReorderedSet));
+      }
+      else
+      {
+        // Resume at the entry of the cookie, or at the next candidate if this entry
+        // has been deleted or no longer matches since the previous page.
+        candidates = beginEntryID != null
+            ? candidateEntryIDs.iterator(new EntryID(beginEntryID))
+            : candidateEntryIDs.iterator();
+      }
+      final EntryMatcher matcher = newEntryMatcher(searchOperation, candidatesAreInScope, manageDsaIT);
+      final ParallelSearchEvaluator evaluator = rootContainer.getParallelSearchEvaluator();
+      final boolean pageFull = evaluator != null && nbCandidates >= ParallelSearchEvaluator.MIN_CANDIDATES
+          ? returnMatchingEntries(txn, candidates, evaluator, matcher, searchOperation, pageRequest)
+          : returnMatchingEntries(txn, candidates, matcher, searchOperation, pageRequest);
+      if (pageFull)
+      {
+        return;
+      }
+      searchOperation.checkIfCanceled(false);
+    }
 
-        // Process the candidate entry.
-        if (entry != null
-              && isInScope(candidatesAreInScope, searchScope, aBaseDN, entry)
-              && (manageDsaIT || entry.getReferralURLs() == null)
-              && filter.matchesEntry(entry))
-          {
-            if (isPageFull(searchOperation, pageRequest))
-            {
-              // Set the cookie to remember where we were.
-              addPagedResultsControl(searchOperation, pageRequest, entryID.toByteString());
-              return;
-            }
+    endIndexedSearch(txn, searchOperation, pageRequest, manageDsaIT);
+  }
 
-            if (!searchOperation.returnEntry(entry, null))
-            {
-              // We have been told to discontinue processing of the search.
-              // This could be due to size limit exceeded or operation cancelled
-              break;
-            }
-          }
+  /**
+   * Processes an indexed search without sorting by evaluating its candidates one window of entry IDs at a time, see
+   * {@link WindowedCandidates}. The entries are returned in ascending entry ID order, like {@link #searchIndexed}
+   * does, but the first entries are returned before the candidates of the later windows are evaluated, and the
+   * candidate entry IDs held in memory are bounded by the window size.
+   * <p>
+   * Since the number of candidates is not known upfront, the lookthrough limit is checked as the windows are
+   * evaluated: the entries of the previous windows may have been returned when the limit is exceeded.
+   *
+   * @param txn
+   *          The transaction.
+   * @param indexFilter
+   *          The index filter of the search.
+   * @param windowSize
+   *          The maximum number of candidate entry IDs evaluated at once.
+   * @param scopeSetLimit
+   *          The maximum number of entry IDs read from dn2id to narrow the candidates to the search scope.
+   * @param searchOperation
+   *          The search operation.
+   * @param pageRequest
+   *          A Paged Results control, or null if none.
+   * @return false if the search filter is not indexed, in which case nothing has been returned, true otherwise
+   * @throws DirectoryException
+   *           If an error prevented the search from being processed.
+   */
+  private boolean searchIndexedByWindows(ReadableTransaction txn, IndexFilter indexFilter, int windowSize,
+      int scopeSetLimit, SearchOperation searchOperation, PagedResultsControl pageRequest)
+      throws DirectoryException, CanceledOperationException
+  {
+    // Resume at the entry of the cookie, or at the next candidate if this entry
+    // has been deleted or no longer matches since the previous page.
+    final Long beginEntryID = getBeginEntryID(pageRequest);
+    final WindowedCandidates candidates = new WindowedCandidates(txn, indexFilter, searchOperation, windowSize,
+        scopeSetLimit, beginEntryID != null ? beginEntryID.longValue() : 0);
+    if (!candidates.isIndexed())
+    {
+      return false;
+    }
+    rootContainer.getMonitorProvider().incrementIndexedSearchCount();
+
+    final boolean manageDsaIT = isManageDsaITOperation(searchOperation);
+    if (beginEntryID != null || manageDsaIT || dn2uri.returnSearchReferences(txn, searchOperation))
+    {
+      // The number of candidates is not known, the batches of the parallel evaluator start small anyway
+      final EntryMatcher matcher = newEntryMatcher(searchOperation, false, manageDsaIT);
+      final ParallelSearchEvaluator evaluator = rootContainer.getParallelSearchEvaluator();
+      final boolean pageFull = evaluator != null
+          ? returnMatchingEntries(txn, candidates, evaluator, matcher, searchOperation, pageRequest)
+          : returnMatchingEntries(txn, candidates, matcher, searchOperation, pageRequest);
+      if (pageFull)
+      {
+        return true;
       }
       searchOperation.checkIfCanceled(false);
     }
 
+    endIndexedSearch(txn, searchOperation, pageRequest, manageDsaIT);
+    return true;
+  }
+
+  /**
+   * Returns the ID of the entry a paged search resumes at.
+   *
+   * @return the entry ID held by the paged results cookie, or null if there is no cookie
+   */
+  private static Long getBeginEntryID(PagedResultsControl pageRequest) throws DirectoryException
+  {
+    if (pageRequest != null && pageRequest.getCookie().length() != 0)
+    {
+      // The cookie contains the ID of the next entry to be returned.
+      try
+      {
+        return pageRequest.getCookie().toLong();
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+        throw new DirectoryException(ResultCode.UNWILLING_TO_PERFORM,
+            ERR_INVALID_PAGED_RESULTS_COOKIE.get(pageRequest.getCookie().toHexString()), e);
+      }
+    }
+    return null;
+  }
+
+  private void endIndexedSearch(ReadableTransaction txn, SearchOperation searchOperation,
+      PagedResultsControl pageRequest, boolean manageDsaIT) throws DirectoryException
+  {
     // Before we return success from the search we must ensure the base entry
     // exists. However, if we have returned at least one entry or subordinate
     // reference it implies the base does exist, so we can omit the check.
     if (searchOperation.getEntriesSent() == 0
         && searchOperation.getReferencesSent() == 0)
     {
-      final Entry baseEntry = fetchBaseEntry(txn, aBaseDN, searchScope);
+      final Entry baseEntry = fetchBaseEntry(txn, searchOperation.getBaseDN(), searchOperation.getScope());
       if (!manageDsaIT)
       {
-        dn2uri.checkTargetForReferral(baseEntry, searchScope);
+        dn2uri.checkTargetForReferral(baseEntry, searchOperation.getScope());
       }
     }
 
@@ -1374,6 +1459,371 @@ public class EntryContainer
     addPagedResultsControl(searchOperation, pageRequest, null);
   }
 
+  private static EntryMatcher newEntryMatcher(SearchOperation searchOperation, final boolean candidatesAreInScope,
+      final boolean manageDsaIT)
+  {
+    final SearchScope searchScope = searchOperation.getScope();
+    final DN aBaseDN = searchOperation.getBaseDN();
+    final SearchFilter filter = searchOperation.getFilter();
+    return new EntryMatcher()
+    {
+      @Override
+      public boolean matches(Entry entry) throws DirectoryException
+      {
+        return isInScope(candidatesAreInScope, searchScope, aBaseDN, entry)
+            && (manageDsaIT || entry.getReferralURLs() == null)
+            && filter.matchesEntry(entry);
+      }
+    };
+  }
+
+  /**
+   * Returns the candidate entries matching the search, fetching, decoding and evaluating them one at a time on the
+   * calling thread.
+   *
+   * @return true if the page is full and the paged results cookie has been set
+   */
+  private boolean returnMatchingEntries(ReadableTransaction txn, Iterator<EntryID> candidates, EntryMatcher matcher,
+      SearchOperation searchOperation, PagedResultsControl pageRequest) throws DirectoryException
+  {
+    while (candidates.hasNext())
+    {
+      EntryID entryID = candidates.next();
+      Entry entry;
+      try
+      {
+        entry = getEntry(txn, entryID);
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+        continue;
+      }
+
+      // Process the candidate entry.
+      if (entry != null && matcher.matches(entry))
+      {
+        if (isPageFull(searchOperation, pageRequest))
+        {
+          // Set the cookie to remember where we were.
+          addPagedResultsControl(searchOperation, pageRequest, entryID.toByteString());
+          return true;
+        }
+
+        if (!searchOperation.returnEntry(entry, null))
+        {
+          // We have been told to discontinue processing of the search.
+          // This could be due to size limit exceeded or operation cancelled
+          break;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the candidate entries matching the search, reading them by batches on the calling thread which owns the
+   * transaction, then decoding and evaluating each batch in parallel. The matching entries are returned by the calling
+   * thread in the order of the candidates.
+   *
+   * @return true if the page is full and the paged results cookie has been set
+   */
+  private boolean returnMatchingEntries(ReadableTransaction txn, Iterator<EntryID> candidates,
+      ParallelSearchEvaluator evaluator, EntryMatcher matcher, SearchOperation searchOperation,
+      PagedResultsControl pageRequest) throws DirectoryException
+  {
+    final EntryCache<?> entryCache = getEntryCache();
+    Candidate[] batch = new Candidate[0];
+    int batchSize = 0;
+    while (candidates.hasNext())
+    {
+      batchSize = evaluator.nextBatchSize(batchSize);
+      if (batch.length < batchSize)
+      {
+        batch = Arrays.copyOf(batch, batchSize);
+      }
+
+      // Read the batch, the transaction cannot be shared with the evaluator threads
+      int size = 0;
+      while (size < batchSize && candidates.hasNext())
+      {
+        final Candidate candidate = batch[size] != null ? batch[size] : (batch[size] = new Candidate());
+        candidate.reset(candidates.next());
+        size++;
+        candidate.entry = entryCache.getEntry(backendID, candidate.entryID.longValue());
+        if (candidate.entry == null)
+        {
+          try
+          {
+            candidate.encodedEntry = id2entry.read(txn, candidate.entryID);
+          }
+          catch (Exception e)
+          {
+            logger.traceException(e);
+          }
+        }
+      }
+
+      evaluator.evaluate(batch, size, id2entry, matcher);
+
+      // Cache the whole batch, including the entries read ahead of a full page or a size limit,
+      // making sure not to overwrite a newer copy that may have been inserted since the time we read the cache.
+      for (int i = 0; i < size; i++)
+      {
+        final Candidate candidate = batch[i];
+        if (candidate.encodedEntry != null && candidate.entry != null)
+        {
+          entryCache.putEntryIfAbsent(candidate.entry, backendID, candidate.entryID.longValue());
+        }
+      }
+
+      for (int i = 0; i < size; i++)
+      {
+        final Candidate candidate = batch[i];
+        if (candidate.matchError != null)
+        {
+          throw candidate.matchError;
+        }
+        if (candidate.matches)
+        {
+          if (isPageFull(searchOperation, pageRequest))
+          {
+            // Set the cookie to remember where we were.
+            addPagedResultsControl(searchOperation, pageRequest, candidate.entryID.toByteString());
+            return true;
+          }
+
+          if (!searchOperation.returnEntry(candidate.entry, null))
+          {
+            // We have been told to discontinue processing of the search.
+            // This could be due to size limit exceeded or operation cancelled
+            return false;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private static Iterator<EntryID> iterator(final long[] entryIDs, final int startIndex)
+  {
+    return new Iterator<EntryID>()
+    {
+      private int index = startIndex;
+
+      @Override
+      public boolean hasNext()
+      {
+        return index < entryIDs.length;
+      }
+
+      @Override
+      public EntryID next()
+      {
+        if (!hasNext())
+        {
+          throw new NoSuchElementException();
+        }
+        return new EntryID(entryIDs[index++]);
+      }
+
+      @Override
+      public void remove()
+      {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /** Returns an iterator over every entry ID in a range, whether an entry has this ID or not. */
+  private static Iterator<EntryID> rangeIterator(final long fromEntryID, final long toEntryID)
+  {
+    return new Iterator<EntryID>()
+    {
+      private long next = fromEntryID;
+
+      @Override
+      public boolean hasNext()
+      {
+        return next < toEntryID;
+      }
+
+      @Override
+      public EntryID next()
+      {
+        if (!hasNext())
+        {
+          throw new NoSuchElementException();
+        }
+        return new EntryID(next++);
+      }
+
+      @Override
+      public void remove()
+      {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /**
+   * Iterates over the candidates of an indexed search in ascending entry ID order, evaluating the search filter
+   * against the indexes one window of entry IDs at a time. A window is only evaluated once the candidates of the
+   * previous one have been consumed, so the candidate entry IDs held in memory are bounded by the window size.
+   * <p>
+   * The windows adapt to the density of the candidates: their width doubles while they hold at most half the window
+   * size, and a window holding more candidates than the window size is evaluated again over half its width. Once
+   * the candidates are numerous enough, they are narrowed to the search scope when the scope holds fewer entries
+   * than the window size, the remaining candidates being then evaluated in a single window.
+   */
+  private final class WindowedCandidates implements Iterator<EntryID>
+  {
+    private final ReadableTransaction txn;
+    private final IndexFilter indexFilter;
+    private final SearchOperation searchOperation;
+    private final int windowSize;
+    private final int scopeSetLimit;
+    private final int lookthroughLimit;
+    private final long highestEntryID;
+
+    /** The lowest (inclusive) and highest (exclusive) entry IDs of the current window. */
+    private long windowStart;
+    private long windowEnd;
+    private long windowWidth;
+    /** The candidates of the current window which have not been returned yet. */
+    private Iterator<EntryID> window;
+    /** The entry IDs in the search scope, null until the candidates are numerous enough to narrow them. */
+    private EntryIDSet scopeSet;
+    private long nbCandidates;
+    private boolean lookthroughLimitExceeded;
+
+    WindowedCandidates(ReadableTransaction txn, IndexFilter indexFilter, SearchOperation searchOperation,
+        int windowSize, int scopeSetLimit, long firstEntryID)
+    {
+      this.txn = txn;
+      this.indexFilter = indexFilter;
+      this.searchOperation = searchOperation;
+      this.windowSize = windowSize;
+      this.scopeSetLimit = scopeSetLimit;
+      this.lookthroughLimit = searchOperation.getClientConnection().getLookthroughLimit();
+      this.highestEntryID = getHighestEntryID(txn).longValue();
+      this.windowEnd = Math.max(firstEntryID, 0);
+      this.windowWidth = windowSize;
+    }
+
+    /**
+     * Evaluates the first window. This method must be called before iterating over the candidates.
+     *
+     * @return whether the search filter is indexed, the search must be processed as unindexed otherwise
+     */
+    boolean isIndexed()
+    {
+      final EntryIDSet candidates = nextWindow();
+      window = candidates.iterator();
+      return candidates.isDefined();
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+      while (!window.hasNext())
+      {
+        if (lookthroughLimitExceeded || windowEnd > highestEntryID)
+        {
+          return false;
+        }
+        final EntryIDSet candidates = nextWindow();
+        // Whether the search filter is indexed does not depend on the window,
+        // but rather fetch every entry of the window than miss some of them.
+        window = candidates.isDefined() ? candidates.iterator() : rangeIterator(windowStart, windowEnd);
+      }
+      return true;
+    }
+
+    @Override
+    public EntryID next()
+    {
+      if (!hasNext())
+      {
+        throw new NoSuchElementException();
+      }
+      return window.next();
+    }
+
+    @Override
+    public void remove()
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    private EntryIDSet nextWindow()
+    {
+      windowStart = windowEnd;
+      for (;;)
+      {
+        windowEnd = windowWidth > highestEntryID - windowStart ? highestEntryID + 1 : windowStart + windowWidth;
+        final EntryIDSet candidates = indexFilter.evaluate(windowStart, windowEnd);
+        if (!candidates.isDefined())
+        {
+          return candidates;
+        }
+
+        if (scopeSet == null && nbCandidates + candidates.size() > FILTER_CANDIDATE_THRESHOLD)
+        {
+          scopeSet = readScopeSet();
+        }
+        if (scopeSet != null && scopeSet.isDefined())
+        {
+          candidates.retainAll(scopeSet);
+          windowWidth = Long.MAX_VALUE;
+        }
+        else if (candidates.size() > windowSize && windowEnd - windowStart > windowSize)
+        {
+          windowWidth = (windowEnd - windowStart) / 2;
+          continue;
+        }
+        else if (candidates.size() <= windowSize / 2 && windowWidth < highestEntryID)
+        {
+          windowWidth *= 2;
+        }
+
+        nbCandidates += candidates.size();
+        if (lookthroughLimit > 0 && nbCandidates > lookthroughLimit)
+        {
+          searchOperation.setResultCode(ResultCode.ADMIN_LIMIT_EXCEEDED);
+          searchOperation.appendErrorMessage(NOTE_LOOKTHROUGH_LIMIT_EXCEEDED.get(lookthroughLimit));
+          lookthroughLimitExceeded = true;
+          return EntryIDSet.newDefinedSet();
+        }
+        return candidates;
+      }
+    }
+
+    /**
+     * Reads the entry IDs in the search scope from dn2id, up to the scope set limit.
+     *
+     * @return the entry IDs in the search scope, or an undefined set if there are too many of them
+     */
+    private EntryIDSet readScopeSet()
+    {
+      final DN aBaseDN = searchOperation.getBaseDN();
+      final SearchScope searchScope = searchOperation.getScope();
+      try (final SequentialCursor<?, EntryID> scopeCursor = searchScope == SearchScope.SINGLE_LEVEL
+          ? dn2id.openChildrenCursor(txn, aBaseDN)
+          : dn2id.openSubordinatesCursor(txn, aBaseDN))
+      {
+        return newIDSetFromCursor(scopeCursor, searchScope.equals(SearchScope.WHOLE_SUBTREE), scopeSetLimit);
+      }
+      catch (NoSuchElementException e)
+      {
+        // The candidates are checked against the scope one by one, and the missing base entry is reported
+        // once the search has returned no entries.
+        logger.traceException(e);
+        return EntryIDSet.newUndefinedSet();
+      }
+    }
+  }
+
   private int findStartIndex(Long beginEntryID, long[] entryIDReorderedSet)
   {
     if (beginEntryID == null)
@@ -1391,7 +1841,7 @@ public class EntryContainer
     return 0;
   }
 
-  private boolean isInScope(boolean candidatesAreInScope, SearchScope searchScope, DN aBaseDN, Entry entry)
+  private static boolean isInScope(boolean candidatesAreInScope, SearchScope searchScope, DN aBaseDN, Entry entry)
   {
     DN entryDN = entry.getName();
 
@@ -2237,7 +2687,7 @@ public class EntryContainer
     {
       if (isAttributeModified(index.getAttributeType(), mods))
       {
-        index.modifyEntry(buffer, entryID, oldEntry, newEntry);
+        index.modifyEntry(buffer, entryID, oldEntry, newEntry, mods);
       }
     }
 
@@ -0,0 +1,1171 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.forgerock.util.Reject.*;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.forgerock.opendj.ldap.ByteSequenceReader;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+
+/**
+ * A compressed bitmap of entry IDs organized like a Roaring bitmap.
+ * <p>
+ * Entry IDs are partitioned into chunks of 2^16 values sharing the same high order bits. Each chunk is
+ * stored in a container which is either a sorted array of the low order bits, when the chunk is sparse, or
+ * a plain 2^16 bits bitmap, when the chunk is dense. Set operations are performed chunk by chunk, and
+ * intersections, unions and differences of two dense chunks are computed one 64 bits word at a time.
+ * <p>
+ * This class is not thread safe.
+ */
+final class EntryIDBitmap
+{
+  /** Maximum number of values kept in an array container before it is converted to a bitmap container. */
+  static final int ARRAY_CONTAINER_MAX_SIZE = 4096;
+
+  private static final int BITMAP_CONTAINER_WORDS = 1 << 10;
+  private static final byte ARRAY_CONTAINER = 0x01;
+  private static final byte BITMAP_CONTAINER = 0x02;
+  private static final long[] EMPTY_KEYS = new long[0];
+  private static final Container[] EMPTY_CONTAINERS = new Container[0];
+
+  /** High order bits of the chunks, in ascending order. */
+  private long[] keys;
+  /** Containers holding the low order bits of the chunks, in the same order as {@link #keys}. */
+  private Container[] containers;
+  private int nbContainers;
+  private long cardinality;
+
+  /** Creates a new empty bitmap. */
+  EntryIDBitmap()
+  {
+    this(EMPTY_KEYS, EMPTY_CONTAINERS, 0);
+  }
+
+  private EntryIDBitmap(long[] keys, Container[] containers, int nbContainers)
+  {
+    this.keys = keys;
+    this.containers = containers;
+    this.nbContainers = nbContainers;
+    for (int i = 0; i < nbContainers; i++)
+    {
+      cardinality += containers[i].cardinality();
+    }
+  }
+
+  /**
+   * Creates a new bitmap containing the provided entry IDs.
+   *
+   * @param entryIDs
+   *          the entry IDs, which should be sorted in ascending order
+   * @return a new bitmap containing the provided entry IDs
+   */
+  static EntryIDBitmap valueOf(long... entryIDs)
+  {
+    checkNotNull(entryIDs, "entryIDs must not be null");
+    final long[] ids = isStrictlySorted(entryIDs) ? entryIDs : sortedCopy(entryIDs);
+    final EntryIDBitmap bitmap = new EntryIDBitmap();
+    int i = 0;
+    while (i < ids.length)
+    {
+      final long high = highBits(ids[i]);
+      int j = i + 1;
+      while (j < ids.length && highBits(ids[j]) == high)
+      {
+        j++;
+      }
+      bitmap.append(high, newContainer(ids, i, j));
+      i = j;
+    }
+    return bitmap;
+  }
+
+  private static boolean isStrictlySorted(long[] ids)
+  {
+    for (int i = 1; i < ids.length; i++)
+    {
+      if (ids[i] <= ids[i - 1])
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long[] sortedCopy(long[] ids)
+  {
+    final long[] sorted = Arrays.copyOf(ids, ids.length);
+    Arrays.sort(sorted);
+    int j = 0;
+    for (int i = 0; i < sorted.length; i++)
+    {
+      if (j == 0 || sorted[i] != sorted[j - 1])
+      {
+        sorted[j++] = sorted[i];
+      }
+    }
+    return j == sorted.length ? sorted : Arrays.copyOf(sorted, j);
+  }
+
+  private static Container newContainer(long[] ids, int from, int to)
+  {
+    final int count = to - from;
+    if (count <= ARRAY_CONTAINER_MAX_SIZE)
+    {
+      final char[] values = new char[count];
+      for (int i = 0; i < count; i++)
+      {
+        values[i] = lowBits(ids[from + i]);
+      }
+      return new ArrayContainer(values, count);
+    }
+    final BitmapContainer container = new BitmapContainer();
+    for (int i = from; i < to; i++)
+    {
+      container.set(lowBits(ids[i]));
+    }
+    return container;
+  }
+
+  /**
+   * Returns the number of entry IDs contained in this bitmap.
+   *
+   * @return the number of entry IDs contained in this bitmap
+   */
+  long cardinality()
+  {
+    return cardinality;
+  }
+
+  boolean isEmpty()
+  {
+    return cardinality == 0;
+  }
+
+  /**
+   * Returns the lowest entry ID contained in this bitmap.
+   *
+   * @return the lowest entry ID contained in this bitmap
+   * @throws NoSuchElementException
+   *           if this bitmap is empty
+   */
+  long first()
+  {
+    if (isEmpty())
+    {
+      throw new NoSuchElementException();
+    }
+    return toEntryID(keys[0], containers[0].first());
+  }
+
+  /**
+   * Returns the highest entry ID contained in this bitmap.
+   *
+   * @return the highest entry ID contained in this bitmap
+   * @throws NoSuchElementException
+   *           if this bitmap is empty
+   */
+  long last()
+  {
+    if (isEmpty())
+    {
+      throw new NoSuchElementException();
+    }
+    return toEntryID(keys[nbContainers - 1], containers[nbContainers - 1].last());
+  }
+
+  boolean contains(long entryID)
+  {
+    final int pos = indexOf(highBits(entryID));
+    return pos >= 0 && containers[pos].contains(lowBits(entryID));
+  }
+
+  /**
+   * Adds an entry ID to this bitmap.
+   *
+   * @param entryID
+   *          the entry ID to add
+   * @return {@code true} if the bitmap has been modified
+   */
+  boolean add(long entryID)
+  {
+    final long high = highBits(entryID);
+    final int pos = indexOf(high);
+    if (pos < 0)
+    {
+      insertAt(-(pos + 1), high, new ArrayContainer(new char[] { lowBits(entryID) }, 1));
+      cardinality++;
+      return true;
+    }
+    final Container container = containers[pos];
+    final int before = container.cardinality();
+    containers[pos] = container.add(lowBits(entryID));
+    if (containers[pos].cardinality() != before)
+    {
+      cardinality++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Removes an entry ID from this bitmap.
+   *
+   * @param entryID
+   *          the entry ID to remove
+   * @return {@code true} if the bitmap has been modified
+   */
+  boolean remove(long entryID)
+  {
+    final int pos = indexOf(highBits(entryID));
+    if (pos < 0)
+    {
+      return false;
+    }
+    final Container container = containers[pos];
+    final int before = container.cardinality();
+    containers[pos] = container.remove(lowBits(entryID));
+    if (containers[pos].cardinality() == before)
+    {
+      return false;
+    }
+    cardinality--;
+    if (containers[pos].cardinality() == 0)
+    {
+      removeAt(pos);
+    }
+    return true;
+  }
+
+  /**
+   * Returns the entry IDs contained in this bitmap.
+   *
+   * @return a new array containing the entry IDs of this bitmap, in ascending order
+   */
+  long[] toArray()
+  {
+    final long[] ids = new long[(int) cardinality];
+    int offset = 0;
+    for (int i = 0; i < nbContainers; i++)
+    {
+      offset = containers[i].fill(keys[i], ids, offset);
+    }
+    return ids;
+  }
+
+  /**
+   * Returns an iterator over the entry IDs of this bitmap which are greater than or equal to the provided one. The
+   * entry IDs are decoded lazily, in ascending order, so iterating does not require materializing the whole set.
+   *
+   * @param fromEntryID
+   *          the lowest entry ID which may be returned by the iterator
+   * @return an iterator over the entry IDs of this bitmap, in ascending order
+   */
+  Iterator<EntryID> iterator(long fromEntryID)
+  {
+    return new BitmapIterator(fromEntryID);
+  }
+
+  /**
+   * Returns a deep copy of this bitmap.
+   *
+   * @return a deep copy of this bitmap
+   */
+  EntryIDBitmap copy()
+  {
+    final Container[] copies = new Container[nbContainers];
+    for (int i = 0; i < nbContainers; i++)
+    {
+      copies[i] = containers[i].copy();
+    }
+    return new EntryIDBitmap(Arrays.copyOf(keys, nbContainers), copies, nbContainers);
+  }
+
+  /**
+   * Adds all the entry IDs contained in the provided bitmap to this bitmap.
+   *
+   * @param other
+   *          the bitmap whose entry IDs must be added
+   */
+  void orWith(EntryIDBitmap other)
+  {
+    assign(or(this, other));
+  }
+
+  /**
+   * Retains only the entry IDs contained in both this bitmap and the provided bitmap.
+   *
+   * @param other
+   *          the bitmap whose entry IDs must be retained
+   */
+  void andWith(EntryIDBitmap other)
+  {
+    assign(and(this, other));
+  }
+
+  /**
+   * Removes all the entry IDs contained in the provided bitmap from this bitmap.
+   *
+   * @param other
+   *          the bitmap whose entry IDs must be removed
+   */
+  void andNotWith(EntryIDBitmap other)
+  {
+    assign(andNot(this, other));
+  }
+
+  /**
+   * Computes the intersection of two bitmaps.
+   *
+   * @param a
+   *          the first bitmap
+   * @param b
+   *          the second bitmap
+   * @return a new bitmap containing the entry IDs present in both bitmaps
+   */
+  static EntryIDBitmap and(EntryIDBitmap a, EntryIDBitmap b)
+  {
+    final EntryIDBitmap result = new EntryIDBitmap();
+    int i = 0, j = 0;
+    while (i < a.nbContainers && j < b.nbContainers)
+    {
+      if (a.keys[i] < b.keys[j])
+      {
+        i++;
+      }
+      else if (a.keys[i] > b.keys[j])
+      {
+        j++;
+      }
+      else
+      {
+        final Container container = a.containers[i].and(b.containers[j]);
+        if (container.cardinality() > 0)
+        {
+          result.append(a.keys[i], container);
+        }
+        i++;
+        j++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Computes the union of two bitmaps.
+   *
+   * @param a
+   *          the first bitmap
+   * @param b
+   *          the second bitmap
+   * @return a new bitmap containing the entry IDs present in any of the bitmaps
+   */
+  static EntryIDBitmap or(EntryIDBitmap a, EntryIDBitmap b)
+  {
+    final EntryIDBitmap result = new EntryIDBitmap();
+    int i = 0, j = 0;
+    while (i < a.nbContainers || j < b.nbContainers)
+    {
+      if (j == b.nbContainers || (i < a.nbContainers && a.keys[i] < b.keys[j]))
+      {
+        result.append(a.keys[i], a.containers[i].copy());
+        i++;
+      }
+      else if (i == a.nbContainers || a.keys[i] > b.keys[j])
+      {
+        result.append(b.keys[j], b.containers[j].copy());
+        j++;
+      }
+      else
+      {
+        result.append(a.keys[i], a.containers[i].or(b.containers[j]));
+        i++;
+        j++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Computes the difference of two bitmaps.
+   *
+   * @param a
+   *          the bitmap whose entry IDs are retained
+   * @param b
+   *          the bitmap whose entry IDs are removed
+   * @return a new bitmap containing the entry IDs present in the first bitmap but not in the second one
+   */
+  static EntryIDBitmap andNot(EntryIDBitmap a, EntryIDBitmap b)
+  {
+    final EntryIDBitmap result = new EntryIDBitmap();
+    int i = 0, j = 0;
+    while (i < a.nbContainers)
+    {
+      if (j == b.nbContainers || a.keys[i] < b.keys[j])
+      {
+        result.append(a.keys[i], a.containers[i].copy());
+        i++;
+      }
+      else if (a.keys[i] > b.keys[j])
+      {
+        j++;
+      }
+      else
+      {
+        final Container container = a.containers[i].andNot(b.containers[j]);
+        if (container.cardinality() > 0)
+        {
+          result.append(a.keys[i], container);
+        }
+        i++;
+        j++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Appends the serialized form of this bitmap to the provided builder.
+   *
+   * @param builder
+   *          the builder where to append the serialized bitmap
+   * @return the provided builder
+   */
+  ByteStringBuilder encode(ByteStringBuilder builder)
+  {
+    builder.appendCompactUnsigned(nbContainers);
+    long previousKey = 0;
+    for (int i = 0; i < nbContainers; i++)
+    {
+      builder.appendCompactUnsigned(keys[i] - previousKey);
+      previousKey = keys[i];
+      containers[i].encode(builder);
+    }
+    return builder;
+  }
+
+  /**
+   * Returns an estimate of the number of bytes needed to serialize this bitmap.
+   *
+   * @return an estimate of the number of bytes needed to serialize this bitmap
+   */
+  int getEstimatedEncodedSize()
+  {
+    int size = ByteStringBuilder.MAX_COMPACT_SIZE;
+    for (int i = 0; i < nbContainers; i++)
+    {
+      size += ByteStringBuilder.MAX_COMPACT_SIZE + containers[i].getEstimatedEncodedSize();
+    }
+    return size;
+  }
+
+  /**
+   * Reads a bitmap serialized with {@link #encode(ByteStringBuilder)}.
+   *
+   * @param reader
+   *          the reader positioned at the beginning of the serialized bitmap
+   * @return the decoded bitmap
+   */
+  static EntryIDBitmap decode(ByteSequenceReader reader)
+  {
+    final int nbContainers = reader.readCompactUnsignedInt();
+    final long[] keys = new long[nbContainers];
+    final Container[] containers = new Container[nbContainers];
+    long key = 0;
+    for (int i = 0; i < nbContainers; i++)
+    {
+      key += reader.readCompactUnsignedLong();
+      keys[i] = key;
+      containers[i] = decodeContainer(reader);
+    }
+    return new EntryIDBitmap(keys, containers, nbContainers);
+  }
+
+  private static Container decodeContainer(ByteSequenceReader reader)
+  {
+    final byte type = reader.readByte();
+    switch (type)
+    {
+    case ARRAY_CONTAINER:
+      final int count = reader.readCompactUnsignedInt();
+      final char[] values = new char[count];
+      int value = 0;
+      for (int i = 0; i < count; i++)
+      {
+        value += reader.readCompactUnsignedInt();
+        values[i] = (char) value;
+      }
+      return new ArrayContainer(values, count);
+    case BITMAP_CONTAINER:
+      final long[] words = new long[BITMAP_CONTAINER_WORDS];
+      for (int i = 0; i < words.length; i++)
+      {
+        words[i] = reader.readLong();
+      }
+      return new BitmapContainer(words);
+    default:
+      throw new IllegalStateException("Unknown entry ID bitmap container type " + type);
+    }
+  }
+
+  private void assign(EntryIDBitmap bitmap)
+  {
+    keys = bitmap.keys;
+    containers = bitmap.containers;
+    nbContainers = bitmap.nbContainers;
+    cardinality = bitmap.cardinality;
+  }
+
+  private int indexOf(long high)
+  {
+    // Fast path for the common case where entry IDs are appended in ascending order
+    if (nbContainers > 0 && keys[nbContainers - 1] == high)
+    {
+      return nbContainers - 1;
+    }
+    return Arrays.binarySearch(keys, 0, nbContainers, high);
+  }
+
+  private void append(long high, Container container)
+  {
+    insertAt(nbContainers, high, container);
+    cardinality += container.cardinality();
+  }
+
+  private void insertAt(int pos, long high, Container container)
+  {
+    if (nbContainers == keys.length)
+    {
+      final int newLength = Math.max(4, nbContainers * 2);
+      keys = Arrays.copyOf(keys, newLength);
+      containers = Arrays.copyOf(containers, newLength);
+    }
+    System.arraycopy(keys, pos, keys, pos + 1, nbContainers - pos);
+    System.arraycopy(containers, pos, containers, pos + 1, nbContainers - pos);
+    keys[pos] = high;
+    containers[pos] = container;
+    nbContainers++;
+  }
+
+  private void removeAt(int pos)
+  {
+    System.arraycopy(keys, pos + 1, keys, pos, nbContainers - pos - 1);
+    System.arraycopy(containers, pos + 1, containers, pos, nbContainers - pos - 1);
+    nbContainers--;
+    containers[nbContainers] = null;
+  }
+
+  private static long highBits(long entryID)
+  {
+    return entryID >>> 16;
+  }
+
+  private static char lowBits(long entryID)
+  {
+    return (char) entryID;
+  }
+
+  private static long toEntryID(long high, int low)
+  {
+    return (high << 16) | low;
+  }
+
+  @Override
+  public String toString()
+  {
+    return Arrays.toString(toArray());
+  }
+
+  /** Iterator decoding the entry IDs one container at a time. */
+  private final class BitmapIterator implements Iterator<EntryID>
+  {
+    private int containerIndex;
+    /** The low order bits from where to search the next value in the current container. */
+    private int nextLow;
+    private long next = -1;
+
+    BitmapIterator(long fromEntryID)
+    {
+      final long high = highBits(fromEntryID);
+      final int pos = Arrays.binarySearch(keys, 0, nbContainers, high);
+      containerIndex = pos >= 0 ? pos : -(pos + 1);
+      nextLow = pos >= 0 ? lowBits(fromEntryID) : 0;
+      advance();
+    }
+
+    private void advance()
+    {
+      next = -1;
+      while (containerIndex < nbContainers)
+      {
+        final int low = containers[containerIndex].ceiling(nextLow);
+        if (low >= 0)
+        {
+          next = toEntryID(keys[containerIndex], low);
+          nextLow = low + 1;
+          return;
+        }
+        containerIndex++;
+        nextLow = 0;
+      }
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+      return next >= 0;
+    }
+
+    @Override
+    public EntryID next()
+    {
+      if (!hasNext())
+      {
+        throw new NoSuchElementException();
+      }
+      final EntryID entryID = new EntryID(next);
+      advance();
+      return entryID;
+    }
+
+    @Override
+    public void remove()
+    {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /** Holds the low order bits of the entry IDs sharing the same high order bits. */
+  private abstract static class Container
+  {
+    abstract int cardinality();
+
+    abstract boolean contains(char low);
+
+    /** Returns the container to use after the addition, which may be a converted copy of this one. */
+    abstract Container add(char low);
+
+    /** Returns the container to use after the removal, which may be a converted copy of this one. */
+    abstract Container remove(char low);
+
+    abstract Container and(Container other);
+
+    abstract Container or(Container other);
+
+    abstract Container andNot(Container other);
+
+    abstract int first();
+
+    abstract int last();
+
+    /** Returns the lowest value greater than or equal to the provided one, or -1 if there is none. */
+    abstract int ceiling(int low);
+
+    /** Writes the entry IDs of this container in {@code dest} and returns the offset following the last one. */
+    abstract int fill(long high, long[] dest, int offset);
+
+    abstract Container copy();
+
+    abstract void encode(ByteStringBuilder builder);
+
+    abstract int getEstimatedEncodedSize();
+  }
+
+  /** Container storing the sorted low order bits in an array, used for sparse chunks. */
+  private static final class ArrayContainer extends Container
+  {
+    private char[] values;
+    private int cardinality;
+
+    ArrayContainer(char[] values, int cardinality)
+    {
+      this.values = values;
+      this.cardinality = cardinality;
+    }
+
+    @Override
+    int cardinality()
+    {
+      return cardinality;
+    }
+
+    @Override
+    boolean contains(char low)
+    {
+      return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+    }
+
+    @Override
+    Container add(char low)
+    {
+      int pos = Arrays.binarySearch(values, 0, cardinality, low);
+      if (pos >= 0)
+      {
+        return this;
+      }
+      if (cardinality >= ARRAY_CONTAINER_MAX_SIZE)
+      {
+        final BitmapContainer bitmap = toBitmapContainer();
+        bitmap.set(low);
+        return bitmap;
+      }
+      pos = -(pos + 1);
+      if (cardinality == values.length)
+      {
+        values = Arrays.copyOf(values, Math.min(Math.max(4, cardinality * 2), ARRAY_CONTAINER_MAX_SIZE));
+      }
+      System.arraycopy(values, pos, values, pos + 1, cardinality - pos);
+      values[pos] = low;
+      cardinality++;
+      return this;
+    }
+
+    @Override
+    Container remove(char low)
+    {
+      final int pos = Arrays.binarySearch(values, 0, cardinality, low);
+      if (pos >= 0)
+      {
+        System.arraycopy(values, pos + 1, values, pos, cardinality - pos - 1);
+        cardinality--;
+      }
+      return this;
+    }
+
+    @Override
+    Container and(Container other)
+    {
+      final char[] result = new char[cardinality];
+      int count = 0;
+      if (other instanceof ArrayContainer)
+      {
+        final ArrayContainer that = (ArrayContainer) other;
+        int i = 0, j = 0;
+        while (i < cardinality && j < that.cardinality)
+        {
+          if (values[i] < that.values[j])
+          {
+            i++;
+          }
+          else if (values[i] > that.values[j])
+          {
+            j++;
+          }
+          else
+          {
+            result[count++] = values[i];
+            i++;
+            j++;
+          }
+        }
+      }
+      else
+      {
+        for (int i = 0; i < cardinality; i++)
+        {
+          if (other.contains(values[i]))
+          {
+            result[count++] = values[i];
+          }
+        }
+      }
+      return new ArrayContainer(result, count);
+    }
+
+    @Override
+    Container or(Container other)
+    {
+      if (other instanceof BitmapContainer)
+      {
+        return other.or(this);
+      }
+      final ArrayContainer that = (ArrayContainer) other;
+      final char[] result = new char[cardinality + that.cardinality];
+      int i = 0, j = 0, count = 0;
+      while (i < cardinality && j < that.cardinality)
+      {
+        if (values[i] < that.values[j])
+        {
+          result[count++] = values[i++];
+        }
+        else if (values[i] > that.values[j])
+        {
+          result[count++] = that.values[j++];
+        }
+        else
+        {
+          result[count++] = values[i];
+          i++;
+          j++;
+        }
+      }
+      System.arraycopy(values, i, result, count, cardinality - i);
+      count += cardinality - i;
+      System.arraycopy(that.values, j, result, count, that.cardinality - j);
+      count += that.cardinality - j;
+      final ArrayContainer union = new ArrayContainer(result, count);
+      return count > ARRAY_CONTAINER_MAX_SIZE ? union.toBitmapContainer() : union;
+    }
+
+    @Override
+    Container andNot(Container other)
+    {
+      final char[] result = new char[cardinality];
+      int count = 0;
+      if (other instanceof ArrayContainer)
+      {
+        final ArrayContainer that = (ArrayContainer) other;
+        int i = 0, j = 0;
+        while (i < cardinality)
+        {
+          if (j == that.cardinality || values[i] < that.values[j])
+          {
+            result[count++] = values[i++];
+          }
+          else if (values[i] > that.values[j])
+          {
+            j++;
+          }
+          else
+          {
+            i++;
+            j++;
+          }
+        }
+      }
+      else
+      {
+        for (int i = 0; i < cardinality; i++)
+        {
+          if (!other.contains(values[i]))
+          {
+            result[count++] = values[i];
+          }
+        }
+      }
+      return new ArrayContainer(result, count);
+    }
+
+    @Override
+    int first()
+    {
+      return values[0];
+    }
+
+    @Override
+    int last()
+    {
+      return values[cardinality - 1];
+    }
+
+    @Override
+    int ceiling(int low)
+    {
+      if (low > Character.MAX_VALUE)
+      {
+        return -1;
+      }
+      int pos = Arrays.binarySearch(values, 0, cardinality, (char) low);
+      if (pos < 0)
+      {
+        pos = -(pos + 1);
+      }
+      return pos < cardinality ? values[pos] : -1;
+    }
+
+    @Override
+    int fill(long high, long[] dest, int offset)
+    {
+      for (int i = 0; i < cardinality; i++)
+      {
+        dest[offset++] = toEntryID(high, values[i]);
+      }
+      return offset;
+    }
+
+    @Override
+    Container copy()
+    {
+      return new ArrayContainer(Arrays.copyOf(values, cardinality), cardinality);
+    }
+
+    @Override
+    void encode(ByteStringBuilder builder)
+    {
+      builder.appendByte(ARRAY_CONTAINER);
+      builder.appendCompactUnsigned(cardinality);
+      int previous = 0;
+      for (int i = 0; i < cardinality; i++)
+      {
+        builder.appendCompactUnsigned(values[i] - previous);
+        previous = values[i];
+      }
+    }
+
+    @Override
+    int getEstimatedEncodedSize()
+    {
+      return 1 + ByteStringBuilder.MAX_COMPACT_SIZE + 3 * cardinality;
+    }
+
+    private BitmapContainer toBitmapContainer()
+    {
+      final BitmapContainer bitmap = new BitmapContainer();
+      for (int i = 0; i < cardinality; i++)
+      {
+        bitmap.set(values[i]);
+      }
+      return bitmap;
+    }
+  }
+
+  /** Container storing the low order bits in a 2^16 bits bitmap, used for dense chunks. */
+  private static final class BitmapContainer extends Container
+  {
+    private final long[] words;
+    private int cardinality;
+
+    BitmapContainer()
+    {
+      words = new long[BITMAP_CONTAINER_WORDS];
+    }
+
+    BitmapContainer(long[] words)
+    {
+      this.words = words;
+      for (long word : words)
+      {
+        cardinality += Long.bitCount(word);
+      }
+    }
+
+    /** Sets the provided bit and returns whether it was previously cleared. */
+    boolean set(char low)
+    {
+      final int index = low >>> 6;
+      final long word = words[index];
+      words[index] = word | (1L << low);
+      if (word != words[index])
+      {
+        cardinality++;
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    int cardinality()
+    {
+      return cardinality;
+    }
+
+    @Override
+    boolean contains(char low)
+    {
+      return (words[low >>> 6] & (1L << low)) != 0;
+    }
+
+    @Override
+    Container add(char low)
+    {
+      set(low);
+      return this;
+    }
+
+    @Override
+    Container remove(char low)
+    {
+      final int index = low >>> 6;
+      final long word = words[index];
+      words[index] = word & ~(1L << low);
+      if (word != words[index])
+      {
+        cardinality--;
+        return normalize();
+      }
+      return this;
+    }
+
+    @Override
+    Container and(Container other)
+    {
+      if (other instanceof ArrayContainer)
+      {
+        return other.and(this);
+      }
+      final long[] thatWords = ((BitmapContainer) other).words;
+      final long[] result = new long[BITMAP_CONTAINER_WORDS];
+      for (int i = 0; i < result.length; i++)
+      {
+        result[i] = words[i] & thatWords[i];
+      }
+      return new BitmapContainer(result).normalize();
+    }
+
+    @Override
+    Container or(Container other)
+    {
+      final long[] result = Arrays.copyOf(words, BITMAP_CONTAINER_WORDS);
+      if (other instanceof ArrayContainer)
+      {
+        final BitmapContainer union = new BitmapContainer(result);
+        final ArrayContainer that = (ArrayContainer) other;
+        for (int i = 0; i < that.cardinality; i++)
+        {
+          union.set(that.values[i]);
+        }
+        return union;
+      }
+      final long[] thatWords = ((BitmapContainer) other).words;
+      for (int i = 0; i < result.length; i++)
+      {
+        result[i] |= thatWords[i];
+      }
+      return new BitmapContainer(result);
+    }
+
+    @Override
+    Container andNot(Container other)
+    {
+      final long[] result = Arrays.copyOf(words, BITMAP_CONTAINER_WORDS);
+      if (other instanceof ArrayContainer)
+      {
+        final ArrayContainer that = (ArrayContainer) other;
+        for (int i = 0; i < that.cardinality; i++)
+        {
+          final char low = that.values[i];
+          result[low >>> 6] &= ~(1L << low);
+        }
+      }
+      else
+      {
+        final long[] thatWords = ((BitmapContainer) other).words;
+        for (int i = 0; i < result.length; i++)
+        {
+          result[i] &= ~thatWords[i];
+        }
+      }
+      return new BitmapContainer(result).normalize();
+    }
+
+    @Override
+    int first()
+    {
+      for (int i = 0; i < words.length; i++)
+      {
+        if (words[i] != 0)
+        {
+          return (i << 6) + Long.numberOfTrailingZeros(words[i]);
+        }
+      }
+      throw new IllegalStateException("container is empty");
+    }
+
+    @Override
+    int last()
+    {
+      for (int i = words.length - 1; i >= 0; i--)
+      {
+        if (words[i] != 0)
+        {
+          return (i << 6) + 63 - Long.numberOfLeadingZeros(words[i]);
+        }
+      }
+      throw new IllegalStateException("container is empty");
+    }
+
+    @Override
+    int ceiling(int low)
+    {
+      int index = low >>> 6;
+      if (index >= words.length)
+      {
+        return -1;
+      }
+      long word = words[index] & (-1L << low);
+      while (word == 0)
+      {
+        if (++index == words.length)
+        {
+          return -1;
+        }
+        word = words[index];
+      }
+      return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    @Override
+    int fill(long high, long[] dest, int offset)
+    {
+      for (int i = 0; i < words.length; i++)
+      {
+        long word = words[i];
+        while (word != 0)
+        {
+          dest[offset++] = toEntryID(high, (i << 6) + Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+      return offset;
+    }
+
+    @Override
+    Container copy()
+    {
+      return new BitmapContainer(Arrays.copyOf(words, BITMAP_CONTAINER_WORDS));
+    }
+
+    @Override
+    void encode(ByteStringBuilder builder)
+    {
+      builder.appendByte(BITMAP_CONTAINER);
+      for (long word : words)
+      {
+        builder.appendLong(word);
+      }
+    }
+
+    @Override
+    int getEstimatedEncodedSize()
+    {
+      return 1 + BITMAP_CONTAINER_WORDS * 8;
+    }
+
+    /** Converts this container back to an array container once it has become sparse enough. */
+    private Container normalize()
+    {
+      if (cardinality > ARRAY_CONTAINER_MAX_SIZE)
+      {
+        return this;
+      }
+      final char[] values = new char[cardinality];
+      int count = 0;
+      for (int i = 0; i < words.length; i++)
+      {
+        long word = words[i];
+        while (word != 0)
+        {
+          values[count++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+      return new ArrayContainer(values, count);
+    }
+  }
+}
@@ -43,6 +43,7 @@ final class EntryIDSet implements Iterable<EntryID>
 {
   public static final EntryIDSetCodec CODEC_V1 = new EntryIDSetCodecV1();
   public static final EntryIDSetCodec CODEC_V2 = new EntryIDSetCodecV2();
+  public static final EntryIDSetCodec CODEC_V4 = new EntryIDSetCodecV4();
 
   private static final ByteSequence NO_KEY = ByteString.valueOfUtf8("<none>");
   private static final long[] EMPTY_LONG_ARRAY = new long[0];
@@ -73,6 +74,8 @@ final class EntryIDSet implements Iterable<EntryID>
 
     @Override
     Iterator<EntryID> iterator();
+
+    Iterator<EntryID> iterator(EntryID begin);
   }
 
   /** Define serialization contract for EntryIDSet. */
@@ -255,6 +258,13 @@ final class EntryIDSet implements Iterable<EntryID>
       return new IDSetIterator(entryIDs);
     }
 
+    @Override
+    public Iterator<EntryID> iterator(EntryID begin)
+    {
+      final int pos = Arrays.binarySearch(entryIDs, begin.longValue());
+      return new IDSetIterator(entryIDs, pos >= 0 ? pos : -(pos + 1));
+    }
+
     @Override
     public long[] getRange()
     {
@@ -272,6 +282,119 @@ final class EntryIDSet implements Iterable<EntryID>
     }
   }
 
+  /**
+   * Concrete implementation representing a set of EntryIDs held in a compressed bitmap. Set operations between two
+   * bitmap backed sets are performed on the bitmaps, without materializing the IDs in a long array.
+   */
+  private static final class BitmapImpl implements EntryIDSetImplementor
+  {
+    private final EntryIDBitmap bitmap;
+    /** Lazily computed array view of the bitmap, reset on each modification. */
+    private long[] entryIDs;
+
+    BitmapImpl(EntryIDBitmap bitmap)
+    {
+      this.bitmap = checkNotNull(bitmap, "bitmap must not be null");
+    }
+
+    @Override
+    public long size()
+    {
+      return bitmap.cardinality();
+    }
+
+    @Override
+    public void toString(StringBuilder buffer)
+    {
+      buffer.append("[COUNT:").append(size()).append("]");
+    }
+
+    @Override
+    public boolean isDefined()
+    {
+      return true;
+    }
+
+    @Override
+    public boolean add(EntryID entryID)
+    {
+      return modified(bitmap.add(entryID.longValue()));
+    }
+
+    @Override
+    public boolean remove(EntryID entryID)
+    {
+      return modified(bitmap.remove(entryID.longValue()));
+    }
+
+    @Override
+    public boolean contains(EntryID entryID)
+    {
+      return bitmap.contains(entryID.longValue());
+    }
+
+    @Override
+    public void addAll(EntryIDSet that)
+    {
+      if (that.size() != 0)
+      {
+        bitmap.orWith(that.toBitmap());
+        modified(true);
+      }
+    }
+
+    @Override
+    public void removeAll(EntryIDSet that)
+    {
+      if (that.size() != 0 && bitmap.cardinality() != 0)
+      {
+        bitmap.andNotWith(that.toBitmap());
+        modified(true);
+      }
+    }
+
+    @Override
+    public Iterator<EntryID> iterator()
+    {
+      return bitmap.iterator(0);
+    }
+
+    @Override
+    public Iterator<EntryID> iterator(EntryID begin)
+    {
+      return bitmap.iterator(begin.longValue());
+    }
+
+    @Override
+    public long[] getRange()
+    {
+      if (bitmap.cardinality() != 0)
+      {
+        return new long[] { bitmap.first(), bitmap.last() };
+      }
+      return NO_ENTRY_IDS_RANGE;
+    }
+
+    @Override
+    public long[] getIDs()
+    {
+      if (entryIDs == null)
+      {
+        entryIDs = bitmap.toArray();
+      }
+      return entryIDs;
+    }
+
+    private boolean modified(boolean modified)
+    {
+      if (modified)
+      {
+        entryIDs = null;
+      }
+      return modified;
+    }
+  }
+
   /**
    * Concrete implementation where the EntryIDs are not defined, for example when the index entry
    * limit has been exceeded.
@@ -347,6 +470,12 @@ final class EntryIDSet implements Iterable<EntryID>
       return Iterators.emptyIterator();
     }
 
+    @Override
+    public Iterator<EntryID> iterator(EntryID begin)
+    {
+      return Iterators.emptyIterator();
+    }
+
     @Override
     public long[] getRange()
     {
@@ -367,8 +496,14 @@ final class EntryIDSet implements Iterable<EntryID>
     private int currentIndex;
 
     IDSetIterator(long[] entryIDSet)
+    {
+      this(entryIDSet, 0);
+    }
+
+    IDSetIterator(long[] entryIDSet, int startIndex)
     {
       this.entryIDSet = entryIDSet;
+      this.currentIndex = startIndex;
     }
 
     @Override
@@ -539,7 +674,47 @@ final class EntryIDSet implements Iterable<EntryID>
   }
 
   /**
-   * Decorate a V1 or V2 codec with encryption. When writing EntryIDSets to disk,
+   * Compressed bitmap EntryIDSet codec implementation. The IDs are stored as an {@link EntryIDBitmap} so that large
+   * sets are both smaller on disk and decoded into a structure where unions and intersections are computed one word
+   * at a time.
+   */
+  private static final class EntryIDSetCodecV4 implements EntryIDSetCodec
+  {
+    private static final byte BITMAP_SET = 0x01;
+    private static final byte UNDEFINED_SET = (byte) 0xFF;
+
+    @Override
+    public ByteString encode(EntryIDSet idSet)
+    {
+      checkNotNull(idSet, "idSet must not be null");
+      if (!idSet.isDefined())
+      {
+        return ByteString.valueOfBytes(new byte[] { UNDEFINED_SET });
+      }
+      final EntryIDBitmap bitmap = idSet.toBitmap();
+      final ByteStringBuilder builder = new ByteStringBuilder(1 + bitmap.getEstimatedEncodedSize());
+      builder.appendByte(BITMAP_SET);
+      bitmap.encode(builder);
+      return ByteString.wrap(builder.getBackingArray(), 0, builder.length());
+    }
+
+    @Override
+    public EntryIDSet decode(ByteSequence key, ByteString value)
+    {
+      checkNotNull(key, "key must not be null");
+      checkNotNull(value, "value must not be null");
+      if (value.byteAt(0) == UNDEFINED_SET)
+      {
+        return newUndefinedSetWithKey(key);
+      }
+      final ByteSequenceReader reader = value.asReader();
+      reader.skip(1);
+      return new EntryIDSet(new BitmapImpl(EntryIDBitmap.decode(reader)));
+    }
+  }
+
+  /**
+   * Decorate a V1, V2 or V4 codec with encryption. When writing EntryIDSets to disk,
    * prepend two bytes, {0, 1} to mark them as encrypted.
    * The first is tag zero (unused in other encodings), followed by a byte
    * indicating version 1 of encryption.
@@ -628,6 +803,20 @@ final class EntryIDSet implements Iterable<EntryID>
     return new EntryIDSet(new DefinedImpl(entryIDs));
   }
 
+  /**
+   * Creates a new defined entry ID set backed by a compressed bitmap.
+   *
+   * @param entryIDs
+   *          Entry IDs contained in the set.
+   * @return A new defined {@link EntryIDSet} containing the provided entryIDs
+   * @throws NullPointerException
+   *           if entryIDs is null
+   */
+  static EntryIDSet newBitmapSet(long... entryIDs)
+  {
+    return new EntryIDSet(new BitmapImpl(EntryIDBitmap.valueOf(entryIDs)));
+  }
+
   private static long[] intersection(long[] set1, long[] set2)
   {
     long[] target = new long[Math.min(set1.length, set2.length)];
@@ -689,6 +878,19 @@ final class EntryIDSet implements Iterable<EntryID>
       return newUndefinedSet();
     }
 
+    if (containsBitmapSet(sets))
+    {
+      final EntryIDBitmap union = new EntryIDBitmap();
+      for (EntryIDSet l : sets)
+      {
+        if (l.size() != 0)
+        {
+          union.orWith(l.toBitmap());
+        }
+      }
+      return new EntryIDSet(new BitmapImpl(union));
+    }
+
     boolean needSort = false;
     long[] n = new long[count];
     int pos = 0;
@@ -723,6 +925,18 @@ final class EntryIDSet implements Iterable<EntryID>
     return newDefinedSet(Arrays.copyOf(n1, j));
   }
 
+  private static boolean containsBitmapSet(List<EntryIDSet> sets)
+  {
+    for (EntryIDSet set : sets)
+    {
+      if (set.concreteImpl instanceof BitmapImpl)
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private EntryIDSetImplementor concreteImpl;
 
   private EntryIDSet(EntryIDSetImplementor concreteImpl)
@@ -889,7 +1103,9 @@ final class EntryIDSet implements Iterable<EntryID>
     checkNotNull(that, "that must not be null");
     if (!concreteImpl.isDefined())
     {
-      if ( that.isDefined() ) {
+      if (that.concreteImpl instanceof BitmapImpl) {
+        concreteImpl = new BitmapImpl(that.toBitmap().copy());
+      } else if ( that.isDefined() ) {
         // NOTE: It's ok to share the same array instance here thanks to the copy-on-write
         // performed by the implementation.
         concreteImpl = new DefinedImpl(that.getIDs());
@@ -903,6 +1119,12 @@ final class EntryIDSet implements Iterable<EntryID>
       return;
     }
 
+    if (concreteImpl instanceof BitmapImpl || that.concreteImpl instanceof BitmapImpl)
+    {
+      concreteImpl = new BitmapImpl(EntryIDBitmap.and(toBitmap(), that.toBitmap()));
+      return;
+    }
+
     final boolean thatSetOverlap = compareForOverlap(getRange(), that.getRange()) == 0;
     if (thatSetOverlap)
     {
@@ -942,11 +1164,40 @@ final class EntryIDSet implements Iterable<EntryID>
     return concreteImpl.iterator();
   }
 
+  /**
+   * Creates an iterator over the IDs of the set which are greater than or equal to the provided ID, or an empty
+   * iterator if the set is not defined.
+   *
+   * @param begin
+   *          The lowest ID which may be returned by the iterator.
+   * @return An EntryID iterator.
+   * @throws NullPointerException
+   *           if begin is null
+   */
+  public Iterator<EntryID> iterator(EntryID begin)
+  {
+    checkNotNull(begin, "begin must not be null");
+    return concreteImpl.iterator(begin);
+  }
+
   private long[] getIDs()
   {
     return concreteImpl.getIDs();
   }
 
+  /**
+   * Returns the IDs of this defined set as a compressed bitmap. The returned bitmap is the backing bitmap when this
+   * set is already bitmap based, so it must not be modified by the caller.
+   */
+  private EntryIDBitmap toBitmap()
+  {
+    if (concreteImpl instanceof BitmapImpl)
+    {
+      return ((BitmapImpl) concreteImpl).bitmap;
+    }
+    return EntryIDBitmap.valueOf(concreteImpl.getIDs());
+  }
+
   private long[] getRange()
   {
     return concreteImpl.getRange();
@@ -458,9 +458,46 @@ class ID2Entry extends AbstractTree
   public Entry get(ReadableTransaction txn, EntryID entryID)
        throws DirectoryException, StorageRuntimeException
   {
+    final ByteString value;
     try
     {
-      return get0(txn.read(getName(), entryID.toByteString()));
+      value = read(txn, entryID);
+    }
+    catch (Exception e)
+    {
+      throw new DirectoryException(
+          DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), ERR_ENTRY_DATABASE_CORRUPT.get(entryID));
+    }
+    return decode(entryID, value);
+  }
+
+  /**
+   * Fetch the raw value of a record from the entry tree, without decoding it.
+   *
+   * @param txn a non null transaction
+   * @param entryID The desired entry ID which forms the key.
+   * @return The encoded entry, or null if there is no such record.
+   * @throws StorageRuntimeException If an error occurs in the storage.
+   */
+  ByteString read(ReadableTransaction txn, EntryID entryID) throws StorageRuntimeException
+  {
+    return txn.read(getName(), entryID.toByteString());
+  }
+
+  /**
+   * Decodes a raw value previously fetched with {@link #read(ReadableTransaction, EntryID)}. Decoding does not need
+   * the transaction, so it can safely happen on a thread other than the one which read the value.
+   *
+   * @param entryID The entry ID of the record, used for reporting errors.
+   * @param value The encoded entry, may be null.
+   * @return The decoded entry, or null if value is null.
+   * @throws DirectoryException If the value cannot be decoded.
+   */
+  Entry decode(EntryID entryID, ByteString value) throws DirectoryException
+  {
+    try
+    {
+      return get0(value);
     }
     catch (Exception e)
     {
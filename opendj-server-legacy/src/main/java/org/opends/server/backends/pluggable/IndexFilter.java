@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.backends.pluggable;
 
@@ -20,15 +21,27 @@ import static org.opends.messages.BackendMessages.*;
 import static org.opends.server.backends.pluggable.EntryIDSet.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.server.config.meta.VirtualAttributeCfgDefn.ConflictBehavior;
 import org.opends.server.backends.pluggable.AttributeIndex.IndexFilterType;
 import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.core.DirectoryServer;
 import org.opends.server.core.SearchOperation;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.opends.server.types.FilterType;
 import org.opends.server.types.SearchFilter;
+import org.opends.server.types.VirtualAttributeRule;
 
 /**
  * An index filter is used to apply a search operation to a set of indexes
@@ -40,7 +53,17 @@ class IndexFilter
    * Stop processing the filter against the indexes when the
    * number of candidates is smaller than this value.
    */
-  private static final int FILTER_CANDIDATE_THRESHOLD = 10;
+  static final int FILTER_CANDIDATE_THRESHOLD = 10;
+
+  /**
+   * Do not evaluate the expensive components of an AND filter, like substring or range components, when the number
+   * of candidates is smaller than this value: fetching and filtering the candidate entries is cheaper than cursoring
+   * through many index keys.
+   */
+  private static final int EXPENSIVE_FILTER_CANDIDATE_THRESHOLD = 100;
+
+  /** Estimated number of candidates of an AND component which cannot be estimated from the index statistics. */
+  private static final long UNKNOWN_CARDINALITY = 10000;
 
   /** Limit on the number of entry IDs that may be retrieved by cursoring through an index. */
   static final int CURSOR_ENTRY_LIMIT = 100000;
@@ -62,6 +85,15 @@ class IndexFilter
   private final StringBuilder buffer;
   private final BackendMonitor monitor;
 
+  /**
+   * The lowest (inclusive) and highest (exclusive) entry IDs of the window the evaluation is restricted to, when the
+   * candidates of a search are evaluated by windows of entry IDs.
+   */
+  private long windowStart;
+  private long windowEnd = Long.MAX_VALUE;
+  /** Whether the cardinality statistics of the indexes are updated, only done once per search. */
+  private boolean recordStatistics = true;
+
   /**
    * Construct an index filter for a search operation.
    *
@@ -94,6 +126,34 @@ class IndexFilter
     return evaluateFilter(searchOp.getFilter());
   }
 
+  /**
+   * Evaluate the search operation against the indexes, only retaining the candidates in a window of entry IDs.
+   * <p>
+   * The index records are still read and decoded whole, but the sets outliving the evaluation of each filter
+   * component only hold the entry IDs of the window, so that the memory used by the candidates is bounded by the
+   * width of the window. Whether the returned set is defined does not depend on the window.
+   *
+   * @param fromEntryID The lowest entry ID of the window, inclusive.
+   * @param toEntryID The highest entry ID of the window, exclusive.
+   * @return A set of entry IDs representing the candidate entries of the window.
+   */
+  EntryIDSet evaluate(long fromEntryID, long toEntryID)
+  {
+    windowStart = fromEntryID;
+    windowEnd = toEntryID;
+    try
+    {
+      return evaluate();
+    }
+    finally
+    {
+      windowStart = 0;
+      windowEnd = Long.MAX_VALUE;
+      // The index records are the same for every window
+      recordStatistics = false;
+    }
+  }
+
   /**
    * Evaluate a search filter against the indexes.
    *
@@ -164,110 +224,187 @@ class IndexFilter
 
   /**
    * Evaluate a logical AND search filter against the indexes.
+   * <p>
+   * The components are evaluated from the most to the least selective one according to the statistics gathered by the
+   * attribute indexes, cheap single key lookups first. The evaluation stops as soon as the candidate set is small
+   * enough, and once the candidate set is defined, expensive components which are not expected to narrow it are
+   * skipped.
    *
    * @param andFilter The AND search filter to be evaluated.
    * @return A set of entry IDs representing candidate entries.
    */
   private EntryIDSet evaluateLogicalAndFilter(SearchFilter andFilter)
   {
-    // Put the slow range filters (greater-or-equal, less-or-equal)
-    // into a hash map, the faster components (equality, presence, approx)
-    // into one list and the remainder into another list.
-
-    ArrayList<SearchFilter> fastComps = new ArrayList<>();
-    ArrayList<SearchFilter> otherComps = new ArrayList<>();
-    HashMap<AttributeType, ArrayList<SearchFilter>> rangeComps = new HashMap<>();
+    EntryIDSet results = newUndefinedSet();
+    for (AndComponent component : planLogicalAndFilter(andFilter))
+    {
+      if (isBelowFilterThreshold(results))
+      {
+        return results;
+      }
+      if (component.isWorthEvaluating(results))
+      {
+        results.retainAll(component.evaluate());
+      }
+    }
+    return results;
+  }
 
+  /**
+   * Builds the evaluation plan of a logical AND search filter.
+   * Package private for testing.
+   *
+   * @param andFilter The AND search filter to be evaluated.
+   * @return The components of the filter, in the order they must be evaluated.
+   */
+  List<AndComponent> planLogicalAndFilter(SearchFilter andFilter)
+  {
+    final List<AndComponent> components = new ArrayList<>();
+    final Map<AttributeType, List<SearchFilter>> rangeComps = new HashMap<>();
     for (SearchFilter filter : andFilter.getFilterComponents())
     {
-      FilterType filterType = filter.getFilterType();
-      if (filterType == FilterType.GREATER_OR_EQUAL ||
-           filterType == FilterType.LESS_OR_EQUAL)
+      switch (filter.getFilterType())
       {
-        ArrayList<SearchFilter> rangeList;
-        rangeList = rangeComps.get(filter.getAttributeType());
+      case GREATER_OR_EQUAL:
+      case LESS_OR_EQUAL:
+        List<SearchFilter> rangeList = rangeComps.get(filter.getAttributeType());
         if (rangeList == null)
         {
           rangeList = new ArrayList<>();
           rangeComps.put(filter.getAttributeType(), rangeList);
         }
         rangeList.add(filter);
+        break;
+
+      case EQUALITY:
+        components.add(newIndexedComponent(filter, IndexFilterType.EQUALITY, false));
+        break;
+
+      case PRESENT:
+        components.add(newIndexedComponent(filter, IndexFilterType.PRESENCE, false));
+        break;
+
+      case APPROXIMATE_MATCH:
+        components.add(newIndexedComponent(filter, IndexFilterType.APPROXIMATE, false));
+        break;
+
+      case SUBSTRING:
+        components.add(newIndexedComponent(filter, IndexFilterType.SUBSTRING, true));
+        break;
+
+      case NOT:
+        // NOT filters are not indexed and cannot narrow the candidate set.
+        break;
+
+      default:
+        components.add(new AndComponent(Collections.singletonList(filter), UNKNOWN_CARDINALITY, true, null));
+        break;
       }
-      else if (filterType == FilterType.EQUALITY ||
-           filterType == FilterType.PRESENT ||
-           filterType == FilterType.APPROXIMATE_MATCH)
+    }
+
+    for (List<SearchFilter> rangeList : rangeComps.values())
+    {
+      if (rangeList.size() == 2)
       {
-        fastComps.add(filter);
+        // Range component pairs like (cn>=A)(cn<=B) are evaluated together.
+        final AndComponent lower = newIndexedComponent(rangeList.get(0), getRangeFilterType(rangeList.get(0)), true);
+        final AndComponent upper = newIndexedComponent(rangeList.get(1), getRangeFilterType(rangeList.get(1)), true);
+        final AndComponent mostSelective = lower.compareTo(upper) <= 0 ? lower : upper;
+        components.add(new AndComponent(rangeList,
+            mostSelective.estimatedCardinality, lower.expensive && upper.expensive, mostSelective.statistics));
       }
       else
       {
-        otherComps.add(filter);
+        for (SearchFilter filter : rangeList)
+        {
+          components.add(newIndexedComponent(filter, getRangeFilterType(filter), true));
+        }
       }
     }
 
-    EntryIDSet results = newUndefinedSet();
-    // First, process the fast components.
-    results = applyFiltersUntilThreshold(results, fastComps);
-    // Next, process the other (non-range) components.
-    results = applyFiltersUntilThreshold(results, otherComps);
+    Collections.sort(components);
+    return components;
+  }
+
+  private static IndexFilterType getRangeFilterType(SearchFilter filter)
+  {
+    return filter.getFilterType() == FilterType.LESS_OR_EQUAL
+        ? IndexFilterType.LESS_OR_EQUAL
+        : IndexFilterType.GREATER_OR_EQUAL;
+  }
 
-    if ( isBelowFilterThreshold(results) || rangeComps.isEmpty() ) {
-      return results;
+  private AndComponent newIndexedComponent(SearchFilter filter, IndexFilterType indexFilterType, boolean expensive)
+  {
+    final AttributeIndex attributeIndex = entryContainer.getAttributeIndex(filter.getAttributeType());
+    if (attributeIndex == null || !attributeIndex.isIndexed(indexFilterType.getIndexType()))
+    {
+      // Not indexed: the evaluation only updates the diagnostic and statistics, unless the attribute is virtual
+      // and its providers list the candidate entries, for example the members of a group for isMemberOf.
+      // The cardinality is unknown, hence such a component is evaluated after the indexed ones.
+      return new AndComponent(Collections.singletonList(filter), Long.MAX_VALUE, false, null);
     }
+    final CardinalityStatistics statistics = attributeIndex.getCardinalityStatistics(indexFilterType);
+    return new AndComponent(Collections.singletonList(filter), statistics.estimateCardinality(), expensive, statistics);
+  }
 
-    // Next, process range component pairs like (cn>=A)(cn<=B).
-    ArrayList<SearchFilter> remainComps = new ArrayList<>();
-    for (Map.Entry<AttributeType, ArrayList<SearchFilter>> rangeEntry : rangeComps.entrySet())
+  private EntryIDSet evaluateBoundedRange(List<SearchFilter> rangeList)
+  {
+    final AttributeType attributeType = rangeList.get(0).getAttributeType();
+    final AttributeIndex attributeIndex = entryContainer.getAttributeIndex(attributeType);
+    if (attributeIndex == null)
     {
-      ArrayList<SearchFilter> rangeList = rangeEntry.getValue();
-      if (rangeList.size() == 2)
+      if (monitor.isFilterUseEnabled())
       {
-        SearchFilter filter1 = rangeList.get(0);
-        SearchFilter filter2 = rangeList.get(1);
-
-        AttributeIndex attributeIndex = entryContainer.getAttributeIndex(rangeEntry.getKey());
-        if (attributeIndex == null)
-        {
-          if(monitor.isFilterUseEnabled())
-          {
-            monitor.updateStats(SearchFilter.createANDFilter(rangeList),
-                INFO_INDEX_FILTER_INDEX_TYPE_DISABLED.get("ordering", rangeEntry.getKey().getNameOrOID()));
-          }
-          continue;
-        }
-
-        final IndexQueryFactoryImpl indexQueryFactory = new IndexQueryFactoryImpl(txn, attributeIndex);
-        EntryIDSet set = attributeIndex.evaluateBoundedRange(indexQueryFactory, filter1, filter2, buffer, monitor);
-        if(monitor.isFilterUseEnabled() && set.isDefined())
-        {
-          monitor.updateStats(SearchFilter.createANDFilter(rangeList), set.size());
-        }
-        results.retainAll(set);
-        if (isBelowFilterThreshold(results))
-        {
-          return results;
-        }
+        monitor.updateStats(SearchFilter.createANDFilter(rangeList),
+            INFO_INDEX_FILTER_INDEX_TYPE_DISABLED.get("ordering", attributeType.getNameOrOID()));
       }
-      else
+      return newUndefinedSet();
+    }
+
+    final IndexQueryFactoryImpl indexQueryFactory = new IndexQueryFactoryImpl(txn, attributeIndex);
+    final EntryIDSet set =
+        attributeIndex.evaluateBoundedRange(indexQueryFactory, rangeList.get(0), rangeList.get(1), buffer, monitor);
+    // The bounded range returns fewer candidates than each of its filters: recording it for both of them
+    // underestimates their cardinality, but lets the estimate of the bounded range follow the index.
+    if (recordStatistics)
+    {
+      for (SearchFilter filter : rangeList)
       {
-        // Add to the remaining range components to be processed.
-        remainComps.addAll(rangeList);
+        attributeIndex.getCardinalityStatistics(getRangeFilterType(filter)).record(set);
       }
     }
-
-    // Finally, process the remaining slow range components.
-    return applyFiltersUntilThreshold(results, remainComps);
+    if (monitor.isFilterUseEnabled() && set.isDefined())
+    {
+      monitor.updateStats(SearchFilter.createANDFilter(rangeList), set.size());
+    }
+    return restrictToWindow(set);
   }
 
-  private EntryIDSet applyFiltersUntilThreshold(EntryIDSet results, ArrayList<SearchFilter> filters)
+  /**
+   * Returns the entry IDs of the provided set which are in the window the evaluation is restricted to.
+   *
+   * @param set The set of entry IDs read from an index.
+   * @return The provided set if the evaluation is not restricted to a window or if the set is undefined,
+   *         otherwise a new set holding the entry IDs of the window.
+   */
+  private EntryIDSet restrictToWindow(EntryIDSet set)
   {
-    for(SearchFilter filter : filters) {
-      if (isBelowFilterThreshold(results)) {
-        return results;
+    if (!set.isDefined() || (windowStart == 0 && windowEnd == Long.MAX_VALUE))
+    {
+      return set;
+    }
+    final EntryIDSet windowSet = newBitmapSet();
+    final Iterator<EntryID> it = set.iterator(new EntryID(windowStart));
+    while (it.hasNext())
+    {
+      final EntryID entryID = it.next();
+      if (entryID.longValue() >= windowEnd)
+      {
+        break;
       }
-      results.retainAll(evaluateFilter(filter));
+      windowSet.add(entryID);
     }
-    return results;
+    return windowSet;
   }
 
   static boolean isBelowFilterThreshold(EntryIDSet set)
@@ -313,7 +450,25 @@ class IndexFilter
     if (attributeIndex != null)
     {
       final IndexQueryFactoryImpl indexQueryFactory = new IndexQueryFactoryImpl(txn, attributeIndex);
-      return attributeIndex.evaluateFilter(indexQueryFactory, indexFilterType, filter, buffer, monitor);
+      final EntryIDSet set = attributeIndex.evaluateFilter(indexQueryFactory, indexFilterType, filter, buffer, monitor);
+      if (recordStatistics)
+      {
+        attributeIndex.getCardinalityStatistics(indexFilterType).record(set);
+      }
+      return restrictToWindow(set);
+    }
+
+    if (indexFilterType == IndexFilterType.EQUALITY)
+    {
+      final EntryIDSet set = evaluateVirtualAttributeFilter(filter);
+      if (set != null)
+      {
+        if (monitor.isFilterUseEnabled())
+        {
+          monitor.updateStats(filter, set.size());
+        }
+        return restrictToWindow(set);
+      }
     }
 
     if (monitor.isFilterUseEnabled())
@@ -324,6 +479,61 @@ class IndexFilter
     return newUndefinedSet();
   }
 
+  /**
+   * Evaluates an equality filter on a virtual attribute by asking the virtual
+   * attribute providers for the DNs of the candidate entries, for example the
+   * members of a group for an isMemberOf filter. Only the rules which apply
+   * to all the base DNs and whose values override the real ones are
+   * considered. The group and filter criteria of a rule only restrict the
+   * entries getting the virtual values: the candidate entries returned by the
+   * provider are still checked against the whole search filter.
+   *
+   * @param filter The equality filter to be evaluated.
+   * @return A set of entry IDs representing candidate entries, or {@code null} if they cannot be determined.
+   */
+  private EntryIDSet evaluateVirtualAttributeFilter(SearchFilter filter)
+  {
+    final Set<DN> candidateDNs = new HashSet<>();
+    boolean isVirtual = false;
+    for (VirtualAttributeRule rule : DirectoryServer.getVirtualAttributes())
+    {
+      if (!rule.getAttributeType().equals(filter.getAttributeType()))
+      {
+        continue;
+      }
+      if (rule.getConflictBehavior() != ConflictBehavior.VIRTUAL_OVERRIDES_REAL || !rule.getBaseDNs().isEmpty())
+      {
+        return null;
+      }
+      final Collection<DN> dns = rule.getProvider().getCandidateEntryDNs(rule, filter, CURSOR_ENTRY_LIMIT);
+      if (dns == null)
+      {
+        return null;
+      }
+      candidateDNs.addAll(dns);
+      isVirtual = true;
+    }
+    if (!isVirtual || candidateDNs.size() > CURSOR_ENTRY_LIMIT)
+    {
+      return null;
+    }
+
+    final DN2ID dn2id = entryContainer.getDN2ID();
+    final EntryIDSet set = newBitmapSet();
+    for (DN dn : candidateDNs)
+    {
+      if (dn.isInScopeOf(searchOp.getBaseDN(), searchOp.getScope()))
+      {
+        final EntryID entryID = dn2id.get(txn, dn);
+        if (entryID != null)
+        {
+          set.add(entryID);
+        }
+      }
+    }
+    return set;
+  }
+
   /**
    * Evaluate an extensible filter against the indexes.
    *
@@ -344,7 +554,8 @@ class IndexFilter
     if (attributeIndex != null)
     {
       final IndexQueryFactoryImpl indexQueryFactory = new IndexQueryFactoryImpl(txn, attributeIndex);
-      return attributeIndex.evaluateExtensibleFilter(indexQueryFactory, extensibleFilter, buffer, monitor);
+      return restrictToWindow(
+          attributeIndex.evaluateExtensibleFilter(indexQueryFactory, extensibleFilter, buffer, monitor));
     }
     return IndexQueryFactoryImpl.createNullIndexQuery().evaluate(null, null);
   }
@@ -356,4 +567,179 @@ class IndexFilter
       buffer.append(content);
     }
   }
+
+  /** A component of an AND filter, together with the estimates used to plan its evaluation. */
+  final class AndComponent implements Comparable<AndComponent>
+  {
+    /** The component filter, or the two filters of a bounded range component. */
+    private final List<SearchFilter> filters;
+    private final long estimatedCardinality;
+    /** Whether the evaluation may read many index keys rather than a single one. */
+    private final boolean expensive;
+    /** The statistics the estimate comes from, null if the component is not indexed. */
+    private final CardinalityStatistics statistics;
+
+    AndComponent(List<SearchFilter> filters, long estimatedCardinality, boolean expensive,
+        CardinalityStatistics statistics)
+    {
+      this.filters = filters;
+      this.estimatedCardinality = estimatedCardinality;
+      this.expensive = expensive;
+      this.statistics = statistics;
+    }
+
+    List<SearchFilter> getFilters()
+    {
+      return filters;
+    }
+
+    boolean isWorthEvaluating(EntryIDSet candidates)
+    {
+      if (!expensive || !candidates.isDefined())
+      {
+        // Until the candidate set is defined, any component may save an unindexed search.
+        return true;
+      }
+      if (candidates.size() <= EXPENSIVE_FILTER_CANDIDATE_THRESHOLD)
+      {
+        return false;
+      }
+      if (estimatedCardinality == Long.MAX_VALUE)
+      {
+        // Previous evaluations mostly exceeded the index entry limit: reading many keys would likely be wasted.
+        // Still evaluate a sample of them so that the estimate recovers once the index becomes selective.
+        return statistics != null && statistics.isSampled();
+      }
+      return true;
+    }
+
+    EntryIDSet evaluate()
+    {
+      return filters.size() == 2 ? evaluateBoundedRange(filters) : evaluateFilter(filters.get(0));
+    }
+
+    @Override
+    public int compareTo(AndComponent o)
+    {
+      if (expensive != o.expensive)
+      {
+        return expensive ? 1 : -1;
+      }
+      return Long.compare(estimatedCardinality, o.estimatedCardinality);
+    }
+
+    @Override
+    public String toString()
+    {
+      return filters + " (estimated=" + estimatedCardinality + (expensive ? ", expensive)" : ")");
+    }
+  }
+
+  /**
+   * Cardinality statistics of the evaluations of one type of filter against an attribute index. They are used to
+   * estimate the selectivity of the components of AND filters before evaluating them.
+   * <p>
+   * Statistics are updated without synchronization between the counters, so estimates are only approximate.
+   */
+  static final class CardinalityStatistics
+  {
+    /** Number of evaluations required before trusting the statistics over the default estimate. */
+    private static final int MIN_EVALUATIONS = 16;
+    /** Number of evaluations after which the weight of the past evaluations is halved. */
+    private static final int MAX_EVALUATIONS = 1024;
+    /** One skipped evaluation out of this number is performed anyway to keep the statistics up to date. */
+    static final int SAMPLING_INTERVAL = 32;
+
+    private final long defaultEstimate;
+    private final AtomicLong nbEvaluations = new AtomicLong();
+    /** Number of evaluations which returned an undefined set, for example when the index entry limit is exceeded. */
+    private final AtomicLong nbUndefined = new AtomicLong();
+    private final AtomicLong totalDefinedSize = new AtomicLong();
+    private final AtomicLong nbSkipped = new AtomicLong();
+
+    CardinalityStatistics(long defaultEstimate)
+    {
+      this.defaultEstimate = defaultEstimate;
+    }
+
+    /**
+     * Returns the default estimates for each type of filter, used until enough evaluations have been recorded.
+     *
+     * @return a new map of statistics for each type of filter
+     */
+    static Map<IndexFilterType, CardinalityStatistics> newCardinalityStatistics()
+    {
+      final Map<IndexFilterType, CardinalityStatistics> statistics = new EnumMap<>(IndexFilterType.class);
+      for (IndexFilterType indexFilterType : IndexFilterType.values())
+      {
+        statistics.put(indexFilterType, new CardinalityStatistics(getDefaultEstimate(indexFilterType)));
+      }
+      return statistics;
+    }
+
+    private static long getDefaultEstimate(IndexFilterType indexFilterType)
+    {
+      switch (indexFilterType)
+      {
+      case EQUALITY:
+        return FILTER_CANDIDATE_THRESHOLD * 10;
+      case APPROXIMATE:
+        return FILTER_CANDIDATE_THRESHOLD * 100;
+      case PRESENCE:
+        return CURSOR_ENTRY_LIMIT;
+      default:
+        return UNKNOWN_CARDINALITY;
+      }
+    }
+
+    void record(EntryIDSet set)
+    {
+      if (set.isDefined())
+      {
+        totalDefinedSize.addAndGet(set.size());
+      }
+      else
+      {
+        nbUndefined.incrementAndGet();
+      }
+      final long evaluations = nbEvaluations.incrementAndGet();
+      if (evaluations >= MAX_EVALUATIONS && nbEvaluations.compareAndSet(evaluations, evaluations / 2))
+      {
+        // Let the estimate follow the changes of the index rather than the whole history of the evaluations.
+        nbUndefined.set(nbUndefined.get() / 2);
+        totalDefinedSize.set(totalDefinedSize.get() / 2);
+      }
+    }
+
+    /**
+     * Returns whether an evaluation which would otherwise be skipped must be performed to sample the index.
+     *
+     * @return true once every {@link #SAMPLING_INTERVAL} calls
+     */
+    boolean isSampled()
+    {
+      return nbSkipped.incrementAndGet() % SAMPLING_INTERVAL == 0;
+    }
+
+    /**
+     * Returns the expected number of candidates returned by the next evaluation.
+     *
+     * @return the expected number of candidates, or {@link Long#MAX_VALUE} if most evaluations returned an
+     *         undefined set
+     */
+    long estimateCardinality()
+    {
+      final long evaluations = nbEvaluations.get();
+      if (evaluations < MIN_EVALUATIONS)
+      {
+        return defaultEstimate;
+      }
+      final long undefined = nbUndefined.get();
+      if (undefined * 2 > evaluations)
+      {
+        return Long.MAX_VALUE;
+      }
+      return totalDefinedSize.get() / Math.max(1, evaluations - undefined);
+    }
+  }
 }
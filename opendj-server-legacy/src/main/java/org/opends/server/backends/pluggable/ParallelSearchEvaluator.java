@@ -0,0 +1,229 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.io.Closeable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+
+/**
+ * Decodes candidate entries and evaluates them against a search in parallel.
+ * <p>
+ * Reading the candidates from the id2entry tree must happen on the thread owning the storage transaction, but
+ * decoding the entries and matching them against the search scope and filter only need the raw record. The search
+ * thread therefore reads a batch of records, hands the batch over to a fork-join pool which splits it into ranges
+ * evaluated concurrently, then returns the matching entries itself, in the order of the batch. Result ordering,
+ * paging cookies, size limits and access control evaluation are thus the same as a serial search.
+ */
+final class ParallelSearchEvaluator implements Closeable
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Searches with fewer candidates than this are not worth evaluating in parallel. */
+  static final int MIN_CANDIDATES = 256;
+  /** Maximum number of candidates read ahead of the entries returned to the client. */
+  private static final int MAX_BATCH_SIZE = 8192;
+  /** Number of ranges created per thread so that threads finishing early can steal work. */
+  private static final int RANGES_PER_THREAD = 4;
+
+  /** Matches a decoded candidate entry against a search. */
+  interface EntryMatcher
+  {
+    /**
+     * Returns whether the provided entry is returned by the search. This method may be called concurrently.
+     *
+     * @param entry
+     *          the decoded candidate entry
+     * @return true if the entry matches the search
+     * @throws DirectoryException
+     *           if the entry could not be evaluated
+     */
+    boolean matches(Entry entry) throws DirectoryException;
+  }
+
+  /** A candidate entry of a batch. */
+  static final class Candidate
+  {
+    EntryID entryID;
+    /** The record read from id2entry, or null if the entry was found in the entry cache or does not exist. */
+    ByteString encodedEntry;
+    /** The candidate entry, either found in the entry cache or decoded from {@link #encodedEntry}. */
+    Entry entry;
+    /** Whether {@link #entry} matches the search. */
+    boolean matches;
+    /** The error raised while matching {@link #entry}, rethrown by the search thread when it reaches the entry. */
+    DirectoryException matchError;
+
+    void reset(EntryID entryID)
+    {
+      this.entryID = entryID;
+      this.encodedEntry = null;
+      this.entry = null;
+      this.matches = false;
+      this.matchError = null;
+    }
+  }
+
+  private final ForkJoinPool pool;
+  private final int parallelism;
+
+  ParallelSearchEvaluator(final String backendID, int parallelism)
+  {
+    this.parallelism = parallelism;
+    this.pool = new ForkJoinPool(parallelism, new ForkJoinWorkerThreadFactory()
+    {
+      @Override
+      public ForkJoinWorkerThread newThread(ForkJoinPool pool)
+      {
+        final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("Search evaluator " + backendID + "-" + thread.getPoolIndex());
+        return thread;
+      }
+    }, null, false);
+  }
+
+  int getParallelism()
+  {
+    return parallelism;
+  }
+
+  /**
+   * Returns the number of candidates to read for the next batch. Batches start small so that searches returning
+   * only a few entries, because of a page size or a size limit, do not read too many entries ahead, then grow
+   * geometrically.
+   *
+   * @param previousBatchSize
+   *          the size of the previous batch, or 0 for the first batch
+   * @return the size of the next batch
+   */
+  int nextBatchSize(int previousBatchSize)
+  {
+    if (previousBatchSize == 0)
+    {
+      return Math.min(parallelism * 16, MAX_BATCH_SIZE);
+    }
+    return Math.min(previousBatchSize * 2, MAX_BATCH_SIZE);
+  }
+
+  /**
+   * Decodes the first {@code size} candidates of the batch and evaluates them with the matcher. Upon return, each
+   * candidate has its {@link Candidate#entry}, {@link Candidate#matches} and {@link Candidate#matchError} fields set.
+   *
+   * @param batch
+   *          the candidates, with their entry or encoded entry set
+   * @param size
+   *          the number of candidates in the batch
+   * @param id2entry
+   *          the tree the encoded entries were read from
+   * @param matcher
+   *          the search matcher
+   */
+  void evaluate(Candidate[] batch, int size, ID2Entry id2entry, EntryMatcher matcher)
+  {
+    final int rangeSize = Math.max(1, size / (parallelism * RANGES_PER_THREAD));
+    final EvaluateRange task = new EvaluateRange(batch, 0, size, rangeSize, id2entry, matcher);
+    try
+    {
+      pool.invoke(task);
+    }
+    catch (RejectedExecutionException e)
+    {
+      // The pool has been shut down by a configuration change or the backend is being closed
+      logger.traceException(e);
+      evaluate(batch, 0, size, id2entry, matcher);
+    }
+  }
+
+  private static void evaluate(Candidate[] batch, int from, int to, ID2Entry id2entry, EntryMatcher matcher)
+  {
+    for (int i = from; i < to; i++)
+    {
+      final Candidate candidate = batch[i];
+      if (candidate.entry == null && candidate.encodedEntry != null)
+      {
+        try
+        {
+          candidate.entry = id2entry.decode(candidate.entryID, candidate.encodedEntry);
+        }
+        catch (Exception e)
+        {
+          // Same as a serial search: skip the entries which cannot be decoded
+          logger.traceException(e);
+          continue;
+        }
+      }
+      try
+      {
+        candidate.matches = candidate.entry != null && matcher.matches(candidate.entry);
+      }
+      catch (DirectoryException e)
+      {
+        candidate.matchError = e;
+      }
+    }
+  }
+
+  /** Evaluates a range of candidates, splitting it in halves until the ranges are small enough. */
+  private static final class EvaluateRange extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final Candidate[] batch;
+    private final int from;
+    private final int to;
+    private final int rangeSize;
+    private final ID2Entry id2entry;
+    private final EntryMatcher matcher;
+
+    EvaluateRange(Candidate[] batch, int from, int to, int rangeSize, ID2Entry id2entry, EntryMatcher matcher)
+    {
+      this.batch = batch;
+      this.from = from;
+      this.to = to;
+      this.rangeSize = rangeSize;
+      this.id2entry = id2entry;
+      this.matcher = matcher;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (to - from <= rangeSize)
+      {
+        evaluate(batch, from, to, id2entry, matcher);
+        return;
+      }
+      final int middle = (from + to) >>> 1;
+      invokeAll(new EvaluateRange(batch, from, middle, rangeSize, id2entry, matcher),
+                new EvaluateRange(batch, middle, to, rangeSize, id2entry, matcher));
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    // Let the batches being evaluated complete, later ones are evaluated by the search threads
+    pool.shutdown();
+  }
+}
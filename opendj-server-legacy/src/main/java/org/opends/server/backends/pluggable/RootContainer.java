@@ -16,6 +16,7 @@
  */
 package org.opends.server.backends.pluggable;
 
+import static org.forgerock.util.Utils.*;
 import static org.opends.messages.BackendMessages.*;
 import static org.opends.server.util.StaticUtils.*;
 
@@ -82,6 +83,9 @@ public class RootContainer implements ConfigurationChangeListener<PluggableBacke
 
   private final ServerContext serverContext;
 
+  /** Evaluates large indexed searches in parallel, or null if searches are evaluated serially. */
+  private volatile ParallelSearchEvaluator parallelSearchEvaluator;
+
   /**
    * Creates a new RootContainer object representing a storage.
    *
@@ -102,6 +106,7 @@ public class RootContainer implements ConfigurationChangeListener<PluggableBacke
 
     getMonitorProvider().enableFilterUseStats(config.isIndexFilterAnalyzerEnabled());
     getMonitorProvider().setMaxEntries(config.getIndexFilterAnalyzerMaxFilters());
+    parallelSearchEvaluator = newParallelSearchEvaluator(config.getSearchParallelism());
 
     config.addPluggableChangeListener(this);
   }
@@ -333,6 +338,8 @@ public class RootContainer implements ConfigurationChangeListener<PluggableBacke
       }
     }
     config.removePluggableChangeListener(this);
+    closeSilently(parallelSearchEvaluator);
+    parallelSearchEvaluator = null;
     if (storage != null)
     {
       storage.close();
@@ -453,9 +460,32 @@ public class RootContainer implements ConfigurationChangeListener<PluggableBacke
     getMonitorProvider().enableFilterUseStats(config.isIndexFilterAnalyzerEnabled());
     getMonitorProvider().setMaxEntries(config.getIndexFilterAnalyzerMaxFilters());
 
+    final ParallelSearchEvaluator previous = parallelSearchEvaluator;
+    final int previousParallelism = previous != null ? previous.getParallelism() : 1;
+    if (Math.max(1, config.getSearchParallelism()) != previousParallelism)
+    {
+      parallelSearchEvaluator = newParallelSearchEvaluator(config.getSearchParallelism());
+      closeSilently(previous);
+    }
+
     return new ConfigChangeResult();
   }
 
+  private ParallelSearchEvaluator newParallelSearchEvaluator(int parallelism)
+  {
+    return parallelism > 1 ? new ParallelSearchEvaluator(backendId, parallelism) : null;
+  }
+
+  /**
+   * Returns the evaluator used to decode and evaluate the candidates of large indexed searches in parallel.
+   *
+   * @return the parallel search evaluator, or null if searches must be evaluated serially
+   */
+  ParallelSearchEvaluator getParallelSearchEvaluator()
+  {
+    return parallelSearchEvaluator;
+  }
+
   /**
    * Checks the storage has enough resources for an operation.
    *
@@ -13,6 +13,7 @@
  *
  * Copyright 2007-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.core;
 
@@ -32,6 +33,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -39,6 +42,7 @@ import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.config.server.ConfigChangeResult;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ConditionResult;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.util.Utils;
@@ -102,12 +106,18 @@ public class GroupManager extends InternalDirectoryServerPlugin
   /** Used by group instances to determine if new groups have been registered or groups deleted. */
   private volatile long refreshToken;
 
+  /** Incremented each time the members of a registered group instance are updated. */
+  private final AtomicLong membersUpdates = new AtomicLong();
+
   /** A mapping between the DNs of the config entries and the associated group implementations. */
   private ConcurrentMap<DN, Group<?>> groupImplementations;
 
   /** A mapping between the DNs of all group entries and the corresponding group instances. */
   private DITCacheMap<Group<?>> groupInstances;
 
+  /** The reverse index of the memberships of the group instances. */
+  private final GroupMembershipIndex membershipIndex = new GroupMembershipIndex();
+
   /** Lock to protect internal data structures. */
   private final ReadWriteLock lock;
 
@@ -270,6 +280,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
           if (g.getClass().getName().equals(group.getClass().getName()))
           {
             iterator.remove();
+            membershipIndex.removeGroup(g.getGroupDN());
           }
         }
       }
@@ -331,6 +342,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
               if (g.getClass().getName().equals(group.getClass().getName()))
               {
                 iterator.remove();
+                membershipIndex.removeGroup(g.getGroupDN());
               }
             }
           }
@@ -580,8 +592,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
             try
             {
               Group<?> groupInstance = groupImplementation.newInstance(serverContext, entry);
-              groupInstances.put(entry.getName(), groupInstance);
-              refreshToken++;
+              registerGroup(groupInstance, entry);
             }
             catch (DirectoryException e)
             {
@@ -616,6 +627,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
         if (backend.handlesEntry(groupEntryDN))
         {
           iterator.remove();
+          membershipIndex.removeGroup(groupEntryDN);
         }
       }
     }
@@ -680,8 +692,13 @@ public class GroupManager extends InternalDirectoryServerPlugin
     lock.writeLock().lock();
     try
     {
-      if (groupInstances.removeSubtree(entry.getName(), null))
+      Set<Group<?>> groupSet = new HashSet<>();
+      if (groupInstances.removeSubtree(entry.getName(), groupSet))
       {
+        for (Group<?> group : groupSet)
+        {
+          membershipIndex.removeGroup(group.getGroupDN());
+        }
         refreshToken++;
       }
     }
@@ -723,6 +740,13 @@ public class GroupManager extends InternalDirectoryServerPlugin
   {
     if (hasGroupMembershipUpdateControl(modifyOperation))
     {
+      // The group instance updates its own members
+      Group<?> group = getGroupInstance(oldEntry.getName());
+      if (group != null && group.getMemberListAttributeType() != null)
+      {
+        membershipIndex.updateMembers(group.getGroupDN(), group.getMemberListAttributeType(), modifications);
+      }
+      membersUpdates.incrementAndGet();
       return;
     }
 
@@ -752,12 +776,18 @@ public class GroupManager extends InternalDirectoryServerPlugin
             || updatesObjectClass(modifications))
         {
           groupInstances.remove(oldEntry.getName());
+          membershipIndex.removeGroup(oldEntry.getName());
           // This updates the refreshToken
           createAndRegisterGroup(newEntry);
         }
         else
         {
           group.updateMembers(modifications);
+          if (group.getMemberListAttributeType() != null)
+          {
+            membershipIndex.updateMembers(group.getGroupDN(), group.getMemberListAttributeType(), modifications);
+          }
+          membersUpdates.incrementAndGet();
         }
       }
     }
@@ -799,6 +829,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
         final DN renamedGroupDN = groupDN.rename(oldDN, newDN);
         group.setGroupDN(renamedGroupDN);
         groupInstances.put(renamedGroupDN, group);
+        membershipIndex.renameGroup(groupDN, renamedGroupDN);
       }
       if (!groupSet.isEmpty())
       {
@@ -942,8 +973,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
           lock.writeLock().lock();
           try
           {
-            groupInstances.put(entry.getName(), groupInstance);
-            refreshToken++;
+            registerGroup(groupInstance, entry);
           }
           finally
           {
@@ -958,6 +988,21 @@ public class GroupManager extends InternalDirectoryServerPlugin
     }
   }
 
+  /**
+   * Registers the provided group instance, overwriting any existing group
+   * instance that may be registered with the same DN. Must be called with the
+   * write lock held.
+   *
+   * @param  groupInstance  The group instance to register.
+   * @param  entry          The entry containing the group definition.
+   */
+  private void registerGroup(Group<?> groupInstance, Entry entry)
+  {
+    groupInstances.put(entry.getName(), groupInstance);
+    membershipIndex.addGroup(groupInstance, entry);
+    refreshToken++;
+  }
+
   /**
    * Removes all group instances that might happen to be registered with the
    * group manager.  This method is only intended for testing purposes and
@@ -969,6 +1014,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
     try
     {
       groupInstances.clear();
+      membershipIndex.clear();
     }
     finally
     {
@@ -999,4 +1045,73 @@ public class GroupManager extends InternalDirectoryServerPlugin
   public long refreshToken() {
     return this.refreshToken;
   }
+
+  /**
+   * Return the current membership token value. It changes each time the
+   * refresh token changes and each time the members of a group instance are
+   * updated. Can be used to discard cached group membership results.
+   *
+   * @return The current membership token value.
+   */
+  public long membershipToken() {
+    return this.refreshToken + membersUpdates.get();
+  }
+
+  /**
+   * Retrieves the DNs of all the group instances the provided user is a
+   * member of, either directly or through nested groups. The memberships of
+   * the groups explicitly listing their members, such as the static groups,
+   * are looked up in an index maintained by this group manager: only the
+   * other groups are evaluated.
+   *
+   * @param  userEntry  The entry of the user.
+   *
+   * @return  The DNs of the group instances the user is a member of.
+   */
+  public Set<DN> getGroupMemberships(Entry userEntry)
+  {
+    return membershipIndex.getGroups(userEntry);
+  }
+
+  /**
+   * Retrieves the DNs of the members of the provided group instance, either
+   * direct members or members of its nested groups, by looking up the index
+   * of the group memberships maintained by this group manager.
+   *
+   * @param  groupDN  The DN of the group instance.
+   * @param  limit    The maximum number of DNs to return.
+   *
+   * @return  The DNs of the members of the group instance, or {@code null} if
+   *          the group or one of its nested groups does not explicitly list
+   *          its members, or if the group has more than {@code limit}
+   *          members.
+   */
+  public Set<DN> getIndexedMembers(DN groupDN, int limit)
+  {
+    return membershipIndex.getMembers(groupDN, limit);
+  }
+
+  /**
+   * Indicates whether the user with the provided DN is a member of the
+   * provided group instance, either directly or through nested groups, by
+   * looking up the index of the group memberships maintained by this group
+   * manager.
+   *
+   * @param  groupDN         The DN of the group instance.
+   * @param  userDN          The DN of the user.
+   * @param  examinedGroups  The groups already examined in the process of
+   *                         making the determination.
+   *
+   * @return  {@link ConditionResult#UNDEFINED} if the memberships of the
+   *          group instance are not indexed, otherwise whether the user is
+   *          a member of the group instance.
+   *
+   * @throws  DirectoryException  If a problem occurs while evaluating a
+   *                              nested group which is not indexed.
+   */
+  public ConditionResult isIndexedMember(DN groupDN, DN userDN, AtomicReference<Set<DN>> examinedGroups)
+      throws DirectoryException
+  {
+    return membershipIndex.isMember(groupDN, userDN, examinedGroups);
+  }
 }
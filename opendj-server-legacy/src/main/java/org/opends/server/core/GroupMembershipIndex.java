@@ -0,0 +1,614 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import net.jcip.annotations.GuardedBy;
+
+import org.forgerock.i18n.LocalizedIllegalArgumentException;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ConditionResult;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.opends.server.api.Group;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.Modification;
+
+/**
+ * A reverse index of the group memberships, maintained by the group manager
+ * as the group instances are registered, updated and deregistered.
+ * <p>
+ * The groups which explicitly list their members, such as the static groups,
+ * are indexed: for each member DN, the index holds the DNs of the groups
+ * listing it. The groups whose members are only known by evaluating them,
+ * such as the dynamic groups and the virtual static groups, are not indexed.
+ * <p>
+ * The groups a DN belongs to through the indexed groups, including the groups
+ * nesting them, are computed by walking the index up from that DN. The result
+ * is cached until the index changes in a way which may affect it: changing the
+ * members of a group only invalidates the cached groups of these members,
+ * unless they are groups themselves.
+ * <p>
+ * This class is thread safe.
+ */
+final class GroupMembershipIndex
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The maximum number of DNs whose groups are cached. */
+  private static final int MAX_CACHED_MEMBERSHIPS = 100000;
+
+  /** The DNs of the members explicitly listed by each indexed group. */
+  @GuardedBy("lock")
+  private final Map<DN, Set<DN>> membersByGroup = new HashMap<>();
+
+  /** The DNs of the indexed groups explicitly listing each member DN. */
+  @GuardedBy("lock")
+  private final Map<DN, Set<DN>> groupsByMember = new HashMap<>();
+
+  /** The registered groups which are not indexed. */
+  @GuardedBy("lock")
+  private final Map<DN, Group<?>> unindexedGroups = new HashMap<>();
+
+  /** An immutable copy of the values of {@link #unindexedGroups}. */
+  private volatile List<Group<?>> unindexedGroupsSnapshot = Collections.emptyList();
+
+  /**
+   * The DNs of the indexed groups each recently looked up DN belongs to,
+   * directly or through nesting. Populated under the read lock, invalidated
+   * under the write lock.
+   */
+  private final Map<DN, Set<DN>> memberships = new ConcurrentHashMap<>();
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * Adds a group instance to this index, replacing any group previously
+   * added with the same DN.
+   *
+   * @param group
+   *          The group instance.
+   * @param groupEntry
+   *          The entry holding the definition of the group, from which the
+   *          members explicitly listed by the group are read.
+   */
+  void addGroup(Group<?> group, Entry groupEntry)
+  {
+    final AttributeType memberAttributeType = group.getMemberListAttributeType();
+    if (memberAttributeType == null)
+    {
+      addUnindexedGroup(group);
+      return;
+    }
+
+    final Set<DN> memberDNs = new HashSet<>();
+    for (Attribute attribute : groupEntry.getAllAttributes(memberAttributeType))
+    {
+      for (ByteString value : attribute)
+      {
+        final DN memberDN = toDN(value);
+        if (memberDN != null)
+        {
+          memberDNs.add(memberDN);
+        }
+      }
+    }
+    addIndexedGroup(group.getGroupDN(), memberDNs);
+  }
+
+  /**
+   * Adds an indexed group to this index, replacing any group previously added
+   * with the same DN.
+   *
+   * @param groupDN
+   *          The DN of the group.
+   * @param memberDNs
+   *          The DNs of the members explicitly listed by the group.
+   */
+  void addIndexedGroup(DN groupDN, Collection<DN> memberDNs)
+  {
+    lock.writeLock().lock();
+    try
+    {
+      removeGroup0(groupDN);
+      final Set<DN> groupMembers = new HashSet<>(memberDNs.size());
+      membersByGroup.put(groupDN, groupMembers);
+      for (DN memberDN : memberDNs)
+      {
+        addMember(groupDN, groupMembers, memberDN);
+      }
+      memberships.clear();
+    }
+    finally
+    {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds a group whose members are only known by evaluating it to this index,
+   * replacing any group previously added with the same DN.
+   *
+   * @param group
+   *          The group instance.
+   */
+  void addUnindexedGroup(Group<?> group)
+  {
+    lock.writeLock().lock();
+    try
+    {
+      removeGroup0(group.getGroupDN());
+      unindexedGroups.put(group.getGroupDN(), group);
+      unindexedGroupsSnapshot = new ArrayList<>(unindexedGroups.values());
+      memberships.clear();
+    }
+    finally
+    {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a group from this index.
+   *
+   * @param groupDN
+   *          The DN of the group to remove.
+   */
+  void removeGroup(DN groupDN)
+  {
+    lock.writeLock().lock();
+    try
+    {
+      if (removeGroup0(groupDN))
+      {
+        memberships.clear();
+      }
+    }
+    finally
+    {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @GuardedBy("lock")
+  private boolean removeGroup0(DN groupDN)
+  {
+    final Set<DN> groupMembers = membersByGroup.remove(groupDN);
+    if (groupMembers != null)
+    {
+      for (DN memberDN : groupMembers)
+      {
+        removeGroupOfMember(groupDN, memberDN);
+      }
+      return true;
+    }
+    if (unindexedGroups.remove(groupDN) != null)
+    {
+      unindexedGroupsSnapshot = new ArrayList<>(unindexedGroups.values());
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Records that a group has been renamed. The groups listing the old DN of
+   * the renamed group no longer nest it.
+   *
+   * @param oldGroupDN
+   *          The DN of the group before it was renamed.
+   * @param newGroupDN
+   *          The DN of the group after it was renamed.
+   */
+  void renameGroup(DN oldGroupDN, DN newGroupDN)
+  {
+    lock.writeLock().lock();
+    try
+    {
+      final Set<DN> groupMembers = membersByGroup.get(oldGroupDN);
+      if (groupMembers != null)
+      {
+        addIndexedGroup(newGroupDN, new ArrayList<>(groupMembers));
+        removeGroup0(oldGroupDN);
+      }
+      else
+      {
+        final Group<?> group = unindexedGroups.get(oldGroupDN);
+        if (group != null)
+        {
+          removeGroup0(oldGroupDN);
+          addUnindexedGroup(group);
+        }
+      }
+      memberships.clear();
+    }
+    finally
+    {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Applies the provided modifications of the member list of an indexed group
+   * to this index.
+   *
+   * @param groupDN
+   *          The DN of the modified group.
+   * @param memberAttributeType
+   *          The attribute type listing the members of the group.
+   * @param modifications
+   *          The modifications applied to the group entry.
+   */
+  void updateMembers(DN groupDN, AttributeType memberAttributeType, List<Modification> modifications)
+  {
+    lock.writeLock().lock();
+    try
+    {
+      final Set<DN> groupMembers = membersByGroup.get(groupDN);
+      if (groupMembers == null)
+      {
+        return;
+      }
+      for (Modification mod : modifications)
+      {
+        final Attribute attribute = mod.getAttribute();
+        if (!attribute.getAttributeDescription().getAttributeType().equals(memberAttributeType))
+        {
+          continue;
+        }
+        switch (mod.getModificationType().asEnum())
+        {
+          case ADD:
+            addMembers(groupDN, groupMembers, attribute);
+            break;
+          case DELETE:
+            if (attribute.isEmpty())
+            {
+              removeAllMembers(groupDN, groupMembers);
+            }
+            else
+            {
+              for (ByteString value : attribute)
+              {
+                final DN memberDN = toDN(value);
+                if (memberDN != null && groupMembers.remove(memberDN))
+                {
+                  removeGroupOfMember(groupDN, memberDN);
+                  membershipChanged(memberDN);
+                }
+              }
+            }
+            break;
+          case REPLACE:
+            removeAllMembers(groupDN, groupMembers);
+            addMembers(groupDN, groupMembers, attribute);
+            break;
+        }
+      }
+    }
+    finally
+    {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @GuardedBy("lock")
+  private void addMembers(DN groupDN, Set<DN> groupMembers, Attribute attribute)
+  {
+    for (ByteString value : attribute)
+    {
+      final DN memberDN = toDN(value);
+      if (memberDN != null && addMember(groupDN, groupMembers, memberDN))
+      {
+        membershipChanged(memberDN);
+      }
+    }
+  }
+
+  @GuardedBy("lock")
+  private boolean addMember(DN groupDN, Set<DN> groupMembers, DN memberDN)
+  {
+    if (!groupMembers.add(memberDN))
+    {
+      return false;
+    }
+    Set<DN> groupDNs = groupsByMember.get(memberDN);
+    if (groupDNs == null)
+    {
+      groupDNs = new HashSet<>(2);
+      groupsByMember.put(memberDN, groupDNs);
+    }
+    groupDNs.add(groupDN);
+    return true;
+  }
+
+  @GuardedBy("lock")
+  private void removeAllMembers(DN groupDN, Set<DN> groupMembers)
+  {
+    for (DN memberDN : groupMembers)
+    {
+      removeGroupOfMember(groupDN, memberDN);
+      membershipChanged(memberDN);
+    }
+    groupMembers.clear();
+  }
+
+  @GuardedBy("lock")
+  private void removeGroupOfMember(DN groupDN, DN memberDN)
+  {
+    final Set<DN> groupDNs = groupsByMember.get(memberDN);
+    if (groupDNs != null && groupDNs.remove(groupDN) && groupDNs.isEmpty())
+    {
+      groupsByMember.remove(memberDN);
+    }
+  }
+
+  /**
+   * Invalidates the cached groups which may have changed after adding or
+   * removing the provided member DN. When the member is a group, the groups
+   * of all its members may have changed.
+   */
+  @GuardedBy("lock")
+  private void membershipChanged(DN memberDN)
+  {
+    if (membersByGroup.containsKey(memberDN) || unindexedGroups.containsKey(memberDN))
+    {
+      memberships.clear();
+    }
+    else
+    {
+      memberships.remove(memberDN);
+    }
+  }
+
+  /** Removes all the groups from this index. */
+  void clear()
+  {
+    lock.writeLock().lock();
+    try
+    {
+      membersByGroup.clear();
+      groupsByMember.clear();
+      unindexedGroups.clear();
+      unindexedGroupsSnapshot = Collections.emptyList();
+      memberships.clear();
+    }
+    finally
+    {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Indicates whether the group with the provided DN is indexed.
+   *
+   * @param groupDN
+   *          The DN of the group.
+   * @return {@code true} if the group is indexed
+   */
+  boolean isIndexed(DN groupDN)
+  {
+    lock.readLock().lock();
+    try
+    {
+      return membersByGroup.containsKey(groupDN);
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the DNs of the indexed groups the provided DN belongs to, either
+   * directly or through the indexed groups nesting them.
+   *
+   * @param dn
+   *          The DN of a user or of a group.
+   * @return The DNs of the indexed groups the provided DN belongs to.
+   */
+  Set<DN> getIndexedGroups(DN dn)
+  {
+    Set<DN> groupDNs = memberships.get(dn);
+    if (groupDNs != null)
+    {
+      return groupDNs;
+    }
+
+    lock.readLock().lock();
+    try
+    {
+      groupDNs = new HashSet<>();
+      final Queue<DN> toVisit = new ArrayDeque<>();
+      toVisit.add(dn);
+      while (!toVisit.isEmpty())
+      {
+        final Set<DN> directGroupDNs = groupsByMember.get(toVisit.remove());
+        if (directGroupDNs != null)
+        {
+          for (DN groupDN : directGroupDNs)
+          {
+            if (groupDNs.add(groupDN))
+            {
+              toVisit.add(groupDN);
+            }
+          }
+        }
+      }
+      groupDNs = groupDNs.isEmpty() ? Collections.<DN> emptySet() : Collections.unmodifiableSet(groupDNs);
+      if (memberships.size() < MAX_CACHED_MEMBERSHIPS)
+      {
+        memberships.put(dn, groupDNs);
+      }
+      return groupDNs;
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the DNs of the members of the provided indexed group, either
+   * direct members or members of the indexed groups it nests. The nested
+   * groups are members too.
+   *
+   * @param groupDN
+   *          The DN of the indexed group.
+   * @param limit
+   *          The maximum number of DNs to return.
+   * @return The DNs of the members of the group, or {@code null} if the group
+   *         or one of the groups it nests is not indexed, or if the group has
+   *         more than {@code limit} members.
+   */
+  Set<DN> getMembers(DN groupDN, int limit)
+  {
+    lock.readLock().lock();
+    try
+    {
+      if (!membersByGroup.containsKey(groupDN))
+      {
+        return null;
+      }
+      final Set<DN> memberDNs = new HashSet<>();
+      final Set<DN> visitedGroupDNs = new HashSet<>();
+      final Queue<DN> toVisit = new ArrayDeque<>();
+      toVisit.add(groupDN);
+      visitedGroupDNs.add(groupDN);
+      while (!toVisit.isEmpty())
+      {
+        for (DN memberDN : membersByGroup.get(toVisit.remove()))
+        {
+          if (unindexedGroups.containsKey(memberDN))
+          {
+            return null;
+          }
+          if (memberDNs.add(memberDN) && memberDNs.size() > limit)
+          {
+            return null;
+          }
+          if (membersByGroup.containsKey(memberDN) && visitedGroupDNs.add(memberDN))
+          {
+            toVisit.add(memberDN);
+          }
+        }
+      }
+      return memberDNs;
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Indicates whether the user with the provided DN is a member of the
+   * provided indexed group, either directly or through nesting. Only the
+   * unindexed groups nested in the indexed group are evaluated.
+   *
+   * @param groupDN
+   *          The DN of the indexed group.
+   * @param userDN
+   *          The DN of the user.
+   * @param examinedGroups
+   *          The groups already examined, to prevent infinite recursion.
+   * @return {@link ConditionResult#UNDEFINED} if the group is not indexed,
+   *         otherwise whether the user is a member of the group.
+   * @throws DirectoryException
+   *           If a problem occurs while evaluating a nested unindexed group.
+   */
+  ConditionResult isMember(DN groupDN, DN userDN, AtomicReference<Set<DN>> examinedGroups)
+      throws DirectoryException
+  {
+    if (!isIndexed(groupDN))
+    {
+      return ConditionResult.UNDEFINED;
+    }
+    if (getIndexedGroups(userDN).contains(groupDN))
+    {
+      return ConditionResult.TRUE;
+    }
+    for (Group<?> group : unindexedGroupsSnapshot)
+    {
+      if (getIndexedGroups(group.getGroupDN()).contains(groupDN)
+          && group.isMember(userDN, examinedGroups))
+      {
+        return ConditionResult.TRUE;
+      }
+    }
+    return ConditionResult.FALSE;
+  }
+
+  /**
+   * Returns the DNs of all the registered groups the provided user belongs to,
+   * either directly or through nesting. The unindexed groups are evaluated.
+   *
+   * @param userEntry
+   *          The entry of the user.
+   * @return The DNs of all the groups the user belongs to.
+   */
+  Set<DN> getGroups(Entry userEntry)
+  {
+    final Set<DN> groupDNs = new LinkedHashSet<>(getIndexedGroups(userEntry.getName()));
+    for (Group<?> group : unindexedGroupsSnapshot)
+    {
+      final DN groupDN = group.getGroupDN();
+      try
+      {
+        if (!groupDNs.contains(groupDN) && group.isMember(userEntry))
+        {
+          groupDNs.add(groupDN);
+          groupDNs.addAll(getIndexedGroups(groupDN));
+        }
+      }
+      catch (DirectoryException e)
+      {
+        logger.traceException(e);
+      }
+    }
+    return groupDNs;
+  }
+
+  private static DN toDN(ByteString value)
+  {
+    try
+    {
+      return DN.valueOf(value);
+    }
+    catch (LocalizedIllegalArgumentException e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+  }
+}
@@ -13,16 +13,24 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.core;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.ldap.ResultCode;
+import org.opends.server.api.DirectoryThread;
 import org.opends.server.controls.EntryChangeNotificationControl;
 import org.opends.server.controls.PersistentSearchChangeType;
 import org.opends.server.types.CancelResult;
@@ -31,6 +39,7 @@ import org.forgerock.opendj.ldap.DN;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
 
+import static org.opends.messages.CoreMessages.*;
 import static org.opends.server.controls.PersistentSearchChangeType.*;
 
 /**
@@ -63,6 +72,13 @@ import static org.opends.server.controls.PersistentSearchChangeType.*;
  * Work flow element implementations should {@link #cancel()} active
  * persistent searches when the work flow element fails or is shut
  * down.
+ * <p>
+ * The change notifications are sent to the client asynchronously, so that
+ * a slow client does not hold up the write operations. A persistent search
+ * is cancelled when its client lets more than
+ * {@link #MAX_PENDING_NOTIFICATIONS} notifications pile up: the search result
+ * done message is then sent by the notifier, after the notification it may be
+ * sending.
  */
 public final class PersistentSearch
 {
@@ -85,6 +101,41 @@ public final class PersistentSearch
   }
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /** The maximum number of change notifications waiting to be sent to the client of a persistent search. */
+  static final int MAX_PENDING_NOTIFICATIONS = 1000;
+
+  /** The maximum number of threads sending the change notifications. */
+  private static final int MAX_NOTIFIER_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+  /**
+   * Sends the change notifications to the clients of the persistent searches.
+   * Each persistent search queues at most one task at a time, hence the
+   * number of queued tasks is bounded by the number of persistent searches.
+   */
+  private static final ThreadPoolExecutor notifier = newNotifier();
+
+  private static ThreadPoolExecutor newNotifier()
+  {
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_NOTIFIER_THREADS, MAX_NOTIFIER_THREADS,
+        60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+        new DirectoryThread.Factory("Persistent Search Notifier"));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /** A change notification waiting to be sent to the client. */
+  private static final class Notification
+  {
+    private final Entry entry;
+    private final List<Control> controls;
+
+    private Notification(Entry entry, List<Control> controls)
+    {
+      this.entry = entry;
+      this.controls = controls;
+    }
+  }
+
   /** Cancel a persistent search. */
   private static synchronized void cancel(PersistentSearch psearch)
   {
@@ -119,7 +170,17 @@ public final class PersistentSearch
   private final Set<PersistentSearchChangeType> changeTypes;
 
   /** Indicates whether this persistent search has already been aborted. */
-  private boolean isCancelled;
+  private volatile boolean isCancelled;
+
+  /** The change notifications waiting to be sent to the client, in the order of the changes. */
+  private final BlockingQueue<Notification> pendingNotifications =
+      new ArrayBlockingQueue<>(MAX_PENDING_NOTIFICATIONS);
+
+  /** Indicates whether a notifier thread is sending the pending notifications. */
+  private final AtomicBoolean isNotifying = new AtomicBoolean();
+
+  /** Indicates whether the notifier must send the search result done message to a slow client. */
+  private final AtomicBoolean isSlowClientResultPending = new AtomicBoolean();
 
   /** Indicates whether entries returned should include the entry change notification control. */
   private final boolean returnECs;
@@ -385,6 +446,94 @@ public final class PersistentSearch
   }
 
   private void sendEntry(Entry entry, List<Control> entryControls)
+  {
+    if (isCancelled)
+    {
+      return;
+    }
+    if (!pendingNotifications.offer(new Notification(entry, entryControls)))
+    {
+      cancelSlowClient();
+      return;
+    }
+    scheduleNotifier();
+  }
+
+  private void scheduleNotifier()
+  {
+    if (isNotifying.compareAndSet(false, true))
+    {
+      notifier.execute(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          sendPendingNotifications();
+        }
+      });
+    }
+  }
+
+  private void sendPendingNotifications()
+  {
+    do
+    {
+      Notification notification;
+      while ((notification = pendingNotifications.poll()) != null)
+      {
+        if (isCancelled)
+        {
+          pendingNotifications.clear();
+          break;
+        }
+        deliverEntry(notification.entry, notification.controls);
+      }
+      if (isSlowClientResultPending.compareAndSet(true, false))
+      {
+        sendSlowClientResult();
+      }
+      isNotifying.set(false);
+      // A notification may have been queued after the loop above ended
+    }
+    while ((!pendingNotifications.isEmpty() || isSlowClientResultPending.get())
+        && isNotifying.compareAndSet(false, true));
+  }
+
+  /**
+   * The client does not read the change notifications quickly enough. This is
+   * called by the thread processing a write operation, which must not wait for
+   * the client: the search result done message is sent by the notifier.
+   */
+  private void cancelSlowClient()
+  {
+    synchronized (this)
+    {
+      if (isCancelled)
+      {
+        return;
+      }
+      cancel();
+    }
+    pendingNotifications.clear();
+    isSlowClientResultPending.set(true);
+    scheduleNotifier();
+  }
+
+  private void sendSlowClientResult()
+  {
+    searchOperation.setResultCode(ResultCode.ADMIN_LIMIT_EXCEEDED);
+    searchOperation.appendErrorMessage(ERR_PSEARCH_TOO_MANY_PENDING_NOTIFICATIONS.get(MAX_PENDING_NOTIFICATIONS));
+    try
+    {
+      searchOperation.sendSearchResultDone();
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+    }
+  }
+
+  private void deliverEntry(Entry entry, List<Control> entryControls)
   {
     try
     {
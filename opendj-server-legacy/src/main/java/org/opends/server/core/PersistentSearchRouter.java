@@ -0,0 +1,360 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.jcip.annotations.GuardedBy;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.ldap.schema.MatchingRule;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Entry;
+import org.opends.server.types.FilterType;
+import org.opends.server.types.SearchFilter;
+
+/**
+ * Routes the change notifications of a backend to the persistent searches
+ * which may be interested in them.
+ * <p>
+ * The persistent searches are indexed by base DN, so that a change is only
+ * matched against the persistent searches whose base DN is the changed entry
+ * or one of its superiors. The persistent searches whose filter requires an
+ * attribute to have a given value, such as {@code (uid=jdoe)} or
+ * {@code (&(objectClass=person)(uid=jdoe))}, are further indexed by that
+ * normalized value, so that they are only matched against the changed entries
+ * having that value. The persistent searches then check the scope and the
+ * filter against the changed entries as usual.
+ * <p>
+ * This class is thread safe. The indexes are immutable and replaced when a
+ * persistent search is registered or deregistered, which is much less
+ * frequent than the changes.
+ */
+public final class PersistentSearchRouter
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** A persistent search and the attribute value its filter requires, if any. */
+  private static final class Subscription
+  {
+    private final PersistentSearch psearch;
+    private final AttributeType attributeType;
+    private final ByteString normalizedValue;
+
+    private Subscription(PersistentSearch psearch, AttributeType attributeType, ByteString normalizedValue)
+    {
+      this.psearch = psearch;
+      this.attributeType = attributeType;
+      this.normalizedValue = normalizedValue;
+    }
+  }
+
+  /** The immutable index of the persistent searches having the same base DN. */
+  private static final class BaseDNSubscriptions
+  {
+    private final List<Subscription> subscriptions;
+    private final List<PersistentSearch> unindexed = new ArrayList<>();
+    private final Map<AttributeType, Map<ByteString, List<PersistentSearch>>> byValue = new HashMap<>();
+
+    private BaseDNSubscriptions(List<Subscription> subscriptions)
+    {
+      this.subscriptions = subscriptions;
+      for (Subscription subscription : subscriptions)
+      {
+        if (subscription.attributeType == null)
+        {
+          unindexed.add(subscription.psearch);
+          continue;
+        }
+        Map<ByteString, List<PersistentSearch>> values = byValue.get(subscription.attributeType);
+        if (values == null)
+        {
+          values = new HashMap<>();
+          byValue.put(subscription.attributeType, values);
+        }
+        List<PersistentSearch> psearches = values.get(subscription.normalizedValue);
+        if (psearches == null)
+        {
+          psearches = new ArrayList<>(1);
+          values.put(subscription.normalizedValue, psearches);
+        }
+        psearches.add(subscription.psearch);
+      }
+    }
+
+    private void collectCandidates(Entry[] entries, Set<PersistentSearch> candidates)
+    {
+      candidates.addAll(unindexed);
+      for (Map.Entry<AttributeType, Map<ByteString, List<PersistentSearch>>> mapEntry : byValue.entrySet())
+      {
+        final AttributeType attributeType = mapEntry.getKey();
+        final Map<ByteString, List<PersistentSearch>> values = mapEntry.getValue();
+        final MatchingRule matchingRule = attributeType.getEqualityMatchingRule();
+        for (Entry entry : entries)
+        {
+          for (Attribute attribute : entry.getAllAttributes(attributeType))
+          {
+            for (ByteString value : attribute)
+            {
+              final List<PersistentSearch> psearches = values.get(normalize(matchingRule, value));
+              if (psearches != null)
+              {
+                candidates.addAll(psearches);
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /** The persistent searches, indexed by base DN. */
+  private volatile Map<DN, BaseDNSubscriptions> subscriptions = Collections.emptyMap();
+
+  /**
+   * Registers a persistent search with this router.
+   *
+   * @param psearch
+   *          The persistent search to register.
+   */
+  public synchronized void register(PersistentSearch psearch)
+  {
+    final DN baseDN = psearch.getSearchOperation().getBaseDN();
+    final List<Subscription> baseDNSubscriptions = getSubscriptions(baseDN);
+    baseDNSubscriptions.add(newSubscription(psearch));
+    update(baseDN, baseDNSubscriptions);
+  }
+
+  /**
+   * Deregisters a persistent search from this router.
+   *
+   * @param psearch
+   *          The persistent search to deregister.
+   */
+  public synchronized void deregister(PersistentSearch psearch)
+  {
+    final DN baseDN = psearch.getSearchOperation().getBaseDN();
+    final List<Subscription> baseDNSubscriptions = getSubscriptions(baseDN);
+    for (int i = 0; i < baseDNSubscriptions.size(); i++)
+    {
+      if (baseDNSubscriptions.get(i).psearch == psearch)
+      {
+        baseDNSubscriptions.remove(i);
+        update(baseDN, baseDNSubscriptions);
+        return;
+      }
+    }
+  }
+
+  @GuardedBy("this")
+  private List<Subscription> getSubscriptions(DN baseDN)
+  {
+    final BaseDNSubscriptions baseDNSubscriptions = subscriptions.get(baseDN);
+    return baseDNSubscriptions != null
+        ? new ArrayList<>(baseDNSubscriptions.subscriptions)
+        : new ArrayList<Subscription>();
+  }
+
+  @GuardedBy("this")
+  private void update(DN baseDN, List<Subscription> baseDNSubscriptions)
+  {
+    final Map<DN, BaseDNSubscriptions> newSubscriptions = new HashMap<>(subscriptions);
+    if (baseDNSubscriptions.isEmpty())
+    {
+      newSubscriptions.remove(baseDN);
+    }
+    else
+    {
+      newSubscriptions.put(baseDN, new BaseDNSubscriptions(baseDNSubscriptions));
+    }
+    subscriptions = newSubscriptions;
+  }
+
+  /**
+   * Creates the subscription of a persistent search, indexed by the attribute
+   * value required by its filter if any. An equality component other than on
+   * the objectClass attribute is preferred, because it is more selective.
+   */
+  private static Subscription newSubscription(PersistentSearch psearch)
+  {
+    final SearchFilter filter = psearch.getSearchOperation().getFilter();
+    Subscription subscription = null;
+    if (filter.getFilterType() == FilterType.EQUALITY)
+    {
+      subscription = newIndexedSubscription(psearch, filter);
+    }
+    else if (filter.getFilterType() == FilterType.AND)
+    {
+      for (SearchFilter component : filter.getFilterComponents())
+      {
+        if (component.getFilterType() == FilterType.EQUALITY)
+        {
+          final Subscription candidate = newIndexedSubscription(psearch, component);
+          if (candidate != null && (subscription == null || subscription.attributeType.isObjectClass()))
+          {
+            subscription = candidate;
+          }
+        }
+      }
+    }
+    return subscription != null ? subscription : new Subscription(psearch, null, null);
+  }
+
+  private static Subscription newIndexedSubscription(PersistentSearch psearch, SearchFilter equalityFilter)
+  {
+    final AttributeType attributeType = equalityFilter.getAttributeType();
+    final ByteString assertionValue = equalityFilter.getAssertionValue();
+    if (attributeType == null || assertionValue == null)
+    {
+      return null;
+    }
+    final MatchingRule matchingRule = attributeType.getEqualityMatchingRule();
+    if (matchingRule == null)
+    {
+      return null;
+    }
+    try
+    {
+      final ByteString normalizedValue = matchingRule.normalizeAttributeValue(assertionValue);
+      // Only index the assertions which match exactly their normalized value
+      if (matchingRule.getAssertion(assertionValue).matches(normalizedValue).toBoolean())
+      {
+        return new Subscription(psearch, attributeType, normalizedValue);
+      }
+    }
+    catch (DecodeException e)
+    {
+      logger.traceException(e);
+    }
+    return null;
+  }
+
+  private static ByteString normalize(MatchingRule matchingRule, ByteString value)
+  {
+    try
+    {
+      return matchingRule.normalizeAttributeValue(value);
+    }
+    catch (DecodeException e)
+    {
+      logger.traceException(e);
+      return value;
+    }
+  }
+
+  /**
+   * Returns the persistent searches which may be interested in a change of the
+   * provided entries.
+   *
+   * @param dns
+   *          The DNs of the changed entries.
+   * @param entries
+   *          The changed entries, against which the indexed attribute values
+   *          are looked up.
+   * @return the persistent searches which may be interested in the change
+   */
+  Set<PersistentSearch> getCandidates(DN[] dns, Entry... entries)
+  {
+    final Map<DN, BaseDNSubscriptions> currentSubscriptions = subscriptions;
+    final Set<PersistentSearch> candidates = new LinkedHashSet<>();
+    if (currentSubscriptions.isEmpty())
+    {
+      return candidates;
+    }
+    for (DN dn : dns)
+    {
+      for (DN scopeDN = dn; scopeDN != null; scopeDN = scopeDN.parent())
+      {
+        final BaseDNSubscriptions baseDNSubscriptions = currentSubscriptions.get(scopeDN);
+        if (baseDNSubscriptions != null)
+        {
+          baseDNSubscriptions.collectCandidates(entries, candidates);
+        }
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * Notifies the persistent searches that an entry has been added.
+   *
+   * @param entry
+   *          The entry that was added.
+   */
+  public void processAdd(Entry entry)
+  {
+    for (PersistentSearch psearch : getCandidates(new DN[] { entry.getName() }, entry))
+    {
+      psearch.processAdd(entry);
+    }
+  }
+
+  /**
+   * Notifies the persistent searches that an entry has been deleted.
+   *
+   * @param entry
+   *          The entry that was deleted.
+   */
+  public void processDelete(Entry entry)
+  {
+    for (PersistentSearch psearch : getCandidates(new DN[] { entry.getName() }, entry))
+    {
+      psearch.processDelete(entry);
+    }
+  }
+
+  /**
+   * Notifies the persistent searches that an entry has been modified.
+   *
+   * @param entry
+   *          The entry after it was modified.
+   * @param oldEntry
+   *          The entry before it was modified.
+   */
+  public void processModify(Entry entry, Entry oldEntry)
+  {
+    for (PersistentSearch psearch : getCandidates(new DN[] { oldEntry.getName() }, entry, oldEntry))
+    {
+      psearch.processModify(entry, oldEntry);
+    }
+  }
+
+  /**
+   * Notifies the persistent searches that an entry has been renamed.
+   *
+   * @param entry
+   *          The entry after it was renamed.
+   * @param oldDN
+   *          The DN of the entry before it was renamed.
+   */
+  public void processModifyDN(Entry entry, DN oldDN)
+  {
+    for (PersistentSearch psearch : getCandidates(new DN[] { oldDN, entry.getName() }, entry))
+    {
+      psearch.processModifyDN(entry, oldDN);
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.extensions;
+
+/**
+ * Approximates how often keys have been accessed recently, as used by the TinyLFU admission policy.
+ * <p>
+ * This is a count-min sketch of 4-bit counters: each key is mapped to four counters, the estimated frequency being
+ * the lowest of them. Once the number of increments reaches ten times the capacity, all the counters are halved so
+ * that the sketch forgets about old accesses. This class is not thread-safe.
+ */
+final class FrequencySketch
+{
+  private static final long[] SEEDS =
+  {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+  private static final int MAX_TABLE_SIZE = 1 << 26;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int size;
+
+  /**
+   * Creates a sketch.
+   *
+   * @param capacity
+   *          the expected maximum number of keys
+   */
+  FrequencySketch(long capacity)
+  {
+    final int length = ceilingPowerOfTwo((int) Math.max(64, Math.min(capacity, MAX_TABLE_SIZE)));
+    table = new long[length];
+    tableMask = length - 1;
+    sampleSize = 10 * length;
+  }
+
+  private static int ceilingPowerOfTwo(int value)
+  {
+    return 1 << -Integer.numberOfLeadingZeros(value - 1);
+  }
+
+  /**
+   * Returns the estimated number of accesses to the provided key, at most 15.
+   *
+   * @param hash
+   *          the hash of the key
+   * @return the estimated number of accesses to the key
+   */
+  int frequency(long hash)
+  {
+    final int item = spread(hash);
+    final int start = (item & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < 4; i++)
+    {
+      final int count = (int) ((table[indexOf(item, i)] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Records an access to the provided key.
+   *
+   * @param hash
+   *          the hash of the key
+   */
+  void increment(long hash)
+  {
+    final int item = spread(hash);
+    final int start = (item & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++)
+    {
+      added |= incrementAt(indexOf(item, i), start + i);
+    }
+    if (added && ++size >= sampleSize)
+    {
+      reset();
+    }
+  }
+
+  private boolean incrementAt(int index, int counter)
+  {
+    final int offset = counter << 2;
+    final long mask = 0xfL << offset;
+    if ((table[index] & mask) != mask)
+    {
+      table[index] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  /** Halves every counter. */
+  private void reset()
+  {
+    int odd = 0;
+    for (int i = 0; i < table.length; i++)
+    {
+      odd += Long.bitCount(table[i] & ONE_MASK);
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size = (size >>> 1) - (odd >>> 2);
+  }
+
+  private int indexOf(int item, int i)
+  {
+    long hash = (item + SEEDS[i]) * SEEDS[i];
+    hash += hash >>> 32;
+    return ((int) hash) & tableMask;
+  }
+
+  private static int spread(long hash)
+  {
+    int x = (int) (hash ^ (hash >>> 32));
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+}
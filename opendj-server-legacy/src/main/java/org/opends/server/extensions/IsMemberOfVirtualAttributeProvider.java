@@ -13,9 +13,12 @@
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.extensions;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -60,24 +63,19 @@ public class IsMemberOfVirtualAttributeProvider
     return true;
   }
 
+  @Override
+  public boolean mayCacheValues()
+  {
+    return true;
+  }
+
   @Override
   public Attribute getValues(Entry entry, VirtualAttributeRule rule)
   {
-	// FIXME -- This probably isn't the most efficient implementation.
     AttributeBuilder builder = new AttributeBuilder(rule.getAttributeType());
-    for (Group<?> g : DirectoryServer.getGroupManager().getGroupInstances())
+    for (DN groupDN : DirectoryServer.getGroupManager().getGroupMemberships(entry))
     {
-      try
-      {
-        if (!builder.contains(ByteString.valueOfUtf8(g.getGroupDN().toString())) && g.isMember(entry))
-        {
-          builder.add(g.getGroupDN().toString());
-        }
-      }
-      catch (Exception e)
-      {
-        logger.traceException(e);
-      }
+      builder.add(groupDN.toString());
     }
     return builder.toAttribute();
   }
@@ -85,23 +83,7 @@ public class IsMemberOfVirtualAttributeProvider
   @Override
   public boolean hasValue(Entry entry, VirtualAttributeRule rule)
   {
-    // FIXME -- This probably isn't the most efficient implementation.
-    for (Group<?> g : DirectoryServer.getGroupManager().getGroupInstances())
-    {
-      try
-      {
-        if (g.isMember(entry))
-        {
-          return true;
-        }
-      }
-      catch (Exception e)
-      {
-        logger.traceException(e);
-      }
-    }
-
-    return false;
+    return !DirectoryServer.getGroupManager().getGroupMemberships(entry).isEmpty();
   }
 
   @Override
@@ -261,6 +243,35 @@ public class IsMemberOfVirtualAttributeProvider
     }
   }
 
+  @Override
+  public Collection<DN> getCandidateEntryDNs(VirtualAttributeRule rule,
+                                             SearchFilter filter, int limit)
+  {
+    if (filter.getFilterType() != FilterType.EQUALITY
+        || !filter.getAttributeType().equals(rule.getAttributeType()))
+    {
+      return null;
+    }
+
+    try
+    {
+      DN groupDN = DN.valueOf(filter.getAssertionValue());
+      if (DirectoryServer.getGroupManager().getGroupInstance(groupDN) == null)
+      {
+        return Collections.emptySet();
+      }
+      // Only the groups explicitly listing their members can be looked up
+      return DirectoryServer.getGroupManager().getIndexedMembers(groupDN, limit);
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+
+      // hasValue() does not match any entry either
+      return Collections.emptySet();
+    }
+  }
+
   /**
    * @param searchOperation the search operation being processed.
    * @param memberList the list of members of the group being processed.
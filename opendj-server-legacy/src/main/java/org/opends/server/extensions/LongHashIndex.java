@@ -0,0 +1,191 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.extensions;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from long keys to long values, without boxing nor per-entry objects.
+ * <p>
+ * Keys are expected to be hashes of the real keys, so the caller must check the values it retrieves. The key 0 marks
+ * empty buckets and is silently mapped to 1. This class is not thread-safe.
+ */
+final class LongHashIndex
+{
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] keys;
+  private long[] values;
+  private int mask;
+  private int size;
+  private int resizeThreshold;
+
+  LongHashIndex()
+  {
+    allocate(MIN_CAPACITY);
+  }
+
+  private void allocate(int capacity)
+  {
+    keys = new long[capacity];
+    values = new long[capacity];
+    mask = capacity - 1;
+    resizeThreshold = capacity / 4 * 3;
+  }
+
+  int size()
+  {
+    return size;
+  }
+
+  /**
+   * Returns the value associated with the provided key.
+   *
+   * @param key
+   *          the key
+   * @param absentValue
+   *          the value returned when the key is absent
+   * @return the value associated with the key, or {@code absentValue}
+   */
+  long get(long key, long absentValue)
+  {
+    final long k = nonZero(key);
+    for (int i = bucket(k);; i = (i + 1) & mask)
+    {
+      if (keys[i] == k)
+      {
+        return values[i];
+      }
+      else if (keys[i] == 0)
+      {
+        return absentValue;
+      }
+    }
+  }
+
+  void put(long key, long value)
+  {
+    final long k = nonZero(key);
+    int i = bucket(k);
+    while (keys[i] != 0)
+    {
+      if (keys[i] == k)
+      {
+        values[i] = value;
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+    keys[i] = k;
+    values[i] = value;
+    if (++size > resizeThreshold)
+    {
+      resize();
+    }
+  }
+
+  /**
+   * Removes the provided key if it is associated with the provided value.
+   *
+   * @param key
+   *          the key
+   * @param value
+   *          the expected value
+   * @return true if the key has been removed
+   */
+  boolean remove(long key, long value)
+  {
+    final long k = nonZero(key);
+    for (int i = bucket(k);; i = (i + 1) & mask)
+    {
+      if (keys[i] == 0)
+      {
+        return false;
+      }
+      else if (keys[i] == k)
+      {
+        if (values[i] != value)
+        {
+          return false;
+        }
+        removeAt(i);
+        return true;
+      }
+    }
+  }
+
+  /** Removes the key at the provided bucket, shifting back the following keys of the probe sequence. */
+  private void removeAt(int bucket)
+  {
+    int hole = bucket;
+    for (int i = (hole + 1) & mask; keys[i] != 0; i = (i + 1) & mask)
+    {
+      final int home = bucket(keys[i]);
+      // move the key into the hole unless its home bucket lies cyclically in (hole, i]
+      final boolean homeInRange = hole <= i ? hole < home && home <= i : hole < home || home <= i;
+      if (!homeInRange)
+      {
+        keys[hole] = keys[i];
+        values[hole] = values[i];
+        hole = i;
+      }
+    }
+    keys[hole] = 0;
+    values[hole] = 0;
+    size--;
+  }
+
+  void clear()
+  {
+    if (keys.length > MIN_CAPACITY)
+    {
+      allocate(MIN_CAPACITY);
+    }
+    else
+    {
+      Arrays.fill(keys, 0);
+      Arrays.fill(values, 0);
+    }
+    size = 0;
+  }
+
+  private void resize()
+  {
+    final long[] oldKeys = keys;
+    final long[] oldValues = values;
+    allocate(oldKeys.length * 2);
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++)
+    {
+      if (oldKeys[i] != 0)
+      {
+        put(oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+
+  private int bucket(long key)
+  {
+    long h = key * 0x9e3779b97f4a7c15L;
+    h ^= h >>> 32;
+    return (int) h & mask;
+  }
+
+  private static long nonZero(long key)
+  {
+    return key != 0 ? key : 1;
+  }
+}
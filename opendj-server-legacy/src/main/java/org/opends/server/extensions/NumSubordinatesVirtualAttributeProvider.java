@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.extensions;
 
@@ -57,6 +58,12 @@ public class NumSubordinatesVirtualAttributeProvider
     return false;
   }
 
+  @Override
+  public boolean mayCacheValues()
+  {
+    return true;
+  }
+
   @Override
   public Attribute getValues(Entry entry, VirtualAttributeRule rule)
   {
@@ -0,0 +1,860 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.extensions;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.opends.server.util.ServerConstants;
+
+/**
+ * A segment of the {@link OffHeapEntryCache}, holding the entries whose DN hashes to it.
+ * <p>
+ * Records are stored outside of the Java heap, in direct buffers divided into fixed size blocks: a record spans a
+ * chain of blocks, each block starting with the index of the next one. Freed blocks are chained in a free list, so any
+ * free block can be reused by any record and the memory never needs compacting.
+ * <p>
+ * Each cached entry uses a slot of primitive arrays on the heap, holding its position in the blocks and its position
+ * in the eviction queues. Entries are found by DN through an index from the DN hash to the slot. Since different DNs
+ * may share a hash, every record starts with the normalized DN, which is checked on lookups.
+ * <p>
+ * Eviction follows the W-TinyLFU policy: new entries enter a small LRU window, then move to the probation segment of
+ * a segmented LRU. Entries accessed while on probation are promoted to the protected segment. When space is needed,
+ * the entry most recently admitted to probation competes with the least recently used one: the one accessed the least
+ * often according to a frequency sketch, which also counts cache misses, is evicted. Entries read only once, such as
+ * the ones returned by a large search, thus do not flush the entries used frequently.
+ * <p>
+ * All the methods of this class are thread-safe, guarded by a single lock per segment.
+ */
+final class OffHeapCacheSegment
+{
+  /** Size of a block, including the index of the next block. */
+  static final int BLOCK_SIZE = 256;
+  private static final int BLOCK_DATA_SIZE = BLOCK_SIZE - 4;
+  /** Blocks are allocated by pages of 16MB at most, when first needed. */
+  private static final int MAX_PAGE_BLOCKS = 64 * 1024;
+  /** Assumed average number of blocks per entry, used to size the frequency sketch. */
+  private static final int AVERAGE_ENTRY_BLOCKS = 4;
+  private static final int INITIAL_SLOTS = 256;
+  private static final int NONE = -1;
+
+  private static final byte FREE = 0;
+  private static final byte WINDOW = 1;
+  private static final byte PROBATION = 2;
+  private static final byte PROTECTED = 3;
+
+  /** The index from entry IDs to DN hashes, kept up to date by the segments. */
+  interface IdIndex
+  {
+    void put(long idKey, long dnHash);
+
+    void remove(long idKey, long dnHash);
+  }
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final IdIndex idIndex;
+
+  private final ByteBuffer[] pages;
+  private final int pageBlocks;
+  private final int maxBlocks;
+  /** Blocks below this index have been allocated at least once. */
+  private int nextFreshBlock;
+  private int freeListHead = NONE;
+  private int freeListSize;
+
+  private final long maxEntries;
+  private final LongHashIndex dnIndex = new LongHashIndex();
+  private final FrequencySketch sketch;
+
+  private long[] slotDNHash;
+  private long[] slotEntryID;
+  private int[] slotBackend;
+  private int[] slotFirstBlock;
+  private int[] slotLength;
+  private int[] slotPrevious;
+  private int[] slotNext;
+  private byte[] slotQueue;
+  private int freeSlotHead = NONE;
+  private int entryCount;
+
+  /** Most recently used entry of each queue, indexed by queue. */
+  private final int[] heads = { NONE, NONE, NONE, NONE };
+  /** Least recently used entry of each queue, indexed by queue. */
+  private final int[] tails = { NONE, NONE, NONE, NONE };
+  private final long[] queueBlocks = new long[4];
+  private final long[] queueEntries = new long[4];
+  /** The window and protected sizes are bounded both in blocks and in entries, whichever limit is reached first. */
+  private final long maxWindowBlocks;
+  private final long maxProtectedBlocks;
+  private final long maxWindowEntries;
+  private final long maxProtectedEntries;
+
+  private long evictions;
+
+  /**
+   * Creates a segment.
+   *
+   * @param maxBytes
+   *          the maximum amount of off-heap memory used by this segment
+   * @param maxEntries
+   *          the maximum number of entries of this segment
+   * @param idIndex
+   *          the index from entry IDs to DN hashes
+   */
+  OffHeapCacheSegment(long maxBytes, long maxEntries, IdIndex idIndex)
+  {
+    this.idIndex = idIndex;
+    this.maxEntries = maxEntries;
+    maxBlocks = (int) Math.min(Integer.MAX_VALUE - 1, Math.max(1, maxBytes / BLOCK_SIZE));
+    pageBlocks = Math.min(maxBlocks, MAX_PAGE_BLOCKS);
+    pages = new ByteBuffer[(maxBlocks + pageBlocks - 1) / pageBlocks];
+    maxWindowBlocks = Math.max(1, maxBlocks / 100);
+    maxProtectedBlocks = (maxBlocks - maxWindowBlocks) * 4 / 5;
+    maxWindowEntries = Math.max(1, maxEntries / 100);
+    maxProtectedEntries = (maxEntries - maxWindowEntries) / 5 * 4;
+    sketch = new FrequencySketch(Math.min(maxEntries, maxBlocks / AVERAGE_ENTRY_BLOCKS));
+    allocateSlots(INITIAL_SLOTS);
+  }
+
+  private void allocateSlots(int capacity)
+  {
+    final int oldCapacity = slotDNHash != null ? slotDNHash.length : 0;
+    slotDNHash = copyOf(slotDNHash, capacity);
+    slotEntryID = copyOf(slotEntryID, capacity);
+    slotBackend = copyOf(slotBackend, capacity);
+    slotFirstBlock = copyOf(slotFirstBlock, capacity);
+    slotLength = copyOf(slotLength, capacity);
+    slotPrevious = copyOf(slotPrevious, capacity);
+    slotNext = copyOf(slotNext, capacity);
+    slotQueue = slotQueue != null ? Arrays.copyOf(slotQueue, capacity) : new byte[capacity];
+    for (int slot = capacity - 1; slot >= oldCapacity; slot--)
+    {
+      slotNext[slot] = freeSlotHead;
+      freeSlotHead = slot;
+    }
+  }
+
+  private static long[] copyOf(long[] array, int capacity)
+  {
+    return array != null ? Arrays.copyOf(array, capacity) : new long[capacity];
+  }
+
+  private static int[] copyOf(int[] array, int capacity)
+  {
+    return array != null ? Arrays.copyOf(array, capacity) : new int[capacity];
+  }
+
+  /**
+   * Returns the key of an entry in the ID index.
+   *
+   * @param backend
+   *          the ordinal of the entry backend
+   * @param entryID
+   *          the entry ID
+   * @return the key of the entry in the ID index
+   */
+  static long idKey(int backend, long entryID)
+  {
+    long h = entryID * 0x9e3779b97f4a7c15L + backend;
+    h ^= h >>> 29;
+    return h;
+  }
+
+  /**
+   * Returns the record of the entry with the provided DN, and records the access.
+   *
+   * @param dnHash
+   *          the hash of the normalized DN
+   * @param ndn
+   *          the normalized DN
+   * @return the record of the entry, or null if it is not cached
+   */
+  byte[] get(long dnHash, byte[] ndn)
+  {
+    lock.lock();
+    try
+    {
+      sketch.increment(dnHash);
+      final int slot = find(dnHash, ndn);
+      if (slot == NONE)
+      {
+        return null;
+      }
+      onAccess(slot);
+      return read(slot);
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the record of the entry with the provided ID.
+   *
+   * @param dnHash
+   *          the hash of the normalized DN found in the ID index
+   * @param backend
+   *          the ordinal of the entry backend
+   * @param entryID
+   *          the entry ID
+   * @param recordAccess
+   *          whether the entry is being read, rather than only looked up
+   * @return the record of the entry, or null if it is not cached
+   */
+  byte[] get(long dnHash, int backend, long entryID, boolean recordAccess)
+  {
+    lock.lock();
+    try
+    {
+      if (recordAccess)
+      {
+        sketch.increment(dnHash);
+      }
+      final int slot = (int) dnIndex.get(dnHash, NONE);
+      if (slot == NONE || slotBackend[slot] != backend || slotEntryID[slot] != entryID)
+      {
+        return null;
+      }
+      if (recordAccess)
+      {
+        onAccess(slot);
+      }
+      return read(slot);
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the ID of the entry with the provided DN.
+   *
+   * @param dnHash
+   *          the hash of the normalized DN
+   * @param ndn
+   *          the normalized DN
+   * @return the entry ID, or -1 if the entry is not cached
+   */
+  long getEntryID(long dnHash, byte[] ndn)
+  {
+    lock.lock();
+    try
+    {
+      final int slot = find(dnHash, ndn);
+      return slot != NONE ? slotEntryID[slot] : -1;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Caches a record.
+   *
+   * @param dnHash
+   *          the hash of the normalized DN
+   * @param ndn
+   *          the normalized DN
+   * @param record
+   *          the record, starting with the normalized DN
+   * @param backend
+   *          the ordinal of the entry backend
+   * @param entryID
+   *          the entry ID
+   * @param onlyIfAbsent
+   *          whether an entry already cached with the same DN must be kept
+   * @return false if {@code onlyIfAbsent} is true and the entry is already cached
+   */
+  boolean put(long dnHash, byte[] ndn, byte[] record, int backend, long entryID, boolean onlyIfAbsent)
+  {
+    final int nbBlocks = blockCount(record.length);
+    lock.lock();
+    try
+    {
+      final int existing = (int) dnIndex.get(dnHash, NONE);
+      if (existing != NONE)
+      {
+        if (onlyIfAbsent && matches(existing, ndn))
+        {
+          return false;
+        }
+        // Either an older version of the entry or an entry whose DN has the same hash
+        removeSlot(existing);
+      }
+      if (nbBlocks > maxBlocks || maxEntries <= 0)
+      {
+        return true;
+      }
+      while (freeBlocks() < nbBlocks || entryCount >= maxEntries)
+      {
+        evict();
+      }
+
+      final int slot = allocateSlot();
+      slotDNHash[slot] = dnHash;
+      slotEntryID[slot] = entryID;
+      slotBackend[slot] = backend;
+      slotFirstBlock[slot] = write(record);
+      slotLength[slot] = record.length;
+      dnIndex.put(dnHash, slot);
+      idIndex.put(idKey(backend, entryID), dnHash);
+      entryCount++;
+      link(slot, WINDOW);
+
+      // Entries overflowing the window become candidates for the main space
+      while (isOverflowing(WINDOW, maxWindowBlocks, maxWindowEntries) && tails[WINDOW] != slot)
+      {
+        final int candidate = tails[WINDOW];
+        unlink(candidate);
+        link(candidate, PROBATION);
+      }
+      return true;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes the entry whose normalized DN has the provided hash, if any.
+   *
+   * @param dnHash
+   *          the hash of the normalized DN
+   */
+  void remove(long dnHash)
+  {
+    lock.lock();
+    try
+    {
+      final int slot = (int) dnIndex.get(dnHash, NONE);
+      if (slot != NONE)
+      {
+        removeSlot(slot);
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes all the entries of a backend.
+   *
+   * @param backend
+   *          the ordinal of the backend
+   */
+  void removeBackend(int backend)
+  {
+    lock.lock();
+    try
+    {
+      for (int slot = 0; slot < slotQueue.length; slot++)
+      {
+        if (slotQueue[slot] != FREE && slotBackend[slot] == backend)
+        {
+          removeSlot(slot);
+        }
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Evicts a percentage of the entries, the least valuable ones first.
+   *
+   * @param percent
+   *          the percentage of entries to evict
+   */
+  void evict(int percent)
+  {
+    lock.lock();
+    try
+    {
+      for (int toEvict = (int) ((long) entryCount * percent / 100); toEvict > 0; toEvict--)
+      {
+        evict();
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /** Removes all the entries, keeping the memory allocated. */
+  void clear()
+  {
+    lock.lock();
+    try
+    {
+      dnIndex.clear();
+      for (int slot = 0; slot < slotQueue.length; slot++)
+      {
+        if (slotQueue[slot] != FREE)
+        {
+          idIndex.remove(idKey(slotBackend[slot], slotEntryID[slot]), slotDNHash[slot]);
+        }
+      }
+      Arrays.fill(heads, NONE);
+      Arrays.fill(tails, NONE);
+      Arrays.fill(queueBlocks, 0);
+      Arrays.fill(queueEntries, 0);
+      slotDNHash = null;
+      slotEntryID = null;
+      slotBackend = null;
+      slotFirstBlock = null;
+      slotLength = null;
+      slotPrevious = null;
+      slotNext = null;
+      slotQueue = null;
+      freeSlotHead = NONE;
+      entryCount = 0;
+      allocateSlots(INITIAL_SLOTS);
+      // Every block allocated so far is reused before allocating new ones
+      freeListHead = NONE;
+      freeListSize = 0;
+      for (int block = nextFreshBlock - 1; block >= 0; block--)
+      {
+        setNextBlock(block, freeListHead);
+        freeListHead = block;
+        freeListSize++;
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /** Releases the off-heap memory. The segment must not be used afterwards. */
+  void release()
+  {
+    lock.lock();
+    try
+    {
+      // Direct buffers are freed once unreachable
+      Arrays.fill(pages, null);
+      nextFreshBlock = 0;
+      freeListHead = NONE;
+      freeListSize = 0;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  long getEntryCount()
+  {
+    lock.lock();
+    try
+    {
+      return entryCount;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the amount of off-heap memory used by the cached entries.
+   *
+   * @return the amount of off-heap memory used by the cached entries
+   */
+  long getUsedBytes()
+  {
+    lock.lock();
+    try
+    {
+      return (long) (nextFreshBlock - freeListSize) * BLOCK_SIZE;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  long getEvictions()
+  {
+    lock.lock();
+    try
+    {
+      return evictions;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Appends a line per cached entry, with its DN, entry ID and backend ID.
+   *
+   * @param buffer
+   *          the buffer to append to
+   * @param backendIDs
+   *          the backend IDs, indexed by ordinal
+   */
+  void toString(StringBuilder buffer, List<String> backendIDs)
+  {
+    lock.lock();
+    try
+    {
+      for (int slot = 0; slot < slotQueue.length; slot++)
+      {
+        if (slotQueue[slot] != FREE)
+        {
+          buffer.append(getDN(read(slot)));
+          buffer.append(":");
+          buffer.append(slotEntryID[slot]);
+          buffer.append(":");
+          buffer.append(backendIDs.get(slotBackend[slot]));
+          buffer.append(ServerConstants.EOL);
+        }
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Encodes a record.
+   *
+   * @param ndn
+   *          the normalized DN of the entry
+   * @param dn
+   *          the user provided DN of the entry
+   * @param encodedEntry
+   *          the encoded entry
+   * @param encodedEntryLength
+   *          the length of the encoded entry
+   * @return the record
+   */
+  static byte[] encodeRecord(byte[] ndn, String dn, byte[] encodedEntry, int encodedEntryLength)
+  {
+    final byte[] dnBytes = dn.getBytes(StandardCharsets.UTF_8);
+    final ByteBuffer record = ByteBuffer.allocate(4 + ndn.length + 4 + dnBytes.length + encodedEntryLength);
+    record.putInt(ndn.length).put(ndn);
+    record.putInt(dnBytes.length).put(dnBytes);
+    record.put(encodedEntry, 0, encodedEntryLength);
+    return record.array();
+  }
+
+  /**
+   * Returns the user provided DN of a record.
+   *
+   * @param record
+   *          the record
+   * @return the user provided DN
+   */
+  static String getDN(byte[] record)
+  {
+    final int dnOffset = 4 + readInt(record, 0);
+    return new String(record, dnOffset + 4, readInt(record, dnOffset), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns the offset of the encoded entry in a record.
+   *
+   * @param record
+   *          the record
+   * @return the offset of the encoded entry
+   */
+  static int getEncodedEntryOffset(byte[] record)
+  {
+    final int dnOffset = 4 + readInt(record, 0);
+    return dnOffset + 4 + readInt(record, dnOffset);
+  }
+
+  private static int readInt(byte[] bytes, int offset)
+  {
+    return ((bytes[offset] & 0xff) << 24)
+        | ((bytes[offset + 1] & 0xff) << 16)
+        | ((bytes[offset + 2] & 0xff) << 8)
+        | (bytes[offset + 3] & 0xff);
+  }
+
+  private int find(long dnHash, byte[] ndn)
+  {
+    final int slot = (int) dnIndex.get(dnHash, NONE);
+    return slot != NONE && matches(slot, ndn) ? slot : NONE;
+  }
+
+  /** Checks the normalized DN at the start of the record, without reading the rest of it. */
+  private boolean matches(int slot, byte[] ndn)
+  {
+    final int length = 4 + ndn.length;
+    if (slotLength[slot] < length)
+    {
+      return false;
+    }
+    final byte[] prefix = read(slotFirstBlock[slot], length);
+    if (readInt(prefix, 0) != ndn.length)
+    {
+      return false;
+    }
+    for (int i = 0; i < ndn.length; i++)
+    {
+      if (prefix[4 + i] != ndn[i])
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void onAccess(int slot)
+  {
+    switch (slotQueue[slot])
+    {
+    case PROBATION:
+      unlink(slot);
+      link(slot, PROTECTED);
+      // Demote the least recently used protected entries
+      while (isOverflowing(PROTECTED, maxProtectedBlocks, maxProtectedEntries) && tails[PROTECTED] != slot)
+      {
+        final int demoted = tails[PROTECTED];
+        unlink(demoted);
+        link(demoted, PROBATION);
+      }
+      break;
+    default:
+      final byte queue = slotQueue[slot];
+      unlink(slot);
+      link(slot, queue);
+      break;
+    }
+  }
+
+  /** Evicts one entry, there must be at least one. */
+  private void evict()
+  {
+    int victim = tails[PROBATION];
+    if (victim == NONE)
+    {
+      victim = tails[PROTECTED] != NONE ? tails[PROTECTED] : tails[WINDOW];
+    }
+    else
+    {
+      // The entry most recently admitted competes with the least recently used one
+      final int candidate = heads[PROBATION];
+      if (candidate != victim
+          && sketch.frequency(slotDNHash[candidate]) <= sketch.frequency(slotDNHash[victim]))
+      {
+        victim = candidate;
+      }
+    }
+    removeSlot(victim);
+    evictions++;
+  }
+
+  private void removeSlot(int slot)
+  {
+    unlink(slot);
+    dnIndex.remove(slotDNHash[slot], slot);
+    idIndex.remove(idKey(slotBackend[slot], slotEntryID[slot]), slotDNHash[slot]);
+    freeBlocks(slotFirstBlock[slot], blockCount(slotLength[slot]));
+    slotQueue[slot] = FREE;
+    slotNext[slot] = freeSlotHead;
+    freeSlotHead = slot;
+    entryCount--;
+  }
+
+  private int allocateSlot()
+  {
+    if (freeSlotHead == NONE)
+    {
+      allocateSlots(slotQueue.length * 2);
+    }
+    final int slot = freeSlotHead;
+    freeSlotHead = slotNext[slot];
+    return slot;
+  }
+
+  private void link(int slot, byte queue)
+  {
+    slotQueue[slot] = queue;
+    slotPrevious[slot] = NONE;
+    slotNext[slot] = heads[queue];
+    if (heads[queue] != NONE)
+    {
+      slotPrevious[heads[queue]] = slot;
+    }
+    else
+    {
+      tails[queue] = slot;
+    }
+    heads[queue] = slot;
+    queueBlocks[queue] += blockCount(slotLength[slot]);
+    queueEntries[queue]++;
+  }
+
+  private void unlink(int slot)
+  {
+    final byte queue = slotQueue[slot];
+    final int previous = slotPrevious[slot];
+    final int next = slotNext[slot];
+    if (previous != NONE)
+    {
+      slotNext[previous] = next;
+    }
+    else
+    {
+      heads[queue] = next;
+    }
+    if (next != NONE)
+    {
+      slotPrevious[next] = previous;
+    }
+    else
+    {
+      tails[queue] = previous;
+    }
+    queueBlocks[queue] -= blockCount(slotLength[slot]);
+    queueEntries[queue]--;
+  }
+
+  private boolean isOverflowing(byte queue, long blockLimit, long entryLimit)
+  {
+    return queueBlocks[queue] > blockLimit || queueEntries[queue] > entryLimit;
+  }
+
+  private static int blockCount(int length)
+  {
+    return Math.max(1, (length + BLOCK_DATA_SIZE - 1) / BLOCK_DATA_SIZE);
+  }
+
+  private int freeBlocks()
+  {
+    return freeListSize + maxBlocks - nextFreshBlock;
+  }
+
+  private int allocateBlock()
+  {
+    if (freeListHead != NONE)
+    {
+      final int block = freeListHead;
+      freeListHead = nextBlock(block);
+      freeListSize--;
+      return block;
+    }
+    final int block = nextFreshBlock++;
+    final int page = block / pageBlocks;
+    if (pages[page] == null)
+    {
+      final int blocks = Math.min(pageBlocks, maxBlocks - page * pageBlocks);
+      pages[page] = ByteBuffer.allocateDirect(blocks * BLOCK_SIZE);
+    }
+    return block;
+  }
+
+  private void freeBlocks(int firstBlock, int count)
+  {
+    int last = firstBlock;
+    for (int i = 1; i < count; i++)
+    {
+      last = nextBlock(last);
+    }
+    setNextBlock(last, freeListHead);
+    freeListHead = firstBlock;
+    freeListSize += count;
+  }
+
+  private ByteBuffer page(int block)
+  {
+    return pages[block / pageBlocks];
+  }
+
+  private int offset(int block)
+  {
+    return (block % pageBlocks) * BLOCK_SIZE;
+  }
+
+  private int nextBlock(int block)
+  {
+    return page(block).getInt(offset(block));
+  }
+
+  private void setNextBlock(int block, int next)
+  {
+    page(block).putInt(offset(block), next);
+  }
+
+  /**
+   * Writes a record in newly allocated blocks.
+   *
+   * @return the first block of the record
+   */
+  private int write(byte[] record)
+  {
+    final int first = allocateBlock();
+    int block = first;
+    int position = 0;
+    for (;;)
+    {
+      final int length = Math.min(BLOCK_DATA_SIZE, record.length - position);
+      final ByteBuffer page = page(block).duplicate();
+      page.position(offset(block) + 4);
+      page.put(record, position, length);
+      position += length;
+      if (position == record.length)
+      {
+        setNextBlock(block, NONE);
+        return first;
+      }
+      final int next = allocateBlock();
+      setNextBlock(block, next);
+      block = next;
+    }
+  }
+
+  private byte[] read(int slot)
+  {
+    return read(slotFirstBlock[slot], slotLength[slot]);
+  }
+
+  /** Reads the first bytes of a record. */
+  private byte[] read(int firstBlock, int length)
+  {
+    final byte[] bytes = new byte[length];
+    int block = firstBlock;
+    int position = 0;
+    while (position < length)
+    {
+      final int chunk = Math.min(BLOCK_DATA_SIZE, length - position);
+      final ByteBuffer page = page(block).duplicate();
+      page.position(offset(block) + 4);
+      page.get(bytes, position, chunk);
+      position += chunk;
+      block = nextBlock(block);
+    }
+    return bytes;
+  }
+}
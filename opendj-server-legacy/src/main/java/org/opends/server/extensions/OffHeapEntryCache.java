@@ -0,0 +1,540 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.messages.ExtensionMessages.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.server.config.server.EntryCacheCfg;
+import org.forgerock.opendj.server.config.server.OffHeapEntryCacheCfg;
+import org.forgerock.util.Utils;
+import org.opends.server.api.EntryCache;
+import org.opends.server.api.MonitorData;
+import org.opends.server.core.ServerContext;
+import org.opends.server.types.Entry;
+import org.opends.server.types.EntryEncodeConfig;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.SearchFilter;
+
+/**
+ * This class defines a Directory Server entry cache that stores serialized entries outside of the JVM heap.
+ * <p>
+ * Entries are encoded with the compact format used by the backends to store them, compressing attribute descriptions
+ * and object class sets with the server compressed schema. The encoded entries are kept in direct memory, so that the
+ * cache can grow large without putting pressure on the garbage collector: the only heap memory it uses is a few
+ * primitive arrays per segment. Each read decodes a new copy of the entry, which callers are therefore free to modify.
+ * <p>
+ * The cache is split into segments, each one with its own lock, selected by a hash of the normalized entry DN. A
+ * second index, striped as well, finds the DN hash of an entry from its backend and entry ID. Each segment evicts its
+ * own entries following the W-TinyLFU policy (see {@link OffHeapCacheSegment}), which keeps the entries accessed
+ * frequently when a burst of entries read only once goes through the cache.
+ */
+public class OffHeapEntryCache
+       extends EntryCache<OffHeapEntryCacheCfg>
+       implements ConfigurationChangeListener<OffHeapEntryCacheCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The maximum number of segments, also the number of stripes of the ID index. */
+  private static final int MAX_SEGMENTS = 64;
+  /** Small caches use less segments so that the maximum number of entries is accurately enforced. */
+  private static final long MIN_SEGMENT_ENTRIES = 1024;
+
+  /** The encoding of the cached entries, the DN being stored separately. */
+  private final EntryEncodeConfig encodeConfig = new EntryEncodeConfig(true, true, true);
+
+  /** The segments holding the entries, selected by DN hash. */
+  private volatile OffHeapCacheSegment[] segments;
+
+  /** The mapping from backend and entry ID to DN hash, striped to reduce contention. */
+  private final LongHashIndex[] idStripes = new LongHashIndex[MAX_SEGMENTS];
+  private final OffHeapCacheSegment.IdIndex idIndex = new OffHeapCacheSegment.IdIndex()
+  {
+    @Override
+    public void put(long idKey, long dnHash)
+    {
+      final LongHashIndex stripe = idStripe(idKey);
+      synchronized (stripe)
+      {
+        stripe.put(idKey, dnHash);
+      }
+    }
+
+    @Override
+    public void remove(long idKey, long dnHash)
+    {
+      final LongHashIndex stripe = idStripe(idKey);
+      synchronized (stripe)
+      {
+        stripe.remove(idKey, dnHash);
+      }
+    }
+  };
+
+  /** The ordinals identifying backends in the segments, and the backend IDs indexed by ordinal. */
+  private final Map<String, Integer> backendOrdinals = new ConcurrentHashMap<>();
+  private final List<String> backendIDs = new CopyOnWriteArrayList<>();
+
+  /** The maximum amount of off-heap memory used to store the entries. */
+  private long maxMemorySize;
+
+  /** The maximum number of entries that may be held in the cache. */
+  private long maxEntries;
+
+  /** Currently registered configuration object. */
+  private OffHeapEntryCacheCfg registeredConfiguration;
+
+  /** Creates a new instance of this off-heap entry cache. */
+  public OffHeapEntryCache()
+  {
+    super();
+    // All initialization should be performed in the initializeEntryCache.
+  }
+
+  @Override
+  public void initializeEntryCache(ServerContext serverContext, OffHeapEntryCacheCfg configuration)
+      throws ConfigException, InitializationException
+  {
+    registeredConfiguration = configuration;
+    configuration.addOffHeapChangeListener(this);
+
+    for (int i = 0; i < idStripes.length; i++)
+    {
+      idStripes[i] = new LongHashIndex();
+    }
+
+    // Read configuration and apply changes.
+    boolean applyChanges = true;
+    List<LocalizableMessage> errorMessages = new ArrayList<>();
+    EntryCacheCommon.ConfigErrorHandler errorHandler =
+      EntryCacheCommon.getConfigErrorHandler(
+          EntryCacheCommon.ConfigPhase.PHASE_INIT, null, errorMessages);
+    if (!processEntryCacheConfig(configuration, applyChanges, errorHandler)) {
+      String buffer = Utils.joinAsString(".  ", errorMessages);
+      throw new ConfigException(ERR_OFFHEAPCACHE_CANNOT_INITIALIZE.get(buffer));
+    }
+  }
+
+  @Override
+  public void finalizeEntryCache()
+  {
+    registeredConfiguration.removeOffHeapChangeListener(this);
+
+    // Release all memory currently in use by this cache.
+    for (OffHeapCacheSegment segment : segments)
+    {
+      segment.clear();
+      segment.release();
+    }
+  }
+
+  @Override
+  public boolean containsEntry(DN entryDN)
+  {
+    return entryDN != null && getEntryID(entryDN) != -1;
+  }
+
+  @Override
+  public Entry getEntry(DN entryDN)
+  {
+    final byte[] ndn = entryDN.toNormalizedByteString().toByteArray();
+    final long dnHash = hash(ndn);
+    final byte[] record = segmentFor(dnHash).get(dnHash, ndn);
+    if (record == null)
+    {
+      // Indicate cache miss.
+      cacheMisses.getAndIncrement();
+      return null;
+    }
+    // Indicate cache hit.
+    cacheHits.getAndIncrement();
+    return decode(record, entryDN);
+  }
+
+  @Override
+  public Entry getEntry(String backendID, long entryID)
+  {
+    // Look up the entry by ID directly rather than parsing its DN to look it up by DN.
+    final byte[] record = getRecord(backendID, entryID, true);
+    if (record == null)
+    {
+      // Indicate cache miss.
+      cacheMisses.getAndIncrement();
+      return null;
+    }
+    // Indicate cache hit.
+    cacheHits.getAndIncrement();
+    return decode(record, null);
+  }
+
+  @Override
+  public long getEntryID(DN entryDN)
+  {
+    final byte[] ndn = entryDN.toNormalizedByteString().toByteArray();
+    final long dnHash = hash(ndn);
+    return segmentFor(dnHash).getEntryID(dnHash, ndn);
+  }
+
+  @Override
+  public DN getEntryDN(String backendID, long entryID)
+  {
+    final byte[] record = getRecord(backendID, entryID, false);
+    return record != null ? DN.valueOf(OffHeapCacheSegment.getDN(record)) : null;
+  }
+
+  private byte[] getRecord(String backendID, long entryID, boolean recordAccess)
+  {
+    final Integer backend = backendOrdinals.get(backendID);
+    if (backend == null)
+    {
+      return null;
+    }
+    final long idKey = OffHeapCacheSegment.idKey(backend, entryID);
+    final LongHashIndex stripe = idStripe(idKey);
+    final long dnHash;
+    synchronized (stripe)
+    {
+      dnHash = stripe.get(idKey, 0);
+    }
+    // DN hashes are never 0, and the segment checks the entry is still the one with this ID
+    return dnHash != 0 ? segmentFor(dnHash).get(dnHash, backend, entryID, recordAccess) : null;
+  }
+
+  @Override
+  public void putEntry(Entry entry, String backendID, long entryID)
+  {
+    put(entry, backendID, entryID, false);
+  }
+
+  @Override
+  public boolean putEntryIfAbsent(Entry entry, String backendID, long entryID)
+  {
+    return put(entry, backendID, entryID, true);
+  }
+
+  private boolean put(Entry entry, String backendID, long entryID, boolean onlyIfAbsent)
+  {
+    try
+    {
+      final DN entryDN = entry.getName();
+      final byte[] ndn = entryDN.toNormalizedByteString().toByteArray();
+      final ByteStringBuilder encodedEntry = new ByteStringBuilder();
+      entry.encode(encodedEntry, encodeConfig);
+      final byte[] record = OffHeapCacheSegment.encodeRecord(
+          ndn, entryDN.toString(), encodedEntry.getBackingArray(), encodedEntry.length());
+
+      final long dnHash = hash(ndn);
+      return segmentFor(dnHash).put(dnHash, ndn, record, getBackendOrdinal(backendID), entryID, onlyIfAbsent);
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+
+      // We can't be sure there wasn't a conflict, so return false.
+      return false;
+    }
+  }
+
+  @Override
+  public void removeEntry(DN entryDN)
+  {
+    final long dnHash = hash(entryDN.toNormalizedByteString().toByteArray());
+    segmentFor(dnHash).remove(dnHash);
+  }
+
+  @Override
+  public void clear()
+  {
+    for (OffHeapCacheSegment segment : segments)
+    {
+      segment.clear();
+    }
+  }
+
+  @Override
+  public void clearBackend(String backendID)
+  {
+    final Integer backend = backendOrdinals.get(backendID);
+    if (backend == null)
+    {
+      // No entries were ever cached for this backend.
+      return;
+    }
+    // Segments are cleared one at a time so this doesn't become a stop-the-world event.
+    for (OffHeapCacheSegment segment : segments)
+    {
+      segment.removeBackend(backend);
+    }
+  }
+
+  @Override
+  public void handleLowMemory()
+  {
+    // The cached entries are off-heap, so dropping them mostly frees the memory used to index them.
+    // If there are less than 1000 entries, then we'll dump all of them. Otherwise, we'll dump 10% of the entries.
+    final int percent = getCacheCount() < 1000 ? 100 : 10;
+    for (OffHeapCacheSegment segment : segments)
+    {
+      segment.evict(percent);
+    }
+  }
+
+  @Override
+  public boolean isConfigurationAcceptable(EntryCacheCfg configuration,
+                                           List<LocalizableMessage> unacceptableReasons)
+  {
+    OffHeapEntryCacheCfg config = (OffHeapEntryCacheCfg) configuration;
+    return isConfigurationChangeAcceptable(config, unacceptableReasons);
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(OffHeapEntryCacheCfg configuration,
+                                                 List<LocalizableMessage> unacceptableReasons)
+  {
+    boolean applyChanges = false;
+    EntryCacheCommon.ConfigErrorHandler errorHandler =
+      EntryCacheCommon.getConfigErrorHandler(
+          EntryCacheCommon.ConfigPhase.PHASE_ACCEPTABLE, unacceptableReasons, null);
+    processEntryCacheConfig(configuration, applyChanges, errorHandler);
+
+    return errorHandler.getIsAcceptable();
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(OffHeapEntryCacheCfg configuration)
+  {
+    boolean applyChanges = true;
+    List<LocalizableMessage> errorMessages = new ArrayList<>();
+    EntryCacheCommon.ConfigErrorHandler errorHandler =
+      EntryCacheCommon.getConfigErrorHandler(
+          EntryCacheCommon.ConfigPhase.PHASE_APPLY, null, errorMessages);
+
+    // Do not apply changes unless this cache is enabled.
+    if (configuration.isEnabled()) {
+      processEntryCacheConfig(configuration, applyChanges, errorHandler);
+    }
+
+    final ConfigChangeResult changeResult = new ConfigChangeResult();
+    changeResult.setResultCode(errorHandler.getResultCode());
+    changeResult.setAdminActionRequired(errorHandler.getIsAdminActionRequired());
+    changeResult.getMessages().addAll(errorHandler.getErrorMessages());
+    return changeResult;
+  }
+
+  /**
+   * Parses the provided configuration and configure the entry cache.
+   *
+   * @param configuration  The new configuration containing the changes.
+   * @param applyChanges   If true then take into account the new configuration.
+   * @param errorHandler   An handler used to report errors.
+   *
+   * @return  <CODE>true</CODE> if configuration is acceptable,
+   *          or <CODE>false</CODE> otherwise.
+   */
+  private boolean processEntryCacheConfig(
+      OffHeapEntryCacheCfg                configuration,
+      boolean                             applyChanges,
+      EntryCacheCommon.ConfigErrorHandler errorHandler)
+  {
+    // Read configuration.
+    DN newConfigEntryDN = configuration.dn();
+    long newMaxMemorySize = configuration.getMaxMemorySize();
+    long newMaxEntries = configuration.getMaxEntries();
+
+    // Get include and exclude filters.
+    Set<SearchFilter> newIncludeFilters = EntryCacheCommon.getFilters(
+        configuration.getIncludeFilter(),
+        ERR_CACHE_INVALID_INCLUDE_FILTER,
+        errorHandler,
+        newConfigEntryDN);
+    Set<SearchFilter> newExcludeFilters = EntryCacheCommon.getFilters(
+        configuration.getExcludeFilter(),
+        ERR_CACHE_INVALID_EXCLUDE_FILTER,
+        errorHandler,
+        newConfigEntryDN);
+
+    if (applyChanges && errorHandler.getIsAcceptable())
+    {
+      if (segments == null || newMaxMemorySize != maxMemorySize || newMaxEntries != maxEntries)
+      {
+        // The segments are sized once and for all, replace them, dropping the cached entries.
+        final OffHeapCacheSegment[] oldSegments = segments;
+        segments = newSegments(newMaxMemorySize, newMaxEntries);
+        if (oldSegments != null)
+        {
+          for (OffHeapCacheSegment segment : oldSegments)
+          {
+            segment.clear();
+            segment.release();
+          }
+        }
+      }
+      maxMemorySize = newMaxMemorySize;
+      maxEntries = newMaxEntries;
+      setIncludeFilters(newIncludeFilters);
+      setExcludeFilters(newExcludeFilters);
+      registeredConfiguration = configuration;
+    }
+
+    return errorHandler.getIsAcceptable();
+  }
+
+  private OffHeapCacheSegment[] newSegments(long maxMemorySize, long newMaxEntries)
+  {
+    // As for the other entry caches, 0 means no maximum number of entries
+    final long maxEntries = newMaxEntries > 0 ? newMaxEntries : Long.MAX_VALUE;
+    final int processors = Runtime.getRuntime().availableProcessors();
+    int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(1, 2 * processors - 1)) << 1);
+    while (count > 1 && maxEntries / count < MIN_SEGMENT_ENTRIES)
+    {
+      count >>>= 1;
+    }
+
+    final OffHeapCacheSegment[] newSegments = new OffHeapCacheSegment[count];
+    for (int i = 0; i < count; i++)
+    {
+      newSegments[i] = new OffHeapCacheSegment(maxMemorySize / count, maxEntries / count + (maxEntries % count != 0 ? 1 : 0), idIndex);
+    }
+    return newSegments;
+  }
+
+  @Override
+  public MonitorData getMonitorData()
+  {
+    try {
+      long usedBytes = 0;
+      long evictions = 0;
+      for (OffHeapCacheSegment segment : segments)
+      {
+        usedBytes += segment.getUsedBytes();
+        evictions += segment.getEvictions();
+      }
+      MonitorData attrs = EntryCacheCommon.getGenericMonitorData(
+        cacheHits.longValue(),
+        cacheMisses.longValue(),
+        usedBytes,
+        maxMemorySize,
+        getCacheCount(),
+        (maxEntries != Integer.MAX_VALUE && maxEntries != Long.MAX_VALUE) ? maxEntries : 0);
+      attrs.add("entryCacheEvictions", evictions);
+      return attrs;
+    } catch (Exception e) {
+      logger.traceException(e);
+      return new MonitorData(0);
+    }
+  }
+
+  @Override
+  public Long getCacheCount()
+  {
+    long count = 0;
+    for (OffHeapCacheSegment segment : segments)
+    {
+      count += segment.getEntryCount();
+    }
+    return count;
+  }
+
+  @Override
+  public String toVerboseString()
+  {
+    StringBuilder sb = new StringBuilder();
+    for (OffHeapCacheSegment segment : segments)
+    {
+      segment.toString(sb, backendIDs);
+    }
+    String verboseString = sb.toString();
+    return verboseString.length() > 0 ? verboseString : null;
+  }
+
+  private Entry decode(byte[] record, DN entryDN)
+  {
+    try
+    {
+      final int offset = OffHeapCacheSegment.getEncodedEntryOffset(record);
+      final Entry entry = Entry.decode(ByteString.wrap(record, offset, record.length - offset).asReader());
+      entry.setDN(entryDN != null ? entryDN : DN.valueOf(OffHeapCacheSegment.getDN(record)));
+      return entry;
+    }
+    catch (Exception e)
+    {
+      // The compressed schema tokens could not be resolved, behave as if the entry was not cached.
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+  private int getBackendOrdinal(String backendID)
+  {
+    final Integer ordinal = backendOrdinals.get(backendID);
+    return ordinal != null ? ordinal : registerBackend(backendID);
+  }
+
+  private synchronized int registerBackend(String backendID)
+  {
+    Integer ordinal = backendOrdinals.get(backendID);
+    if (ordinal == null)
+    {
+      ordinal = backendIDs.size();
+      backendIDs.add(backendID);
+      backendOrdinals.put(backendID, ordinal);
+    }
+    return ordinal;
+  }
+
+  private OffHeapCacheSegment segmentFor(long dnHash)
+  {
+    final OffHeapCacheSegment[] s = segments;
+    return s[(int) (dnHash >>> 32) & (s.length - 1)];
+  }
+
+  private LongHashIndex idStripe(long idKey)
+  {
+    return idStripes[(int) (idKey >>> 40) & (idStripes.length - 1)];
+  }
+
+  /** Returns a 64-bit hash of a normalized DN, never 0. */
+  private static long hash(byte[] ndn)
+  {
+    // FNV-1a, followed by the murmur3 finalizer to spread the bits
+    long h = 0xcbf29ce484222325L;
+    for (byte b : ndn)
+    {
+      h ^= b & 0xff;
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h != 0 ? h : 1;
+  }
+}
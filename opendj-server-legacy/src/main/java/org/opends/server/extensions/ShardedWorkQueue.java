@@ -0,0 +1,874 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.messages.ConfigMessages.*;
+import static org.opends.messages.CoreMessages.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.server.config.server.ShardedWorkQueueCfg;
+import org.opends.server.api.WorkQueue;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.monitors.ShardedWorkQueueMonitor;
+import org.opends.server.types.CancelRequest;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.Operation;
+import org.opends.server.types.OperationType;
+
+/**
+ * This class defines a Directory Server work queue giving each worker thread
+ * its own queue, or shard, of pending operations.
+ * <p>
+ * Operations are queued on the shard associated with their client connection,
+ * so that the operations of a connection are usually processed by the same
+ * worker thread, keeping its data in the caches of the same processor. Worker
+ * threads take operations from their own shard first, then steal operations
+ * from the other shards when their own is empty. Producers only contend with
+ * each other when they submit operations for connections sharing a shard, and
+ * idle worker threads are parked and woken up individually rather than all
+ * polling a single shared queue.
+ * <p>
+ * Bind and abandon requests can optionally be queued in a priority lane which
+ * worker threads check before their own shard.
+ */
+public class ShardedWorkQueue
+       extends WorkQueue<ShardedWorkQueueCfg>
+       implements ConfigurationChangeListener<ShardedWorkQueueCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /**
+   * The maximum number of times to retry getting the next operation from the
+   * queue if an unexpected failure occurs.
+   */
+  private static final int MAX_RETRY_COUNT = 5;
+
+  /** The maximum length of time an idle worker thread is parked before checking for shutdown. */
+  private static final long PARK_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  /**
+   * The upper bounds, in microseconds, of the buckets of the wait time
+   * histograms. The last bucket holds the longer wait times.
+   */
+  private static final long[] WAIT_TIME_BUCKET_BOUNDS_MICROS = { 100, 1000, 10000, 100000, 1000000 };
+
+  /** A queued operation, with the time it was queued at. */
+  private static final class QueuedOperation
+  {
+    private final Operation operation;
+    private final long queuedAtNanos;
+
+    private QueuedOperation(Operation operation)
+    {
+      this.operation = operation;
+      this.queuedAtNanos = System.nanoTime();
+    }
+  }
+
+  /** A queue of pending operations, with its statistics. */
+  private static final class Shard
+  {
+    private final ConcurrentLinkedQueue<QueuedOperation> queue = new ConcurrentLinkedQueue<>();
+    /** The number of operations in the queue, since the size of the queue is not a constant-time operation. */
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicLongArray waitTimes = new AtomicLongArray(WAIT_TIME_BUCKET_BOUNDS_MICROS.length + 1);
+    /** The worker thread taking operations from this shard first, if any. */
+    private volatile ShardedWorkerThread owner;
+
+    private void add(QueuedOperation operation)
+    {
+      queue.add(operation);
+      depth.incrementAndGet();
+    }
+
+    private Operation poll()
+    {
+      final QueuedOperation queued = queue.poll();
+      if (queued == null)
+      {
+        return null;
+      }
+      depth.decrementAndGet();
+      final long waitMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - queued.queuedAtNanos);
+      int bucket = 0;
+      while (bucket < WAIT_TIME_BUCKET_BOUNDS_MICROS.length && waitMicros >= WAIT_TIME_BUCKET_BOUNDS_MICROS[bucket])
+      {
+        bucket++;
+      }
+      waitTimes.incrementAndGet(bucket);
+      return queued.operation;
+    }
+  }
+
+  /** The set of worker threads that will be used to process this work queue. */
+  private final List<ShardedWorkerThread> workerThreads = new CopyOnWriteArrayList<>();
+
+  /** The number of operations that have been submitted to the work queue for processing. */
+  private final AtomicLong opsSubmitted = new AtomicLong();
+
+  /**
+   * The number of times that an attempt to submit a new request has been
+   * rejected because the work queue is already at its maximum capacity.
+   */
+  private final AtomicLong queueFullRejects = new AtomicLong();
+
+  /** The number of operations in all the shards and in the priority lane. */
+  private final AtomicInteger pendingOperations = new AtomicInteger();
+
+  /** The number of worker threads currently parked. */
+  private final AtomicInteger parkedWorkers = new AtomicInteger();
+
+  /** Used by submitters to wait for capacity when the work queue is full. */
+  private final Object capacityLock = new Object();
+  private final AtomicInteger blockedSubmitters = new AtomicInteger();
+
+  /** Used to distribute the operations of internal connections among the shards. */
+  private final AtomicInteger nextInternalShard = new AtomicInteger();
+
+  /** Protects changes to the set of worker threads. */
+  private final Object queueLock = new Object();
+
+  /**
+   * Indicates whether one or more of the worker threads needs to be killed at
+   * the next convenient opportunity.
+   */
+  private volatile boolean killThreads;
+
+  /** Indicates whether the Directory Server is shutting down. */
+  private volatile boolean shutdownRequested;
+
+  /** The thread number used for the last worker thread that was created. */
+  private int lastThreadNumber;
+
+  /**
+   * The number of worker threads that should be active (or will be shortly if a
+   * configuration change has not been completely applied).
+   */
+  private volatile int numWorkerThreads;
+
+  /**
+   * The maximum number of pending requests that this work queue will allow
+   * before it will start rejecting them.
+   */
+  private volatile int maxCapacity;
+
+  /** Indicates whether bind and abandon requests are queued in the priority lane. */
+  private volatile boolean usePriorityLane;
+
+  /** The shards, one per worker thread at initialization time. */
+  private Shard[] shards;
+
+  /** The queue of bind and abandon requests, processed before the other operations. */
+  private Shard priorityLane;
+
+  /**
+   * Creates a new instance of this work queue. All initialization should be
+   * performed in the <CODE>initializeWorkQueue</CODE> method.
+   */
+  public ShardedWorkQueue()
+  {
+    // No implementation should be performed here.
+  }
+
+  @Override
+  public void initializeWorkQueue(ShardedWorkQueueCfg configuration)
+      throws ConfigException, InitializationException
+  {
+    shutdownRequested = false;
+    killThreads = false;
+
+    // Register to be notified of any configuration changes.
+    configuration.addShardedChangeListener(this);
+
+    // Get the necessary configuration from the provided entry.
+    numWorkerThreads = computeNumWorkerThreads(configuration.getNumWorkerThreads());
+    maxCapacity = configuration.getMaxWorkQueueCapacity();
+    usePriorityLane = configuration.isUsePriorityLane();
+
+    // Create the shards.
+    shards = new Shard[numWorkerThreads];
+    for (int i = 0; i < shards.length; i++)
+    {
+      shards[i] = new Shard();
+    }
+    priorityLane = new Shard();
+
+    // Create the set of worker threads that should be used to service the work queue.
+    synchronized (queueLock)
+    {
+      for (lastThreadNumber = 0; lastThreadNumber < numWorkerThreads; lastThreadNumber++)
+      {
+        startWorkerThread();
+      }
+    }
+
+    // Create and register a monitor provider for the work queue.
+    try
+    {
+      ShardedWorkQueueMonitor monitor = new ShardedWorkQueueMonitor(this);
+      monitor.initializeMonitorProvider(null);
+      DirectoryServer.registerMonitorProvider(monitor);
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      logger.error(ERR_CONFIG_WORK_QUEUE_CANNOT_CREATE_MONITOR, ShardedWorkQueueMonitor.class, e);
+    }
+  }
+
+  /** Starts a new worker thread. The caller must hold the queue lock. */
+  private void startWorkerThread()
+  {
+    ShardedWorkerThread t = new ShardedWorkerThread(this, lastThreadNumber, lastThreadNumber % shards.length);
+    if (shards[t.getHomeShard()].owner == null)
+    {
+      shards[t.getHomeShard()].owner = t;
+    }
+    workerThreads.add(t);
+    t.start();
+  }
+
+  @Override
+  public void finalizeWorkQueue(LocalizableMessage reason)
+  {
+    shutdownRequested = true;
+    synchronized (capacityLock)
+    {
+      capacityLock.notifyAll();
+    }
+
+    // From now on no more operations can be enqueued or dequeued.
+
+    // Send responses to any operations in the pending queue to indicate that
+    // they won't be processed because the server is shutting down.
+    CancelRequest cancelRequest = new CancelRequest(true, reason);
+    List<Operation> pendingOperations = new ArrayList<>();
+    drainTo(priorityLane, pendingOperations);
+    for (Shard shard : shards)
+    {
+      drainTo(shard, pendingOperations);
+    }
+    for (Operation o : pendingOperations)
+    {
+      try
+      {
+        // The operation has no chance of responding to the cancel
+        // request so avoid waiting for a cancel response.
+        if (o.getCancelResult() == null)
+        {
+          o.abort(cancelRequest);
+        }
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+        logger.warn(WARN_QUEUE_UNABLE_TO_CANCEL, o, e);
+      }
+    }
+
+    // Notify all the worker threads of the shutdown.
+    for (ShardedWorkerThread t : workerThreads)
+    {
+      try
+      {
+        t.shutDown();
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+        logger.warn(WARN_QUEUE_UNABLE_TO_NOTIFY_THREAD, t.getName(), e);
+      }
+    }
+  }
+
+  private void drainTo(Shard shard, List<Operation> operations)
+  {
+    Operation operation;
+    while ((operation = shard.poll()) != null)
+    {
+      pendingOperations.decrementAndGet();
+      operations.add(operation);
+    }
+  }
+
+  /**
+   * Indicates whether this work queue has received a request to shut down.
+   *
+   * @return <CODE>true</CODE> if the work queue has recieved a request to shut
+   *         down, or <CODE>false</CODE> if not.
+   */
+  public boolean shutdownRequested()
+  {
+    return shutdownRequested;
+  }
+
+  /**
+   * Submits an operation to be processed by one of the worker threads
+   * associated with this work queue.
+   *
+   * @param operation
+   *          The operation to be processed.
+   * @throws DirectoryException
+   *           If the provided operation is not accepted for some reason (e.g.,
+   *           if the server is shutting down or the pending operation queue is
+   *           already at its maximum capacity).
+   */
+  @Override
+  public void submitOperation(Operation operation) throws DirectoryException
+  {
+    submitOperation(operation, true);
+  }
+
+  @Override
+  public boolean trySubmitOperation(Operation operation)
+      throws DirectoryException
+  {
+    try
+    {
+      submitOperation(operation, false);
+      return true;
+    }
+    catch (DirectoryException e)
+    {
+      if (ResultCode.BUSY == e.getResultCode())
+      {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  private void submitOperation(Operation operation,
+      boolean blockEnqueuingWhenFull) throws DirectoryException
+  {
+    if (shutdownRequested)
+    {
+      LocalizableMessage message = WARN_OP_REJECTED_BY_SHUTDOWN.get();
+      throw new DirectoryException(ResultCode.UNAVAILABLE, message);
+    }
+
+    reserveCapacity(blockEnqueuingWhenFull);
+
+    final int homeShard;
+    final Shard shard;
+    if (usePriorityLane && isPriorityOperation(operation))
+    {
+      homeShard = -1;
+      shard = priorityLane;
+    }
+    else
+    {
+      homeShard = shardOf(operation);
+      shard = shards[homeShard];
+    }
+    shard.add(new QueuedOperation(operation));
+    opsSubmitted.incrementAndGet();
+
+    wakeUpWorker(homeShard);
+  }
+
+  /** Reserves room for one more operation, blocking or rejecting it when the queue is full. */
+  private void reserveCapacity(boolean blockEnqueuingWhenFull) throws DirectoryException
+  {
+    while (true)
+    {
+      final int pending = pendingOperations.get();
+      if (pending < maxCapacity)
+      {
+        if (pendingOperations.compareAndSet(pending, pending + 1))
+        {
+          return;
+        }
+        continue;
+      }
+
+      if (!blockEnqueuingWhenFull)
+      {
+        queueFullRejects.incrementAndGet();
+
+        LocalizableMessage message = WARN_OP_REJECTED_BY_QUEUE_FULL.get(maxCapacity);
+        throw new DirectoryException(ResultCode.BUSY, message);
+      }
+
+      synchronized (capacityLock)
+      {
+        blockedSubmitters.incrementAndGet();
+        try
+        {
+          // Worker threads only notify when they see blocked submitters, so
+          // wait with a timeout in case the notification was missed.
+          if (pendingOperations.get() >= maxCapacity && !shutdownRequested)
+          {
+            capacityLock.wait(1000);
+          }
+        }
+        catch (InterruptedException e)
+        {
+          // We cannot handle the interruption here. Reject the request and
+          // re-interrupt this thread.
+          Thread.currentThread().interrupt();
+
+          queueFullRejects.incrementAndGet();
+
+          LocalizableMessage message = WARN_OP_REJECTED_BY_QUEUE_INTERRUPT.get();
+          throw new DirectoryException(ResultCode.BUSY, message);
+        }
+        finally
+        {
+          blockedSubmitters.decrementAndGet();
+        }
+      }
+
+      if (shutdownRequested)
+      {
+        LocalizableMessage message = WARN_OP_REJECTED_BY_SHUTDOWN.get();
+        throw new DirectoryException(ResultCode.UNAVAILABLE, message);
+      }
+    }
+  }
+
+  private static boolean isPriorityOperation(Operation operation)
+  {
+    final OperationType type = operation.getOperationType();
+    return type == OperationType.BIND || type == OperationType.ABANDON;
+  }
+
+  /** Returns the shard of the connection of an operation. */
+  private int shardOf(Operation operation)
+  {
+    final long connectionID = operation.getConnectionID();
+    if (connectionID < 0)
+    {
+      // Internal operations all share the same connection ID, spread them
+      return (nextInternalShard.getAndIncrement() & Integer.MAX_VALUE) % shards.length;
+    }
+    return (int) (connectionID % shards.length);
+  }
+
+  /**
+   * Wakes up a parked worker thread, if any, preferably the owner of the shard
+   * where an operation has just been queued.
+   */
+  private void wakeUpWorker(int homeShard)
+  {
+    if (parkedWorkers.get() == 0)
+    {
+      return;
+    }
+    if (homeShard >= 0 && unpark(shards[homeShard].owner))
+    {
+      return;
+    }
+    for (ShardedWorkerThread t : workerThreads)
+    {
+      if (unpark(t))
+      {
+        return;
+      }
+    }
+  }
+
+  private boolean unpark(ShardedWorkerThread workerThread)
+  {
+    if (workerThread != null && workerThread.parked.compareAndSet(true, false))
+    {
+      LockSupport.unpark(workerThread);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Retrieves the next operation that should be processed by one of the worker
+   * threads, blocking if necessary until a new request arrives. This method
+   * should only be called by a worker thread associated with this work queue.
+   *
+   * @param workerThread
+   *          The worker thread that is requesting the operation.
+   * @return The next operation that should be processed, or <CODE>null</CODE>
+   *         if the server is shutting down and no more operations will be
+   *         processed.
+   */
+  public Operation nextOperation(ShardedWorkerThread workerThread)
+  {
+    return retryNextOperation(workerThread, 0);
+  }
+
+  /**
+   * Retrieves the next operation that should be processed by one of the worker
+   * threads following a previous failure attempt. A maximum of five consecutive
+   * failures will be allowed before returning <CODE>null</CODE>, which will
+   * cause the associated thread to exit.
+   *
+   * @param workerThread
+   *          The worker thread that is requesting the operation.
+   * @param numFailures
+   *          The number of consecutive failures that the worker thread has
+   *          experienced so far. If this gets too high, then this method will
+   *          return <CODE>null</CODE> rather than retrying.
+   * @return The next operation that should be processed, or <CODE>null</CODE>
+   *         if the server is shutting down and no more operations will be
+   *         processed, or if there have been too many consecutive failures.
+   */
+  private Operation retryNextOperation(ShardedWorkerThread workerThread,
+      int numFailures)
+  {
+    if (numFailures > MAX_RETRY_COUNT)
+    {
+      logger.error(ERR_CONFIG_WORK_QUEUE_TOO_MANY_FAILURES, Thread
+          .currentThread().getName(), numFailures, MAX_RETRY_COUNT);
+
+      return null;
+    }
+
+    try
+    {
+      while (true)
+      {
+        // See if we should kill off this thread. This could be necessary if the
+        // number of worker threads has been decreased with the server online.
+        // If so, then return null and the thread will exit.
+        if (shutdownRequested || (killThreads && tryKillThisWorkerThread(workerThread)))
+        {
+          return null;
+        }
+
+        Operation nextOperation = pollOperation(workerThread);
+        if (nextOperation != null)
+        {
+          return nextOperation;
+        }
+
+        // Announce this thread is about to park, then check the shards again
+        // so that an operation queued in between is not missed.
+        workerThread.parked.set(true);
+        parkedWorkers.incrementAndGet();
+        try
+        {
+          nextOperation = pollOperation(workerThread);
+          if (nextOperation != null)
+          {
+            return nextOperation;
+          }
+          LockSupport.parkNanos(this, PARK_TIMEOUT_NANOS);
+        }
+        finally
+        {
+          workerThread.parked.set(false);
+          parkedWorkers.decrementAndGet();
+        }
+      }
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+
+      // This should not happen. The only recourse we have is to log a message
+      // and try again.
+      logger.warn(WARN_WORKER_WAITING_UNCAUGHT_EXCEPTION, Thread.currentThread().getName(), e);
+      return retryNextOperation(workerThread, numFailures + 1);
+    }
+  }
+
+  /**
+   * Takes the next operation from the priority lane, then the shard of the
+   * worker thread, then the other shards.
+   */
+  private Operation pollOperation(ShardedWorkerThread workerThread)
+  {
+    Operation operation = priorityLane.poll();
+    if (operation == null)
+    {
+      final int homeShard = workerThread.getHomeShard();
+      for (int i = 0; i < shards.length && operation == null; i++)
+      {
+        operation = shards[(homeShard + i) % shards.length].poll();
+      }
+    }
+    if (operation != null)
+    {
+      pendingOperations.decrementAndGet();
+      releaseCapacity();
+    }
+    return operation;
+  }
+
+  private void releaseCapacity()
+  {
+    // Only take the lock when the queue has been full
+    if (blockedSubmitters.get() > 0)
+    {
+      synchronized (capacityLock)
+      {
+        capacityLock.notify();
+      }
+    }
+  }
+
+  /**
+   * Kills this worker thread if needed.
+   *
+   * @param workerThread
+   *          The worker thread associated with this thread.
+   * @return {@code true} if this thread was killed.
+   */
+  private boolean tryKillThisWorkerThread(ShardedWorkerThread workerThread)
+  {
+    synchronized (queueLock)
+    {
+      int currentThreads = workerThreads.size();
+      if (currentThreads > numWorkerThreads)
+      {
+        if (workerThreads.remove(workerThread))
+        {
+          currentThreads--;
+        }
+
+        if (currentThreads <= numWorkerThreads)
+        {
+          killThreads = false;
+        }
+
+        // Hand the shard over to another worker thread with the same home shard, if any.
+        final Shard shard = shards[workerThread.getHomeShard()];
+        if (shard.owner == workerThread)
+        {
+          shard.owner = null;
+          for (ShardedWorkerThread t : workerThreads)
+          {
+            if (t.getHomeShard() == workerThread.getHomeShard())
+            {
+              shard.owner = t;
+              break;
+            }
+          }
+        }
+
+        workerThread.setStoppedByReducedThreadNumber();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Retrieves the total number of operations that have been successfully
+   * submitted to this work queue for processing since server startup. This does
+   * not include operations that have been rejected for some reason like the
+   * queue already at its maximum capacity.
+   *
+   * @return The total number of operations that have been successfully
+   *         submitted to this work queue since startup.
+   */
+  public long getOpsSubmitted()
+  {
+    return opsSubmitted.longValue();
+  }
+
+  /**
+   * Retrieves the total number of operations that have been rejected because
+   * the work queue was already at its maximum capacity.
+   *
+   * @return The total number of operations that have been rejected because the
+   *         work queue was already at its maximum capacity.
+   */
+  public long getOpsRejectedDueToQueueFull()
+  {
+    return queueFullRejects.longValue();
+  }
+
+  /**
+   * Retrieves the number of pending operations in the queue that have not yet
+   * been picked up for processing.
+   *
+   * @return The number of pending operations in the queue that have not yet
+   *         been picked up for processing.
+   */
+  public int size()
+  {
+    return pendingOperations.get();
+  }
+
+  /**
+   * Retrieves the number of shards of this work queue, not including the
+   * priority lane.
+   *
+   * @return The number of shards of this work queue.
+   */
+  public int getNumShards()
+  {
+    return shards.length;
+  }
+
+  /**
+   * Retrieves the number of pending operations in a shard.
+   *
+   * @param shard
+   *          The index of the shard, or -1 for the priority lane.
+   * @return The number of pending operations in the shard.
+   */
+  public int getShardDepth(int shard)
+  {
+    return getShard(shard).depth.get();
+  }
+
+  /**
+   * Retrieves the histogram of the times operations taken from a shard have
+   * waited in the queue. The bucket bounds are given by
+   * {@link #getWaitTimeBucketBoundsMicros()}.
+   *
+   * @param shard
+   *          The index of the shard, or -1 for the priority lane.
+   * @return The number of operations in each bucket of the histogram.
+   */
+  public long[] getShardWaitTimes(int shard)
+  {
+    final AtomicLongArray waitTimes = getShard(shard).waitTimes;
+    final long[] histogram = new long[waitTimes.length()];
+    for (int i = 0; i < histogram.length; i++)
+    {
+      histogram[i] = waitTimes.get(i);
+    }
+    return histogram;
+  }
+
+  /**
+   * Retrieves the upper bounds, in microseconds, of the buckets of the wait
+   * time histograms. The histograms have one more bucket, holding the longer
+   * wait times.
+   *
+   * @return The upper bounds of the buckets of the wait time histograms.
+   */
+  public static long[] getWaitTimeBucketBoundsMicros()
+  {
+    return WAIT_TIME_BUCKET_BOUNDS_MICROS.clone();
+  }
+
+  private Shard getShard(int shard)
+  {
+    return shard == -1 ? priorityLane : shards[shard];
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(
+      ShardedWorkQueueCfg configuration, List<LocalizableMessage> unacceptableReasons)
+  {
+    return true;
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(
+      ShardedWorkQueueCfg configuration)
+  {
+    int newNumThreads =
+        computeNumWorkerThreads(configuration.getNumWorkerThreads());
+
+    // Apply a change to the number of worker threads if appropriate.
+    synchronized (queueLock)
+    {
+      int currentThreads = workerThreads.size();
+      if (newNumThreads != currentThreads)
+      {
+        try
+        {
+          int threadsToAdd = newNumThreads - currentThreads;
+          if (threadsToAdd > 0)
+          {
+            for (int i = 0; i < threadsToAdd; i++)
+            {
+              startWorkerThread();
+              lastThreadNumber++;
+            }
+
+            killThreads = false;
+          }
+          else
+          {
+            killThreads = true;
+            // Wake up idle threads so that they exit promptly.
+            for (ShardedWorkerThread t : workerThreads)
+            {
+              unpark(t);
+            }
+          }
+
+          numWorkerThreads = newNumThreads;
+        }
+        catch (Exception e)
+        {
+          logger.traceException(e);
+        }
+      }
+    }
+
+    // The capacity is only checked when submitting operations, so a reduced
+    // capacity simply applies once enough pending operations are processed.
+    maxCapacity = configuration.getMaxWorkQueueCapacity();
+    usePriorityLane = configuration.isUsePriorityLane();
+    synchronized (capacityLock)
+    {
+      capacityLock.notifyAll();
+    }
+
+    return new ConfigChangeResult();
+  }
+
+  @Override
+  public boolean isIdle()
+  {
+    if (pendingOperations.get() > 0)
+    {
+      return false;
+    }
+
+    for (ShardedWorkerThread t : workerThreads)
+    {
+      if (t.isActive())
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Return the number of worker threads used by this WorkQueue.
+   *
+   * @return the number of worker threads used by this WorkQueue
+   */
+  @Override
+  public int getNumWorkerThreads()
+  {
+    return this.numWorkerThreads;
+  }
+}
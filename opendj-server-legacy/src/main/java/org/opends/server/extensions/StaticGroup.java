@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.extensions;
 
@@ -35,6 +36,7 @@ import org.forgerock.i18n.LocalizedIllegalArgumentException;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ConditionResult;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ModificationType;
 import org.forgerock.opendj.ldap.ResultCode;
@@ -291,6 +293,12 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     return true;
   }
 
+  @Override
+  public AttributeType getMemberListAttributeType()
+  {
+    return memberAttributeType;
+  }
+
   @Override
   public List<DN> getNestedGroupDNs()
   {
@@ -411,6 +419,12 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
       {
         return false;
       }
+      // the group manager indexes the nesting of the registered static groups
+      ConditionResult indexedResult = getGroupManager().isIndexedMember(groupEntryDN, userDN, examinedGroups);
+      if (indexedResult != ConditionResult.UNDEFINED)
+      {
+        return indexedResult.toBoolean();
+      }
       for (DN nestedGroupDN : nestedGroups)
       {
         Group<? extends GroupImplementationCfg> group = getGroupManager().getGroupInstance(nestedGroupDN);
@@ -0,0 +1,619 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.extensions;
+
+import static org.opends.messages.ConfigMessages.*;
+import static org.opends.messages.CoreMessages.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.server.config.server.VirtualThreadWorkQueueCfg;
+import org.opends.server.api.DirectoryThread;
+import org.opends.server.api.WorkQueue;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.monitors.VirtualThreadWorkQueueMonitor;
+import org.opends.server.types.CancelRequest;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.DisconnectReason;
+import org.opends.server.types.InitializationException;
+import org.opends.server.types.Operation;
+
+/**
+ * This class defines a Directory Server work queue processing each operation
+ * in its own virtual thread.
+ * <p>
+ * Operations blocking for a long time, for instance waiting for a backend
+ * transaction, a pass-through authentication server or a proxied server, only
+ * hold a virtual thread, so the number of operations processed at the same time
+ * is not bound by the size of a pool of platform threads. That number is
+ * bound by a configurable limit instead: operations submitted while the limit
+ * is reached wait in a queue, and the thread completing an operation goes on
+ * with the next queued operation.
+ * <p>
+ * Virtual threads require Java 21 or later and are looked up by reflection. On
+ * older Java runtimes, operations are processed by platform threads created as
+ * needed and kept in a pool for reuse.
+ */
+public class VirtualThreadWorkQueue
+       extends WorkQueue<VirtualThreadWorkQueueCfg>
+       implements ConfigurationChangeListener<VirtualThreadWorkQueueCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The prefix of the names of the threads processing operations. */
+  private static final String THREAD_NAME_PREFIX = "Worker Thread";
+
+  /** Processes an operation, then the queued operations while the concurrency limit allows it. */
+  private final class OperationTask implements Runnable
+  {
+    private final Operation firstOperation;
+
+    private OperationTask(Operation operation)
+    {
+      this.firstOperation = operation;
+    }
+
+    @Override
+    public void run()
+    {
+      Operation operation = firstOperation;
+      do
+      {
+        process(operation);
+        // Keep the slot for the next queued operation, unless the limit was reduced
+        operation = activeOperations.get() <= maxConcurrentOperations ? pollPendingOperation() : null;
+      }
+      while (operation != null);
+
+      activeOperations.decrementAndGet();
+      // An operation may have been queued after the last poll and before releasing the slot
+      startPendingOperations();
+    }
+  }
+
+  /** The operations waiting for the number of active operations to fall below the limit. */
+  private final ConcurrentLinkedQueue<Operation> pendingOperations = new ConcurrentLinkedQueue<>();
+
+  /** The number of pending operations, or about to be. */
+  private final AtomicInteger pendingCount = new AtomicInteger();
+
+  /** The number of operations being processed, or about to be. */
+  private final AtomicInteger activeOperations = new AtomicInteger();
+
+  /** The operations being processed, so that they can be canceled on shutdown. */
+  private final Set<Operation> runningOperations = ConcurrentHashMap.newKeySet();
+
+  /** The number of operations that have been submitted to the work queue for processing. */
+  private final AtomicLong opsSubmitted = new AtomicLong();
+
+  /**
+   * The number of times that an attempt to submit a new request has been
+   * rejected because the work queue is already at its maximum capacity.
+   */
+  private final AtomicLong queueFullRejects = new AtomicLong();
+
+  /** Used by submitters to wait for capacity when the work queue is full. */
+  private final Object capacityLock = new Object();
+  private final AtomicInteger blockedSubmitters = new AtomicInteger();
+
+  /** Indicates whether the Directory Server is shutting down. */
+  private volatile boolean shutdownRequested;
+
+  /** The maximum number of operations processed at the same time. */
+  private volatile int maxConcurrentOperations;
+
+  /**
+   * The maximum number of pending requests that this work queue will allow
+   * before it will start rejecting them.
+   */
+  private volatile int maxCapacity;
+
+  /** Starts the threads processing the operations. */
+  private Executor executor;
+
+  /** Indicates whether operations are processed in virtual threads. */
+  private boolean usesVirtualThreads;
+
+  /**
+   * Creates a new instance of this work queue. All initialization should be
+   * performed in the <CODE>initializeWorkQueue</CODE> method.
+   */
+  public VirtualThreadWorkQueue()
+  {
+    // No implementation should be performed here.
+  }
+
+  @Override
+  public void initializeWorkQueue(VirtualThreadWorkQueueCfg configuration)
+      throws ConfigException, InitializationException
+  {
+    shutdownRequested = false;
+
+    // Register to be notified of any configuration changes.
+    configuration.addVirtualThreadChangeListener(this);
+
+    // Get the necessary configuration from the provided entry.
+    maxConcurrentOperations = configuration.getMaxConcurrentOperations();
+    maxCapacity = configuration.getMaxWorkQueueCapacity();
+
+    final ThreadFactory virtualThreadFactory = newVirtualThreadFactory();
+    usesVirtualThreads = virtualThreadFactory != null;
+    if (usesVirtualThreads)
+    {
+      executor = new Executor()
+      {
+        @Override
+        public void execute(Runnable command)
+        {
+          virtualThreadFactory.newThread(command).start();
+        }
+      };
+    }
+    else
+    {
+      logger.warn(WARN_VIRTUAL_THREADS_NOT_AVAILABLE);
+      executor = Executors.newCachedThreadPool(new DirectoryThread.Factory(THREAD_NAME_PREFIX));
+    }
+
+    // Create and register a monitor provider for the work queue.
+    try
+    {
+      VirtualThreadWorkQueueMonitor monitor = new VirtualThreadWorkQueueMonitor(this);
+      monitor.initializeMonitorProvider(null);
+      DirectoryServer.registerMonitorProvider(monitor);
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      logger.error(ERR_CONFIG_WORK_QUEUE_CANNOT_CREATE_MONITOR, VirtualThreadWorkQueueMonitor.class, e);
+    }
+  }
+
+  /**
+   * Returns a factory of virtual threads, or null if the Java runtime does not
+   * support them.
+   */
+  private static ThreadFactory newVirtualThreadFactory()
+  {
+    try
+    {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX + " ", 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    }
+    catch (ReflectiveOperationException | LinkageError e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+  @Override
+  public void finalizeWorkQueue(LocalizableMessage reason)
+  {
+    shutdownRequested = true;
+    synchronized (capacityLock)
+    {
+      capacityLock.notifyAll();
+    }
+
+    // From now on no more operations can be enqueued or started.
+
+    // Send responses to any operations in the pending queue to indicate that
+    // they won't be processed because the server is shutting down.
+    CancelRequest cancelRequest = new CancelRequest(true, reason);
+    Operation o;
+    while ((o = pollPendingOperation()) != null)
+    {
+      try
+      {
+        // The operation has no chance of responding to the cancel
+        // request so avoid waiting for a cancel response.
+        if (o.getCancelResult() == null)
+        {
+          o.abort(cancelRequest);
+        }
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+        logger.warn(WARN_QUEUE_UNABLE_TO_CANCEL, o, e);
+      }
+    }
+
+    // Cancel the operations in progress, as worker threads do when shutting down.
+    CancelRequest shutdownCancelRequest = new CancelRequest(true, INFO_CANCELED_BY_SHUTDOWN.get());
+    for (Operation operation : runningOperations)
+    {
+      try
+      {
+        operation.cancel(shutdownCancelRequest);
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+      }
+    }
+
+    if (executor instanceof ExecutorService)
+    {
+      ((ExecutorService) executor).shutdown();
+    }
+  }
+
+  /**
+   * Indicates whether this work queue has received a request to shut down.
+   *
+   * @return <CODE>true</CODE> if the work queue has recieved a request to shut
+   *         down, or <CODE>false</CODE> if not.
+   */
+  public boolean shutdownRequested()
+  {
+    return shutdownRequested;
+  }
+
+  @Override
+  public void submitOperation(Operation operation) throws DirectoryException
+  {
+    submitOperation(operation, true);
+  }
+
+  @Override
+  public boolean trySubmitOperation(Operation operation)
+      throws DirectoryException
+  {
+    try
+    {
+      submitOperation(operation, false);
+      return true;
+    }
+    catch (DirectoryException e)
+    {
+      if (ResultCode.BUSY == e.getResultCode())
+      {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  private void submitOperation(Operation operation,
+      boolean blockEnqueuingWhenFull) throws DirectoryException
+  {
+    if (shutdownRequested)
+    {
+      LocalizableMessage message = WARN_OP_REJECTED_BY_SHUTDOWN.get();
+      throw new DirectoryException(ResultCode.UNAVAILABLE, message);
+    }
+
+    // Do not overtake queued operations
+    if (pendingCount.get() == 0 && tryReserveSlot())
+    {
+      opsSubmitted.incrementAndGet();
+      start(operation);
+      return;
+    }
+
+    reserveCapacity(blockEnqueuingWhenFull);
+    pendingOperations.add(operation);
+    opsSubmitted.incrementAndGet();
+    startPendingOperations();
+  }
+
+  /** Reserves room for one more pending operation, blocking or rejecting it when the queue is full. */
+  private void reserveCapacity(boolean blockEnqueuingWhenFull) throws DirectoryException
+  {
+    while (true)
+    {
+      final int pending = pendingCount.get();
+      if (pending < maxCapacity)
+      {
+        if (pendingCount.compareAndSet(pending, pending + 1))
+        {
+          return;
+        }
+        continue;
+      }
+
+      if (!blockEnqueuingWhenFull)
+      {
+        queueFullRejects.incrementAndGet();
+
+        LocalizableMessage message = WARN_OP_REJECTED_BY_QUEUE_FULL.get(maxCapacity);
+        throw new DirectoryException(ResultCode.BUSY, message);
+      }
+
+      synchronized (capacityLock)
+      {
+        blockedSubmitters.incrementAndGet();
+        try
+        {
+          // Operations only notify when they see blocked submitters, so
+          // wait with a timeout in case the notification was missed.
+          if (pendingCount.get() >= maxCapacity && !shutdownRequested)
+          {
+            capacityLock.wait(1000);
+          }
+        }
+        catch (InterruptedException e)
+        {
+          // We cannot handle the interruption here. Reject the request and
+          // re-interrupt this thread.
+          Thread.currentThread().interrupt();
+
+          queueFullRejects.incrementAndGet();
+
+          LocalizableMessage message = WARN_OP_REJECTED_BY_QUEUE_INTERRUPT.get();
+          throw new DirectoryException(ResultCode.BUSY, message);
+        }
+        finally
+        {
+          blockedSubmitters.decrementAndGet();
+        }
+      }
+
+      if (shutdownRequested)
+      {
+        LocalizableMessage message = WARN_OP_REJECTED_BY_SHUTDOWN.get();
+        throw new DirectoryException(ResultCode.UNAVAILABLE, message);
+      }
+    }
+  }
+
+  private boolean tryReserveSlot()
+  {
+    while (true)
+    {
+      final int active = activeOperations.get();
+      if (active >= maxConcurrentOperations)
+      {
+        return false;
+      }
+      if (activeOperations.compareAndSet(active, active + 1))
+      {
+        return true;
+      }
+    }
+  }
+
+  /** Starts queued operations while the concurrency limit allows it. */
+  private void startPendingOperations()
+  {
+    while (!pendingOperations.isEmpty() && !shutdownRequested && tryReserveSlot())
+    {
+      final Operation operation = pollPendingOperation();
+      if (operation == null)
+      {
+        activeOperations.decrementAndGet();
+        return;
+      }
+      start(operation);
+    }
+  }
+
+  /** Starts processing an operation, a slot having been reserved for it. */
+  private void start(Operation operation)
+  {
+    try
+    {
+      executor.execute(new OperationTask(operation));
+    }
+    catch (RejectedExecutionException e)
+    {
+      // Only happens once the work queue has been finalized.
+      logger.traceException(e);
+      activeOperations.decrementAndGet();
+      operation.abort(new CancelRequest(true, INFO_CANCELED_BY_SHUTDOWN.get()));
+    }
+  }
+
+  private Operation pollPendingOperation()
+  {
+    final Operation operation = pendingOperations.poll();
+    if (operation != null)
+    {
+      pendingCount.decrementAndGet();
+      // Only take the lock when the queue has been full
+      if (blockedSubmitters.get() > 0)
+      {
+        synchronized (capacityLock)
+        {
+          capacityLock.notify();
+        }
+      }
+    }
+    return operation;
+  }
+
+  /** Processes an operation, as worker threads do. */
+  private void process(Operation operation)
+  {
+    runningOperations.add(operation);
+    try
+    {
+      operation.run();
+      operation.operationCompleted();
+    }
+    catch (Throwable t)
+    {
+      if (logger.isTraceEnabled())
+      {
+        logger.trace(
+          "Uncaught exception in worker thread while processing " +
+              "operation %s: %s", operation, t);
+        logger.traceException(t);
+      }
+
+      String threadName = Thread.currentThread().getName();
+      try
+      {
+        LocalizableMessage message =
+            ERR_UNCAUGHT_WORKER_THREAD_EXCEPTION.get(threadName, operation, stackTraceToSingleLineString(t));
+        logger.error(message);
+
+        // Ensure that the client receives some kind of result so that it does
+        // not hang.
+        operation.setResultCode(DirectoryServer.getCoreConfigManager().getServerErrorResultCode());
+        operation.appendErrorMessage(message);
+        operation.getClientConnection().sendResponse(operation);
+      }
+      catch (Throwable t2)
+      {
+        if (logger.isTraceEnabled())
+        {
+          logger.trace(
+            "Exception in worker thread while trying to log a " +
+                "message about an uncaught exception %s: %s", t, t2);
+
+          logger.traceException(t2);
+        }
+      }
+
+      try
+      {
+        LocalizableMessage message = ERR_UNCAUGHT_WORKER_THREAD_EXCEPTION.get(
+            threadName, operation, stackTraceToSingleLineString(t));
+
+        operation.disconnectClient(DisconnectReason.SERVER_ERROR, true, message);
+      }
+      catch (Throwable t2)
+      {
+        logger.traceException(t2);
+      }
+    }
+    finally
+    {
+      runningOperations.remove(operation);
+    }
+  }
+
+  /**
+   * Retrieves the total number of operations that have been successfully
+   * submitted to this work queue for processing since server startup. This does
+   * not include operations that have been rejected for some reason like the
+   * queue already at its maximum capacity.
+   *
+   * @return The total number of operations that have been successfully
+   *         submitted to this work queue since startup.
+   */
+  public long getOpsSubmitted()
+  {
+    return opsSubmitted.longValue();
+  }
+
+  /**
+   * Retrieves the total number of operations that have been rejected because
+   * the work queue was already at its maximum capacity.
+   *
+   * @return The total number of operations that have been rejected because the
+   *         work queue was already at its maximum capacity.
+   */
+  public long getOpsRejectedDueToQueueFull()
+  {
+    return queueFullRejects.longValue();
+  }
+
+  /**
+   * Retrieves the number of pending operations in the queue that have not yet
+   * been picked up for processing.
+   *
+   * @return The number of pending operations in the queue that have not yet
+   *         been picked up for processing.
+   */
+  public int size()
+  {
+    return pendingCount.get();
+  }
+
+  /**
+   * Retrieves the number of operations currently being processed.
+   *
+   * @return The number of operations currently being processed.
+   */
+  public int getActiveOperations()
+  {
+    return activeOperations.get();
+  }
+
+  /**
+   * Indicates whether operations are processed in virtual threads, rather than
+   * in platform threads.
+   *
+   * @return {@code true} if operations are processed in virtual threads.
+   */
+  public boolean usesVirtualThreads()
+  {
+    return usesVirtualThreads;
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(
+      VirtualThreadWorkQueueCfg configuration, List<LocalizableMessage> unacceptableReasons)
+  {
+    return true;
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(
+      VirtualThreadWorkQueueCfg configuration)
+  {
+    // A reduced limit applies as active operations complete, an increased one applies immediately.
+    maxConcurrentOperations = configuration.getMaxConcurrentOperations();
+    maxCapacity = configuration.getMaxWorkQueueCapacity();
+    startPendingOperations();
+    synchronized (capacityLock)
+    {
+      capacityLock.notifyAll();
+    }
+    return new ConfigChangeResult();
+  }
+
+  @Override
+  public boolean isIdle()
+  {
+    return pendingCount.get() == 0 && activeOperations.get() == 0;
+  }
+
+  /**
+   * Return the maximum number of operations processed at the same time, each
+   * one by its own thread.
+   *
+   * @return the maximum number of operations processed at the same time
+   */
+  @Override
+  public int getNumWorkerThreads()
+  {
+    return maxConcurrentOperations;
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.monitors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.config.server.ConfigException;
+import org.opends.server.api.MonitorData;
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.extensions.ShardedWorkQueue;
+import org.opends.server.types.InitializationException;
+
+/**
+ * This class defines a Directory Server monitor that can be used to provide
+ * information about the state of the sharded work queue, including the backlog
+ * and the wait times of each of its shards.
+ */
+public class ShardedWorkQueueMonitor
+       extends MonitorProvider<MonitorProviderCfg>
+       implements Runnable
+{
+  /** The name to use for the monitor attribute that provides the current request backlog. */
+  public static final String ATTR_CURRENT_BACKLOG = "currentRequestBacklog";
+  /** The name to use for the monitor attribute that provides the average request backlog. */
+  public static final String ATTR_AVERAGE_BACKLOG = "averageRequestBacklog";
+  /**
+   * The name to use for the monitor attribute that provides the maximum
+   * observed request backlog.
+   */
+  public static final String ATTR_MAX_BACKLOG = "maxRequestBacklog";
+  /**
+   * The name to use for the monitor attribute that provides the total number of
+   * operations submitted.
+   */
+  public static final String ATTR_OPS_SUBMITTED = "requestsSubmitted";
+  /**
+   * The name to use for the monitor attribute that provides the total number of
+   * requests that have been rejected because the work queue was full.
+   */
+  public static final String ATTR_OPS_REJECTED_QUEUE_FULL = "requestsRejectedDueToQueueFull";
+  /**
+   * The name to use for the monitor attribute that provides the current
+   * request backlog of each shard, one value per shard.
+   */
+  public static final String ATTR_SHARD_BACKLOG = "shardRequestBacklog";
+  /**
+   * The name to use for the monitor attribute that provides the histogram of
+   * the time requests waited in each shard, one value per shard.
+   */
+  public static final String ATTR_SHARD_WAIT_TIME = "shardWaitTimeHistogram";
+
+  /** The name used for the priority lane in the shard attribute values. */
+  private static final String PRIORITY_LANE = "priority";
+
+
+  /** The maximum backlog observed by polling the queue. */
+  private int maxBacklog;
+  /** The total number of times the backlog has been polled. */
+  private long numPolls;
+  /** The total backlog observed from periodic polling. */
+  private long totalBacklog;
+  /** The sharded work queue instance with which this monitor is associated. */
+  private ShardedWorkQueue workQueue;
+  /** The labels of the buckets of the wait time histograms. */
+  private final List<String> waitTimeBucketLabels = new ArrayList<>();
+
+
+  /**
+   * Initializes this monitor provider.  Note that no initialization should be
+   * done here, since it should be performed in the
+   * <CODE>initializeMonitorProvider</CODE> class.
+   *
+   * @param  workQueue  The work queue with which this monitor is associated.
+   */
+  public ShardedWorkQueueMonitor(ShardedWorkQueue workQueue)
+  {
+    this.workQueue = workQueue;
+  }
+
+
+  @Override
+  public void initializeMonitorProvider(MonitorProviderCfg configuration)
+         throws ConfigException, InitializationException
+  {
+    maxBacklog   = 0;
+    totalBacklog = 0;
+    numPolls     = 0;
+
+    long[] bounds = ShardedWorkQueue.getWaitTimeBucketBoundsMicros();
+    for (long bound : bounds)
+    {
+      waitTimeBucketLabels.add("<" + formatMicros(bound));
+    }
+    waitTimeBucketLabels.add(">=" + formatMicros(bounds[bounds.length - 1]));
+
+    scheduleUpdate(this, 0, 10, TimeUnit.SECONDS);
+  }
+
+  private static String formatMicros(long micros)
+  {
+    if (micros >= 1000000 && micros % 1000000 == 0)
+    {
+      return micros / 1000000 + "s";
+    }
+    else if (micros >= 1000 && micros % 1000 == 0)
+    {
+      return micros / 1000 + "ms";
+    }
+    return micros + "us";
+  }
+
+
+
+  /**
+   * Retrieves the name of this monitor provider.  It should be unique among all
+   * monitor providers, including all instances of the same monitor provider.
+   *
+   * @return  The name of this monitor provider.
+   */
+  @Override
+  public String getMonitorInstanceName()
+  {
+    return "Work Queue";
+  }
+
+  @Override
+  public void run()
+  {
+    int backlog = workQueue.size();
+    totalBacklog += backlog;
+    numPolls++;
+
+    if (backlog > maxBacklog)
+    {
+      maxBacklog = backlog;
+    }
+  }
+
+  @Override
+  public MonitorData getMonitorData()
+  {
+    int backlog = workQueue.size();
+    totalBacklog += backlog;
+    numPolls++;
+    if (backlog > maxBacklog)
+    {
+      maxBacklog = backlog;
+    }
+    long averageBacklog = (long) (1.0 * totalBacklog / numPolls);
+
+    List<String> shardBacklogs = new ArrayList<>();
+    List<String> shardWaitTimes = new ArrayList<>();
+    addShard(-1, PRIORITY_LANE, shardBacklogs, shardWaitTimes);
+    for (int shard = 0; shard < workQueue.getNumShards(); shard++)
+    {
+      addShard(shard, String.valueOf(shard), shardBacklogs, shardWaitTimes);
+    }
+
+    final MonitorData monitorAttrs = new MonitorData(7);
+    monitorAttrs.add(ATTR_CURRENT_BACKLOG, backlog);
+    monitorAttrs.add(ATTR_AVERAGE_BACKLOG, averageBacklog);
+    monitorAttrs.add(ATTR_MAX_BACKLOG, maxBacklog);
+    monitorAttrs.add(ATTR_OPS_SUBMITTED, workQueue.getOpsSubmitted());
+    monitorAttrs.add(ATTR_OPS_REJECTED_QUEUE_FULL, workQueue.getOpsRejectedDueToQueueFull());
+    monitorAttrs.add(ATTR_SHARD_BACKLOG, shardBacklogs);
+    monitorAttrs.add(ATTR_SHARD_WAIT_TIME, shardWaitTimes);
+    return monitorAttrs;
+  }
+
+  /**
+   * Formats the backlog of a shard as "shard=3 backlog=12", and its wait time
+   * histogram as "shard=3 &lt;100us=1200 &lt;1ms=40 ... &gt;=1s=0".
+   */
+  private void addShard(int shard, String shardName, List<String> backlogs, List<String> waitTimes)
+  {
+    backlogs.add("shard=" + shardName + " backlog=" + workQueue.getShardDepth(shard));
+
+    StringBuilder histogram = new StringBuilder("shard=").append(shardName);
+    long[] counts = workQueue.getShardWaitTimes(shard);
+    for (int i = 0; i < counts.length; i++)
+    {
+      histogram.append(' ').append(waitTimeBucketLabels.get(i)).append('=').append(counts[i]);
+    }
+    waitTimes.add(histogram.toString());
+  }
+}
@@ -31,6 +31,7 @@ import java.net.Socket;
 import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
@@ -157,9 +158,12 @@ public final class LDAPClientConnection extends ClientConnection implements
    * Note that the original position and limit values will not be
    * preserved, so if that is important to the caller, then it should
    * record them before calling this method and restore them after it
-   * returns.
+   * returns. <BR>
+   *
+   * Several buffers can be written at once with a gathering write, all of
+   * them being written before any other write to the connection.
    */
-  private class TimeoutWriteByteChannel implements ByteChannel
+  private class TimeoutWriteByteChannel implements ByteChannel, GatheringByteChannel
   {
     /** Synchronize concurrent writes to the same connection. */
     private final Lock writeLock = new ReentrantLock();
@@ -189,19 +193,33 @@ public final class LDAPClientConnection extends ClientConnection implements
 
     @Override
     public int write(ByteBuffer byteBuffer) throws IOException
+    {
+      return (int) write(new ByteBuffer[] { byteBuffer }, 0, 1);
+    }
+
+    @Override
+    public long write(ByteBuffer[] byteBuffers) throws IOException
+    {
+      return write(byteBuffers, 0, byteBuffers.length);
+    }
+
+    @Override
+    public long write(ByteBuffer[] byteBuffers, int offset, int length)
+        throws IOException
     {
       writeLock.lock();
       try
       {
-        int bytesToWrite = byteBuffer.remaining();
-        int bytesWritten = clientChannel.write(byteBuffer);
+        final long totalBytes = remaining(byteBuffers, offset, length);
+        long bytesWritten = clientChannel.write(byteBuffers, offset, length);
         if (bytesWritten > 0 && keepStats)
         {
-          statTracker.updateBytesWritten(bytesWritten);
+          statTracker.updateBytesWritten((int) bytesWritten);
         }
-        if (!byteBuffer.hasRemaining())
+        long bytesToWrite = totalBytes - Math.max(bytesWritten, 0);
+        if (bytesToWrite == 0)
         {
-          return bytesToWrite;
+          return totalBytes;
         }
 
         long startTime = System.currentTimeMillis();
@@ -221,10 +239,10 @@ public final class LDAPClientConnection extends ClientConnection implements
           // The client connection does not provide a selector, so we'll
           // fall back to a more inefficient way that will work without a
           // selector.
-          while (byteBuffer.hasRemaining()
+          while (bytesToWrite > 0
               && System.currentTimeMillis() < stopTime)
           {
-            bytesWritten = clientChannel.write(byteBuffer);
+            bytesWritten = clientChannel.write(byteBuffers, offset, length);
             if (bytesWritten < 0)
             {
               // The client connection has been closed.
@@ -232,17 +250,18 @@ public final class LDAPClientConnection extends ClientConnection implements
             }
             if (bytesWritten > 0 && keepStats)
             {
-              statTracker.updateBytesWritten(bytesWritten);
+              statTracker.updateBytesWritten((int) bytesWritten);
             }
+            bytesToWrite -= bytesWritten;
           }
 
-          if (byteBuffer.hasRemaining())
+          if (bytesToWrite > 0)
           {
             // If we've gotten here, then the write timed out.
             throw new ClosedChannelException();
           }
 
-          return bytesToWrite;
+          return totalBytes;
         }
 
         // Register with the selector for handling write operations.
@@ -251,7 +270,7 @@ public final class LDAPClientConnection extends ClientConnection implements
         try
         {
           selector.select(waitTime);
-          while (byteBuffer.hasRemaining())
+          while (bytesToWrite > 0)
           {
             long currentTime = System.currentTimeMillis();
             if (currentTime >= stopTime)
@@ -267,7 +286,7 @@ public final class LDAPClientConnection extends ClientConnection implements
               SelectionKey k = iterator.next();
               if (k.isWritable())
               {
-                bytesWritten = clientChannel.write(byteBuffer);
+                bytesWritten = clientChannel.write(byteBuffers, offset, length);
                 if (bytesWritten < 0)
                 {
                   // The client connection has been closed.
@@ -275,20 +294,21 @@ public final class LDAPClientConnection extends ClientConnection implements
                 }
                 if (bytesWritten > 0 && keepStats)
                 {
-                  statTracker.updateBytesWritten(bytesWritten);
+                  statTracker.updateBytesWritten((int) bytesWritten);
                 }
+                bytesToWrite -= bytesWritten;
 
                 iterator.remove();
               }
             }
 
-            if (byteBuffer.hasRemaining())
+            if (bytesToWrite > 0)
             {
               selector.select(waitTime);
             }
           }
 
-          return bytesToWrite;
+          return totalBytes;
         }
         finally
         {
@@ -304,6 +324,16 @@ public final class LDAPClientConnection extends ClientConnection implements
         writeLock.unlock();
       }
     }
+
+    private long remaining(ByteBuffer[] byteBuffers, int offset, int length)
+    {
+      long remaining = 0;
+      for (int i = offset; i < offset + length; i++)
+      {
+        remaining += byteBuffers[i].remaining();
+      }
+      return remaining;
+    }
   }
 
   /** The tracer object for the debug logger. */
@@ -354,6 +384,17 @@ public final class LDAPClientConnection extends ClientConnection implements
     return holder;
   }
 
+  /** Cached search result entry encoder: a thread can only write to one connection at a time. */
+  private static final ThreadLocal<SearchResultEntryEncoder> ENTRY_ENCODER_CACHE =
+      new ThreadLocal<SearchResultEntryEncoder>()
+  {
+    @Override
+    protected SearchResultEntryEncoder initialValue()
+    {
+      return new SearchResultEntryEncoder();
+    }
+  };
+
   /** The time that the last operation was completed. */
   private final AtomicLong lastCompletionTime;
   /** The next operation ID that should be used for this connection. */
@@ -410,7 +451,7 @@ public final class LDAPClientConnection extends ClientConnection implements
   /** The socket channel with which this client connection is associated. */
   private final SocketChannel clientChannel;
   /** The byte channel used for blocking writes with time out. */
-  private final ByteChannel timeoutClientChannel;
+  private final TimeoutWriteByteChannel timeoutClientChannel;
 
   /** The string representation of the address of the client. */
   private final String clientAddress;
@@ -837,6 +878,17 @@ public final class LDAPClientConnection extends ClientConnection implements
   public void sendSearchEntry(SearchOperation searchOperation,
       SearchResultEntry searchEntry)
   {
+    // Entries without controls sent in clear over LDAPv3 are the bulk of
+    // the search traffic: encode them directly into direct buffers.
+    if (ldapVersion == 3
+        && tlsActiveProvider == null
+        && saslActiveProvider == null
+        && searchEntry.getControls().isEmpty()
+        && sendSearchEntryDirectly(searchOperation.getMessageID(), searchEntry))
+    {
+      return;
+    }
+
     SearchResultEntryProtocolOp protocolOp =
         new SearchResultEntryProtocolOp(searchEntry, ldapVersion);
 
@@ -844,6 +896,63 @@ public final class LDAPClientConnection extends ClientConnection implements
         protocolOp, searchEntry.getControls()));
   }
 
+  /**
+   * Sends the provided search result entry to the client, encoding it
+   * directly into pooled direct buffers written with a single gathering
+   * write, bypassing the security layers.
+   *
+   * @param messageID
+   *          The message ID of the search operation.
+   * @param searchEntry
+   *          The search result entry to be sent to the client.
+   * @return {@code true} if the entry has been handled, or {@code false} if it
+   *         is too large to be encoded directly and nothing has been sent.
+   */
+  private boolean sendSearchEntryDirectly(int messageID,
+      SearchResultEntry searchEntry)
+  {
+    final SearchResultEntryEncoder encoder = ENTRY_ENCODER_CACHE.get();
+    try
+    {
+      ByteBuffer[] buffers = encoder.encode(messageID, searchEntry);
+      if (buffers == null)
+      {
+        return false;
+      }
+      timeoutClientChannel.write(buffers);
+
+      if (logger.isTraceEnabled())
+      {
+        logger.trace("LDAPMessage=%s", new LDAPMessage(messageID,
+            new SearchResultEntryProtocolOp(searchEntry, ldapVersion)));
+      }
+
+      if (keepStats)
+      {
+        statTracker.updateMessageWritten(OP_TYPE_SEARCH_RESULT_ENTRY, messageID);
+        statTracker.updateSearchResultEntryEncoded(
+            encoder.getBuffersAllocated(), encoder.getBytesCopied());
+      }
+    }
+    catch (ClosedChannelException e)
+    {
+      logger.traceException(e);
+      disconnect(DisconnectReason.IO_ERROR, false,
+          ERR_IO_ERROR_ON_CLIENT_CONNECTION.get(getExceptionMessage(e)));
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      disconnect(DisconnectReason.SERVER_ERROR, false,
+          ERR_UNEXPECTED_EXCEPTION_ON_CLIENT_CONNECTION.get(getExceptionMessage(e)));
+    }
+    finally
+    {
+      encoder.release();
+    }
+    return true;
+  }
+
   /**
    * Sends the provided search result reference to the client.
    *
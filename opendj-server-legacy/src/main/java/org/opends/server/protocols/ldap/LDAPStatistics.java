@@ -89,6 +89,9 @@ public class LDAPStatistics extends MonitorProvider<MonitorProviderCfg>
   private AtomicLong searchResultReferences = new AtomicLong(0);
   private AtomicLong searchResultsDone = new AtomicLong(0);
   private AtomicLong unbindRequests = new AtomicLong(0);
+  private AtomicLong searchResultEntriesEncodedDirectly = new AtomicLong(0);
+  private AtomicLong responseBuffersAllocated = new AtomicLong(0);
+  private AtomicLong responseBytesCopied = new AtomicLong(0);
 
 
   /** The instance name for this monitor provider instance. */
@@ -199,6 +202,9 @@ public class LDAPStatistics extends MonitorProvider<MonitorProviderCfg>
     attrs.add("searchResultReferences", searchResultReferences);
     attrs.add("searchResultsDone", searchResultsDone);
     attrs.add("unbindRequests", unbindRequests);
+    attrs.add("searchResultEntriesEncodedDirectly", searchResultEntriesEncodedDirectly);
+    attrs.add("responseBuffersAllocated", responseBuffersAllocated);
+    attrs.add("responseBytesCopied", responseBytesCopied);
 
     // adds
     attrs.add("ds-mon-add-operations-total-count", addOperationCount);
@@ -277,6 +283,9 @@ public class LDAPStatistics extends MonitorProvider<MonitorProviderCfg>
       searchResultReferences.set(0);
       searchResultsDone.set(0);
       unbindRequests.set(0);
+      searchResultEntriesEncodedDirectly.set(0);
+      responseBuffersAllocated.set(0);
+      responseBytesCopied.set(0);
 
       addOperationCount.set(0);
       addOperationTime.set(0);
@@ -475,6 +484,22 @@ public class LDAPStatistics extends MonitorProvider<MonitorProviderCfg>
       updateMessageWritten(message.getProtocolOp().getType(), message.getMessageID());
   }
 
+  /**
+   * Updates the appropriate set of counters to indicate that a search
+   * result entry has been encoded directly into direct buffers.
+   *
+   * @param buffersAllocated
+   *          The number of direct buffers allocated to encode the entry.
+   * @param bytesCopied
+   *          The number of bytes copied into the direct buffers.
+   */
+  public void updateSearchResultEntryEncoded(int buffersAllocated, int bytesCopied)
+  {
+      searchResultEntriesEncodedDirectly.getAndIncrement();
+      responseBuffersAllocated.getAndAdd(buffersAllocated);
+      responseBytesCopied.getAndAdd(bytesCopied);
+  }
+
   /**
    * Updates the appropriate set of counters to indicate that an
    * operation was abandoned without sending a response to the client.
@@ -809,6 +834,40 @@ public class LDAPStatistics extends MonitorProvider<MonitorProviderCfg>
       return unbindRequests.get();
   }
 
+  /**
+   * Retrieves the number of search result entries that have been encoded
+   * directly into direct buffers.
+   *
+   * @return The number of search result entries that have been encoded
+   *         directly into direct buffers.
+   */
+  public long getSearchResultEntriesEncodedDirectly()
+  {
+      return searchResultEntriesEncodedDirectly.get();
+  }
+
+  /**
+   * Retrieves the number of direct buffers that have been allocated to
+   * encode search result entries, because none was available in the pool.
+   *
+   * @return The number of direct buffers that have been allocated.
+   */
+  public long getResponseBuffersAllocated()
+  {
+      return responseBuffersAllocated.get();
+  }
+
+  /**
+   * Retrieves the number of bytes that have been copied into direct buffers
+   * to encode search result entries.
+   *
+   * @return The number of bytes that have been copied into direct buffers.
+   */
+  public long getResponseBytesCopied()
+  {
+      return responseBytesCopied.get();
+  }
+
   /**
    * Update the operation counters and times depending on the OperationType.
    * @param type of the operation.
@@ -0,0 +1,371 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.protocols.ldap;
+
+import static org.opends.server.protocols.ldap.LDAPConstants.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.forgerock.opendj.io.ASN1;
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.SearchResultEntry;
+import org.opends.server.util.StaticUtils;
+
+/**
+ * Encodes LDAPv3 search result entry messages directly into pooled direct
+ * byte buffers.
+ * <p>
+ * The generic {@link LDAPMessage#write(org.forgerock.opendj.io.ASN1Writer)}
+ * path buffers each nested ASN.1 sequence before writing its length, so the
+ * attribute values are copied once per nesting level, then once more into the
+ * heap buffer written to the socket, which the JDK copies again into a
+ * temporary direct buffer. This encoder computes all the lengths first, then
+ * copies the attribute values straight from the entry into direct buffers,
+ * which can be written to the socket with a single gathering write.
+ * <p>
+ * The encoder is not thread safe: it keeps the buffers of the last encoded
+ * message until they are released, so each thread uses its own instance.
+ */
+final class SearchResultEntryEncoder
+{
+  /** The size of the pooled direct buffers. */
+  static final int BUFFER_SIZE = 8 * 1024;
+  /** The maximum number of direct buffers kept in the pool. */
+  private static final int MAX_POOLED_BUFFERS = 256;
+  /**
+   * The maximum length of the messages encoded by this encoder. Larger
+   * messages would need many buffers that the pool could not keep, so they
+   * are left to the generic path.
+   */
+  static final int MAX_MESSAGE_LENGTH = 16 * BUFFER_SIZE;
+
+  /** The direct buffers shared by all the encoders. */
+  private static final BlockingQueue<ByteBuffer> BUFFER_POOL = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+
+  /** The encoded attribute descriptions of the entry being encoded. */
+  private final List<byte[]> descriptions = new ArrayList<>();
+  /**
+   * The lengths computed by the first pass, for each attribute: the length of
+   * the attribute sequence content and the length of the value set content.
+   */
+  private int[] lengths = new int[64];
+  /** The buffers holding the last encoded message. */
+  private final List<ByteBuffer> buffers = new ArrayList<>();
+  private ByteBuffer current;
+  private int currentIndex;
+  private int buffersAllocated;
+  private int bytesCopied;
+
+  /**
+   * Encodes the provided search result entry, without its controls, as an
+   * LDAPv3 message.
+   *
+   * @param messageID
+   *          The message ID of the search result entry message.
+   * @param entry
+   *          The search result entry to encode.
+   * @return The buffers containing the encoded message, ready to be written,
+   *         or {@code null} if the message is too large to be encoded by
+   *         this encoder. The buffers must be handed back with
+   *         {@link #release()} once written.
+   */
+  ByteBuffer[] encode(int messageID, SearchResultEntry entry)
+  {
+    // First pass: compute the lengths of all the nested sequences.
+    int attributesLength = 0;
+    for (List<Attribute> attrList : entry.getUserAttributes().values())
+    {
+      for (Attribute a : attrList)
+      {
+        attributesLength += attributeLength(a);
+      }
+    }
+    for (List<Attribute> attrList : entry.getOperationalAttributes().values())
+    {
+      for (Attribute a : attrList)
+      {
+        attributesLength += attributeLength(a);
+      }
+    }
+
+    byte[] dn = StaticUtils.getBytes(entry.getName().toString());
+    int opLength = elementLength(dn.length) + elementLength(attributesLength);
+    int messageLength = elementLength(integerLength(messageID)) + elementLength(opLength);
+    int totalLength = elementLength(messageLength);
+    if (totalLength > MAX_MESSAGE_LENGTH)
+    {
+      descriptions.clear();
+      return null;
+    }
+
+    // Second pass: write the message into as many buffers as needed.
+    buffersAllocated = 0;
+    bytesCopied = 0;
+    for (int remaining = totalLength; remaining > 0; remaining -= BUFFER_SIZE)
+    {
+      ByteBuffer buffer = BUFFER_POOL.poll();
+      if (buffer == null)
+      {
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        buffersAllocated++;
+      }
+      buffers.add(buffer);
+    }
+    currentIndex = 0;
+    current = buffers.get(0);
+
+    writeHeader(ASN1.UNIVERSAL_SEQUENCE_TYPE, messageLength);
+    writeInteger(messageID);
+    writeHeader(OP_TYPE_SEARCH_RESULT_ENTRY, opLength);
+    writeHeader(ASN1.UNIVERSAL_OCTET_STRING_TYPE, dn.length);
+    writeBytes(dn);
+    writeHeader(ASN1.UNIVERSAL_SEQUENCE_TYPE, attributesLength);
+    int index = 0;
+    for (List<Attribute> attrList : entry.getUserAttributes().values())
+    {
+      for (Attribute a : attrList)
+      {
+        writeAttribute(a, index++);
+      }
+    }
+    for (List<Attribute> attrList : entry.getOperationalAttributes().values())
+    {
+      for (Attribute a : attrList)
+      {
+        writeAttribute(a, index++);
+      }
+    }
+    descriptions.clear();
+
+    ByteBuffer[] result = new ByteBuffer[buffers.size()];
+    for (int i = 0; i < result.length; i++)
+    {
+      result[i] = buffers.get(i);
+      result[i].flip();
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of direct buffers which had to be allocated to encode
+   * the last message, because the pool was empty.
+   *
+   * @return The number of direct buffers allocated for the last message.
+   */
+  int getBuffersAllocated()
+  {
+    return buffersAllocated;
+  }
+
+  /**
+   * Returns the number of bytes copied into the direct buffers to encode the
+   * last message: each byte of the message is copied exactly once.
+   *
+   * @return The number of bytes copied for the last message.
+   */
+  int getBytesCopied()
+  {
+    return bytesCopied;
+  }
+
+  /** Hands the buffers of the last encoded message back to the pool. */
+  void release()
+  {
+    for (ByteBuffer buffer : buffers)
+    {
+      buffer.clear();
+      // Buffers which do not fit in the pool are left to the garbage collector
+      BUFFER_POOL.offer(buffer);
+    }
+    buffers.clear();
+    current = null;
+  }
+
+  private int attributeLength(Attribute a)
+  {
+    byte[] description = StaticUtils.getBytes(a.getAttributeDescription().toString());
+    int setLength = 0;
+    for (ByteString value : a)
+    {
+      setLength += elementLength(value.length());
+    }
+    int attributeLength = elementLength(description.length) + elementLength(setLength);
+
+    int index = descriptions.size();
+    if (lengths.length < 2 * (index + 1))
+    {
+      int[] newLengths = new int[2 * lengths.length];
+      System.arraycopy(lengths, 0, newLengths, 0, lengths.length);
+      lengths = newLengths;
+    }
+    descriptions.add(description);
+    lengths[2 * index] = attributeLength;
+    lengths[2 * index + 1] = setLength;
+    return elementLength(attributeLength);
+  }
+
+  private void writeAttribute(Attribute a, int index)
+  {
+    byte[] description = descriptions.get(index);
+    writeHeader(ASN1.UNIVERSAL_SEQUENCE_TYPE, lengths[2 * index]);
+    writeHeader(ASN1.UNIVERSAL_OCTET_STRING_TYPE, description.length);
+    writeBytes(description);
+    writeHeader(ASN1.UNIVERSAL_SET_TYPE, lengths[2 * index + 1]);
+    for (ByteString value : a)
+    {
+      writeHeader(ASN1.UNIVERSAL_OCTET_STRING_TYPE, value.length());
+      writeValue(value);
+    }
+  }
+
+  /**
+   * Returns the length of a BER element, including its type and length, whose
+   * content has the provided length.
+   */
+  private static int elementLength(int contentLength)
+  {
+    return 1 + lengthLength(contentLength) + contentLength;
+  }
+
+  /** Returns the length of the BER encoding of the provided length. */
+  private static int lengthLength(int length)
+  {
+    if (length < 128)
+    {
+      return 1;
+    }
+    else if ((length & 0x000000FF) == length)
+    {
+      return 2;
+    }
+    else if ((length & 0x0000FFFF) == length)
+    {
+      return 3;
+    }
+    else if ((length & 0x00FFFFFF) == length)
+    {
+      return 4;
+    }
+    return 5;
+  }
+
+  /** Returns the length of the BER encoding of the provided integer content. */
+  private static int integerLength(int value)
+  {
+    if ((value < 0 && (value & 0xFFFFFF80) == 0xFFFFFF80) || (value & 0x0000007F) == value)
+    {
+      return 1;
+    }
+    else if ((value < 0 && (value & 0xFFFF8000) == 0xFFFF8000) || (value & 0x00007FFF) == value)
+    {
+      return 2;
+    }
+    else if ((value < 0 && (value & 0xFF800000) == 0xFF800000) || (value & 0x007FFFFF) == value)
+    {
+      return 3;
+    }
+    return 4;
+  }
+
+  private void writeHeader(byte type, int length)
+  {
+    writeByte(type);
+    int lengthLength = lengthLength(length);
+    if (lengthLength > 1)
+    {
+      writeByte((byte) (0x80 | (lengthLength - 1)));
+      for (int shift = 8 * (lengthLength - 2); shift >= 0; shift -= 8)
+      {
+        writeByte((byte) (length >> shift));
+      }
+    }
+    else
+    {
+      writeByte((byte) length);
+    }
+  }
+
+  private void writeInteger(int value)
+  {
+    int length = integerLength(value);
+    writeHeader(ASN1.UNIVERSAL_INTEGER_TYPE, length);
+    for (int shift = 8 * (length - 1); shift >= 0; shift -= 8)
+    {
+      writeByte((byte) (value >> shift));
+    }
+  }
+
+  private void writeByte(byte b)
+  {
+    if (!current.hasRemaining())
+    {
+      nextBuffer();
+    }
+    current.put(b);
+    bytesCopied++;
+  }
+
+  private void writeBytes(byte[] bytes)
+  {
+    int offset = 0;
+    while (offset < bytes.length)
+    {
+      if (!current.hasRemaining())
+      {
+        nextBuffer();
+      }
+      int length = Math.min(current.remaining(), bytes.length - offset);
+      current.put(bytes, offset, length);
+      offset += length;
+    }
+    bytesCopied += bytes.length;
+  }
+
+  private void writeValue(ByteString value)
+  {
+    int length = value.length();
+    if (length <= current.remaining())
+    {
+      value.copyTo(current);
+    }
+    else
+    {
+      // The value spans several buffers
+      int offset = 0;
+      while (offset < length)
+      {
+        if (!current.hasRemaining())
+        {
+          nextBuffer();
+        }
+        int end = Math.min(length, offset + current.remaining());
+        value.subSequence(offset, end).copyTo(current);
+        offset = end;
+      }
+    }
+    bytesCopied += length;
+  }
+
+  private void nextBuffer()
+  {
+    current = buffers.get(++currentIndex);
+  }
+}
@@ -0,0 +1,365 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.common;
+
+import java.util.concurrent.TimeUnit;
+
+import net.jcip.annotations.GuardedBy;
+
+import org.opends.server.api.MonitorData;
+
+/**
+ * The window of updates that a replication peer accepts to receive from a
+ * remote peer, granted to it by sending {@code WindowMsg} credits.
+ * <p>
+ * The window bounds the number of updates sent by the remote peer and not yet
+ * consumed locally, whether they are still in flight or queued waiting to be
+ * processed. Consumed updates are credited back to the remote peer by batches
+ * of at least half the window.
+ * <p>
+ * A fixed window always has the configured window size. An adaptive window
+ * starts small and follows the bandwidth-delay product of the link, estimated
+ * from the rate at which the updates are consumed and from the round trip time.
+ * The remote peer is known to have waited for credits when, once it used all
+ * the credits it had before a grant, the next update arrives after a pause
+ * noticeably longer than the usual gap between updates. The time between the
+ * grant and that update is then a round trip time sample.
+ * <ul>
+ * <li>it grows multiplicatively when the remote peer waited for credits while
+ * few updates are queued locally: the window, not the consumer, limits the
+ * throughput;</li>
+ * <li>it shrinks multiplicatively, at most once per round trip, while most of
+ * the window is queued locally: the consumer cannot keep up and the queued
+ * updates only consume memory. It never shrinks below twice the
+ * bandwidth-delay product, which keeps the consumer busy while credits are in
+ * flight.</li>
+ * </ul>
+ * An adaptive window never exceeds the configured window size. Shrinking the
+ * window only withholds credits: the remote peer keeps the credits it already
+ * has.
+ * <p>
+ * This class is thread safe.
+ */
+public final class FlowControlWindow
+{
+  /** The minimum size of an adaptive window. */
+  static final int MIN_ADAPTIVE_SIZE = 16;
+  /** The initial size of an adaptive window. */
+  static final int INITIAL_ADAPTIVE_SIZE = 128;
+  /** The minimum duration of the samples of the consumption rate. */
+  private static final long RATE_SAMPLING_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final int maxSize;
+  private final boolean adaptive;
+
+  /** The current size of the window. */
+  @GuardedBy("this")
+  private int size;
+  /** The credits granted to the remote peer, minus the updates received. */
+  @GuardedBy("this")
+  private int available;
+  /** The number of updates received and not consumed yet. */
+  @GuardedBy("this")
+  private int queued;
+  /** When the credits of the current round trip time sample were granted, 0 if no sample is in progress. */
+  @GuardedBy("this")
+  private long grantTime;
+  /** The number of updates to receive before the first update sent with the credits of the current sample. */
+  @GuardedBy("this")
+  private int updatesBeforeGrantedCredits;
+  /** When the remote peer used all the credits it had before the grant of the current sample. */
+  @GuardedBy("this")
+  private long creditsExhaustedTime;
+  @GuardedBy("this")
+  private long lastReceptionTime;
+  /** The smoothed gap between the receptions of consecutive updates, 0 until measured. */
+  @GuardedBy("this")
+  private long receptionGapNanos;
+  @GuardedBy("this")
+  private long waitsForCredits;
+  @GuardedBy("this")
+  private long lastDecreaseTime;
+  /** The smoothed round trip time, 0 until measured. */
+  @GuardedBy("this")
+  private long rttNanos;
+  /** The smoothed number of updates consumed per second. */
+  @GuardedBy("this")
+  private double consumptionRate;
+  @GuardedBy("this")
+  private long rateSampleStart;
+  @GuardedBy("this")
+  private int rateSampleCount;
+  @GuardedBy("this")
+  private long consumedCount;
+
+  /**
+   * Creates a window.
+   *
+   * @param maxSize
+   *          The configured window size, which is the size of a fixed window
+   *          and the maximum size of an adaptive window.
+   * @param adaptive
+   *          Whether the size of the window adapts to the link and to the
+   *          consumer.
+   */
+  public FlowControlWindow(int maxSize, boolean adaptive)
+  {
+    this.maxSize = maxSize;
+    this.adaptive = adaptive;
+    reset();
+  }
+
+  /**
+   * Resets the window for a new session with the remote peer, which starts
+   * with {@link #getInitialSize()} credits.
+   */
+  public synchronized void reset()
+  {
+    size = getInitialSize();
+    available = size;
+    queued = 0;
+    grantTime = 0;
+    lastReceptionTime = 0;
+    receptionGapNanos = 0;
+    lastDecreaseTime = System.nanoTime();
+    rttNanos = 0;
+    consumptionRate = 0;
+    rateSampleStart = System.nanoTime();
+    rateSampleCount = 0;
+  }
+
+  /**
+   * Returns the size of the window at the start of a session, to be sent to
+   * the remote peer in the start messages.
+   *
+   * @return the initial size of the window
+   */
+  public int getInitialSize()
+  {
+    return adaptive ? Math.min(maxSize, INITIAL_ADAPTIVE_SIZE) : maxSize;
+  }
+
+  /**
+   * Returns the configured window size.
+   *
+   * @return the configured window size
+   */
+  public int getMaxSize()
+  {
+    return maxSize;
+  }
+
+  /**
+   * Returns whether the size of the window adapts to the link and to the
+   * consumer.
+   *
+   * @return {@code true} if the window is adaptive
+   */
+  public boolean isAdaptive()
+  {
+    return adaptive;
+  }
+
+  /**
+   * Returns the current size of the window.
+   *
+   * @return the current size of the window
+   */
+  public synchronized int getSize()
+  {
+    return size;
+  }
+
+  /**
+   * Returns the credits granted to the remote peer and not used yet, including
+   * the updates in flight.
+   *
+   * @return the credits available to the remote peer
+   */
+  public synchronized int getAvailable()
+  {
+    return available;
+  }
+
+  /** Records the reception of an update from the remote peer. */
+  public synchronized void updateReceived()
+  {
+    available--;
+    queued++;
+
+    final long now = System.nanoTime();
+    if (grantTime != 0)
+    {
+      if (updatesBeforeGrantedCredits > 0)
+      {
+        updatesBeforeGrantedCredits--;
+        if (updatesBeforeGrantedCredits == 0)
+        {
+          creditsExhaustedTime = now;
+        }
+      }
+      else
+      {
+        // first update sent with the granted credits
+        final long pause = now - creditsExhaustedTime;
+        if (receptionGapNanos != 0 && pause > 2 * receptionGapNanos)
+        {
+          remotePeerWaitedForCredits(now - grantTime);
+        }
+        grantTime = 0;
+      }
+    }
+    if (lastReceptionTime != 0)
+    {
+      final long gap = now - lastReceptionTime;
+      receptionGapNanos = receptionGapNanos == 0 ? gap : (7 * receptionGapNanos + gap) / 8;
+    }
+    lastReceptionTime = now;
+  }
+
+  @GuardedBy("this")
+  private void remotePeerWaitedForCredits(long rtt)
+  {
+    waitsForCredits++;
+    rttNanos = rttNanos == 0 ? rtt : (7 * rttNanos + rtt) / 8;
+    if (adaptive && queued <= size / 4)
+    {
+      // the window, not the consumer, limits the throughput
+      size = Math.min(maxSize, size + Math.max(1, size / 2));
+    }
+  }
+
+  /**
+   * Records the consumption of received updates, and returns the credits to
+   * grant to the remote peer. The caller must send them in a
+   * {@code WindowMsg}.
+   *
+   * @param count
+   *          The number of updates consumed.
+   * @return the credits to grant to the remote peer, 0 if none must be granted
+   *         yet
+   */
+  public synchronized int updatesConsumed(int count)
+  {
+    queued = Math.max(0, queued - count);
+    consumedCount += count;
+    sampleConsumptionRate(count);
+    return grantCredits();
+  }
+
+  /**
+   * Records that a received update was discarded without being consumed, for
+   * example because processing it failed. The credit it used is granted again
+   * with the next credits.
+   */
+  public synchronized void updateDiscarded()
+  {
+    queued = Math.max(0, queued - 1);
+  }
+
+  /**
+   * Returns the credits to grant to the remote peer without consuming updates,
+   * for example when the remote peer believes that its window is closed.
+   *
+   * @return the credits to grant to the remote peer, 0 if none must be granted
+   *         yet
+   */
+  public synchronized int checkCredits()
+  {
+    return grantCredits();
+  }
+
+  @GuardedBy("this")
+  private int grantCredits()
+  {
+    if (adaptive)
+    {
+      adapt();
+    }
+    final int credits = size - available - queued;
+    if (credits < Math.max(1, size / 2))
+    {
+      return 0;
+    }
+    if (grantTime == 0)
+    {
+      // start a round trip time sample
+      grantTime = System.nanoTime();
+      updatesBeforeGrantedCredits = Math.max(0, available);
+      creditsExhaustedTime = updatesBeforeGrantedCredits == 0 ? lastReceptionTime : 0;
+    }
+    available += credits;
+    return credits;
+  }
+
+  @GuardedBy("this")
+  private void adapt()
+  {
+    final long now = System.nanoTime();
+    if (queued > size * 3 / 4 && now - lastDecreaseTime >= Math.max(rttNanos, RATE_SAMPLING_NANOS))
+    {
+      // the consumer cannot keep up
+      size = Math.max(getMinAdaptiveSize(), size * 3 / 4);
+      lastDecreaseTime = now;
+    }
+  }
+
+  @GuardedBy("this")
+  private int getMinAdaptiveSize()
+  {
+    final long bandwidthDelayProduct = (long) (consumptionRate * rttNanos / TimeUnit.SECONDS.toNanos(1));
+    return (int) Math.min(maxSize, Math.max(MIN_ADAPTIVE_SIZE, 2 * bandwidthDelayProduct));
+  }
+
+  @GuardedBy("this")
+  private void sampleConsumptionRate(int count)
+  {
+    rateSampleCount += count;
+    final long now = System.nanoTime();
+    final long elapsed = now - rateSampleStart;
+    if (elapsed >= RATE_SAMPLING_NANOS)
+    {
+      final double sample = rateSampleCount * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+      consumptionRate = consumptionRate == 0 ? sample : (7 * consumptionRate + sample) / 8;
+      rateSampleStart = now;
+      rateSampleCount = 0;
+    }
+  }
+
+  /**
+   * Adds the state of the window to the provided monitor data.
+   *
+   * @param attributes
+   *          The monitor data to add the state of the window to.
+   */
+  public synchronized void addMonitorData(MonitorData attributes)
+  {
+    attributes.add("adaptive-rcv-window", adaptive);
+    attributes.add("rcv-window-size", size);
+    attributes.add("rcv-window-queued-updates", queued);
+    attributes.add("rcv-window-rtt-micros", TimeUnit.NANOSECONDS.toMicros(rttNanos));
+    attributes.add("rcv-window-waits-for-credits", waitsForCredits);
+    attributes.add("rcv-window-consumed-updates", consumedCount);
+    attributes.add("rcv-window-consumed-updates-per-second", (long) consumptionRate);
+  }
+
+  @Override
+  public synchronized String toString()
+  {
+    return getClass().getSimpleName() + "(adaptive=" + adaptive + ", size=" + size + ", maxSize=" + maxSize
+        + ", available=" + available + ", queued=" + queued + ")";
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.replication.plugin;
 
@@ -21,6 +22,7 @@ import static org.opends.messages.ReplicationMessages.*;
 import static org.opends.server.replication.plugin.HistAttrModificationKey.*;
 import static org.opends.server.util.CollectionUtils.*;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -516,6 +518,23 @@ public class EntryHistorical
    * @return The constructed Historical information object
    */
   public static EntryHistorical newInstanceFromEntry(Entry entry)
+  {
+    return newInstanceFromEntry(entry, Collections.<ByteString, HistoricalAttributeValue> emptyMap(), null);
+  }
+
+  /**
+   * Construct an Historical object from the provided entry by reading the historical attribute,
+   * without parsing again the historical values already parsed for a previous version of the entry.
+   * Return an empty object when the entry does not contain any historical attribute.
+   *
+   * @param entry The entry which historical information must be loaded
+   * @param previousValues The historical values already parsed, keyed by their encoded form
+   * @param parsedValues Where to put the historical values of the entry, keyed by their encoded form,
+   *                     can be null
+   * @return The constructed Historical information object
+   */
+  static EntryHistorical newInstanceFromEntry(Entry entry,
+      Map<ByteString, HistoricalAttributeValue> previousValues, Map<ByteString, HistoricalAttributeValue> parsedValues)
   {
     // Read the DB historical attribute from the entry
     Iterable<Attribute> histAttrWithOptionsFromEntry = getHistoricalAttr(entry);
@@ -541,7 +560,15 @@ public class EntryHistorical
         for (ByteString histAttrValueFromEntry : histAttrFromEntry)
         {
           // From each value of the hist attr, create an object
-          final HistoricalAttributeValue histVal = new HistoricalAttributeValue(histAttrValueFromEntry.toString());
+          HistoricalAttributeValue histVal = previousValues.get(histAttrValueFromEntry);
+          if (histVal == null)
+          {
+            histVal = new HistoricalAttributeValue(histAttrValueFromEntry.toString());
+          }
+          if (parsedValues != null)
+          {
+            parsedValues.put(histAttrValueFromEntry, histVal);
+          }
           final CSN csn = histVal.getCSN();
 
           // update the oldest CSN stored in the new entry historical
@@ -0,0 +1,192 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.plugin;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jcip.annotations.GuardedBy;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.schema.Schema;
+import org.opends.server.api.MonitorData;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.types.Entry;
+
+/**
+ * Caches the parsed historical values of the most recently modified entries of
+ * a replication domain.
+ * <p>
+ * Every modify of a replicated entry loads its historical information from the
+ * {@code ds-sync-hist} attribute, and each modify only adds or replaces a few
+ * of its values. Loading the historical information of an entry therefore only
+ * parses the values which were not already parsed the previous time it was
+ * loaded. The historical information built from the cached values is the same
+ * as the one built by {@link EntryHistorical#newInstanceFromEntry(Entry)},
+ * whatever changed in the entry in the meantime.
+ * <p>
+ * The cache is bounded by the number of historical values it holds, and
+ * evicts the least recently loaded entries first. It is cleared when the
+ * schema changes, because the parsed values reference attribute types.
+ * <p>
+ * This class is thread safe.
+ */
+final class EntryHistoricalCache
+{
+  private final int maxValues;
+  /** The parsed historical values of each entry, keyed by their encoded form, in access order. */
+  @GuardedBy("this")
+  private final LinkedHashMap<DN, Map<ByteString, HistoricalAttributeValue>> parsedValues =
+      new LinkedHashMap<>(16, 0.75f, true);
+  @GuardedBy("this")
+  private int valuesCount;
+  /** The schema the cached values were parsed with. */
+  @GuardedBy("this")
+  private Schema schema;
+
+  private final AtomicLong reusedValuesCount = new AtomicLong();
+  private final AtomicLong parsedValuesCount = new AtomicLong();
+
+  /**
+   * Creates a cache.
+   *
+   * @param maxValues
+   *          The maximum number of historical values held by the cache.
+   */
+  EntryHistoricalCache(int maxValues)
+  {
+    this.maxValues = maxValues;
+  }
+
+  /**
+   * Construct an Historical object from the provided entry by reading the
+   * historical attribute, like
+   * {@link EntryHistorical#newInstanceFromEntry(Entry)} does.
+   *
+   * @param entry
+   *          The entry which historical information must be loaded
+   * @return The constructed Historical information object
+   */
+  EntryHistorical newInstanceFromEntry(Entry entry)
+  {
+    final DN dn = entry.getName();
+    Map<ByteString, HistoricalAttributeValue> previousValues;
+    synchronized (this)
+    {
+      final Schema currentSchema = DirectoryServer.getInstance().getServerContext().getSchema();
+      if (schema != currentSchema)
+      {
+        clear();
+        schema = currentSchema;
+      }
+      previousValues = parsedValues.remove(dn);
+      if (previousValues != null)
+      {
+        valuesCount -= previousValues.size();
+      }
+      else
+      {
+        previousValues = new HashMap<>(0);
+      }
+    }
+
+    final Map<ByteString, HistoricalAttributeValue> values = new HashMap<>();
+    final EntryHistorical historical = EntryHistorical.newInstanceFromEntry(entry, previousValues, values);
+
+    int reused = 0;
+    for (Map.Entry<ByteString, HistoricalAttributeValue> mapEntry : values.entrySet())
+    {
+      if (previousValues.get(mapEntry.getKey()) == mapEntry.getValue())
+      {
+        reused++;
+      }
+    }
+    reusedValuesCount.addAndGet(reused);
+    parsedValuesCount.addAndGet(values.size() - reused);
+
+    if (!values.isEmpty() && values.size() <= maxValues)
+    {
+      synchronized (this)
+      {
+        final Map<ByteString, HistoricalAttributeValue> concurrentValues = parsedValues.put(dn, values);
+        valuesCount += values.size() - (concurrentValues != null ? concurrentValues.size() : 0);
+        evict();
+      }
+    }
+    return historical;
+  }
+
+  @GuardedBy("this")
+  private void evict()
+  {
+    for (Iterator<Map<ByteString, HistoricalAttributeValue>> it = parsedValues.values().iterator();
+        valuesCount > maxValues && it.hasNext();)
+    {
+      valuesCount -= it.next().size();
+      it.remove();
+    }
+  }
+
+  /** Removes all the entries from the cache. */
+  synchronized void clear()
+  {
+    parsedValues.clear();
+    valuesCount = 0;
+  }
+
+  /**
+   * Returns the number of historical values which did not need to be parsed
+   * because they were found in the cache.
+   *
+   * @return the number of historical values reused from the cache
+   */
+  long getReusedValuesCount()
+  {
+    return reusedValuesCount.get();
+  }
+
+  /**
+   * Returns the number of historical values which were parsed because they
+   * were not found in the cache.
+   *
+   * @return the number of parsed historical values
+   */
+  long getParsedValuesCount()
+  {
+    return parsedValuesCount.get();
+  }
+
+  /**
+   * Adds the statistics of this cache to the provided monitor data.
+   *
+   * @param attributes
+   *          The monitor data to add the statistics of this cache to.
+   */
+  void addMonitorData(MonitorData attributes)
+  {
+    synchronized (this)
+    {
+      attributes.add("historical-cache-entries", parsedValues.size());
+      attributes.add("historical-cache-values", valuesCount);
+    }
+    attributes.add("historical-cache-reused-values", getReusedValuesCount());
+    attributes.add("historical-cache-parsed-values", getParsedValuesCount());
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.replication.plugin;
 
@@ -309,6 +310,10 @@ public final class LDAPReplicationDomain extends ReplicationDomain
       new AtomicInteger();
   /** The number of updates replayed successfully by the replication. */
   private final AtomicInteger numReplayedPostOpCalled = new AtomicInteger();
+  /** The maximum number of parsed historical values kept by {@link #historicalCache}. */
+  private static final int HISTORICAL_CACHE_MAX_VALUES = 100000;
+  /** The parsed historical values of the recently modified entries. */
+  private final EntryHistoricalCache historicalCache = new EntryHistoricalCache(HISTORICAL_CACHE_MAX_VALUES);
 
   private final PersistentServerState state;
   private volatile boolean generationIdSavedStatus;
@@ -330,6 +335,11 @@ public final class LDAPReplicationDomain extends ReplicationDomain
    * too early.
    */
   private final RemotePendingChanges remotePendingChanges;
+  /**
+   * Schedules the replay of the updates received from the replication server,
+   * so that the replay threads replay independent updates concurrently.
+   */
+  private final ReplayScheduler replayScheduler;
   private boolean solveConflictFlag = true;
 
   private final InternalClientConnection conn = getRootConnection();
@@ -588,6 +598,7 @@ public final class LDAPReplicationDomain extends ReplicationDomain
      */
     pendingChanges = new PendingChanges(getGenerator(), this);
     remotePendingChanges = new RemotePendingChanges(getServerState());
+    replayScheduler = new ReplayScheduler(getBaseDN());
 
     // listen for changes on the configuration
     configuration.addChangeListener(this);
@@ -1811,8 +1822,7 @@ public final class LDAPReplicationDomain extends ReplicationDomain
        * If the object has been renamed more recently than this
        * operation, cancel the operation.
        */
-      EntryHistorical hist = EntryHistorical.newInstanceFromEntry(
-          modifyDNOperation.getOriginalEntry());
+      EntryHistorical hist = newHistoricalFromEntry(modifyDNOperation.getOriginalEntry());
       if (hist.addedOrRenamedAfter(ctx.getCSN()))
       {
         return new SynchronizationProviderResult.StopProcessing(
@@ -1939,8 +1949,7 @@ public final class LDAPReplicationDomain extends ReplicationDomain
       }
 
       // Solve the conflicts between modify operations
-      EntryHistorical historicalInformation =
-        EntryHistorical.newInstanceFromEntry(modifiedEntry);
+      EntryHistorical historicalInformation = newHistoricalFromEntry(modifiedEntry);
       modifyOperation.setAttachment(EntryHistorical.HISTORICAL,
                                     historicalInformation);
 
@@ -2272,6 +2281,7 @@ public final class LDAPReplicationDomain extends ReplicationDomain
   void markInProgress(LDAPUpdateMsg msg)
   {
     remotePendingChanges.markInProgress(msg);
+    replayScheduler.replayStarted();
   }
 
   /**
@@ -2286,6 +2296,9 @@ public final class LDAPReplicationDomain extends ReplicationDomain
   {
     // Try replay the operation, then flush (replaying) any pending operation
     // whose dependency has been replayed until no more left.
+    // Updates scheduled after this one which could not be handed to the
+    // replay queue are replayed by this thread too.
+    final LinkedList<LDAPUpdateMsg> readyUpdates = new LinkedList<>();
     do
     {
       Operation op = null; // the last operation on which replay was attempted
@@ -2459,6 +2472,11 @@ public final class LDAPReplicationDomain extends ReplicationDomain
         if (!dependency)
         {
           processUpdateDone(msg, replayErrorMsg);
+          dispatchReadyUpdates(replayScheduler.updateReplayed(msg), readyUpdates);
+        }
+        else
+        {
+          replayScheduler.replayDeferred();
         }
       }
 
@@ -2466,9 +2484,34 @@ public final class LDAPReplicationDomain extends ReplicationDomain
       // dependency has been replayed, do that until no more updates of that
       // type left...
       msg = remotePendingChanges.getNextUpdate();
+      if (msg == null && !readyUpdates.isEmpty())
+      {
+        msg = readyUpdates.removeFirst();
+      }
+      if (msg != null)
+      {
+        markInProgress(msg);
+      }
     } while (msg != null);
   }
 
+  /**
+   * Hands the updates whose dependencies have all been replayed to the replay
+   * threads. This is called by a replay thread, which must not block on a full
+   * queue: the updates which do not fit in the queue are replayed by the
+   * calling thread instead.
+   */
+  private void dispatchReadyUpdates(List<LDAPUpdateMsg> updates, List<LDAPUpdateMsg> notDispatched)
+  {
+    for (LDAPUpdateMsg update : updates)
+    {
+      if (!updateToReplayQueue.offer(new UpdateToReplay(update, this)))
+      {
+        notDispatched.add(update);
+      }
+    }
+  }
+
   private String logDecodingOperationError(LDAPUpdateMsg msg, Exception e)
   {
     LocalizableMessage message =
@@ -4267,6 +4310,13 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
         return true;
       }
 
+      if (!replayScheduler.schedule(msg))
+      {
+        // The update will be put into the replay queue once the updates
+        // it depends on have been replayed.
+        return false;
+      }
+
       // Put update message into the replay queue
       // (block until some place in the queue is available)
       final UpdateToReplay updateToReplay = new UpdateToReplay(msg, this);
@@ -4306,6 +4356,11 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
     attributes.add("remote-pending-changes-size", remotePendingChanges.getQueueSize());
     attributes.add("dependent-changes-size", remotePendingChanges.getDependentChangesSize());
     attributes.add("changes-in-progress-size", remotePendingChanges.changesInProgressSize());
+    attributes.add("replay-waiting-updates", replayScheduler.getWaitingUpdates());
+    attributes.add("replay-updates-in-progress", replayScheduler.getUpdatesInProgress());
+    attributes.add("replay-max-updates-in-progress", replayScheduler.getMaxUpdatesInProgress());
+    attributes.add("replay-lag", replayScheduler.getReplayLag());
+    historicalCache.addMonitorData(attributes);
   }
 
   /**
@@ -4901,6 +4956,20 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
     return config.getConflictsHistoricalPurgeDelay() * 60 * 1000;
   }
 
+  /**
+   * Construct an Historical object from the provided entry of this domain by
+   * reading the historical attribute, reusing the historical values already
+   * parsed the previous time the entry was loaded.
+   *
+   * @param entry
+   *          The entry which historical information must be loaded
+   * @return The constructed Historical information object
+   */
+  EntryHistorical newHistoricalFromEntry(Entry entry)
+  {
+    return historicalCache.newInstanceFromEntry(entry);
+  }
+
   /**
    * Check and purge the historical attribute on all eligible entries under this domain.
    *
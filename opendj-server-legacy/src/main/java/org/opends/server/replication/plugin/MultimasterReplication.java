@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.replication.plugin;
 
@@ -458,7 +459,7 @@ public class MultimasterReplication
     if (historicalInformation == null)
     {
       Entry entry = modifyOperation.getModifiedEntry();
-      historicalInformation = EntryHistorical.newInstanceFromEntry(entry);
+      historicalInformation = domain.newHistoricalFromEntry(entry);
       modifyOperation.setAttachment(EntryHistorical.HISTORICAL,
           historicalInformation);
     }
@@ -507,7 +508,7 @@ public class MultimasterReplication
       // When no Historical attached, create once by loading from the entry
       // and attach it to the operation
       Entry entry = modifyDNOperation.getUpdatedEntry();
-      historicalInformation = EntryHistorical.newInstanceFromEntry(entry);
+      historicalInformation = domain.newHistoricalFromEntry(entry);
       modifyDNOperation.setAttachment(EntryHistorical.HISTORICAL,
           historicalInformation);
     }
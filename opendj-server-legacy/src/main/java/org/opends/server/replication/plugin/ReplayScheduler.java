@@ -0,0 +1,344 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.jcip.annotations.GuardedBy;
+
+import org.forgerock.i18n.LocalizedIllegalArgumentException;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.replication.common.CSN;
+import org.opends.server.replication.protocol.AddMsg;
+import org.opends.server.replication.protocol.DeleteMsg;
+import org.opends.server.replication.protocol.LDAPUpdateMsg;
+import org.opends.server.replication.protocol.ModifyDNMsg;
+import org.opends.server.util.TimeThread;
+
+/**
+ * This class schedules the replay of the updates received by a replication
+ * domain, so that independent updates are replayed concurrently by the replay
+ * threads while updates depending on each other are replayed in CSN order.
+ * <p>
+ * The updates are scheduled in the order they are received, which is the CSN
+ * order for each replica. Each update depends on the previous updates which
+ * have not been replayed yet and which:
+ * <ul>
+ * <li>target the same entry, either by its DN or by the new DN of a modify DN
+ * operation,</li>
+ * <li>add, delete or rename an ancestor of the entry targeted by the
+ * update,</li>
+ * <li>target an entry below the entry added, deleted or renamed by the
+ * update.</li>
+ * </ul>
+ * An update is handed to the replay threads once all the updates it depends
+ * on have been replayed. The {@link RemotePendingChanges} checks still apply
+ * when the update is replayed, and catch the dependencies on the updates
+ * which are not known to this scheduler.
+ * <p>
+ * One of this object is instantiated for each ReplicationDomain.
+ */
+final class ReplayScheduler
+{
+  /** An update known to the scheduler, which has not been replayed yet. */
+  private static final class ScheduledUpdate
+  {
+    private final LDAPUpdateMsg msg;
+    /** The DNs of the entries targeted by the update: one, or two for a modify DN. */
+    private final List<DN> dns;
+    /** Whether the update adds, deletes or renames the entries it targets. */
+    private final boolean structural;
+    /** The updates depending on this one. */
+    private final List<ScheduledUpdate> dependents = new ArrayList<>(0);
+    /** The number of updates this one depends on, which have not been replayed yet. */
+    private int unresolvedDependencies;
+
+    private ScheduledUpdate(LDAPUpdateMsg msg, List<DN> dns, boolean structural)
+    {
+      this.msg = msg;
+      this.dns = dns;
+      this.structural = structural;
+    }
+  }
+
+  /** The base DN of the replication domain. */
+  private final DN baseDN;
+
+  /** The updates not replayed yet, by CSN. */
+  @GuardedBy("this")
+  private final Map<CSN, ScheduledUpdate> scheduledUpdates = new HashMap<>();
+  /** The last scheduled update targeting each DN. */
+  @GuardedBy("this")
+  private final Map<DN, ScheduledUpdate> lastUpdates = new HashMap<>();
+  /** The last scheduled update adding, deleting or renaming each DN. */
+  @GuardedBy("this")
+  private final Map<DN, ScheduledUpdate> lastStructuralUpdates = new HashMap<>();
+  /** The scheduled updates targeting entries below each DN. */
+  @GuardedBy("this")
+  private final Map<DN, Set<ScheduledUpdate>> updatesBelow = new HashMap<>();
+
+  @GuardedBy("this")
+  private int waitingUpdates;
+  @GuardedBy("this")
+  private int updatesInProgress;
+  @GuardedBy("this")
+  private int maxUpdatesInProgress;
+  private volatile long replayLag;
+
+  /**
+   * Creates a new scheduler for the updates of the provided replication
+   * domain.
+   *
+   * @param baseDN
+   *          The base DN of the replication domain.
+   */
+  ReplayScheduler(DN baseDN)
+  {
+    this.baseDN = baseDN;
+  }
+
+  /**
+   * Schedules the replay of an update received from the replication server.
+   *
+   * @param msg
+   *          The update to schedule.
+   * @return {@code true} if the update can be replayed immediately, or
+   *         {@code false} if it depends on updates not replayed yet, in which
+   *         case it will be returned by {@link #updateReplayed(LDAPUpdateMsg)}
+   *         once they have been replayed.
+   */
+  synchronized boolean schedule(LDAPUpdateMsg msg)
+  {
+    final ScheduledUpdate update = newScheduledUpdate(msg);
+    final Set<ScheduledUpdate> dependencies = new LinkedHashSet<>();
+    for (DN dn : update.dns)
+    {
+      addIfNotNull(dependencies, lastUpdates.get(dn));
+      for (DN ancestor = dn.parent(); isInDomain(ancestor); ancestor = ancestor.parent())
+      {
+        addIfNotNull(dependencies, lastStructuralUpdates.get(ancestor));
+      }
+      if (update.structural)
+      {
+        final Set<ScheduledUpdate> below = updatesBelow.get(dn);
+        if (below != null)
+        {
+          dependencies.addAll(below);
+        }
+      }
+    }
+
+    for (ScheduledUpdate dependency : dependencies)
+    {
+      dependency.dependents.add(update);
+    }
+    update.unresolvedDependencies = dependencies.size();
+    register(update);
+    if (update.unresolvedDependencies > 0)
+    {
+      waitingUpdates++;
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Signals that the replay of an update has started.
+   */
+  synchronized void replayStarted()
+  {
+    updatesInProgress++;
+    maxUpdatesInProgress = Math.max(maxUpdatesInProgress, updatesInProgress);
+  }
+
+  /**
+   * Signals that the replay of an update has been deferred until the updates
+   * it conflicts with have been replayed. The update is no longer in progress
+   * until its replay starts again.
+   */
+  synchronized void replayDeferred()
+  {
+    updatesInProgress--;
+  }
+
+  /**
+   * Signals that an update has been replayed, successfully or not.
+   *
+   * @param msg
+   *          The update which has been replayed.
+   * @return The updates which can now be replayed because they were waiting
+   *         for this one, in CSN order.
+   */
+  synchronized List<LDAPUpdateMsg> updateReplayed(LDAPUpdateMsg msg)
+  {
+    replayLag = Math.max(0, TimeThread.getTime() - msg.getCSN().getTime());
+    updatesInProgress--;
+    final ScheduledUpdate update = scheduledUpdates.remove(msg.getCSN());
+    if (update == null)
+    {
+      return Collections.emptyList();
+    }
+    unregister(update);
+
+    List<LDAPUpdateMsg> readyUpdates = Collections.emptyList();
+    for (ScheduledUpdate dependent : update.dependents)
+    {
+      if (--dependent.unresolvedDependencies == 0)
+      {
+        waitingUpdates--;
+        if (readyUpdates.isEmpty())
+        {
+          readyUpdates = new ArrayList<>();
+        }
+        readyUpdates.add(dependent.msg);
+      }
+    }
+    return readyUpdates;
+  }
+
+  /**
+   * Returns the number of scheduled updates waiting for the replay of the
+   * updates they depend on.
+   *
+   * @return The number of updates waiting for their dependencies.
+   */
+  synchronized int getWaitingUpdates()
+  {
+    return waitingUpdates;
+  }
+
+  /**
+   * Returns the number of updates currently being replayed.
+   *
+   * @return The number of updates currently being replayed.
+   */
+  synchronized int getUpdatesInProgress()
+  {
+    return updatesInProgress;
+  }
+
+  /**
+   * Returns the highest number of updates replayed at the same time.
+   *
+   * @return The highest number of updates replayed at the same time.
+   */
+  synchronized int getMaxUpdatesInProgress()
+  {
+    return maxUpdatesInProgress;
+  }
+
+  /**
+   * Returns the time in milliseconds between the creation of the last
+   * replayed update on its original replica and the end of its replay.
+   *
+   * @return The replay lag of the last replayed update, in milliseconds.
+   */
+  long getReplayLag()
+  {
+    return replayLag;
+  }
+
+  private ScheduledUpdate newScheduledUpdate(LDAPUpdateMsg msg)
+  {
+    if (msg instanceof ModifyDNMsg)
+    {
+      final List<DN> dns = new ArrayList<>(2);
+      dns.add(msg.getDN());
+      try
+      {
+        final DN newDN = ((ModifyDNMsg) msg).computeNewDN();
+        if (!newDN.equals(msg.getDN()))
+        {
+          dns.add(newDN);
+        }
+      }
+      catch (LocalizedIllegalArgumentException e)
+      {
+        // The new DN is invalid: the replay will fail anyway.
+      }
+      return new ScheduledUpdate(msg, dns, true);
+    }
+    final boolean structural = msg instanceof AddMsg || msg instanceof DeleteMsg;
+    return new ScheduledUpdate(msg, Collections.singletonList(msg.getDN()), structural);
+  }
+
+  private boolean isInDomain(DN dn)
+  {
+    return dn != null && dn.isSubordinateOrEqualTo(baseDN);
+  }
+
+  private void register(ScheduledUpdate update)
+  {
+    scheduledUpdates.put(update.msg.getCSN(), update);
+    for (DN dn : update.dns)
+    {
+      lastUpdates.put(dn, update);
+      if (update.structural)
+      {
+        lastStructuralUpdates.put(dn, update);
+      }
+      for (DN ancestor = dn.parent(); isInDomain(ancestor); ancestor = ancestor.parent())
+      {
+        Set<ScheduledUpdate> below = updatesBelow.get(ancestor);
+        if (below == null)
+        {
+          below = new LinkedHashSet<>();
+          updatesBelow.put(ancestor, below);
+        }
+        below.add(update);
+      }
+    }
+  }
+
+  private void unregister(ScheduledUpdate update)
+  {
+    for (DN dn : update.dns)
+    {
+      removeIfSame(lastUpdates, dn, update);
+      removeIfSame(lastStructuralUpdates, dn, update);
+      for (DN ancestor = dn.parent(); isInDomain(ancestor); ancestor = ancestor.parent())
+      {
+        final Set<ScheduledUpdate> below = updatesBelow.get(ancestor);
+        if (below != null && below.remove(update) && below.isEmpty())
+        {
+          updatesBelow.remove(ancestor);
+        }
+      }
+    }
+  }
+
+  private static void removeIfSame(Map<DN, ScheduledUpdate> map, DN dn, ScheduledUpdate update)
+  {
+    if (map.get(dn) == update)
+    {
+      map.remove(dn);
+    }
+  }
+
+  private static void addIfNotNull(Set<ScheduledUpdate> dependencies, ScheduledUpdate update)
+  {
+    if (update != null)
+    {
+      dependencies.add(update);
+    }
+  }
+}
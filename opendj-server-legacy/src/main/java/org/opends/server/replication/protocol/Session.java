@@ -26,6 +26,11 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -38,6 +43,7 @@ import javax.net.ssl.SSLSocket;
 
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.opends.server.api.DirectoryThread;
+import org.opends.server.api.MonitorData;
 import org.opends.server.types.HostPort;
 import org.opends.server.util.StaticUtils;
 
@@ -96,6 +102,23 @@ public final class Session extends DirectoryThread implements Closeable
    */
   private BufferedOutputStream output;
 
+  /**
+   * Whether the messages sent to the remote peer may be compressed: set when
+   * the negotiated protocol version supports compressed frames.
+   */
+  private volatile boolean compressionEnabled;
+  private final SessionCompression compression = new SessionCompression();
+  /**
+   * The messages received in a compressed frame and not returned yet. Only
+   * accessed by the single thread calling {@link #receive()}.
+   */
+  private final Queue<byte[]> receivedBuffers = new ArrayDeque<>();
+
+  /** The maximum number of queued messages sent together in the same frame. */
+  private static final int MAX_BATCH_MESSAGES = 256;
+  /** The size in bytes above which no more queued messages are added to a frame. */
+  private static final int MAX_BATCH_SIZE = 64 * 1024;
+
   private final LinkedBlockingQueue<byte[]> sendQueue = new LinkedBlockingQueue<>(4000);
   private AtomicBoolean isRunning = new AtomicBoolean(false);
   private final CountDownLatch latch = new CountDownLatch(1);
@@ -201,6 +224,7 @@ public final class Session extends DirectoryThread implements Closeable
     }
 
     StaticUtils.close(plainSocket, secureSocket);
+    compression.end();
   }
 
 
@@ -297,6 +321,32 @@ public final class Session extends DirectoryThread implements Closeable
 
 
 
+  /**
+   * Determine whether the messages sent on this session are compressed.
+   * @return true if the messages are compressed, false otherwise.
+   */
+  public boolean isCompressed()
+  {
+    return compressionEnabled;
+  }
+
+
+
+  /**
+   * Adds the compression statistics of this session to the provided monitor
+   * data.
+   *
+   * @param attributes
+   *          The monitor data to add the statistics to.
+   */
+  public void addCompressionMonitorData(final MonitorData attributes)
+  {
+    attributes.add("compression", compressionEnabled);
+    compression.addMonitorData(attributes);
+  }
+
+
+
   /**
    * Sends a replication message to the remote peer.
    *
@@ -346,18 +396,41 @@ public final class Session extends DirectoryThread implements Closeable
    */
   private void send(final byte[] buffer) throws IOException
   {
-    final String str = String.format("%08x", buffer.length);
-    final byte[] sendLengthBuf = str.getBytes();
+    send(Collections.singletonList(buffer));
+  }
 
+  /**
+   * Sends a batch of replication messages already encoded to the socket, in a
+   * single compressed frame if the remote peer supports it.
+   *
+   * @param buffers
+   *          the encoded buffers
+   * @throws IOException if the messages could not be sent
+   */
+  private void send(final List<byte[]> buffers) throws IOException
+  {
     publishLock.lock();
     try
     {
       /*
-       * The buffered output stream ensures that the message is usually sent as
-       * a single TCP packet.
+       * The buffered output stream ensures that the messages are usually sent
+       * as a single TCP packet.
        */
-      output.write(sendLengthBuf);
-      output.write(buffer);
+      if (compressionEnabled && SessionCompression.isWorthCompressing(buffers))
+      {
+        final byte[] frame = compression.compress(buffers);
+        output.write(SessionCompression.COMPRESSED_FRAME_MARKER);
+        output.write(String.format("%07x", frame.length).getBytes());
+        output.write(frame);
+      }
+      else
+      {
+        for (byte[] buffer : buffers)
+        {
+          output.write(String.format("%08x", buffer.length).getBytes());
+          output.write(buffer);
+        }
+      }
       output.flush();
     } catch (final IOException e) {
       setSessionError(e);
@@ -399,27 +472,28 @@ public final class Session extends DirectoryThread implements Closeable
        */
       lastReceiveTime = System.currentTimeMillis();
 
-      // Read the first 8 bytes containing the packet length.
-      read(rcvLengthBuf);
-      final int totalLength = Integer.parseInt(new String(rcvLengthBuf), 16);
-
-      try
+      byte[] buffer = receivedBuffers.poll();
+      if (buffer == null)
       {
-        final byte[] buffer = new byte[totalLength];
-        read(buffer);
-
-        /*
-         * We do not want the heartbeat to close the session when we are
-         * processing a message even a time consuming one.
-         */
-        lastReceiveTime = 0;
-        return ReplicationMsg.generateMsg(buffer, protocolVersion);
-      }
-      catch (final OutOfMemoryError e)
-      {
-        throw new IOException("Packet too large, can't allocate "
-            + totalLength + " bytes.");
+        // Read the first 8 bytes containing the packet length.
+        read(rcvLengthBuf);
+        if (rcvLengthBuf[0] == SessionCompression.COMPRESSED_FRAME_MARKER)
+        {
+          compression.decompress(readPacket(new String(rcvLengthBuf, 1, 7)), receivedBuffers);
+          buffer = receivedBuffers.poll();
+        }
+        else
+        {
+          buffer = readPacket(new String(rcvLengthBuf));
+        }
       }
+
+      /*
+       * We do not want the heartbeat to close the session when we are
+       * processing a message even a time consuming one.
+       */
+      lastReceiveTime = 0;
+      return ReplicationMsg.generateMsg(buffer, protocolVersion);
     }
     catch (final IOException | DataFormatException | NotSupportedOldVersionPDUException | RuntimeException e)
     {
@@ -428,6 +502,22 @@ public final class Session extends DirectoryThread implements Closeable
     }
   }
 
+  private byte[] readPacket(final String hexLength) throws IOException
+  {
+    final int totalLength = Integer.parseInt(hexLength, 16);
+    try
+    {
+      final byte[] buffer = new byte[totalLength];
+      read(buffer);
+      return buffer;
+    }
+    catch (final OutOfMemoryError e)
+    {
+      throw new IOException("Packet too large, can't allocate "
+          + totalLength + " bytes.");
+    }
+  }
+
   private void read(byte[] buffer) throws IOException
   {
     final int totalLength = buffer.length;
@@ -447,12 +537,14 @@ public final class Session extends DirectoryThread implements Closeable
   /**
    * This method is called at the establishment of the session and can
    * be used to record the version of the protocol that is currently used.
+   * The messages sent afterwards are compressed if this version supports it.
    *
    * @param version The version of the protocol that is currently used.
    */
   public void setProtocolVersion(final short version)
   {
     protocolVersion = version;
+    compressionEnabled = version >= ProtocolVersion.REPLICATION_PROTOCOL_V9;
   }
 
 
@@ -535,18 +627,27 @@ public final class Session extends DirectoryThread implements Closeable
     boolean needClosing = false;
     while (!closeInitiated)
     {
-      byte[] buffer;
+      final List<byte[]> buffers = new ArrayList<>();
       try
       {
-        buffer = sendQueue.take();
+        buffers.add(sendQueue.take());
       }
       catch (InterruptedException ie)
       {
         break;
       }
+      // Send the messages queued meanwhile in the same frame.
+      int batchSize = buffers.get(0).length;
+      byte[] buffer;
+      while (buffers.size() < MAX_BATCH_MESSAGES && batchSize < MAX_BATCH_SIZE
+          && (buffer = sendQueue.poll()) != null)
+      {
+        buffers.add(buffer);
+        batchSize += buffer.length;
+      }
       try
       {
-        send(buffer);
+        send(buffers);
       }
       catch (IOException e)
       {
@@ -0,0 +1,253 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.protocol;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import net.jcip.annotations.GuardedBy;
+
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.opends.server.api.MonitorData;
+
+/**
+ * Compresses the frames sent on a replication session and decompresses the
+ * frames received from the remote peer.
+ * <p>
+ * A compressed frame holds a batch of encoded messages, each preceded by its
+ * length on 4 bytes. Each direction of the session uses a single deflate
+ * stream, flushed at the end of each frame: small messages sharing most of
+ * their content, like the updates of the same entries, are compressed against
+ * the messages previously sent.
+ * <p>
+ * On the wire, a compressed frame is preceded by the
+ * {@link #COMPRESSED_FRAME_MARKER} followed by its length as 7 hexadecimal
+ * digits, so that it can be told apart from the length of an uncompressed
+ * message. Compressed and uncompressed frames can therefore be interleaved,
+ * and a peer able to decompress accepts compressed frames at any time.
+ */
+final class SessionCompression
+{
+  /** The first byte of the header of a compressed frame, never used by the hexadecimal length of a message. */
+  static final byte COMPRESSED_FRAME_MARKER = 'z';
+  /** The batches smaller than this are not worth compressing. */
+  static final int MIN_COMPRESSED_SIZE = 128;
+  /** The batches larger than this are not compressed, so that the compressed length always fits in 7 digits. */
+  static final int MAX_COMPRESSED_SIZE = 64 * 1024 * 1024;
+  /** The size above which the working buffers are released after use. */
+  private static final int RETAINED_BUFFER_SIZE = 256 * 1024;
+
+  @GuardedBy("deflater")
+  private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+  @GuardedBy("deflater")
+  private final ByteStringBuilder rawOutput = new ByteStringBuilder();
+  @GuardedBy("deflater")
+  private final ByteStringBuilder compressedOutput = new ByteStringBuilder();
+  @GuardedBy("deflater")
+  private final byte[] deflateBuffer = new byte[8192];
+  @GuardedBy("deflater")
+  private boolean deflaterEnded;
+
+  @GuardedBy("inflater")
+  private final Inflater inflater = new Inflater();
+  @GuardedBy("inflater")
+  private final ByteStringBuilder rawInput = new ByteStringBuilder();
+  @GuardedBy("inflater")
+  private final byte[] inflateBuffer = new byte[8192];
+  @GuardedBy("inflater")
+  private boolean inflaterEnded;
+
+  private final AtomicLong framesSent = new AtomicLong();
+  private final AtomicLong rawBytesSent = new AtomicLong();
+  private final AtomicLong compressedBytesSent = new AtomicLong();
+  private final AtomicLong compressionNanos = new AtomicLong();
+  private final AtomicLong framesReceived = new AtomicLong();
+  private final AtomicLong rawBytesReceived = new AtomicLong();
+  private final AtomicLong compressedBytesReceived = new AtomicLong();
+  private final AtomicLong decompressionNanos = new AtomicLong();
+
+  /**
+   * Returns whether the provided batch of encoded messages should be sent in a
+   * compressed frame.
+   *
+   * @param buffers
+   *          The encoded messages.
+   * @return {@code true} if the batch should be compressed
+   */
+  static boolean isWorthCompressing(final List<byte[]> buffers)
+  {
+    long size = 0;
+    for (byte[] buffer : buffers)
+    {
+      size += buffer.length + 4;
+    }
+    return MIN_COMPRESSED_SIZE <= size && size <= MAX_COMPRESSED_SIZE;
+  }
+
+  /**
+   * Compresses a batch of encoded messages into a frame.
+   *
+   * @param buffers
+   *          The encoded messages, in the order they must be received.
+   * @return the content of the compressed frame
+   * @throws IOException
+   *           If the session has been closed.
+   */
+  byte[] compress(final List<byte[]> buffers) throws IOException
+  {
+    synchronized (deflater)
+    {
+      if (deflaterEnded)
+      {
+        throw new IOException("Replication session closed");
+      }
+
+      rawOutput.clear();
+      for (byte[] buffer : buffers)
+      {
+        rawOutput.appendInt(buffer.length);
+        rawOutput.appendBytes(buffer);
+      }
+
+      final long startTime = System.nanoTime();
+      compressedOutput.clear();
+      deflater.setInput(rawOutput.getBackingArray(), 0, rawOutput.length());
+      int length;
+      do
+      {
+        length = deflater.deflate(deflateBuffer, 0, deflateBuffer.length, Deflater.SYNC_FLUSH);
+        compressedOutput.appendBytes(deflateBuffer, 0, length);
+      }
+      while (length == deflateBuffer.length);
+      compressionNanos.addAndGet(System.nanoTime() - startTime);
+
+      framesSent.incrementAndGet();
+      rawBytesSent.addAndGet(rawOutput.length());
+      compressedBytesSent.addAndGet(compressedOutput.length());
+      final byte[] frame = compressedOutput.toByteArray();
+      rawOutput.clearAndTruncate(RETAINED_BUFFER_SIZE, RETAINED_BUFFER_SIZE);
+      compressedOutput.clearAndTruncate(RETAINED_BUFFER_SIZE, RETAINED_BUFFER_SIZE);
+      return frame;
+    }
+  }
+
+  /**
+   * Decompresses a frame received from the remote peer.
+   *
+   * @param frame
+   *          The content of the compressed frame.
+   * @param buffers
+   *          The queue where to add the encoded messages held by the frame, in
+   *          the order they were sent.
+   * @throws IOException
+   *           If the session has been closed.
+   * @throws DataFormatException
+   *           If the frame is not a valid compressed frame.
+   */
+  void decompress(final byte[] frame, final Queue<byte[]> buffers) throws IOException, DataFormatException
+  {
+    synchronized (inflater)
+    {
+      if (inflaterEnded)
+      {
+        throw new IOException("Replication session closed");
+      }
+
+      final long startTime = System.nanoTime();
+      rawInput.clear();
+      inflater.setInput(frame);
+      int length;
+      while ((length = inflater.inflate(inflateBuffer)) > 0)
+      {
+        rawInput.appendBytes(inflateBuffer, 0, length);
+      }
+      if (!inflater.needsInput())
+      {
+        throw new DataFormatException("Compressed frame does not end with a flushed block");
+      }
+      decompressionNanos.addAndGet(System.nanoTime() - startTime);
+
+      final byte[] raw = rawInput.getBackingArray();
+      final int rawLength = rawInput.length();
+      if (rawLength == 0)
+      {
+        throw new DataFormatException("Empty compressed frame");
+      }
+      int pos = 0;
+      while (pos < rawLength)
+      {
+        if (rawLength - pos < 4)
+        {
+          throw new DataFormatException("Truncated message length in compressed frame");
+        }
+        final int msgLength = (raw[pos] & 0xFF) << 24 | (raw[pos + 1] & 0xFF) << 16
+            | (raw[pos + 2] & 0xFF) << 8 | (raw[pos + 3] & 0xFF);
+        pos += 4;
+        if (msgLength < 0 || msgLength > rawLength - pos)
+        {
+          throw new DataFormatException("Truncated message in compressed frame");
+        }
+        final byte[] buffer = new byte[msgLength];
+        System.arraycopy(raw, pos, buffer, 0, msgLength);
+        buffers.add(buffer);
+        pos += msgLength;
+      }
+
+      framesReceived.incrementAndGet();
+      rawBytesReceived.addAndGet(rawLength);
+      compressedBytesReceived.addAndGet(frame.length);
+      rawInput.clearAndTruncate(RETAINED_BUFFER_SIZE, RETAINED_BUFFER_SIZE);
+    }
+  }
+
+  /** Releases the native resources used by the compression. */
+  void end()
+  {
+    synchronized (deflater)
+    {
+      deflaterEnded = true;
+      deflater.end();
+    }
+    synchronized (inflater)
+    {
+      inflaterEnded = true;
+      inflater.end();
+    }
+  }
+
+  /**
+   * Adds the compression statistics of the session to the provided monitor
+   * data.
+   *
+   * @param attributes
+   *          The monitor data of the session.
+   */
+  void addMonitorData(final MonitorData attributes)
+  {
+    attributes.add("compressed-frames-sent", framesSent.get());
+    attributes.add("compressed-frames-received", framesReceived.get());
+    attributes.add("compression-sent-bytes-saved", rawBytesSent.get() - compressedBytesSent.get());
+    attributes.add("compression-received-bytes-saved", rawBytesReceived.get() - compressedBytesReceived.get());
+    attributes.add("compression-time-millis", TimeUnit.NANOSECONDS.toMillis(compressionNanos.get()));
+    attributes.add("decompression-time-millis", TimeUnit.NANOSECONDS.toMillis(decompressionNanos.get()));
+  }
+}
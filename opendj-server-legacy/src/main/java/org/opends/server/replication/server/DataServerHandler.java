@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.replication.server;
 
@@ -85,14 +86,16 @@ public class DataServerHandler extends ServerHandler
    * @param queueSize The queue size.
    * @param replicationServer The hosting RS.
    * @param rcvWindowSize The receiving window size.
+   * @param adaptiveRcvWindow Whether the receiving window is adaptive.
    */
   public DataServerHandler(
       Session session,
       int queueSize,
       ReplicationServer replicationServer,
-      int rcvWindowSize)
+      int rcvWindowSize,
+      boolean adaptiveRcvWindow)
   {
-    super(session, queueSize, replicationServer, rcvWindowSize);
+    super(session, queueSize, replicationServer, rcvWindowSize, adaptiveRcvWindow);
   }
 
   /**
@@ -489,7 +492,7 @@ public class DataServerHandler extends ServerHandler
     {
       // Peer DS uses protocol V4 : send it a ReplServerStartDSMsg
       startMsg = new ReplServerStartDSMsg(getReplicationServerId(),
-          getReplicationServerURL(), getBaseDN(), maxRcvWindow,
+          getReplicationServerURL(), getBaseDN(), rcvWindow.getInitialSize(),
           replicationServerDomain.getLatestServerState(),
           localGenerationId, sslEncryption, getLocalGroupId(),
           replicationServer.getDegradedStatusThreshold(),
@@ -13,12 +13,15 @@
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.replication.server;
 
 import static org.opends.messages.ReplicationMessages.*;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -57,12 +60,15 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
 
   private static final int MINIMUM_TRESHOLD_MSG_QUEUE_SIZE = 5;
 
-  /** UpdateMsg queue. */
+  /**
+   * UpdateMsg queue. Filled by the threads receiving the updates and consumed
+   * by the single thread calling getNextMessage(), without locking: the
+   * monitor of the queue is only used to wake up the consumer.
+   */
   private final MsgQueue msgQueue = new MsgQueue();
   /**
    * Late queue. All access to the lateQueue in getNextMessage() is
-   * single-threaded. However, reads from threads calling getOlderUpdateCN()
-   * need protecting against removals performed using getNextMessage().
+   * single-threaded. Threads calling getOlderUpdateCSN() only read its head.
    */
   private final MsgQueue lateQueue = new MsgQueue();
   /** Local hosting RS. */
@@ -77,8 +83,28 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
   protected final int maxQueueSize;
   /** Specifies the max queue size in bytes for this handler. */
   private final int maxQueueBytesSize;
-  /** Specifies whether the consumer is following the producer (is not late). */
-  private boolean following;
+  /**
+   * Specifies whether the consumer is following the producer (is not late).
+   * Only set by the consumer: it is following as long as no message was
+   * trimmed from the msgQueue since it started following.
+   */
+  private volatile boolean following;
+  /** The value of {@link #trimmedCount} when the consumer started following. */
+  private volatile long followingSinceTrimmedCount;
+  /**
+   * The number of messages trimmed from the msgQueue because it was full.
+   * Incremented before trimming, so that a consumer removing a message after
+   * a trimmed one knows it is not following anymore.
+   */
+  private final AtomicLong trimmedCount = new AtomicLong();
+  /** Whether the consumer is waiting for messages to be added to the msgQueue. */
+  private volatile boolean consumerWaiting;
+
+  private final AtomicLong enqueueCount = new AtomicLong();
+  private final AtomicLong enqueueTime = new AtomicLong();
+  private final AtomicLong lateQueueFillCount = new AtomicLong();
+  private final AtomicLong lateQueueFillTime = new AtomicLong();
+  private final AtomicLong lateQueueSentCount = new AtomicLong();
   /** Specifies the current serverState of this handler. */
   private ServerState serverState;
   /** Specifies the baseDN of the domain. */
@@ -114,28 +140,52 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
    */
   void add(UpdateMsg update)
   {
-    synchronized (msgQueue)
+    final long startTime = System.nanoTime();
+    msgQueue.add(update);
+
+    // TODO : size should be configurable and larger than max-receive-queue-size
+    // The trimmed messages will be read from the changelog by the late queue
+    while (isMsgQueueAboveThreshold())
     {
-      /*
-       * If queue was empty the writer thread was probably asleep
-       * waiting for some changes, wake it up
-       */
-      if (msgQueue.isEmpty())
+      trimmedCount.incrementAndGet();
+      if (msgQueue.removeFirst() == null)
       {
-        msgQueue.notify();
+        break;
       }
+    }
 
-      msgQueue.add(update);
-
-      // TODO : size should be configurable and larger than max-receive-queue-size
-      while (isMsgQueueAboveThreshold())
+    /*
+     * If the writer thread is asleep waiting for some changes, wake it up
+     */
+    if (consumerWaiting)
+    {
+      synchronized (msgQueue)
       {
-        following = false;
-        msgQueue.removeFirst();
+        msgQueue.notify();
       }
     }
+    enqueueTime.addAndGet(System.nanoTime() - startTime);
+    enqueueCount.incrementAndGet();
   }
 
+  /**
+   * Returns whether the consumer is following the producer, that is whether no
+   * message was trimmed from the msgQueue since it started following.
+   */
+  private boolean isFollowing()
+  {
+    return following && trimmedCount.get() == followingSinceTrimmedCount;
+  }
+
+  /**
+   * Makes the consumer follow the producer, unless messages were trimmed from
+   * the msgQueue since the provided trimmed count was read.
+   */
+  private void startFollowing(long trimmedCountBefore)
+  {
+    followingSinceTrimmedCount = trimmedCountBefore;
+    following = true;
+  }
   private boolean isMsgQueueAboveThreshold()
   {
     final long count = msgQueue.count();
@@ -198,14 +248,34 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
   @Override
   public MonitorData getMonitorData()
   {
-    MonitorData attributes = new MonitorData(4);
+    MonitorData attributes = new MonitorData(12);
     attributes.add("handler", getMonitorInstanceName());
     attributes.add("queue-size", msgQueue.count());
     attributes.add("queue-size-bytes", msgQueue.bytesCount());
-    attributes.add("following", following);
+    attributes.add("following", isFollowing());
+    addQueueMonitorData(attributes);
     return attributes;
   }
 
+  /**
+   * Adds the statistics of the queues of this handler to the provided monitor
+   * data.
+   *
+   * @param attributes
+   *          The monitor data to add the statistics to.
+   */
+  void addQueueMonitorData(MonitorData attributes)
+  {
+    final long enqueued = enqueueCount.get();
+    attributes.add("queue-enqueue-avg-micros",
+        enqueued > 0 ? TimeUnit.NANOSECONDS.toMicros(enqueueTime.get() / enqueued) : 0);
+    attributes.add("queue-wait-avg-micros", msgQueue.getAverageQueuedTimeMicros());
+    attributes.add("queue-trimmed-updates", trimmedCount.get());
+    attributes.add("late-queue-fills", lateQueueFillCount.get());
+    attributes.add("late-queue-fill-time-millis", TimeUnit.NANOSECONDS.toMillis(lateQueueFillTime.get()));
+    attributes.add("late-queue-sent-updates", lateQueueSentCount.get());
+  }
+
   /**
    * Retrieves the name of this monitor provider.  It should be unique among all
    * monitor providers, including all instances of the same monitor provider.
@@ -229,8 +299,9 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
   {
     while (activeConsumer)
     {
-      if (!following)
+      if (!isFollowing())
       {
+        following = false;
         /* this server is late with regard to some other masters
          * in the topology or just joined the topology.
          * In such cases, we can't keep all changes in the queue
@@ -251,26 +322,22 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
            *             - try to get the next from the queue
            *   select the smallest of changes
            *   check if it is in the memory tree
-           *     yes : lock memory tree.
-           *           check all changes from the list, remove the ones that
+           *     yes : check all changes from the list, remove the ones that
            *           are already sent
-           *           unlock memory tree
            *           restart as usual
            *   load this change on the delayList
            */
+          final long trimmedCountBefore = trimmedCount.get();
           fillLateQueue();
           if (lateQueue.isEmpty())
           {
             // we could not find any messages in the changelog
             // so the remote server is not late anymore.
-            synchronized (msgQueue)
+            // Ensure we are below threshold so this server will follow the
+            // msgQueue without fearing the msgQueue gets trimmed
+            if (isMsgQueueBelowThreshold())
             {
-              // Ensure we are below threshold so this server will follow the
-              // msgQueue without fearing the msgQueue gets trimmed
-              if (isMsgQueueBelowThreshold())
-              {
-                following = true;
-              }
+              startFollowing(trimmedCountBefore);
             }
           }
           else
@@ -279,20 +346,19 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
              * if the first change in the lateQueue is also on the regular queue,
              * we can resume the processing from the regular queue
              * -> set following to true and empty the lateQueue.
+             * The messages trimmed meanwhile are detected by isFollowing().
              */
             UpdateMsg msg = lateQueue.first();
-            synchronized (msgQueue)
+            if (msgQueue.contains(msg))
             {
-              if (msgQueue.contains(msg))
+              /* we finally catch up with the regular queue */
+              startFollowing(trimmedCountBefore);
+              lateQueue.clear();
+              msgQueue.consumeUpTo(msg);
+              lateQueueSentCount.incrementAndGet();
+              if (updateServerState(msg))
               {
-                /* we finally catch up with the regular queue */
-                following = true;
-                lateQueue.clear();
-                msgQueue.consumeUpTo(msg);
-                if (updateServerState(msg))
-                {
-                  return msg;
-                }
+                return msg;
               }
             }
           }
@@ -300,18 +366,16 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
         else
         {
           // get the next change from the lateQueue
-          UpdateMsg msg;
-          synchronized (msgQueue) // TODO JNR why synchronize(msgQueue) here?
+          final long trimmedCountBefore = trimmedCount.get();
+          UpdateMsg msg = lateQueue.removeFirst();
+          // By default a server is always not following. A weird case where messages not representing
+          // an operation may happen, making the late queue repeatedly fill and be emptied without ever
+          // getting the server out of state "not following".
+          if (lateQueue.isEmpty() && msgQueue.isEmpty())
           {
-            msg = lateQueue.removeFirst();
-            // By default a server is always not following. A weird case where messages not representing
-            // an operation may happen, making the late queue repeatedly fill and be emptied without ever
-            // getting the server out of state "not following".
-            if (lateQueue.isEmpty() && msgQueue.isEmpty())
-            {
-              following = true;
-            }
+            startFollowing(trimmedCountBefore);
           }
+          lateQueueSentCount.incrementAndGet();
           if (updateServerState(msg))
           {
             return msg;
@@ -320,34 +384,22 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
         }
       }
 
-      synchronized (msgQueue)
+      if (isFollowing())
       {
-        if (following)
+        if (msgQueue.isEmpty() && !waitForMessages())
         {
-          try
-          {
-            while (msgQueue.isEmpty() && following)
-            {
-              msgQueue.wait(500);
-              if (!activeConsumer)
-              {
-                return null;
-              }
-            }
-          } catch (InterruptedException e)
-          {
-            return null;
-          }
-          UpdateMsg msg = msgQueue.removeFirst();
-          if (updateServerState(msg))
-          {
-            /*
-             * Only push the message if it has not yet been seen
-             * by the other server.
-             * Otherwise just loop to select the next message.
-             */
-            return msg;
-          }
+          return null;
+        }
+        UpdateMsg msg = msgQueue.removeFirst();
+        /*
+         * Only push the message if no message was trimmed before it, and if
+         * it has not yet been seen by the other server.
+         * Otherwise just loop to select the next message, reading it from the
+         * changelog if it was trimmed.
+         */
+        if (msg != null && isFollowing() && updateServerState(msg))
+        {
+          return msg;
         }
       }
       /*
@@ -359,12 +411,47 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
     return null;
   }
 
+  /**
+   * Waits for messages to be added to the msgQueue, as long as the consumer is
+   * following.
+   *
+   * @return {@code false} if the consumer must stop, {@code true} otherwise
+   */
+  private boolean waitForMessages()
+  {
+    synchronized (msgQueue)
+    {
+      consumerWaiting = true;
+      try
+      {
+        while (msgQueue.isEmpty() && isFollowing())
+        {
+          msgQueue.wait(500);
+          if (!activeConsumer)
+          {
+            return false;
+          }
+        }
+        return true;
+      }
+      catch (InterruptedException e)
+      {
+        return false;
+      }
+      finally
+      {
+        consumerWaiting = false;
+      }
+    }
+  }
+
   /**
    * Fills the late queue with the most recent changes, accepting only the
    * messages from provided replica ids.
    */
   private void fillLateQueue() throws ChangelogException
   {
+    final long startTime = System.nanoTime();
     try (DBCursor<UpdateMsg> cursor = replicationServerDomain.getCursorFrom(serverState);)
     {
       while (cursor.next() && isLateQueueBelowThreshold())
@@ -372,6 +459,11 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
         lateQueue.add(cursor.getRecord());
       }
     }
+    finally
+    {
+      lateQueueFillTime.addAndGet(System.nanoTime() - startTime);
+      lateQueueFillCount.incrementAndGet();
+    }
   }
 
   private boolean isLateQueueBelowThreshold()
@@ -386,35 +478,25 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
    */
   public CSN getOlderUpdateCSN()
   {
-    synchronized (msgQueue)
+    if (isFollowing())
     {
-      if (following)
-      {
-        if (!msgQueue.isEmpty())
-        {
-          return msgQueue.first().getCSN();
-        }
-      }
-      else
-      {
-        if (!lateQueue.isEmpty())
-        {
-          return lateQueue.first().getCSN();
-        }
-        else
-        {
-          /*
-          following is false AND lateQueue is empty
-          We may be at the very moment when the writer has emptied the
-          lateQueue when it sent the last update. The writer will fill again
-          the lateQueue when it will send the next update but we are not yet
-          there. So let's take the last change not sent directly from the db.
-          */
-          return findOldestCSNFromReplicaDBs();
-        }
-      }
+      final UpdateMsg first = msgQueue.first();
+      return first != null ? first.getCSN() : null;
     }
-    return null;
+
+    final UpdateMsg first = lateQueue.first();
+    if (first != null)
+    {
+      return first.getCSN();
+    }
+    /*
+    following is false AND lateQueue is empty
+    We may be at the very moment when the writer has emptied the
+    lateQueue when it sent the last update. The writer will fill again
+    the lateQueue when it will send the next update but we are not yet
+    there. So let's take the last change not sent directly from the db.
+    */
+    return findOldestCSNFromReplicaDBs();
   }
 
   private CSN findOldestCSNFromReplicaDBs()
@@ -452,27 +534,24 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
    */
   public int getRcvMsgQueueSize()
   {
-    synchronized (msgQueue)
+    /*
+     * When the server is up to date or close to be up to date,
+     * the number of updates to be sent is the size of the receive queue.
+     */
+    if (isFollowing())
     {
-      /*
-       * When the server is up to date or close to be up to date,
-       * the number of updates to be sent is the size of the receive queue.
-       */
-      if (following)
-      {
-        return msgQueue.count();
-      }
-
-      /*
-       * When the server is not able to follow, the msgQueue may become too
-       * large and therefore won't contain all the changes. Some changes may
-       * only be stored in the backing DB of the servers.
-       * The total size of the receive queue is calculated by doing the sum of
-       * the number of missing changes for every replicaDB.
-       */
-      ServerState latestState = replicationServerDomain.getLatestServerState();
-      return ServerState.diffChanges(latestState, serverState);
+      return msgQueue.count();
     }
+
+    /*
+     * When the server is not able to follow, the msgQueue may become too
+     * large and therefore won't contain all the changes. Some changes may
+     * only be stored in the backing DB of the servers.
+     * The total size of the receive queue is calculated by doing the sum of
+     * the number of missing changes for every replicaDB.
+     */
+    ServerState latestState = replicationServerDomain.getLatestServerState();
+    return ServerState.diffChanges(latestState, serverState);
   }
 
   /**
@@ -571,10 +650,9 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
   /** Shutdown this handler. */
   public void shutdown()
   {
+    msgQueue.clear();
     synchronized (msgQueue)
     {
-      msgQueue.clear();
-      msgQueue.notify();
       msgQueue.notifyAll();
     }
 
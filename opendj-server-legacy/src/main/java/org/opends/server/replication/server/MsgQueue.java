@@ -13,12 +13,16 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.replication.server;
 
 import static org.opends.messages.ReplicationMessages.*;
 
-import java.util.TreeMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.jcip.annotations.ThreadSafe;
 
@@ -29,36 +33,51 @@ import org.opends.server.replication.protocol.UpdateMsg;
 /**
  * This class is used to build ordered lists of UpdateMsg.
  * The order is defined by the order of the CSN of the UpdateMsg.
+ * <p>
+ * The queue is indexed by CSN and does not use any lock: producers can add
+ * messages while the consumer removes them from the head of the queue.
+ * The number of messages and of bytes in the queue are maintained
+ * separately, so they are cheap to read but may be briefly out of sync with
+ * the content of the queue while it is being modified.
  */
 @ThreadSafe
 public class MsgQueue
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
-  private TreeMap<CSN, UpdateMsg> map = new TreeMap<>();
-  /**
-   * FIXME JNR to be investigated:
-   * I strongly suspect that we could replace this field
-   * by using the synchronized keyword on each method.
-   * However, MessageHandler is weirdly synchronizing on msgQueue field
-   * even though it is touching the lateQueue field (?!?).
-   */
-  private final Object lock = new Object();
+  /** An UpdateMsg in the queue, with the time it was added. */
+  private static final class QueuedMsg
+  {
+    private final UpdateMsg update;
+    private final long enqueueTime = System.nanoTime();
+
+    private QueuedMsg(UpdateMsg update)
+    {
+      this.update = update;
+    }
+  }
+
+  private final ConcurrentSkipListMap<CSN, QueuedMsg> map = new ConcurrentSkipListMap<>();
 
+  /** The number of messages in the queue. */
+  private final AtomicInteger count = new AtomicInteger();
   /** The total number of bytes for all the message in the queue. */
-  private int bytesCount;
+  private final AtomicInteger bytesCount = new AtomicInteger();
+
+  /** The number of messages removed from the queue. */
+  private final AtomicLong removedCount = new AtomicLong();
+  /** The total time in nanoseconds spent in the queue by the removed messages. */
+  private final AtomicLong removedMsgsQueuedTime = new AtomicLong();
 
   /**
    * Return the first UpdateMsg in the MsgQueue.
    *
-   * @return The first UpdateMsg in the MsgQueue.
+   * @return The first UpdateMsg in the MsgQueue, or {@code null} if it is empty.
    */
   public UpdateMsg first()
   {
-    synchronized (lock)
-    {
-      return map.get(map.firstKey());
-    }
+    final Map.Entry<CSN, QueuedMsg> first = map.firstEntry();
+    return first != null ? first.getValue().update : null;
   }
 
   /**
@@ -68,10 +87,7 @@ public class MsgQueue
    */
   public int count()
   {
-    synchronized (lock)
-    {
-      return map.size();
-    }
+    return count.get();
   }
 
   /**
@@ -81,10 +97,7 @@ public class MsgQueue
    */
   public int bytesCount()
   {
-    synchronized (lock)
-    {
-      return bytesCount;
-    }
+    return bytesCount.get();
   }
 
   /**
@@ -94,10 +107,7 @@ public class MsgQueue
    */
   public boolean isEmpty()
   {
-    synchronized (lock)
-    {
-      return map.isEmpty();
-    }
+    return map.isEmpty();
   }
 
   /**
@@ -107,57 +117,63 @@ public class MsgQueue
    */
   public void add(UpdateMsg update)
   {
-    synchronized (lock)
+    final QueuedMsg msgSameCSN = map.put(update.getCSN(), new QueuedMsg(update));
+    if (msgSameCSN != null)
     {
-      final UpdateMsg msgSameCSN = map.put(update.getCSN(), update);
-      if (msgSameCSN != null)
+      final UpdateMsg updateSameCSN = msgSameCSN.update;
+      try
       {
-        try
+        if (updateSameCSN.getBytes().length != update.getBytes().length
+            || updateSameCSN.isAssured() != update.isAssured()
+            || updateSameCSN.getVersion() != update.getVersion())
         {
-          if (msgSameCSN.getBytes().length != update.getBytes().length
-              || msgSameCSN.isAssured() != update.isAssured()
-              || msgSameCSN.getVersion() != update.getVersion())
-          {
-            // Adding 2 msgs with the same CSN is ok only when the 2 msgs are the same
-            bytesCount += update.size() - msgSameCSN.size();
-            logger.error(ERR_RSQUEUE_DIFFERENT_MSGS_WITH_SAME_CSN, msgSameCSN.getCSN(), msgSameCSN, update);
-          }
-        }
-        catch (Exception e)
-        {
-          logger.traceException(e);
+          // Adding 2 msgs with the same CSN is ok only when the 2 msgs are the same
+          bytesCount.addAndGet(update.size() - updateSameCSN.size());
+          logger.error(ERR_RSQUEUE_DIFFERENT_MSGS_WITH_SAME_CSN, updateSameCSN.getCSN(), updateSameCSN, update);
         }
       }
-      else
+      catch (Exception e)
       {
-        // it is really an ADD
-        bytesCount += update.size();
+        logger.traceException(e);
       }
     }
+    else
+    {
+      // it is really an ADD
+      count.incrementAndGet();
+      bytesCount.addAndGet(update.size());
+    }
   }
 
   /**
    * Get and remove the first UpdateMsg in this MessageQueue.
    *
-   * @return The first UpdateMsg in this MessageQueue.
+   * @return The first UpdateMsg in this MessageQueue, or {@code null} if it is
+   *         empty.
    */
   public UpdateMsg removeFirst()
   {
-    synchronized (lock)
+    final Map.Entry<CSN, QueuedMsg> first = map.pollFirstEntry();
+    if (first == null)
     {
-      // FIXME JNR replace next 2 lines with just that one:
-      // final UpdateMsg update = map.pollFirstEntry().getValue();
-      final UpdateMsg update = map.get(map.firstKey());
-      map.remove(update.getCSN());
-      bytesCount -= update.size();
-      if (map.isEmpty() && bytesCount != 0)
-      {
-        // should never happen
-        logger.error(ERR_BYTE_COUNT, bytesCount);
-        bytesCount = 0;
-      }
-      return update;
+      return null;
     }
+    removed(first.getValue());
+    return first.getValue().update;
+  }
+
+  private void removed(QueuedMsg msg)
+  {
+    count.decrementAndGet();
+    final int bytes = bytesCount.addAndGet(-msg.update.size());
+    if (bytes < 0)
+    {
+      // should never happen
+      logger.error(ERR_BYTE_COUNT, bytes);
+      bytesCount.compareAndSet(bytes, 0);
+    }
+    removedCount.incrementAndGet();
+    removedMsgsQueuedTime.addAndGet(System.nanoTime() - msg.enqueueTime);
   }
 
   /**
@@ -171,52 +187,68 @@ public class MsgQueue
    */
   public boolean contains(UpdateMsg msg)
   {
-    synchronized (lock)
-    {
-      return map.containsKey(msg.getCSN());
-    }
+    return map.containsKey(msg.getCSN());
   }
 
   /** Removes all UpdateMsg form this queue. */
   public void clear()
   {
-    synchronized (lock)
+    while (removeFirst() != null)
     {
-      map.clear();
-      bytesCount = 0;
+      // keep removing
     }
   }
 
   /**
    * Consumes all the messages in this queue up to and including the passed in
-   * message. If the passed in message is not contained in the current queue,
-   * then all messages will be removed from it.
+   * message, that is all the messages whose CSN is older than or equal to the
+   * CSN of the passed in message.
    *
    * @param finalMsg
    *          the final message to reach when consuming messages from this queue
    */
   public void consumeUpTo(UpdateMsg finalMsg)
   {
-    // FIXME this code could be more efficient if the msgQueue could call the
-    // following code (to be tested):
-    // if (!map.containsKey(finalMsg.getCSN())) {
-    // map.clear();
-    // } else {
-    // map.headMap(finalMsg.getCSN(), true).clear();
-    // }
-
     final CSN finalCSN = finalMsg.getCSN();
-    UpdateMsg msg;
-    do
+    Map.Entry<CSN, QueuedMsg> first;
+    while ((first = map.firstEntry()) != null
+        && first.getKey().isOlderThanOrEqualTo(finalCSN))
     {
-      msg = removeFirst();
+      // another thread may have removed it meanwhile
+      if (map.remove(first.getKey(), first.getValue()))
+      {
+        removed(first.getValue());
+      }
     }
-    while (!finalCSN.equals(msg.getCSN()));
+  }
+
+  /**
+   * Returns the number of messages removed from this queue since it was
+   * created.
+   *
+   * @return the number of messages removed from this queue
+   */
+  public long getRemovedCount()
+  {
+    return removedCount.get();
+  }
+
+  /**
+   * Returns the average time the messages removed from this queue spent in
+   * it.
+   *
+   * @return the average time in microseconds spent in the queue by the
+   *         removed messages
+   */
+  public long getAverageQueuedTimeMicros()
+  {
+    final long removed = removedCount.get();
+    return removed > 0 ? removedMsgsQueuedTime.get() / removed / 1000 : 0;
   }
 
   @Override
   public String toString()
   {
-    return getClass().getSimpleName() + " bytesCount=" + bytesCount + " queue=" + map.values();
+    return getClass().getSimpleName() + " bytesCount=" + bytesCount + " queue=" + map.keySet();
   }
 }
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.replication.server;
 
@@ -36,6 +37,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -51,6 +55,7 @@ import org.forgerock.opendj.ldap.schema.Schema;
 import org.forgerock.opendj.server.config.meta.VirtualAttributeCfgDefn.ConflictBehavior;
 import org.forgerock.opendj.server.config.server.ReplicationServerCfg;
 import org.forgerock.opendj.server.config.server.UserDefinedVirtualAttributeCfg;
+import org.opends.server.api.DirectoryThread;
 import org.opends.server.api.VirtualAttributeProvider;
 import org.opends.server.backends.ChangelogBackend;
 import org.opends.server.core.BackendConfigManager;
@@ -135,6 +140,14 @@ public class ReplicationServer
 
   private final CryptoSuite cryptoSuite;
 
+  /**
+   * Sends the acks on behalf of the threads which must not block on a slow
+   * remote server, such as the changelog group commit thread. Each server
+   * handler hands its acks to at most one thread at a time.
+   */
+  private final ExecutorService ackSender =
+      Executors.newCachedThreadPool(new DirectoryThread.Factory("Replication server ack sender"));
+
   /**
    * Creates a new Replication server using the provided configuration entry.
    *
@@ -261,16 +274,17 @@ public class ReplicationServer
 
         final int queueSize = this.config.getQueueSize();
         final int rcvWindow = this.config.getWindowSize();
+        final boolean adaptiveRcvWindow = this.config.isAdaptiveWindow();
         if (msg instanceof ServerStartMsg)
         {
           DataServerHandler dsHandler = new DataServerHandler(
-              session, queueSize, this, rcvWindow);
+              session, queueSize, this, rcvWindow, adaptiveRcvWindow);
           dsHandler.startFromRemoteDS((ServerStartMsg) msg);
         }
         else if (msg instanceof ReplServerStartMsg)
         {
           ReplicationServerHandler rsHandler = new ReplicationServerHandler(
-              session, queueSize, this, rcvWindow);
+              session, queueSize, this, rcvWindow, adaptiveRcvWindow);
           rsHandler.startFromRemoteRS((ReplServerStartMsg) msg);
         }
         else
@@ -406,7 +420,7 @@ public class ReplicationServer
       session = replSessionSecurity.createClientSession(socket, timeoutMS);
 
       ReplicationServerHandler rsHandler = new ReplicationServerHandler(
-          session, config.getQueueSize(), this, config.getWindowSize());
+          session, config.getQueueSize(), this, config.getWindowSize(), config.isAdaptiveWindow());
       rsHandler.connect(baseDN, sslEncryption);
     }
     catch (Exception e)
@@ -798,6 +812,7 @@ public class ReplicationServer
     }
 
     shutdownExternalChangelog();
+    ackSender.shutdownNow();
 
     try
     {
@@ -812,6 +827,26 @@ public class ReplicationServer
     allInstances.remove(this);
   }
 
+  /**
+   * Runs the provided task sending acks to a remote server on a thread
+   * dedicated to sending acks.
+   *
+   * @param task
+   *          The task to run.
+   */
+  void executeAckTask(Runnable task)
+  {
+    try
+    {
+      ackSender.execute(task);
+    }
+    catch (RejectedExecutionException e)
+    {
+      // This replication server is shutting down and closing its connections
+      logger.traceException(e);
+    }
+  }
+
   /**
    * Retrieves the time after which changes must be deleted from the
    * persistent storage (in milliseconds).
@@ -327,6 +327,11 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
       return;
     }
 
+    if (preparedAssuredInfo != null && preparedAssuredInfo.ackWhenDurable)
+    {
+      sendAckWhenDurable(new AckMsg(updateMsg.getCSN()), sourceHandler);
+    }
+
     final List<Integer> assuredServers = getAssuredServers(updateMsg, preparedAssuredInfo);
 
     /**
@@ -573,6 +578,12 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
        * received. Null if expectedServers is null.
        */
       public ExpectedAcksInfo expectedAcksInfo;
+
+      /**
+       * Whether the ack must be sent to the source server, without waiting for
+       * other acks, once the update is persisted in the changelog DB.
+       */
+      public boolean ackWhenDurable;
   }
 
   /**
@@ -678,6 +689,7 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
   {
     CSN csn = update.getCSN();
     boolean interestedInAcks = false;
+    boolean ackWhenDurable = false;
     byte safeDataLevel = update.getSafeDataLevel();
     byte groupId = localReplicationServer.getGroupId();
     byte sourceGroupId = sourceHandler.getGroupId();
@@ -696,11 +708,11 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
           if (safeDataLevel == (byte) 1)
           {
             /**
-             * Immediately return the ack for an assured message in safe data
-             * mode with safe data level 1, coming from a DS. No need to wait
-             * for more acks
+             * Return the ack for an assured message in safe data mode with
+             * safe data level 1, coming from a DS, as soon as it is persisted.
+             * No need to wait for more acks
              */
-            sourceHandler.send(new AckMsg(csn));
+            ackWhenDurable = true;
           } else
           {
             /**
@@ -720,7 +732,7 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
            */
           if (safeDataLevel > (byte) 1)
           {
-            sourceHandler.send(new AckMsg(csn));
+            ackWhenDurable = true;
           }
         }
     }
@@ -733,6 +745,7 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
 
     // Return computed structures
     PreparedAssuredInfo preparedAssuredInfo = new PreparedAssuredInfo();
+    preparedAssuredInfo.ackWhenDurable = ackWhenDurable;
     int nExpectedServers = expectedServers.size();
     if (interestedInAcks) // interestedInAcks so level > 1
     {
@@ -754,8 +767,8 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
       } else
       {
         // level > 1 and source is a DS but no eligible servers found, send the
-        // ack immediately
-        sourceHandler.send(new AckMsg(csn));
+        // ack as soon as the update is persisted
+        preparedAssuredInfo.ackWhenDurable = true;
       }
     }
 
@@ -823,22 +836,13 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
           waitingAcks.remove(csn);
           AckMsg finalAck = expectedAcksInfo.createAck(false);
           ServerHandler origServer = expectedAcksInfo.getRequesterServer();
-          try
+          if (expectedAcksInfo instanceof SafeDataExpectedAcksInfo)
           {
-            origServer.send(finalAck);
-          } catch (IOException e)
+            sendAckWhenDurable(finalAck, origServer);
+          }
+          else
           {
-            /**
-             * An error happened trying the send back an ack to the server.
-             * Log an error and close the connection to this server.
-             */
-            LocalizableMessageBuilder mb = new LocalizableMessageBuilder();
-            mb.append(ERR_RS_ERROR_SENDING_ACK.get(
-                localReplicationServer.getServerId(), origServer.getServerId(), csn, baseDN));
-            mb.append(" ");
-            mb.append(stackTraceToSingleLineString(e));
-            logger.error(mb.toMessage());
-            stopServer(origServer, false);
+            sendAck(finalAck, origServer);
           }
           // Mark the ack info object as completed to prevent potential timeout
           // code parallel run
@@ -851,6 +855,54 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
      */
   }
 
+  /**
+   * Sends the provided safe data ack once the changes published so far to the
+   * changelog DB are persisted, so that the update it acknowledges cannot be
+   * lost by a crash of this replication server. The changelog DB persists the
+   * changes by batches and the thread completing a batch must not block, so it
+   * only hands the ack to the ack sender of the server handler.
+   */
+  private void sendAckWhenDurable(final AckMsg ack, final ServerHandler server)
+  {
+    final Runnable sendTask = new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        sendAck(ack, server);
+      }
+    };
+    domainDB.runWhenDurable(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        server.executeAckTask(sendTask);
+      }
+    });
+  }
+
+  private void sendAck(AckMsg ack, ServerHandler server)
+  {
+    try
+    {
+      server.send(ack);
+    } catch (IOException e)
+    {
+      /**
+       * An error happened trying the send back an ack to the server.
+       * Log an error and close the connection to this server.
+       */
+      LocalizableMessageBuilder mb = new LocalizableMessageBuilder();
+      mb.append(ERR_RS_ERROR_SENDING_ACK.get(
+          localReplicationServer.getServerId(), server.getServerId(), ack.getCSN(), baseDN));
+      mb.append(" ");
+      mb.append(stackTraceToSingleLineString(e));
+      logger.error(mb.toMessage());
+      stopServer(server, false);
+    }
+  }
+
   /**
    * The code run when the timeout occurs while waiting for acks of the
    * eligible servers. This basically sends a timeout ack (with any additional
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.replication.server;
 
@@ -125,14 +126,16 @@ public class ReplicationServerHandler extends ServerHandler
    * @param queueSize The queue size to manage updates to that RS.
    * @param replicationServer The hosting local RS object.
    * @param rcvWindowSize The receiving window size.
+   * @param adaptiveRcvWindow Whether the receiving window is adaptive.
    */
   public ReplicationServerHandler(
       Session session,
       int queueSize,
       ReplicationServer replicationServer,
-      int rcvWindowSize)
+      int rcvWindowSize,
+      boolean adaptiveRcvWindow)
   {
-    super(session, queueSize, replicationServer, rcvWindowSize);
+    super(session, queueSize, replicationServer, rcvWindowSize, adaptiveRcvWindow);
   }
 
   /**
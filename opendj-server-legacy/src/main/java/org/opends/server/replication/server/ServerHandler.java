@@ -13,15 +13,19 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.replication.server;
 
 import static org.opends.messages.ReplicationMessages.*;
 
 import java.io.IOException;
+import java.util.Queue;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -33,6 +37,7 @@ import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.replication.common.AssuredMode;
 import org.opends.server.replication.common.CSN;
+import org.opends.server.replication.common.FlowControlWindow;
 import org.opends.server.replication.common.RSInfo;
 import org.opends.server.replication.common.ServerStatus;
 import org.opends.server.replication.protocol.AckMsg;
@@ -131,12 +136,8 @@ public abstract class ServerHandler extends MessageHandler
    */
   private ServerReader reader;
 
-  /** Window. */
-  private int rcvWindow;
-  private final int rcvWindowSizeHalf;
-
-  /** The size of the receiving window. */
-  protected final int maxRcvWindow;
+  /** The window of updates received from the remote server. */
+  protected final FlowControlWindow rcvWindow;
   /** Semaphore that the writer uses to control the flow to the remote server. */
   private Semaphore sendWindow;
   /** The initial size of the sending window. */
@@ -166,6 +167,29 @@ public abstract class ServerHandler extends MessageHandler
   /** Weight of this remote server. */
   protected int weight = 1;
 
+  /** The tasks sending acks to the remote server, waiting to be run by the ack sender. */
+  private final Queue<Runnable> ackTasks = new ConcurrentLinkedQueue<>();
+  /** Whether a thread of the ack sender is running the ack tasks. */
+  private final AtomicBoolean ackTasksScheduled = new AtomicBoolean();
+  /** Runs the ack tasks in order, until there are none left. */
+  private final Runnable ackTasksRunner = new Runnable()
+  {
+    @Override
+    public void run()
+    {
+      do
+      {
+        Runnable task;
+        while ((task = ackTasks.poll()) != null)
+        {
+          task.run();
+        }
+        ackTasksScheduled.set(false);
+      }
+      while (!ackTasks.isEmpty() && ackTasksScheduled.compareAndSet(false, true));
+    }
+  };
+
   /**
    * Creates a new server handler instance with the provided socket.
    *
@@ -175,18 +199,19 @@ public abstract class ServerHandler extends MessageHandler
    *                  in memory by this ServerHandler.
    * @param replicationServer The hosting replication server.
    * @param rcvWindowSize The window size to receive from the remote server.
+   * @param adaptiveRcvWindow Whether the receiving window adapts to the link
+   *                          and to the local replay of the updates.
    */
   public ServerHandler(
       Session session,
       int queueSize,
       ReplicationServer replicationServer,
-      int rcvWindowSize)
+      int rcvWindowSize,
+      boolean adaptiveRcvWindow)
   {
     super(queueSize, replicationServer);
     this.session = session;
-    this.rcvWindowSizeHalf = rcvWindowSize / 2;
-    this.maxRcvWindow = rcvWindowSize;
-    this.rcvWindow = rcvWindowSize;
+    this.rcvWindow = new FlowControlWindow(rcvWindowSize, adaptiveRcvWindow);
   }
 
   /**
@@ -246,24 +271,26 @@ public abstract class ServerHandler extends MessageHandler
    */
   public synchronized void checkWindow() throws IOException
   {
-    if (rcvWindow < rcvWindowSizeHalf)
-    {
-      WindowMsg msg = new WindowMsg(rcvWindowSizeHalf);
-      session.publish(msg);
-      rcvWindow += rcvWindowSizeHalf;
-    }
+    sendCredits(rcvWindow.checkCredits());
   }
 
   /**
-   * Decrement the protocol window, then check if it is necessary
+   * Record the processing of a received update, then check if it is necessary
    * to send a WindowMsg and send it.
    *
    * @throws IOException when the session becomes unavailable.
    */
-  private synchronized void decAndCheckWindow() throws IOException
+  private synchronized void updateProcessedAndCheckWindow() throws IOException
+  {
+    sendCredits(rcvWindow.updatesConsumed(1));
+  }
+
+  private void sendCredits(int credits) throws IOException
   {
-    rcvWindow--;
-    checkWindow();
+    if (credits > 0)
+    {
+      session.publish(new WindowMsg(credits));
+    }
   }
 
   /**
@@ -517,11 +544,13 @@ public abstract class ServerHandler extends MessageHandler
     // Window stats
     attributes.add("max-send-window", sendWindowSize);
     attributes.add("current-send-window", sendWindow.availablePermits());
-    attributes.add("max-rcv-window", maxRcvWindow);
-    attributes.add("current-rcv-window", rcvWindow);
+    attributes.add("max-rcv-window", rcvWindow.getMaxSize());
+    attributes.add("current-rcv-window", rcvWindow.getAvailable());
+    rcvWindow.addMonitorData(attributes);
 
     // Encryption
     attributes.add("ssl-encryption", session.isEncrypted());
+    session.addCompressionMonitorData(attributes);
 
     // Data generation
     attributes.add("generation-id", generationId);
@@ -812,14 +841,15 @@ public abstract class ServerHandler extends MessageHandler
    */
   public void replyToWindowProbe() throws IOException
   {
-    if (rcvWindow > 0)
+    final int available = rcvWindow.getAvailable();
+    if (available > 0)
     {
       // The LDAP server believes that its window is closed while it is not,
       // this means that some problem happened in the window exchange procedure!
       // lets update the LDAP server with out current window size and hope
       // that everything will work better in the future.
       // TODO also log an error message.
-      session.publish(new WindowMsg(rcvWindow));
+      session.publish(new WindowMsg(available));
     }
     else
     {
@@ -1093,6 +1123,24 @@ public abstract class ServerHandler extends MessageHandler
     }
   }
 
+  /**
+   * Runs the provided task sending an ack to the remote server on a thread of
+   * the replication server, so that the caller does not block if the remote
+   * server is slow. The tasks are run in order, and a remote server which does
+   * not read its messages only blocks the thread running its own tasks.
+   *
+   * @param task
+   *          The task sending an ack to the remote server.
+   */
+  void executeAckTask(Runnable task)
+  {
+    ackTasks.add(task);
+    if (ackTasksScheduled.compareAndSet(false, true))
+    {
+      replicationServer.executeAckTask(ackTasksRunner);
+    }
+  }
+
   /**
    * Process a Ack message received.
    * @param ack the message received.
@@ -1127,8 +1175,21 @@ public abstract class ServerHandler extends MessageHandler
    */
   public void put(UpdateMsg update) throws IOException
   {
-    decAndCheckWindow();
-    replicationServerDomain.put(update, this);
+    rcvWindow.updateReceived();
+    boolean processed = false;
+    try
+    {
+      replicationServerDomain.put(update, this);
+      processed = true;
+    }
+    finally
+    {
+      if (!processed)
+      {
+        rcvWindow.updateDiscarded();
+      }
+    }
+    updateProcessedAndCheckWindow();
   }
 
   /**
@@ -1147,7 +1208,7 @@ public abstract class ServerHandler extends MessageHandler
   protected ReplServerStartMsg createReplServerStartMsg()
   {
     return new ReplServerStartMsg(getReplicationServerId(),
-        getReplicationServerURL(), getBaseDN(), maxRcvWindow,
+        getReplicationServerURL(), getBaseDN(), rcvWindow.getInitialSize(),
         replicationServerDomain.getLatestServerState(), localGenerationId,
         sslEncryption, getLocalGroupId(),
         replicationServer.getDegradedStatusThreshold());
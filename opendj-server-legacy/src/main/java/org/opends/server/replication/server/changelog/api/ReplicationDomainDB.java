@@ -199,6 +199,18 @@ public interface ReplicationDomainDB
   boolean publishUpdateMsg(DN baseDN, UpdateMsg updateMsg)
       throws ChangelogException;
 
+  /**
+   * Runs the provided task once all the changes published so far to the
+   * changelog DB are persisted on stable storage.
+   * <p>
+   * The changes are persisted by batches, so the task may be run by another
+   * thread: it must not block.
+   *
+   * @param task
+   *          the task to run
+   */
+  void runWhenDurable(Runnable task);
+
   /**
    * Let the DB know this replica is alive.
    * <p>
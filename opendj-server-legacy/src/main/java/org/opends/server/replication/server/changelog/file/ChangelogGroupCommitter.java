@@ -0,0 +1,277 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.server.changelog.file;
+
+import static org.opends.messages.ReplicationMessages.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jcip.annotations.GuardedBy;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.opends.server.api.DirectoryThread;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.replication.server.changelog.api.ChangelogException;
+import org.opends.server.types.InitializationException;
+
+/**
+ * Persists the records appended to the logs of the changelog with one
+ * synchronization with the file system per batch of records.
+ * <p>
+ * The records appended to the logs are written to the file system right away,
+ * so that cursors can read them, but are not synchronized with the storage
+ * device. This thread synchronizes all the logs with pending records together:
+ * <ul>
+ * <li>periodically,</li>
+ * <li>when the records pending since the last batch exceed a size
+ * threshold,</li>
+ * <li>when a task waits for the records to be persisted, for instance to send
+ * a safe data acknowledgment. The tasks registered while a batch is being
+ * synchronized are run after the next batch, so that a single synchronization
+ * serves all of them.</li>
+ * </ul>
+ */
+final class ChangelogGroupCommitter extends DirectoryThread
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The replication environment holding the logs to synchronize. */
+  private final ReplicationEnvironment replicationEnv;
+  /** The maximum time in milliseconds during which appended records may stay unsynchronized. */
+  private final long maxDelayInMillis;
+  /** The size of the pending records above which a batch is synchronized immediately. */
+  private final long maxPendingBytes;
+
+  /** The size in bytes of the records appended since the last batch. */
+  private final AtomicLong pendingBytes = new AtomicLong();
+  /** The tasks to run once the records appended before their registration are persisted. */
+  @GuardedBy("this")
+  private List<Runnable> durabilityTasks = new ArrayList<>();
+  /** Whether the last batch failed, in which case it is retried after the delay. */
+  private boolean lastBatchFailed;
+
+  private final AtomicLong batchCount = new AtomicLong();
+  private final AtomicLong syncCount = new AtomicLong();
+  private final AtomicLong syncedBytes = new AtomicLong();
+  private final AtomicLong durabilityTaskCount = new AtomicLong();
+  private volatile long lastBatchDurationInMillis;
+
+  private final GroupCommitMonitorProvider monitor = new GroupCommitMonitorProvider();
+
+  /**
+   * Creates the group committer of the provided replication environment.
+   *
+   * @param replicationEnv
+   *          The replication environment holding the logs to synchronize.
+   * @param maxDelayInMillis
+   *          The maximum time in milliseconds during which appended records
+   *          may stay unsynchronized.
+   * @param maxPendingBytes
+   *          The size of the pending records above which they are
+   *          synchronized without waiting for the delay to expire.
+   */
+  ChangelogGroupCommitter(final ReplicationEnvironment replicationEnv, final long maxDelayInMillis,
+      final long maxPendingBytes)
+  {
+    super("Changelog group commit");
+    this.replicationEnv = replicationEnv;
+    this.maxDelayInMillis = maxDelayInMillis;
+    this.maxPendingBytes = maxPendingBytes;
+  }
+
+  /**
+   * Returns the monitor provider publishing the statistics of this group
+   * committer.
+   *
+   * @return the monitor provider of this group committer
+   */
+  MonitorProvider<MonitorProviderCfg> getMonitorProvider()
+  {
+    return monitor;
+  }
+
+  /**
+   * Notifies that a record has been appended to one of the logs.
+   *
+   * @param sizeInBytes
+   *          The size of the appended record.
+   */
+  void recordAppended(final long sizeInBytes)
+  {
+    if (pendingBytes.addAndGet(sizeInBytes) >= maxPendingBytes)
+    {
+      synchronized (this)
+      {
+        notify();
+      }
+    }
+  }
+
+  /**
+   * Runs the provided task once all the records appended to the logs so far
+   * are persisted. The task is run by this thread, so it must not block.
+   * <p>
+   * The task is run immediately if this thread is stopped, as the logs are
+   * synchronized when they are closed.
+   *
+   * @param task
+   *          The task to run.
+   */
+  void runWhenDurable(final Runnable task)
+  {
+    synchronized (this)
+    {
+      if (!isShutdownInitiated())
+      {
+        durabilityTasks.add(task);
+        notify();
+        return;
+      }
+    }
+    task.run();
+  }
+
+  @Override
+  public void run()
+  {
+    while (!isShutdownInitiated())
+    {
+      try
+      {
+        synchronized (this)
+        {
+          if (!isShutdownInitiated()
+              && (lastBatchFailed || (durabilityTasks.isEmpty() && pendingBytes.get() < maxPendingBytes)))
+          {
+            wait(maxDelayInMillis);
+          }
+        }
+        lastBatchFailed = !commitBatch();
+      }
+      catch (InterruptedException e)
+      {
+        // shutdown initiated?
+      }
+    }
+    // release the tasks registered before the shutdown
+    commitBatch();
+  }
+
+  @Override
+  public void initiateShutdown()
+  {
+    super.initiateShutdown();
+    synchronized (this)
+    {
+      notify(); // wake up the group commit thread for faster shutdown
+    }
+  }
+
+  /**
+   * Synchronizes all the logs with pending records, then runs the tasks waiting
+   * for them. If the synchronization fails, the tasks are kept for the next
+   * batch.
+   *
+   * @return {@code true} if the batch succeeded, {@code false} otherwise
+   */
+  private boolean commitBatch()
+  {
+    final List<Runnable> tasks;
+    synchronized (this)
+    {
+      tasks = durabilityTasks;
+      durabilityTasks = new ArrayList<>();
+    }
+    final long bytes = pendingBytes.getAndSet(0);
+
+    final long startTime = System.currentTimeMillis();
+    int nbSyncs = 0;
+    try
+    {
+      for (Log<?, ?> log : replicationEnv.getOpenedLogs())
+      {
+        if (log.hasUnsyncedRecords())
+        {
+          log.syncToFileSystem();
+          nbSyncs++;
+        }
+      }
+    }
+    catch (ChangelogException e)
+    {
+      logger.error(ERR_CHANGELOG_GROUP_COMMIT_FAILED, stackTraceToSingleLineString(e));
+      // retry the synchronization with the next batch, so that the waiting tasks are run once it succeeds
+      pendingBytes.addAndGet(bytes);
+      synchronized (this)
+      {
+        tasks.addAll(durabilityTasks);
+        durabilityTasks = tasks;
+      }
+      return false;
+    }
+
+    if (nbSyncs > 0)
+    {
+      batchCount.incrementAndGet();
+      syncCount.addAndGet(nbSyncs);
+      syncedBytes.addAndGet(bytes);
+      lastBatchDurationInMillis = System.currentTimeMillis() - startTime;
+    }
+    durabilityTaskCount.addAndGet(tasks.size());
+    for (Runnable task : tasks)
+    {
+      task.run();
+    }
+    return true;
+  }
+
+  /** Publishes the statistics of the group commit below cn=monitor. */
+  private final class GroupCommitMonitorProvider extends MonitorProvider<MonitorProviderCfg>
+  {
+    @Override
+    public MonitorData getMonitorData()
+    {
+      final MonitorData attributes = new MonitorData(7);
+      attributes.add("max-delay-millis", maxDelayInMillis);
+      attributes.add("max-pending-bytes", maxPendingBytes);
+      attributes.add("batches", batchCount.get());
+      attributes.add("file-syncs", syncCount.get());
+      attributes.add("synced-bytes", syncedBytes.get());
+      attributes.add("durability-waits", durabilityTaskCount.get());
+      attributes.add("last-batch-duration-millis", lastBatchDurationInMillis);
+      return attributes;
+    }
+
+    @Override
+    public String getMonitorInstanceName()
+    {
+      return "Changelog Group Commit";
+    }
+
+    @Override
+    public void initializeMonitorProvider(MonitorProviderCfg configuration)
+        throws ConfigException, InitializationException
+    {
+      // Nothing to do for now
+    }
+  }
+}
@@ -285,6 +285,7 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
       replicationEnv = new ReplicationEnvironment(dbDirectory.getAbsolutePath(), replicationServer, TimeService.SYSTEM);
       final ChangelogState changelogState = replicationEnv.getChangelogState();
       initializeToChangelogState(changelogState);
+      replicationEnv.startGroupCommit();
       if (replicationServer.isChangeNumberEnabled())
       {
         startIndexer();
@@ -821,6 +822,20 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
     return pair.getSecond(); // replica DB was created
   }
 
+  @Override
+  public void runWhenDurable(final Runnable task)
+  {
+    final ReplicationEnvironment env = replicationEnv;
+    if (env != null)
+    {
+      env.runWhenDurable(task);
+    }
+    else
+    {
+      task.run();
+    }
+  }
+
   @Override
   public void replicaHeartbeat(final DN baseDN, final CSN heartbeatCSN) throws ChangelogException
   {
@@ -32,6 +32,7 @@ import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -170,9 +171,15 @@ final class Log<K extends Comparable<K>, V> implements Closeable
   /** The last time a log file was rotated. */
   private long lastRotationTime;
 
+  /** The number of records appended to this log. */
+  private final AtomicLong appendedRecords = new AtomicLong();
+
+  /** The number of records appended to this log when it was last synchronized with the file system. */
+  private volatile long syncedRecords;
+
   /**
    * The exclusive lock used for log rotation and lifecycle operations on this log:
-   * initialize, clear, sync and close.
+   * initialize, clear and close.
    */
   private final Lock exclusiveLock;
 
@@ -427,7 +434,7 @@ final class Log<K extends Comparable<K>, V> implements Closeable
       LogFile<K, V> headLogFile = getHeadLogFile();
       if (!mustRotate(headLogFile))
       {
-        headLogFile.append(record);
+        notifyRecordAppended(headLogFile.append(record));
         return;
       }
     }
@@ -457,7 +464,7 @@ final class Log<K extends Comparable<K>, V> implements Closeable
         rotateHeadLogFile();
         headLogFile = getHeadLogFile();
       }
-      headLogFile.append(record);
+      notifyRecordAppended(headLogFile.append(record));
     }
     finally
     {
@@ -465,6 +472,27 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     }
   }
 
+  private void notifyRecordAppended(final long sizeInBytes)
+  {
+    if (sizeInBytes > 0)
+    {
+      appendedRecords.incrementAndGet();
+      replicationEnv.notifyRecordAppended(sizeInBytes);
+    }
+  }
+
+  /**
+   * Indicates if some records have been added to this log since it was last
+   * synchronized with the file system.
+   *
+   * @return {@code true} if a call to {@code syncToFileSystem()} is needed to
+   *         persist all the records added to this log
+   */
+  boolean hasUnsyncedRecords()
+  {
+    return appendedRecords.get() != syncedRecords;
+  }
+
   private boolean mustRotate(LogFile<K, V> headLogFile)
   {
     if (headLogFile.getNewestRecord() == null)
@@ -499,20 +527,30 @@ final class Log<K extends Comparable<K>, V> implements Closeable
    * <p>
    * After a successful call to this method, it is guaranteed that all records
    * added to the log are persisted to the file system.
+   * <p>
+   * Only the head log file has to be synchronized, as the other log files were
+   * synchronized when they were rotated. Records may be appended concurrently:
+   * they are persisted by the next call.
    *
    * @throws ChangelogException
    *           If the synchronization fails.
    */
   public void syncToFileSystem() throws ChangelogException
   {
-    exclusiveLock.lock();
+    sharedLock.lock();
     try
     {
+      if (isClosed)
+      {
+        return;
+      }
+      final long appended = appendedRecords.get();
       getHeadLogFile().syncToFileSystem();
+      syncedRecords = appended;
     }
     finally
     {
-      exclusiveLock.unlock();
+      sharedLock.unlock();
     }
   }
 
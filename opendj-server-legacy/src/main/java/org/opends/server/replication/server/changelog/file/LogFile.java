@@ -108,7 +108,7 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
     sharedLock = rwLock.readLock();
     createLogFileIfNotExists();
 
-    readerPool = new LogReaderPool<>(logfile, parser);
+    readerPool = new LogReaderPool<>(logfile, parser, !isWriteEnabled);
     if (isWriteEnabled)
     {
       ensureLogFileIsValid(parser);
@@ -242,10 +242,12 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
    *
    * @param record
    *          The record to add.
+   * @return the number of bytes written to the log file, or 0 if the record
+   *         was not appended
    * @throws ChangelogException
    *           If the record can't be added to the log.
    */
-  void append(final Record<K, V> record) throws ChangelogException
+  long append(final Record<K, V> record) throws ChangelogException
   {
     checkLogIsEnabledForWrite();
     exclusiveLock.lock();
@@ -253,10 +255,12 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
     {
       if (appendWouldBreakKeyOrdering(record))
       {
-        return;
+        return 0;
       }
+      final long sizeBefore = writer.getBytesWritten();
       writer.write(record);
       newestRecord = record;
+      return writer.getBytesWritten() - sizeBefore;
     }
     finally
     {
@@ -0,0 +1,233 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.server.changelog.file;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+
+/**
+ * Random access to the content of a log file, read either with a
+ * {@link RandomAccessFile} or from a buffer mapping the whole file in memory.
+ * <p>
+ * The methods follow the semantics of the corresponding methods of
+ * {@link RandomAccessFile}: seeking or skipping beyond the end of the file is
+ * allowed, and reading beyond it throws an {@link EOFException}.
+ */
+abstract class LogFileInput implements Closeable
+{
+  /**
+   * Returns an input reading the provided random access file.
+   *
+   * @param reader
+   *          The random access file to read, closed with the returned input.
+   * @return the input reading the file
+   */
+  static LogFileInput of(final RandomAccessFile reader)
+  {
+    return new RandomAccessFileInput(reader);
+  }
+
+  /**
+   * Returns an input reading the provided buffer, which holds the whole
+   * content of the file, from its position 0 to its limit.
+   *
+   * @param file
+   *          The file whose content is held by the buffer.
+   * @param content
+   *          The content of the file. It is not modified by the returned input,
+   *          which reads a duplicate of it.
+   * @return the input reading the buffer
+   */
+  static LogFileInput of(final File file, final ByteBuffer content)
+  {
+    return new BufferInput(file, content.duplicate());
+  }
+
+  /**
+   * Returns the current position in the file.
+   *
+   * @return the offset from the beginning of the file, in bytes
+   * @throws IOException
+   *           If an I/O error occurs.
+   */
+  abstract long getFilePointer() throws IOException;
+
+  /**
+   * Sets the current position in the file.
+   *
+   * @param position
+   *          The offset from the beginning of the file, in bytes.
+   * @throws IOException
+   *           If an I/O error occurs.
+   */
+  abstract void seek(long position) throws IOException;
+
+  /**
+   * Returns the length of the file.
+   *
+   * @return the length of the file, in bytes
+   * @throws IOException
+   *           If an I/O error occurs.
+   */
+  abstract long length() throws IOException;
+
+  /**
+   * Skips the provided number of bytes, or up to the end of the file.
+   *
+   * @param n
+   *          The number of bytes to skip.
+   * @throws IOException
+   *           If an I/O error occurs.
+   */
+  abstract void skipBytes(int n) throws IOException;
+
+  /**
+   * Reads exactly the provided number of bytes and appends them to the
+   * provided builder.
+   *
+   * @param builder
+   *          The builder to append the bytes to.
+   * @param length
+   *          The number of bytes to read.
+   * @throws EOFException
+   *           If the end of the file is reached before all the bytes are read.
+   * @throws IOException
+   *           If an I/O error occurs.
+   */
+  abstract void readFully(ByteStringBuilder builder, int length) throws IOException;
+
+  /** Reads the file with a {@link RandomAccessFile}, each read being a system call. */
+  private static final class RandomAccessFileInput extends LogFileInput
+  {
+    private final RandomAccessFile reader;
+
+    private RandomAccessFileInput(final RandomAccessFile reader)
+    {
+      this.reader = reader;
+    }
+
+    @Override
+    long getFilePointer() throws IOException
+    {
+      return reader.getFilePointer();
+    }
+
+    @Override
+    void seek(final long position) throws IOException
+    {
+      reader.seek(position);
+    }
+
+    @Override
+    long length() throws IOException
+    {
+      return reader.length();
+    }
+
+    @Override
+    void skipBytes(final int n) throws IOException
+    {
+      reader.skipBytes(n);
+    }
+
+    @Override
+    void readFully(final ByteStringBuilder builder, final int length) throws IOException
+    {
+      builder.appendBytes(reader, length);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      reader.close();
+    }
+
+    @Override
+    public String toString()
+    {
+      return reader.toString();
+    }
+  }
+
+  /**
+   * Reads the file from a buffer holding its whole content, usually a read-only
+   * mapping of the file: reads are plain memory copies.
+   */
+  private static final class BufferInput extends LogFileInput
+  {
+    private final File file;
+    private final ByteBuffer content;
+
+    private BufferInput(final File file, final ByteBuffer content)
+    {
+      this.file = file;
+      this.content = content;
+    }
+
+    @Override
+    long getFilePointer()
+    {
+      return content.position();
+    }
+
+    @Override
+    void seek(final long position)
+    {
+      content.position((int) Math.min(position, content.limit()));
+    }
+
+    @Override
+    long length()
+    {
+      return content.limit();
+    }
+
+    @Override
+    void skipBytes(final int n)
+    {
+      content.position(Math.min(content.position() + n, content.limit()));
+    }
+
+    @Override
+    void readFully(final ByteStringBuilder builder, final int length) throws EOFException
+    {
+      if (length > content.remaining())
+      {
+        content.position(content.limit());
+        throw new EOFException();
+      }
+      builder.appendBytes(content, length);
+    }
+
+    @Override
+    public void close()
+    {
+      // the mapping is shared by all the readers of the file
+    }
+
+    @Override
+    public String toString()
+    {
+      return getClass().getSimpleName() + "(" + file.getPath() + ")";
+    }
+  }
+}
@@ -16,16 +16,28 @@
 package org.opends.server.replication.server.changelog.file;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import net.jcip.annotations.GuardedBy;
 
 import org.opends.server.replication.server.changelog.api.ChangelogException;
 import org.opends.server.util.StaticUtils;
 
+import com.forgerock.opendj.util.OperatingSystem;
+
 import static org.opends.messages.ReplicationMessages.*;
 
 /**
  * A Pool of readers to a log file.
-
+ * <p>
+ * The readers of a read-only log file read a memory mapping of the whole file,
+ * shared by all of them, rather than issuing one system call per read. The
+ * readers of the head log file, which is still written, read it with a
+ * {@link RandomAccessFile}.
  *
  * @param <K>
  *          Type of the key of a record, which must be comparable.
@@ -40,6 +52,18 @@ class LogReaderPool<K extends Comparable<K>, V>
 
   private final RecordParser<K, V> parser;
 
+  /**
+   * Whether the file is mapped in memory. A mapping is only released when it
+   * is garbage collected, and Windows does not allow deleting a mapped file, so
+   * the log files are never mapped on Windows, where they could not be purged.
+   */
+  @GuardedBy("this")
+  private boolean mapFile;
+
+  /** The mapping of the whole file, lazily created by the first reader. */
+  @GuardedBy("this")
+  private ByteBuffer mappedContent;
+
   /**
    * Creates a pool of readers for provided file.
    *
@@ -47,11 +71,15 @@ class LogReaderPool<K extends Comparable<K>, V>
    *          The file to read.
    * @param parser
    *          The parser to decode the records read.
+   * @param isReadOnly
+   *          {@code true} if the file is not written any more, in which case it
+   *          can be mapped in memory
    */
-  LogReaderPool(File file, RecordParser<K, V> parser)
+  LogReaderPool(File file, RecordParser<K, V> parser, boolean isReadOnly)
   {
     this.file = file;
     this.parser = parser;
+    this.mapFile = isReadOnly && !OperatingSystem.isWindows();
   }
 
   /**
@@ -66,9 +94,39 @@ class LogReaderPool<K extends Comparable<K>, V>
    */
   BlockLogReader<K, V> get() throws ChangelogException
   {
+    final ByteBuffer content = getMappedContent();
+    if (content != null)
+    {
+      return BlockLogReader.newMappedReader(file, content, parser);
+    }
     return getReader(file);
   }
 
+  /** Returns the mapping of the file, or {@code null} if the file is not mapped. */
+  private synchronized ByteBuffer getMappedContent() throws ChangelogException
+  {
+    if (mapFile && mappedContent == null)
+    {
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+      {
+        final long size = channel.size();
+        if (size > Integer.MAX_VALUE)
+        {
+          // a buffer cannot hold the file
+          mapFile = false;
+          return null;
+        }
+        // the mapping remains valid once the channel is closed
+        mappedContent = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+      catch (IOException e)
+      {
+        throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_OPEN_READER_ON_LOG_FILE.get(file.getPath()), e);
+      }
+    }
+    return mappedContent;
+  }
+
   /**
    * Release the provided reader.
    * <p>
@@ -100,9 +158,11 @@ class LogReaderPool<K extends Comparable<K>, V>
    * Shutdown this pool, releasing all files handles opened
    * on the file.
    */
-  void shutdown()
+  synchronized void shutdown()
   {
-    // Nothing to do yet as no file handle is kept opened.
+    // The mapping is released once the readers still using it are garbage collected.
+    mappedContent = null;
+    mapFile = false;
   }
 
 }
@@ -34,6 +34,7 @@ import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -48,6 +49,7 @@ import org.forgerock.i18n.LocalizedIllegalArgumentException;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.util.time.TimeService;
+import org.opends.server.core.DirectoryServer;
 import org.opends.server.crypto.CryptoSuite;
 import org.opends.server.replication.common.CSN;
 import org.opends.server.replication.protocol.UpdateMsg;
@@ -128,6 +130,12 @@ class ReplicationEnvironment implements ChangelogStateProvider
 
   private static final long REPLICA_DB_MAX_LOG_FILE_SIZE_IN_BYTES = 10 * CN_INDEX_DB_MAX_LOG_FILE_SIZE_IN_BYTES;
 
+  /** The maximum time during which records appended to the logs may stay unsynchronized with the file system. */
+  private static final long GROUP_COMMIT_MAX_DELAY_IN_MILLIS = 10;
+
+  /** The size of the unsynchronized records above which the logs are synchronized immediately. */
+  private static final long GROUP_COMMIT_MAX_PENDING_BYTES = CN_INDEX_DB_MAX_LOG_FILE_SIZE_IN_BYTES;
+
   private static final int NO_GENERATION_ID = -1;
 
   /** Extension for the temporary file used when modifying an environment file. */
@@ -233,6 +241,9 @@ class ReplicationEnvironment implements ChangelogStateProvider
 
   private final AtomicBoolean isShuttingDown = new AtomicBoolean(false);
 
+  /** The thread synchronizing the logs with the file system, {@code null} until the group commit is started. */
+  private volatile ChangelogGroupCommitter groupCommitter;
+
   /** The time service used for timing. */
   private final TimeService timeService;
 
@@ -407,6 +418,70 @@ class ReplicationEnvironment implements ChangelogStateProvider
     }
   }
 
+  /**
+   * Starts synchronizing the records appended to the logs with the file system,
+   * by batches.
+   * <p>
+   * Until this method is called, the records are synchronized only when the
+   * log files are rotated or closed.
+   */
+  void startGroupCommit()
+  {
+    final ChangelogGroupCommitter committer =
+        new ChangelogGroupCommitter(this, GROUP_COMMIT_MAX_DELAY_IN_MILLIS, GROUP_COMMIT_MAX_PENDING_BYTES);
+    groupCommitter = committer;
+    committer.start();
+    DirectoryServer.registerMonitorProvider(committer.getMonitorProvider());
+  }
+
+  /**
+   * Runs the provided task once all the records appended to the logs so far
+   * are persisted to the file system. The task must not block.
+   *
+   * @param task
+   *          The task to run.
+   */
+  void runWhenDurable(final Runnable task)
+  {
+    final ChangelogGroupCommitter committer = groupCommitter;
+    if (committer != null)
+    {
+      committer.runWhenDurable(task);
+    }
+    else
+    {
+      task.run();
+    }
+  }
+
+  /**
+   * Notifies that a record has been appended to a log.
+   *
+   * @param sizeInBytes
+   *          The size of the appended record.
+   */
+  void notifyRecordAppended(final long sizeInBytes)
+  {
+    final ChangelogGroupCommitter committer = groupCommitter;
+    if (committer != null)
+    {
+      committer.recordAppended(sizeInBytes);
+    }
+  }
+
+  /**
+   * Returns the logs currently opened in this environment.
+   *
+   * @return the opened logs
+   */
+  List<Log<?, ?>> getOpenedLogs()
+  {
+    final List<Log<?, ?>> logs = new ArrayList<>(logsReplicaDB.size() + logsCNIndexDB.size());
+    logs.addAll(logsReplicaDB);
+    logs.addAll(logsCNIndexDB);
+    return logs;
+  }
+
   /**
    * Shutdown the environment.
    * <p>
@@ -417,11 +492,31 @@ class ReplicationEnvironment implements ChangelogStateProvider
   {
     if (isShuttingDown.compareAndSet(false, true))
     {
+      stopGroupCommit();
       logsReplicaDB.clear();
       logsCNIndexDB.clear();
     }
   }
 
+  private void stopGroupCommit()
+  {
+    final ChangelogGroupCommitter committer = groupCommitter;
+    if (committer != null)
+    {
+      DirectoryServer.deregisterMonitorProvider(committer.getMonitorProvider());
+      committer.initiateShutdown();
+      try
+      {
+        committer.join();
+      }
+      catch (InterruptedException e)
+      {
+        // do nothing: we are already shutting down
+      }
+      groupCommitter = null;
+    }
+  }
+
   /**
    * Clears the generated id associated to the provided domain DN from the state
    * Db.
@@ -13,24 +13,42 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2013-2014 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.replication.service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.opends.server.api.DirectoryThread;
 
 /**
  * This class creates an input stream that can be used to read entries generated
  * by SynchroLDIF as if they were being read from another source like a file.
+ * <p>
+ * The entries are received from the replication server by a dedicated thread
+ * and queued until they are read: the import threads, which read the stream
+ * one at a time, do not wait for the network nor acknowledge the received
+ * messages themselves.
  */
 class ReplInputStream extends InputStream
 {
+  /** Marks the end of the received entries in the queue. */
+  private static final byte[] END_OF_ENTRIES = new byte[0];
+
   /** Indicates whether this input stream has been closed. */
-  private boolean closed;
+  private volatile boolean closed;
 
   /** The domain associated to this import. */
   private final ReplicationDomain domain;
 
+  /** The entries received and not read yet. */
+  private final BlockingQueue<byte[]> receivedEntries;
+  private final EntryReceiver receiver;
+
   private byte[] bytes;
   private int index;
 
@@ -39,20 +57,81 @@ class ReplInputStream extends InputStream
    * for a synchronization domain.
    *
    * @param domain The replication domain
+   * @param maxQueuedMessages The maximum number of messages received and
+   *                          not read yet.
    */
-  ReplInputStream(ReplicationDomain domain)
+  ReplInputStream(ReplicationDomain domain, int maxQueuedMessages)
   {
     this.domain = domain;
     closed      = false;
+    receivedEntries = new ArrayBlockingQueue<>(Math.max(maxQueuedMessages, 1));
+    receiver = new EntryReceiver();
+  }
+
+  /** Starts the thread receiving the entries from the replication server. */
+  void start()
+  {
+    receiver.start();
+  }
+
+  /**
+   * Returns whether the provided thread is the one receiving the entries of
+   * this input stream.
+   *
+   * @param thread the thread to check
+   * @return true if the provided thread receives the entries of this stream
+   */
+  boolean isReceiver(Thread thread)
+  {
+    return thread == receiver;
   }
 
   /**
-   * Closes this input stream so that no more data may be read from it.
+   * Closes this input stream so that no more data may be read from it, and
+   * stops the thread receiving the entries.
+   * <p>
+   * When the thread is still waiting for a message, the session with the
+   * replication server is closed to release it. This method returns once the
+   * thread has terminated, so that it cannot consume the messages received
+   * after the session is reopened.
    */
   @Override
   public void close()
   {
     closed      = true;
+    receiver.initiateShutdown();
+    if (receiver.isAlive())
+    {
+      domain.stopEntryReception();
+      receiver.interrupt();
+    }
+
+    boolean interrupted = false;
+    while (receiver.isAlive())
+    {
+      try
+      {
+        receiver.join();
+      }
+      catch (InterruptedException e)
+      {
+        interrupted = true;
+      }
+    }
+    if (interrupted)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Returns the number of messages received and not read yet.
+   *
+   * @return the number of messages received and not read yet
+   */
+  int getQueuedMessages()
+  {
+    return receivedEntries.size();
   }
 
   /**
@@ -85,10 +164,19 @@ class ReplInputStream extends InputStream
     {
       // First time this method is called or the previous entry was
       // finished. Read a new entry and return it.
-      bytes = domain.receiveEntryBytes();
+      try
+      {
+        bytes = receivedEntries.take();
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      }
 
-      if (bytes==null)
+      if (bytes == END_OF_ENTRIES)
       {
+        bytes = null;
         closed = true;
         return -1;
       }
@@ -147,4 +235,52 @@ class ReplInputStream extends InputStream
 
     return b[0];
   }
+
+  /** Receives the entries from the replication server and queues them. */
+  private final class EntryReceiver extends DirectoryThread
+  {
+    private EntryReceiver()
+    {
+      super("Total update receiver for domain " + domain.getBaseDN());
+    }
+
+    @Override
+    public void run()
+    {
+      byte[] entryBytes;
+      do
+      {
+        entryBytes = domain.receiveEntryBytes();
+        if (entryBytes == null)
+        {
+          entryBytes = END_OF_ENTRIES;
+        }
+        if (!enqueue(entryBytes))
+        {
+          return;
+        }
+      }
+      while (entryBytes != END_OF_ENTRIES);
+    }
+
+    /** Waits for room in the queue, unless the stream is closed. */
+    private boolean enqueue(byte[] entryBytes)
+    {
+      while (!closed && !isShutdownInitiated())
+      {
+        try
+        {
+          if (receivedEntries.offer(entryBytes, 100, TimeUnit.MILLISECONDS))
+          {
+            return true;
+          }
+        }
+        catch (InterruptedException e)
+        {
+          return false;
+        }
+      }
+      return false;
+    }
+  }
 }
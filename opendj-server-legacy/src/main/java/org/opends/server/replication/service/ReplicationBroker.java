@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.replication.service;
 
@@ -41,7 +42,6 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
-import net.jcip.annotations.GuardedBy;
 import net.jcip.annotations.Immutable;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -49,9 +49,11 @@ import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.server.config.server.ReplicationDomainCfg;
 import org.forgerock.util.Utils;
+import org.opends.server.api.MonitorData;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.replication.common.CSN;
 import org.opends.server.replication.common.DSInfo;
+import org.opends.server.replication.common.FlowControlWindow;
 import org.opends.server.replication.common.RSInfo;
 import org.opends.server.replication.common.ServerState;
 import org.opends.server.replication.common.ServerStatus;
@@ -173,8 +175,8 @@ public class ReplicationBroker
   private final ServerState state;
   private Semaphore sendWindow;
   private int maxSendWindow;
-  private int rcvWindow = 100;
-  private int halfRcvWindow = rcvWindow / 2;
+  /** The window of updates received from the RS, reset for each new session. */
+  private volatile FlowControlWindow rcvWindow;
   private int timeout;
   private final ReplSessionSecurity replSessionSecurity;
   /**
@@ -217,8 +219,6 @@ public class ReplicationBroker
   /* Properties for the last topology info received from the network. */
   /** Contains the last known state of the replication topology. */
   private final AtomicReference<Topology> topology = new AtomicReference<>(new Topology());
-  @GuardedBy("this")
-  private volatile int updateDoneCount;
   private volatile boolean connectRequiresRecovery;
 
   /**
@@ -262,8 +262,7 @@ public class ReplicationBroker
     this.state = state;
     this.config = config;
     this.replSessionSecurity = replSessionSecurity;
-    this.rcvWindow = getMaxRcvWindow();
-    this.halfRcvWindow = rcvWindow / 2;
+    this.rcvWindow = new FlowControlWindow(config.getWindowSize(), config.isAdaptiveWindow());
     this.shutdown = true;
 
     /*
@@ -285,7 +284,7 @@ public class ReplicationBroker
         return;
       }
       shutdown = false;
-      this.rcvWindow = getMaxRcvWindow();
+      rcvWindow.reset();
       connectAsDataServer();
     }
   }
@@ -952,7 +951,7 @@ public class ReplicationBroker
         }
       }
       sendWindow = new Semaphore(maxSendWindow);
-      rcvWindow = getMaxRcvWindow();
+      rcvWindow.reset();
 
       domain.sessionInitiated(initStatus, rsInfo.getServerState());
 
@@ -1088,7 +1087,7 @@ public class ReplicationBroker
           socket.getLocalAddress().getHostName(), socket.getLocalPort());
       final String url = hp.toString();
       final StartMsg serverStartMsg = new ServerStartMsg(getServerId(), url, getBaseDN(),
-          getMaxRcvWindow(), config.getHeartbeatInterval(), state,
+          rcvWindow.getInitialSize(), config.getHeartbeatInterval(), state,
           getGenerationID(), isSslEncryption, getGroupId());
       newSession.publish(serverStartMsg);
 
@@ -2133,6 +2132,20 @@ public class ReplicationBroker
     reStart(connectedRS.get().session, infiniteTry);
   }
 
+  /**
+   * Closes the session with the replication server without reconnecting, so
+   * that the threads waiting for a message from the replication server return.
+   * The connection is established again by {@link #reStart(boolean)}.
+   */
+  void closeSession()
+  {
+    final Session session = connectedRS.get().session;
+    if (session != null)
+    {
+      session.close();
+    }
+  }
+
   /**
    * Restart the ReplicationServer broker after a failure.
    *
@@ -2445,10 +2458,7 @@ public class ReplicationBroker
         ReplicationMsg msg = rs.session.receive();
         if (msg instanceof UpdateMsg)
         {
-          synchronized (this)
-          {
-            rcvWindow--;
-          }
+          rcvWindow.updateReceived();
         }
         if (msg instanceof WindowMsg)
         {
@@ -2641,13 +2651,11 @@ public class ReplicationBroker
   {
     try
     {
-      updateDoneCount++;
+      final int credits = rcvWindow.updatesConsumed(1);
       final Session session = connectedRS.get().session;
-      if (updateDoneCount >= halfRcvWindow && session != null)
+      if (credits > 0 && session != null)
       {
-        session.publish(new WindowMsg(updateDoneCount));
-        rcvWindow += updateDoneCount;
-        updateDoneCount = 0;
+        session.publish(new WindowMsg(credits));
       }
     } catch (IOException e)
     {
@@ -2717,7 +2725,7 @@ public class ReplicationBroker
    */
   public int getMaxRcvWindow()
   {
-    return config.getWindowSize();
+    return rcvWindow.getMaxSize();
   }
 
   /**
@@ -2727,7 +2735,18 @@ public class ReplicationBroker
    */
   public int getCurrentRcvWindow()
   {
-    return rcvWindow;
+    return rcvWindow.getAvailable();
+  }
+
+  /**
+   * Adds the state of the receive window to the provided monitor data.
+   *
+   * @param attributes
+   *          the monitor data to add the state of the receive window to
+   */
+  public void addRcvWindowMonitorData(MonitorData attributes)
+  {
+    rcvWindow.addMonitorData(attributes);
   }
 
   /**
@@ -2780,12 +2799,12 @@ public class ReplicationBroker
     boolean needToRestartSession =
         !newConfig.getReplicationServer().equals(config.getReplicationServer())
         || newConfig.getWindowSize() != config.getWindowSize()
+        || newConfig.isAdaptiveWindow() != config.isAdaptiveWindow()
         || newConfig.getHeartbeatInterval() != config.getHeartbeatInterval()
         || newConfig.getGroupId() != config.getGroupId();
 
     this.config = newConfig;
-    this.rcvWindow = newConfig.getWindowSize();
-    this.halfRcvWindow = this.rcvWindow / 2;
+    this.rcvWindow = new FlowControlWindow(newConfig.getWindowSize(), newConfig.isAdaptiveWindow());
 
     return needToRestartSession;
   }
@@ -2821,6 +2840,20 @@ public class ReplicationBroker
     return session != null ? session.isEncrypted() : false;
   }
 
+  /**
+   * Adds the compression statistics of the connection to the replication
+   * server to the provided monitor data.
+   * @param attributes the monitor data to add the statistics to
+   */
+  public void addCompressionMonitorData(MonitorData attributes)
+  {
+    final Session session = connectedRS.get().session;
+    if (session != null)
+    {
+      session.addCompressionMonitorData(attributes);
+    }
+  }
+
   /**
    * Signals the RS we just entered a new status.
    * @param newStatus The status the local DS just entered
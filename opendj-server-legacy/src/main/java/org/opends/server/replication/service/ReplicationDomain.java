@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.replication.service;
 
@@ -1147,6 +1148,11 @@ public abstract class ReplicationDomain
     /** Number of attempt already done for this initialization. */
     private short attemptCnt;
 
+    /** Number of bytes of entries exchanged during the initialization. */
+    private volatile long transferredBytes;
+    /** The stream the entries are imported from, when importing. */
+    private volatile ReplInputStream importStream;
+
     /**
      * Creates a new IEContext.
      *
@@ -1197,6 +1203,41 @@ public abstract class ReplicationDomain
       return entryLeftCount;
     }
 
+    /**
+     * Returns the number of bytes of LDIF exchanged since the total update
+     * started.
+     *
+     * @return The number of bytes of LDIF exchanged.
+     */
+    long getTransferredBytes()
+    {
+      return transferredBytes;
+    }
+
+    /**
+     * Returns the average number of entries processed per second since the
+     * total update started.
+     *
+     * @return The average number of entries processed per second.
+     */
+    long getEntryRate()
+    {
+      final long elapsedTime = System.currentTimeMillis() - startTime;
+      return elapsedTime > 0 ? (entryCount - entryLeftCount) * 1000 / elapsedTime : 0;
+    }
+
+    /**
+     * Returns the number of messages received from the exporter and not yet
+     * read by the import.
+     *
+     * @return The number of messages waiting to be imported, 0 when exporting.
+     */
+    int getQueuedMessages()
+    {
+      final ReplInputStream stream = importStream;
+      return stream != null ? stream.getQueuedMessages() : 0;
+    }
+
     /**
      * Initializes the import/export counters with the provider value.
      * @param total Total number of entries to be processed.
@@ -1310,7 +1351,7 @@ public abstract class ReplicationDomain
      * @param serverId serverId of the acknowledger/receiver/importer server.
      * @param numAck   id of the message received.
      */
-    private void setAckVal(int serverId, int numAck)
+    private synchronized void setAckVal(int serverId, int numAck)
     {
       if (logger.isTraceEnabled())
       {
@@ -1331,6 +1372,30 @@ public abstract class ReplicationDomain
           minMsgReceived = nbMsgReceived;
         }
       }
+      notifyAll();
+    }
+
+    /**
+     * Waits until the slowest importer acknowledges messages making the number
+     * of unacknowledged messages fit in the initialization window again, or
+     * until the timeout expires.
+     *
+     * @param timeoutInMillis the maximum time to wait in milliseconds
+     */
+    private synchronized void waitForAck(long timeoutInMillis)
+    {
+      final Integer slowestCnt = ackVals.get(slowestServerId);
+      if (slowestCnt != null && msgCnt - slowestCnt > initWindow)
+      {
+        try
+        {
+          wait(timeoutInMillis);
+        }
+        catch (InterruptedException e)
+        {
+          // do nothing
+        }
+      }
     }
 
     /**
@@ -1870,9 +1935,15 @@ public abstract class ReplicationDomain
   protected byte[] receiveEntryBytes()
   {
     ReplicationMsg msg;
-    while (true)
+    while (!isEntryReceptionStopped())
     {
       ImportExportContext ieCtx = importExportContext.get();
+      if (!isReceivingEntriesOf(ieCtx))
+      {
+        // The import this thread was receiving the entries of is over:
+        // the next messages belong to the replication or to a new attempt
+        return null;
+      }
       try
       {
         // In the context of the total update, we don't want any automatic
@@ -1891,9 +1962,10 @@ public abstract class ReplicationDomain
 
         if (msg == null)
         {
-          if (broker.shuttingDown())
+          if (broker.shuttingDown() || isEntryReceptionStopped())
           {
-            // The server is in the shutdown process
+            // The server is in the shutdown process, or the import is over
+            // and the session was closed to stop waiting for the entries
             return null;
           }
           else
@@ -1912,6 +1984,7 @@ public abstract class ReplicationDomain
           EntryMsg entryMsg = (EntryMsg)msg;
           byte[] entryBytes = entryMsg.getEntryBytes();
           ieCtx.updateCounters(countEntryLimits(entryBytes));
+          ieCtx.transferredBytes += entryBytes.length;
 
           if (ieCtx.exporterProtocolVersion >=
             ProtocolVersion.REPLICATION_PROTOCOL_V4)
@@ -1986,6 +2059,42 @@ public abstract class ReplicationDomain
             ERR_INIT_IMPORT_FAILURE.get(e.getLocalizedMessage())));
       }
     }
+    return null;
+  }
+
+  /**
+   * Returns whether the thread receiving the entries of an import has been
+   * asked to stop, for instance because the import was aborted.
+   *
+   * @return true if the current thread must stop receiving entries
+   */
+  private static boolean isEntryReceptionStopped()
+  {
+    final Thread thread = Thread.currentThread();
+    return thread instanceof DirectoryThread
+        && ((DirectoryThread) thread).isShutdownInitiated();
+  }
+
+  /**
+   * Returns whether the current thread receives the entries of the provided
+   * import context, and not the entries of a previous attempt of the import.
+   *
+   * @param ieCtx the current import/export context, may be null
+   * @return true if the current thread may use the provided context
+   */
+  private static boolean isReceivingEntriesOf(ImportExportContext ieCtx)
+  {
+    final ReplInputStream stream = ieCtx != null ? ieCtx.importStream : null;
+    return stream != null && stream.isReceiver(Thread.currentThread());
+  }
+
+  /**
+   * Closes the session with the replication server so that the thread
+   * receiving the entries of an import stops waiting for a message.
+   */
+  void stopEntryReception()
+  {
+    broker.closeSession();
   }
 
   /**
@@ -2088,8 +2197,8 @@ public abstract class ReplicationDomain
         }
 
         // our export is too far beyond the slowest importer - let's wait
-        try { Thread.sleep(100); }
-        catch(Exception e) { /* do nothing */ }
+        // for its next acknowledgment
+        ieCtx.waitForAck(100);
 
         // process any connection error
         if (broker.hasConnectionError()
@@ -2134,6 +2243,7 @@ public abstract class ReplicationDomain
     }
 
     // publish succeeded
+    ieCtx.transferredBytes += length;
     try
     {
       ieCtx.updateCounters(countEntryLimits(lDIFEntry, pos, length));
@@ -2255,6 +2365,7 @@ public abstract class ReplicationDomain
     InitializeTask initFromTask = null;
     int source = initTargetMsgReceived.getSenderID();
     ImportExportContext ieCtx = importExportContext.get();
+    ReplInputStream input = null;
     try
     {
       // Log starting
@@ -2281,8 +2392,11 @@ public abstract class ReplicationDomain
       ieCtx.exporterProtocolVersion = getProtocolVersion(source);
       initFromTask = (InitializeTask) ieCtx.initializeTask;
 
-      // Launch the import
-      importBackend(new ReplInputStream(this));
+      // Launch the import, receiving the entries while they are imported
+      input = new ReplInputStream(this, ieCtx.initWindow);
+      ieCtx.importStream = input;
+      input.start();
+      importBackend(input);
     }
     catch (DirectoryException e)
     {
@@ -2294,6 +2408,12 @@ public abstract class ReplicationDomain
     }
     finally
     {
+      // Stop receiving entries before reconnecting
+      if (input != null)
+      {
+        input.close();
+      }
+
       if (logger.isTraceEnabled())
       {
         logger.trace("[IE] Domain=" + this
@@ -2674,6 +2794,32 @@ public abstract class ReplicationDomain
     return broker != null && broker.isSessionEncrypted();
   }
 
+  /**
+   * Adds the compression statistics of the connection to the replication
+   * server to the provided monitor data.
+   * @param attributes the monitor data to add the statistics to
+   */
+  void addCompressionMonitorData(MonitorData attributes)
+  {
+    if (broker != null)
+    {
+      broker.addCompressionMonitorData(attributes);
+    }
+  }
+
+  /**
+   * Adds the state of the window of updates received from the replication
+   * server to the provided monitor data.
+   * @param attributes the monitor data to add the state of the window to
+   */
+  void addRcvWindowMonitorData(MonitorData attributes)
+  {
+    if (broker != null)
+    {
+      broker.addRcvWindowMonitorData(attributes);
+    }
+  }
+
   /**
    * Check if the domain is connected to a ReplicationServer.
    *
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.replication.service;
 
@@ -67,7 +68,7 @@ public class ReplicationMonitor extends MonitorProvider<MonitorProviderCfg>
   @Override
   public MonitorData getMonitorData()
   {
-    final MonitorData attributes = new MonitorData(41);
+    final MonitorData attributes = new MonitorData(56);
 
     attributes.add("domain-name", domain.getBaseDN());
     attributes.add("server-id", domain.getServerId());
@@ -81,11 +82,13 @@ public class ReplicationMonitor extends MonitorProvider<MonitorProviderCfg>
     // get window information
     attributes.add("max-rcv-window", domain.getMaxRcvWindow());
     attributes.add("current-rcv-window", domain.getCurrentRcvWindow());
+    domain.addRcvWindowMonitorData(attributes);
     attributes.add("max-send-window", domain.getMaxSendWindow());
     attributes.add("current-send-window", domain.getCurrentSendWindow());
 
     attributes.add("server-state", domain.getServerState().toStringSet());
     attributes.add("ssl-encryption", domain.isSessionEncrypted());
+    domain.addCompressionMonitorData(attributes);
     attributes.add("generation-id", domain.getGenerationID());
 
     // Add import/export monitoring attributes
@@ -95,6 +98,12 @@ public class ReplicationMonitor extends MonitorProvider<MonitorProviderCfg>
       attributes.add("total-update", ieContext.importInProgress() ? "import" : "export");
       attributes.add("total-update-entry-count", ieContext.getTotalEntryCount());
       attributes.add("total-update-entry-left", ieContext.getLeftEntryCount());
+      attributes.add("total-update-entry-rate", ieContext.getEntryRate());
+      attributes.add("total-update-transferred-bytes", ieContext.getTransferredBytes());
+      if (ieContext.importInProgress())
+      {
+        attributes.add("total-update-queued-messages", ieContext.getQueuedMessages());
+      }
     }
 
 
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.types;
 
@@ -623,7 +624,11 @@ public final class AttributeBuilder implements Iterable<ByteString>
    */
   public boolean add(ByteString attributeValue)
   {
-    AttributeValue value = createAttributeValue(attributeDescription, attributeValue);
+    return add(createAttributeValue(attributeDescription, attributeValue));
+  }
+
+  private boolean add(AttributeValue value)
+  {
     boolean isNewValue = values.add(value);
     if (!isNewValue)
     {
@@ -672,6 +677,17 @@ public final class AttributeBuilder implements Iterable<ByteString>
   public boolean addAll(Attribute attribute)
   {
     boolean wasModified = false;
+    if (attribute instanceof RealAttribute
+        && ((RealAttribute) attribute).getAttributeType().equals(attributeDescription.getAttributeType()))
+    {
+      // Share the values, which avoids normalizing them again:
+      // copying large attributes is the common case for modifications
+      for (AttributeValue v : ((RealAttribute) attribute).values)
+      {
+        wasModified |= add(v);
+      }
+      return wasModified;
+    }
     for (ByteString v : attribute)
     {
       wasModified |= add(v);
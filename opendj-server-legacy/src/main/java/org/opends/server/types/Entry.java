@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.types;
 
@@ -2429,6 +2430,12 @@ public class Entry
 
       for (Attribute a : sourceList)
       {
+        if (a instanceof VirtualAttribute && !omitVirtual)
+        {
+          // Virtual attributes are only copied to the filtered entries,
+          // which are only used by a single operation
+          a = ((VirtualAttribute) a).withCachedValues();
+        }
         if ((omitReal && a.isReal())
             || (omitVirtual && a.isVirtual())
             || (omitEmpty && a.isEmpty()))
@@ -4541,6 +4548,11 @@ public class Entry
     final String attrName = attrDesc.getNameOrOID();
     for (Attribute attribute : sourceList)
     {
+      if (attribute instanceof VirtualAttribute)
+      {
+        // The filtered entry is only used by a single operation
+        attribute = ((VirtualAttribute) attribute).withCachedValues();
+      }
       AttributeDescription subAttrDesc = attribute.getAttributeDescription();
       if (attribute.isEmpty()
           || (omitReal && attribute.isReal())
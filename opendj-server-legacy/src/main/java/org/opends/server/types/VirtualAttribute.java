@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.types;
 
@@ -48,6 +49,10 @@ public final class VirtualAttribute
   private final VirtualAttributeProvider<?> provider;
   /** The virtual attribute rule for this virtual attribute. */
   private final VirtualAttributeRule rule;
+  /** Whether the values are generated once and then reused. */
+  private final boolean cacheValues;
+  /** The values generated by the provider, if they are cached. */
+  private volatile Attribute cachedValues;
 
 
 
@@ -65,10 +70,51 @@ public final class VirtualAttribute
   public VirtualAttribute(AttributeType attributeType, Entry entry,
       VirtualAttributeRule rule)
   {
-    this.attributeDescription = AttributeDescription.create(attributeType);
+    this(AttributeDescription.create(attributeType), entry, rule, false);
+  }
+
+  private VirtualAttribute(AttributeDescription attributeDescription, Entry entry,
+      VirtualAttributeRule rule, boolean cacheValues)
+  {
+    this.attributeDescription = attributeDescription;
     this.entry = entry;
     this.rule = rule;
     this.provider = rule.getProvider();
+    this.cacheValues = cacheValues;
+  }
+
+  /**
+   * Retrieves a virtual attribute which generates the values of this
+   * virtual attribute at most once, if its provider allows it. It is
+   * intended for the copies of an entry built for a single operation,
+   * such as the entries returned by a search.
+   *
+   * @return A virtual attribute caching the values of this virtual
+   *         attribute, or this virtual attribute if its provider does
+   *         not allow caching its values.
+   */
+  public VirtualAttribute withCachedValues()
+  {
+    if (cacheValues || !provider.mayCacheValues())
+    {
+      return this;
+    }
+    return new VirtualAttribute(attributeDescription, entry, rule, true);
+  }
+
+  private Attribute getValues()
+  {
+    if (!cacheValues)
+    {
+      return provider.getValues(entry, rule);
+    }
+    Attribute values = cachedValues;
+    if (values == null)
+    {
+      values = provider.getValues(entry, rule);
+      cachedValues = values;
+    }
+    return values;
   }
 
   @Override
@@ -80,12 +126,20 @@ public final class VirtualAttribute
   @Override
   public boolean contains(ByteString value)
   {
+    if (cacheValues)
+    {
+      return getValues().contains(value);
+    }
     return provider.hasValue(entry, rule, value);
   }
 
   @Override
   public boolean containsAll(Collection<?> values)
   {
+    if (cacheValues)
+    {
+      return getValues().containsAll(values);
+    }
     return provider.hasAllValues(entry, rule, values);
   }
 
@@ -122,6 +176,10 @@ public final class VirtualAttribute
   @Override
   public boolean isEmpty()
   {
+    if (cacheValues)
+    {
+      return getValues().isEmpty();
+    }
     return !provider.hasValue(entry, rule);
   }
 
@@ -134,7 +192,7 @@ public final class VirtualAttribute
   @Override
   public Iterator<ByteString> iterator()
   {
-    return provider.getValues(entry, rule).iterator();
+    return getValues().iterator();
   }
 
   @Override
@@ -153,9 +211,9 @@ public final class VirtualAttribute
   @Override
   public int size()
   {
-    if (provider.isMultiValued())
+    if (cacheValues || provider.isMultiValued())
     {
-      return provider.getValues(entry, rule).size();
+      return getValues().size();
     }
     return provider.hasValue(entry, rule) ? 1 : 0;
   }
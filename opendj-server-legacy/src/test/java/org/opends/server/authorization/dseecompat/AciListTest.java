@@ -0,0 +1,134 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.authorization.dseecompat;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.authorization.dseecompat.EnumBindRuleType.*;
+
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.types.DirectoryException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class AciListTest extends DirectoryServerTestCase
+{
+  private static final DN CONFIG_DN = DN.valueOf("cn=Access Control Handler,cn=config");
+  private static final DN SUFFIX_DN = DN.valueOf("dc=example,dc=com");
+  private static final DN PEOPLE_DN = DN.valueOf("ou=people,dc=example,dc=com");
+  private static final DN GROUPS_DN = DN.valueOf("ou=groups,dc=example,dc=com");
+
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startFakeServer();
+  }
+
+  @AfterClass
+  public void tearDown() throws DirectoryException
+  {
+    TestCaseUtils.shutdownFakeServer();
+  }
+
+  private static SortedSet<Aci> acis(DN dn, String... aciStrings) throws Exception
+  {
+    final SortedSet<Aci> acis = new TreeSet<>();
+    for (String aciString : aciStrings)
+    {
+      acis.add(Aci.decode(ByteString.valueOfUtf8(aciString), dn));
+    }
+    return acis;
+  }
+
+  private static String aci(String name, String target)
+  {
+    return target + "(version 3.0; acl \"" + name + "\"; allow(read) userdn=\"ldap:///anyone\";)";
+  }
+
+  private static String names(Iterable<Aci> acis)
+  {
+    final StringBuilder sb = new StringBuilder();
+    for (Aci aci : acis)
+    {
+      sb.append(aci.getName()).append(' ');
+    }
+    return sb.toString().trim();
+  }
+
+  @Test
+  public void candidatesAreInheritedFromParentsThenGlobal() throws Exception
+  {
+    final AciList aciList = new AciList(CONFIG_DN);
+    aciList.addAci(DN.rootDN(), acis(DN.rootDN(),
+        aci("global people", "(target=\"ldap:///ou=people,dc=example,dc=com\")"),
+        aci("global groups", "(target=\"ldap:///ou=groups,dc=example,dc=com\")")));
+    aciList.addAci(SUFFIX_DN, acis(SUFFIX_DN, aci("suffix", "")));
+    aciList.addAci(PEOPLE_DN, acis(PEOPLE_DN, aci("people", "")));
+
+    final DN userDN = DN.valueOf("uid=user.0,ou=people,dc=example,dc=com");
+    assertThat(names(aciList.getCandidateAcis(userDN))).isEqualTo("people suffix global people");
+    // served from the cached scope of the parent
+    assertThat(names(aciList.getCandidateAcis(userDN))).isEqualTo("people suffix global people");
+    assertThat(names(aciList.getCandidateAcis(PEOPLE_DN))).isEqualTo("people suffix global people");
+    assertThat(names(aciList.getCandidateAcis(GROUPS_DN))).isEqualTo("suffix global groups");
+    assertThat(names(aciList.getCandidateAcis(DN.rootDN()))).isEmpty();
+    assertThat(aciList.getCandidateAcis(null)).isEmpty();
+  }
+
+  @Test
+  public void changesInvalidateTheInheritedCandidates() throws Exception
+  {
+    final AciList aciList = new AciList(CONFIG_DN);
+    aciList.addAci(SUFFIX_DN, acis(SUFFIX_DN, aci("suffix", "")));
+    final DN userDN = DN.valueOf("uid=user.0,ou=people,dc=example,dc=com");
+    assertThat(names(aciList.getCandidateAcis(userDN))).isEqualTo("suffix");
+    final long generation = aciList.getGeneration();
+
+    aciList.addAci(PEOPLE_DN, acis(PEOPLE_DN, aci("people", "")));
+    assertThat(aciList.getGeneration()).isNotEqualTo(generation);
+    assertThat(names(aciList.getCandidateAcis(userDN))).isEqualTo("people suffix");
+
+    final DN newPeopleDN = DN.valueOf("ou=users,dc=example,dc=com");
+    aciList.renameAci(PEOPLE_DN, newPeopleDN);
+    assertThat(names(aciList.getCandidateAcis(userDN))).isEqualTo("suffix");
+    assertThat(names(aciList.getCandidateAcis(DN.valueOf("uid=user.0,ou=users,dc=example,dc=com"))))
+        .isEqualTo("people suffix");
+  }
+
+  @Test
+  public void onlyIdentityBindRulesAreCacheable() throws Exception
+  {
+    assertThat(BindRuleResultCache.isCacheable(
+        UserDN.decode("ldap:///uid=admin,dc=example,dc=com", EQUAL_BINDRULE_TYPE))).isTrue();
+    assertThat(BindRuleResultCache.isCacheable(
+        UserDN.decode("ldap:///all", EQUAL_BINDRULE_TYPE))).isTrue();
+    assertThat(BindRuleResultCache.isCacheable(
+        UserDN.decode("ldap:///anyone || ldap:///self", EQUAL_BINDRULE_TYPE))).isFalse();
+    assertThat(BindRuleResultCache.isCacheable(
+        UserDN.decode("ldap:///parent", NOT_EQUAL_BINDRULE_TYPE))).isFalse();
+    assertThat(BindRuleResultCache.isCacheable(
+        GroupDN.decode("ldap:///cn=admins,ou=groups,dc=example,dc=com", EQUAL_BINDRULE_TYPE))).isTrue();
+    assertThat(BindRuleResultCache.isCacheable(AuthMethod.decode("simple", EQUAL_BINDRULE_TYPE))).isTrue();
+    assertThat(BindRuleResultCache.isCacheable(IP.decode("127.0.0.1", EQUAL_BINDRULE_TYPE))).isFalse();
+  }
+}
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.backends;
 
@@ -610,6 +611,71 @@ public class ChangelogBackendTestCase extends ReplicationTestCase
     assertChangelogAttributesInRootDSE(1, 9);
   }
 
+  /**
+   * The 'changes' and 'changeInitiatorsName' attributes are built before filtering the entries when the filter
+   * references them, and only for the returned entries otherwise: both must produce the same values.
+   */
+  @Test
+  public void changesAttributesAreTheSameWhenBuiltLazily() throws Exception
+  {
+    String testName = "LazyChanges";
+    debugInfo(testName, "Starting test\n\n");
+
+    final String initiatorsName = "cn=Directory Manager";
+    CSN[] csns = generateCSNs(2, server1);
+    Entry entry = makeEntry(
+        "dn: uid=" + testName + "1," + server1.getBaseDN(),
+        "objectClass: top",
+        "objectClass: domain",
+        "entryUUID: " + USER1_ENTRY_UUID,
+        "creatorsName: " + initiatorsName);
+    UpdateMsg addMsg = new AddMsg(csns[0], entry.getName(), USER1_ENTRY_UUID, "22222222-2222-2222-2222-222222222222",
+        entry.getObjectClassAttribute(), entry.getAllAttributes(), null);
+    List<Modification> mods = newArrayList(
+        new Modification(REPLACE, Attributes.create("description", "new value")),
+        new Modification(REPLACE, Attributes.create("modifiersName", initiatorsName)));
+    UpdateMsg modMsg = new ModifyMsg(csns[1], DN.valueOf("uid=" + testName + "2," + server1.getBaseDN()), mods,
+        testName + "uuid2");
+    publishUpdateMessagesInOTest(testName, false, addMsg, modMsg);
+
+    final String targetDNFilter = "(targetdn=*" + testName + "*,o=test)";
+    List<SearchResultEntry> eagerEntries = searchChangelog(
+        "(&" + targetDNFilter + "(|(changes=*)(!(changes=*))))", 2, SUCCESS, testName).getSearchEntries();
+    assertEntryMatchesLDIF(eagerEntries.get(0), "changes",
+        "objectClass: domain",
+        "objectClass: top",
+        "entryUUID: " + USER1_ENTRY_UUID,
+        "creatorsName: " + initiatorsName);
+    assertEntryMatchesLDIF(eagerEntries.get(1), "changes",
+        "replace: description",
+        "description: new value",
+        "-",
+        "replace: modifiersName",
+        "modifiersName: " + initiatorsName,
+        "-");
+
+    SearchRequest request = Requests.newSearchRequest("cn=changelog", SearchScope.WHOLE_SUBTREE, targetDNFilter)
+        .addAttribute("changes", "changeInitiatorsName");
+    List<SearchResultEntry> lazyEntries = searchChangelog(request, 2, SUCCESS, testName).getSearchEntries();
+    for (int i = 0; i < eagerEntries.size(); i++)
+    {
+      assertAttributeValue(eagerEntries.get(i), "changeInitiatorsName", initiatorsName);
+      assertAttributeValue(lazyEntries.get(i), "changeInitiatorsName", initiatorsName);
+      assertThat(getAttributeValue(lazyEntries.get(i), "changes"))
+          .isEqualTo(getAttributeValue(eagerEntries.get(i), "changes"));
+    }
+
+    request = Requests.newSearchRequest("cn=changelog", SearchScope.WHOLE_SUBTREE, targetDNFilter)
+        .addAttribute("changeNumber");
+    for (SearchResultEntry resultEntry : searchChangelog(request, 2, SUCCESS, testName).getSearchEntries())
+    {
+      assertThat(getAttributeValue(resultEntry, "changes")).isNull();
+      assertThat(getAttributeValue(resultEntry, "changeInitiatorsName")).isNull();
+    }
+
+    debugInfo(testName, "Ending test with success");
+  }
+
   /** Verifies that is not possible to read the changelog without the changelog-read privilege. */
   @Test
   public void searchingWithoutPrivilegeShouldFail() throws Exception
@@ -816,6 +882,8 @@ public class ChangelogBackendTestCase extends ReplicationTestCase
           "(&(&(changenumber>=3)(changenumber<=4))(&(|(dc=y)(dc=x))(&(changenumber>=2)(changenumber<=5))))", 3, 4 },
       { "cn=changelog", "(|(objectclass=*)(&(changenumber>=2)(changenumber<=5)))", -1, -1 },
       { "cn=changelog", "(changenumber=8)", 8, 8 },
+      { "cn=changelog", "(&(changenumber>=2)(dc=x)(changenumber<=5)(changenumber>=3))", 3, 5 },
+      { "cn=changelog", "(&(changenumber<=9)(changenumber=8)(changenumber<=12))", 8, 8 },
 
       { "changeNumber=8,cn=changelog", "(objectclass=*)", 8, 8 },
       { "changeNumber=8,cn=changelog", "(changenumber>=2)", 8, 8 },
@@ -0,0 +1,344 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.mdb;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.forgerock.opendj.config.ConfigurationMock.*;
+import static org.forgerock.opendj.ldap.ByteString.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.forgerock.opendj.server.config.server.MDBBackendCfg;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.backends.pluggable.spi.AccessMode;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.ReadOperation;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.WriteOperation;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+import org.opends.server.core.ServerContext;
+import org.opends.server.extensions.DiskSpaceMonitor;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class MDBStorageTest extends DirectoryServerTestCase
+{
+  /** Enough records to build a tree several levels deep. */
+  private static final int NB_RECORDS = 20000;
+
+  private final TreeName treeName = new TreeName("dc=test", "test");
+  private MDBStorage storage;
+
+  @BeforeClass
+  public static void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @BeforeMethod
+  public void setUp() throws Exception
+  {
+    storage = newStorage();
+    storage.removeStorageFiles();
+    storage.open(AccessMode.READ_WRITE);
+  }
+
+  @AfterMethod
+  public void tearDown()
+  {
+    storage.close();
+    storage.removeStorageFiles();
+  }
+
+  @Test
+  public void testRecordsAreSortedAndCounted() throws Exception
+  {
+    putRecords(0, 1);
+    putRecords(1, 2);
+
+    storage.read(new ReadOperation<Void>()
+    {
+      @Override
+      public Void run(ReadableTransaction txn) throws Exception
+      {
+        assertThat(txn.getRecordCount(treeName)).isEqualTo(NB_RECORDS);
+        try (Cursor<ByteString, ByteString> cursor = txn.openCursor(treeName))
+        {
+          int i = 0;
+          while (cursor.next())
+          {
+            assertThat(cursor.getKey()).isEqualTo(key(i));
+            assertThat(cursor.getValue()).isEqualTo(value(i));
+            i++;
+          }
+          assertThat(i).isEqualTo(NB_RECORDS);
+
+          assertThat(cursor.positionToIndex(12345)).isTrue();
+          assertThat(cursor.getKey()).isEqualTo(key(12345));
+          assertThat(cursor.positionToLastKey()).isTrue();
+          assertThat(cursor.getKey()).isEqualTo(key(NB_RECORDS - 1));
+          assertThat(cursor.positionToKey(valueOfUtf8("missing"))).isFalse();
+          assertThat(cursor.positionToKeyOrNext(valueOfUtf8("key0001234~"))).isTrue();
+          assertThat(cursor.getKey()).isEqualTo(key(1235));
+        }
+        return null;
+      }
+    });
+  }
+
+  @Test
+  public void testCursorDeleteWhileIterating() throws Exception
+  {
+    putRecords(0, 1);
+
+    storage.write(new WriteOperation()
+    {
+      @Override
+      public void run(WriteableTransaction txn) throws Exception
+      {
+        try (Cursor<ByteString, ByteString> cursor = txn.openCursor(treeName))
+        {
+          int i = 0;
+          while (cursor.next())
+          {
+            if (i++ % 2 == 0)
+            {
+              cursor.delete();
+            }
+          }
+          assertThat(i).isEqualTo(NB_RECORDS);
+        }
+        assertThat(txn.getRecordCount(treeName)).isEqualTo(NB_RECORDS / 2);
+      }
+    });
+
+    assertThat(read(key(0))).isNull();
+    assertThat(read(key(1))).isEqualTo(value(1));
+  }
+
+  @Test
+  public void testCommittedDataSurvivesReopen() throws Exception
+  {
+    putRecords(0, 1);
+    storage.close();
+
+    storage = newStorage();
+    storage.open(AccessMode.READ_ONLY);
+    assertThat(storage.listTrees()).containsOnly(treeName);
+    assertThat(read(key(42))).isEqualTo(value(42));
+  }
+
+  @Test
+  public void testFailedWriteIsDiscarded() throws Exception
+  {
+    try
+    {
+      storage.write(new WriteOperation()
+      {
+        @Override
+        public void run(WriteableTransaction txn) throws Exception
+        {
+          txn.put(treeName, key(1), value(1));
+          throw new IllegalStateException();
+        }
+      });
+      fail("Expected an IllegalStateException");
+    }
+    catch (IllegalStateException expected)
+    {
+      // Expected
+    }
+    assertThat(read(key(1))).isNull();
+  }
+
+  @Test
+  public void testCorruptLastCommitIsRolledBack() throws Exception
+  {
+    putRecords(0, 2);
+    putRecords(1, 2);
+    storage.close();
+
+    try (RandomAccessFile file = new RandomAccessFile(getDBFile(), "rw"))
+    {
+      // The meta record reached the disk, but not the catalog it references
+      file.seek(getLastCommitMeta(file)[1]);
+      file.write(new byte[64]);
+    }
+    assertLastCommitIsRolledBack();
+  }
+
+  @Test
+  public void testTruncatedLastCommitIsRolledBack() throws Exception
+  {
+    putRecords(0, 2);
+    putRecords(1, 2);
+    storage.close();
+
+    try (RandomAccessFile file = new RandomAccessFile(getDBFile(), "rw"))
+    {
+      file.setLength(getLastCommitMeta(file)[1]);
+    }
+    assertLastCommitIsRolledBack();
+  }
+
+  @Test
+  public void testFileIsCompactedOnline() throws Exception
+  {
+    final int nbRecords = 1000;
+    final int valueLength = 2000;
+    // Every transaction replaces all the records, turning the previous ones into garbage
+    final long bytesPerTransaction = nbRecords * valueLength;
+    final int nbTransactions = (int) (4 * MDBStore.COMPACTION_MIN_SIZE / bytesPerTransaction);
+    for (int t = 0; t < nbTransactions; t++)
+    {
+      final ByteString value = new ByteStringBuilder().appendInt(t).appendBytes(new byte[valueLength]).toByteString();
+      storage.write(new WriteOperation()
+      {
+        @Override
+        public void run(WriteableTransaction txn) throws Exception
+        {
+          txn.openTree(treeName, true);
+          for (int i = 0; i < nbRecords; i++)
+          {
+            txn.put(treeName, key(i), value);
+          }
+        }
+      });
+    }
+
+    assertThat(getDBFile().length()).isLessThan(nbTransactions * bytesPerTransaction / 2);
+    assertThat(getRecordCount()).isEqualTo(nbRecords);
+    assertThat(read(key(0)).length()).isEqualTo(4 + valueLength);
+
+    storage.close();
+    storage = newStorage();
+    storage.open(AccessMode.READ_ONLY);
+    assertThat(getRecordCount()).isEqualTo(nbRecords);
+  }
+
+  /** Checks that the storage recovers the first of the two commits made by the caller, and can be written again. */
+  private void assertLastCommitIsRolledBack() throws Exception
+  {
+    storage = newStorage();
+    storage.open(AccessMode.READ_WRITE);
+    assertThat(getRecordCount()).isEqualTo(NB_RECORDS / 2);
+    assertThat(read(key(1))).isEqualTo(value(1));
+    assertThat(read(key(0))).isNull();
+
+    putRecords(1, 2);
+    storage.close();
+    storage = newStorage();
+    storage.open(AccessMode.READ_ONLY);
+    assertThat(getRecordCount()).isEqualTo(NB_RECORDS);
+    assertThat(read(key(0))).isEqualTo(value(0));
+  }
+
+  private File getDBFile()
+  {
+    return new File(storage.getDirectory(), MDBStore.DB_FILE_NAME);
+  }
+
+  /** Returns the transaction ID, catalog position and end recorded in the most recent meta slot. */
+  private static long[] getLastCommitMeta(RandomAccessFile file) throws Exception
+  {
+    final long[] meta0 = readMeta(file, 0);
+    final long[] meta1 = readMeta(file, 1);
+    return meta0[0] > meta1[0] ? meta0 : meta1;
+  }
+
+  private static long[] readMeta(RandomAccessFile file, int slot) throws Exception
+  {
+    // magic, version and segment shift precede the transaction ID
+    file.seek(slot * 64 + 16);
+    return new long[] { file.readLong(), file.readLong(), file.readLong() };
+  }
+
+  private long getRecordCount() throws Exception
+  {
+    return storage.read(new ReadOperation<Long>()
+    {
+      @Override
+      public Long run(ReadableTransaction txn) throws Exception
+      {
+        return txn.getRecordCount(treeName);
+      }
+    });
+  }
+
+  /** Puts every {@code step}th record starting from {@code first}, in a single transaction. */
+  private void putRecords(final int first, final int step) throws Exception
+  {
+    storage.write(new WriteOperation()
+    {
+      @Override
+      public void run(WriteableTransaction txn) throws Exception
+      {
+        txn.openTree(treeName, true);
+        for (int i = NB_RECORDS - 1 - first; i >= 0; i -= step)
+        {
+          txn.put(treeName, key(i), value(i));
+        }
+      }
+    });
+  }
+
+  private ByteString read(final ByteString key) throws Exception
+  {
+    return storage.read(new ReadOperation<ByteString>()
+    {
+      @Override
+      public ByteString run(ReadableTransaction txn) throws Exception
+      {
+        return txn.read(treeName, key);
+      }
+    });
+  }
+
+  private static ByteString key(int i)
+  {
+    return valueOfUtf8(String.format("key%07d", i));
+  }
+
+  private static ByteString value(int i)
+  {
+    return valueOfUtf8("value" + i);
+  }
+
+  private MDBStorage newStorage()
+  {
+    ServerContext serverContext = mock(ServerContext.class);
+    when(serverContext.getDiskSpaceMonitor()).thenReturn(mock(DiskSpaceMonitor.class));
+    return new MDBStorage(createBackendCfg(), serverContext);
+  }
+
+  private MDBBackendCfg createBackendCfg()
+  {
+    MDBBackendCfg backendCfg = mockCfg(MDBBackendCfg.class);
+    when(backendCfg.getBackendId()).thenReturn("MDBStorageTest");
+    when(backendCfg.getDBDirectory()).thenReturn("MDBStorageTest");
+    when(backendCfg.getDBDirectoryPermissions()).thenReturn("755");
+    return backendCfg;
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.mdb;
+
+import static org.mockito.Mockito.when;
+import static org.forgerock.opendj.config.ConfigurationMock.mockCfg;
+
+import org.forgerock.opendj.server.config.server.MDBBackendCfg;
+import org.opends.server.backends.pluggable.PluggableBackendImplTestCase;
+import org.testng.annotations.Test;
+
+/** {@link MDBBackend} Tester. */
+@Test
+public class MDBTestCase extends PluggableBackendImplTestCase<MDBBackendCfg>
+{
+  @Override
+  protected MDBBackend createBackend()
+  {
+    return new MDBBackend();
+  }
+
+  @Override
+  protected MDBBackendCfg createBackendCfg()
+  {
+    MDBBackendCfg backendCfg = mockCfg(MDBBackendCfg.class);
+    when(backendCfg.getBackendId()).thenReturn("MDBTestCase");
+    when(backendCfg.getDBDirectory()).thenReturn("MDBTestCase");
+    when(backendCfg.getDBDirectoryPermissions()).thenReturn("755");
+    return backendCfg;
+  }
+}
@@ -151,6 +151,19 @@ public class EntryIDSetTest extends DirectoryServerTestCase
     assertIdsEquals(newDefinedSet(4, 6, 8, 10, 12).iterator(), 4, 6, 8, 10, 12);
   }
 
+  @Test
+  public void testIteratorFromBegin()
+  {
+    assertIdsEquals(newDefinedSet(4, 6, 8, 10, 12).iterator(id(8)), 8, 10, 12);
+    assertIdsEquals(newDefinedSet(4, 6, 8, 10, 12).iterator(id(7)), 8, 10, 12);
+    assertThat(newDefinedSet(4, 6, 8).iterator(id(9)).hasNext()).isFalse();
+
+    assertIdsEquals(newBitmapSet(4, 6, 70000, 70002).iterator(id(7)), 70000, 70002);
+    assertIdsEquals(newBitmapSet(4, 6, 70000, 70002).iterator(id(70001)), 70002);
+    assertThat(newBitmapSet(4, 6, 70000).iterator(id(70001)).hasNext()).isFalse();
+    assertThat(newUndefinedSet().iterator(id(1)).hasNext()).isFalse();
+  }
+
   @Test(dataProvider = "codecs")
   public void testCodecs(EntryIDSetCodec codec)
   {
@@ -290,9 +303,85 @@ public class EntryIDSetTest extends DirectoryServerTestCase
     assertIdsEquals(retained, 1, 3, 5, 7, 9);
   }
 
+  @Test
+  public void testBitmapAddRemove()
+  {
+    final EntryIDSet set = newBitmapSet(6, 8, 10, 12);
+
+    assertThat(set.add(id(4))).isTrue();
+    assertThat(set.add(id(70000))).isTrue();
+    assertThat(set.add(id(10))).isFalse();
+    assertIdsEquals(set, 4, 6, 8, 10, 12, 70000);
+
+    assertThat(set.remove(id(8))).isTrue();
+    assertThat(set.remove(id(70000))).isTrue();
+    assertThat(set.remove(id(9))).isFalse();
+    assertIdsEquals(set, 4, 6, 10, 12);
+    assertThat(set.contains(id(6))).isTrue();
+    assertThat(set.contains(id(8))).isFalse();
+  }
+
+  @Test
+  public void testBitmapSetOperations()
+  {
+    final EntryIDSet set = newBitmapSet(2, 4, 6, 8);
+    set.addAll(newDefinedSet(1, 2, 100000));
+    assertIdsEquals(set, 1, 2, 4, 6, 8, 100000);
+
+    set.removeAll(newBitmapSet(4, 100000));
+    assertIdsEquals(set, 1, 2, 6, 8);
+
+    set.retainAll(newBitmapSet(1, 3, 5, 6, 7, 8));
+    assertThat(set.isDefined()).isTrue();
+    assertIdsEquals(set, 1, 6, 8);
+
+    final EntryIDSet retained = newDefinedSet(2, 4, 6, 8);
+    retained.retainAll(newBitmapSet(1, 2, 3, 8));
+    assertIdsEquals(retained, 2, 8);
+
+    final EntryIDSet undefined = newUndefinedSet();
+    undefined.retainAll(newBitmapSet(1, 3, 5));
+    assertThat(undefined.isDefined()).isTrue();
+    assertIdsEquals(undefined, 1, 3, 5);
+
+    final EntryIDSet union =
+        newSetFromUnion(Arrays.asList(newBitmapSet(1, 2, 3), newDefinedSet(4, 5, 6), newDefinedSet(), newBitmapSet(3)));
+    assertIdsEquals(union, 1, 2, 3, 4, 5, 6);
+  }
+
+  @Test
+  public void testBitmapDenseChunks()
+  {
+    final int nbIDs = 3 * EntryIDBitmap.ARRAY_CONTAINER_MAX_SIZE;
+    final long[] evens = new long[nbIDs];
+    final long[] all = new long[2 * nbIDs];
+    for (int i = 0; i < all.length; i++)
+    {
+      all[i] = i;
+      if (i % 2 == 0)
+      {
+        evens[i / 2] = i;
+      }
+    }
+
+    final EntryIDSet set = newBitmapSet(all);
+    assertThat(set.size()).isEqualTo(all.length);
+    set.retainAll(newBitmapSet(evens));
+    assertThat(set.toLongArray()).isEqualTo(evens);
+
+    for (long id : evens)
+    {
+      set.remove(id(id));
+    }
+    assertThat(set.size()).isEqualTo(0);
+
+    final ByteString encoded = CODEC_V4.encode(newBitmapSet(all));
+    assertThat(CODEC_V4.decode(KEY, encoded).toLongArray()).isEqualTo(all);
+  }
+
   @DataProvider(name = "codecs")
   public static Object[][] codecs() {
-     return new Object[][] { { CODEC_V1 }, { CODEC_V2 } };
+     return new Object[][] { { CODEC_V1 }, { CODEC_V2 }, { CODEC_V4 } };
   }
 
 }
@@ -0,0 +1,185 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.opends.server.backends.pluggable.EntryIDSet.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.server.config.meta.BackendIndexCfgDefn.IndexType;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.backends.pluggable.AttributeIndex.IndexFilterType;
+import org.opends.server.backends.pluggable.IndexFilter.AndComponent;
+import org.opends.server.backends.pluggable.IndexFilter.CardinalityStatistics;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.SearchOperation;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.SearchFilter;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend", "unit" }, sequential = true)
+public class IndexFilterTest extends DirectoryServerTestCase
+{
+  private EntryContainer entryContainer;
+  private IndexFilter indexFilter;
+
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startFakeServer();
+
+    entryContainer = mock(EntryContainer.class);
+    indexFilter = new IndexFilter(entryContainer, mock(ReadableTransaction.class), mock(SearchOperation.class),
+        null, mock(BackendMonitor.class));
+  }
+
+  @AfterClass
+  public void tearDown() throws DirectoryException
+  {
+    TestCaseUtils.shutdownFakeServer();
+  }
+
+  private static AttributeType getAttributeType(String name)
+  {
+    return DirectoryServer.getInstance().getServerContext().getSchema().getAttributeType(name);
+  }
+
+  private void indexAttribute(String name, CardinalityStatistics statistics)
+  {
+    final AttributeIndex attributeIndex = mock(AttributeIndex.class);
+    when(attributeIndex.isIndexed(any(IndexType.class))).thenReturn(true);
+    when(attributeIndex.getCardinalityStatistics(any(IndexFilterType.class))).thenReturn(statistics);
+    when(entryContainer.getAttributeIndex(getAttributeType(name))).thenReturn(attributeIndex);
+  }
+
+  private static CardinalityStatistics newStatistics(int nbEvaluations, EntryIDSet set)
+  {
+    final CardinalityStatistics statistics = new CardinalityStatistics(100);
+    record(statistics, nbEvaluations, set);
+    return statistics;
+  }
+
+  private static void record(CardinalityStatistics statistics, int nbEvaluations, EntryIDSet set)
+  {
+    for (int i = 0; i < nbEvaluations; i++)
+    {
+      statistics.record(set);
+    }
+  }
+
+  private static EntryIDSet newDefinedSetOfSize(int size)
+  {
+    final long[] entryIDs = new long[size];
+    for (int i = 0; i < size; i++)
+    {
+      entryIDs[i] = i + 1;
+    }
+    return newDefinedSet(entryIDs);
+  }
+
+  @Test
+  public void andComponentsAreEvaluatedFromTheMostSelective() throws Exception
+  {
+    indexAttribute("uid", newStatistics(16, newDefinedSetOfSize(1)));
+    indexAttribute("sn", newStatistics(16, newDefinedSetOfSize(50)));
+    indexAttribute("cn", newStatistics(16, newDefinedSetOfSize(2)));
+
+    final List<String> plan = new ArrayList<>();
+    for (AndComponent component : indexFilter.planLogicalAndFilter(SearchFilter.createFilterFromString(
+        "(&(cn=*foo*)(description=bar)(sn=baz)(!(uid=qux))(uid=qux))")))
+    {
+      plan.add(component.getFilters().toString());
+    }
+    // cheap lookups first, from the most selective one, then the expensive ones, NOT filters are ignored
+    assertThat(plan).containsExactly("[(uid=qux)]", "[(sn=baz)]", "[(description=bar)]", "[(cn=*foo*)]");
+  }
+
+  @Test
+  public void expensiveComponentsAreEvaluatedUntilTheCandidatesAreDefined() throws Exception
+  {
+    final CardinalityStatistics statistics = newStatistics(16, newUndefinedSet());
+    assertThat(statistics.estimateCardinality()).isEqualTo(Long.MAX_VALUE);
+
+    final AndComponent component = indexFilter.new AndComponent(Collections.singletonList(
+        SearchFilter.createFilterFromString("(cn=*foo*)")), statistics.estimateCardinality(), true, statistics);
+    for (int i = 0; i < CardinalityStatistics.SAMPLING_INTERVAL * 2; i++)
+    {
+      assertThat(component.isWorthEvaluating(newUndefinedSet())).isTrue();
+    }
+    assertThat(component.isWorthEvaluating(newDefinedSetOfSize(50))).isFalse();
+  }
+
+  @Test
+  public void expensiveComponentsAreSampledWhenTheyExceedTheIndexEntryLimit() throws Exception
+  {
+    final CardinalityStatistics statistics = newStatistics(16, newUndefinedSet());
+    final AndComponent component = indexFilter.new AndComponent(Collections.singletonList(
+        SearchFilter.createFilterFromString("(cn=*foo*)")), statistics.estimateCardinality(), true, statistics);
+    final EntryIDSet candidates = newDefinedSetOfSize(1000);
+
+    int nbEvaluations = 0;
+    for (int i = 0; i < CardinalityStatistics.SAMPLING_INTERVAL * 3; i++)
+    {
+      if (component.isWorthEvaluating(candidates))
+      {
+        nbEvaluations++;
+      }
+    }
+    assertThat(nbEvaluations).isEqualTo(3);
+  }
+
+  @Test
+  public void cheapAndSelectiveComponentsAreAlwaysEvaluated() throws Exception
+  {
+    final List<SearchFilter> filters = Collections.singletonList(SearchFilter.createFilterFromString("(cn=foo)"));
+    final AndComponent cheap = indexFilter.new AndComponent(filters, Long.MAX_VALUE, false, null);
+    assertThat(cheap.isWorthEvaluating(newDefinedSetOfSize(50))).isTrue();
+
+    final AndComponent selective = indexFilter.new AndComponent(filters, 10, true, null);
+    assertThat(selective.isWorthEvaluating(newDefinedSetOfSize(1000))).isTrue();
+    assertThat(selective.isWorthEvaluating(newDefinedSetOfSize(50))).isFalse();
+  }
+
+  @Test
+  public void cardinalityEstimateFollowsTheIndex()
+  {
+    final CardinalityStatistics statistics = new CardinalityStatistics(100);
+    assertThat(statistics.estimateCardinality()).isEqualTo(100);
+
+    record(statistics, 1023, newUndefinedSet());
+    assertThat(statistics.estimateCardinality()).isEqualTo(Long.MAX_VALUE);
+
+    // the weight of the past evaluations is bounded: the estimate recovers before the undefined sets are outnumbered
+    int nbDefined = 0;
+    while (statistics.estimateCardinality() == Long.MAX_VALUE && nbDefined < 1023)
+    {
+      statistics.record(newDefinedSetOfSize(5));
+      nbDefined++;
+    }
+    assertThat(nbDefined).isLessThan(1023);
+    assertThat(statistics.estimateCardinality()).isLessThanOrEqualTo(5);
+  }
+}
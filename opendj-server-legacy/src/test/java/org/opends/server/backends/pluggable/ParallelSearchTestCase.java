@@ -0,0 +1,355 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.opendj.config.ConfigurationMock.mockCfg;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.opends.server.TestCaseUtils.makeEntry;
+import static org.opends.server.backends.pluggable.ParallelSearchEvaluator.MIN_CANDIDATES;
+import static org.opends.server.protocols.internal.InternalClientConnection.getRootConnection;
+import static org.opends.server.protocols.internal.Requests.newSearchRequest;
+import static org.opends.server.util.CollectionUtils.newTreeSet;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.server.config.meta.BackendIndexCfgDefn.IndexType;
+import org.forgerock.opendj.server.config.server.BackendIndexCfg;
+import org.forgerock.opendj.server.config.server.PDBBackendCfg;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.api.EntryCache;
+import org.opends.server.backends.pdb.PDBBackend;
+import org.opends.server.backends.pluggable.ParallelSearchEvaluator.Candidate;
+import org.opends.server.backends.pluggable.ParallelSearchEvaluator.EntryMatcher;
+import org.opends.server.controls.PagedResultsControl;
+import org.opends.server.core.AddOperation;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.protocols.internal.InternalSearchOperation;
+import org.opends.server.protocols.internal.SearchRequest;
+import org.opends.server.types.Control;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.workflowelement.localbackend.LocalBackendSearchOperation;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the parallel evaluation of the candidates of indexed searches: the entries must be returned exactly like a
+ * serial search would return them, whatever the batch boundaries.
+ */
+@SuppressWarnings("javadoc")
+public class ParallelSearchTestCase extends DirectoryServerTestCase
+{
+  private static final String BACKEND_BASE_DN = "dc=parallel-search,dc=com";
+  private static final String BACKEND_NAME = "parallel-search";
+  private static final int NB_USERS = 600;
+  private static final int PARALLELISM = 4;
+  private static final String FILTER = "(sn=*)";
+
+  private PDBBackendCfg backendCfg;
+  private PDBBackend backend;
+  /** The names returned by a serial search of {@link #FILTER}. */
+  private List<DN> serialNames;
+
+  @BeforeClass
+  public void beforeClass() throws Exception
+  {
+    TestCaseUtils.startServer();
+
+    final DN baseDN = DN.valueOf(BACKEND_BASE_DN);
+
+    backendCfg = mockCfg(PDBBackendCfg.class);
+    when(backendCfg.dn()).thenReturn(baseDN);
+    when(backendCfg.getBackendId()).thenReturn(BACKEND_NAME);
+    when(backendCfg.getBaseDN()).thenReturn(newTreeSet(baseDN));
+    when(backendCfg.listBackendIndexes()).thenReturn(new String[] { "sn", "uid" });
+    when(backendCfg.listBackendVLVIndexes()).thenReturn(new String[0]);
+
+    when(backendCfg.getDBDirectory()).thenReturn(BACKEND_NAME);
+    when(backendCfg.getDBDirectoryPermissions()).thenReturn("755");
+    when(backendCfg.getDBCacheSize()).thenReturn(0L);
+    when(backendCfg.getDBCachePercent()).thenReturn(20);
+    when(backendCfg.getSearchParallelism()).thenReturn(1);
+
+    createIndex("sn", IndexType.PRESENCE, IndexType.EQUALITY);
+    createIndex("uid", IndexType.EQUALITY);
+
+    backend = new PDBBackend();
+    backend.setBackendID(backendCfg.getBackendId());
+    backend.configureBackend(backendCfg, DirectoryServer.getInstance().getServerContext());
+    backend.openBackend();
+
+    backend.addEntry(makeEntry("dn: " + BACKEND_BASE_DN,
+                               "objectclass: top",
+                               "objectclass: domain"), mock(AddOperation.class));
+    for (int i = 0; i < NB_USERS; i++)
+    {
+      backend.addEntry(makeEntry("dn: uid=user." + i + "," + BACKEND_BASE_DN,
+                                 "objectclass: top",
+                                 "objectclass: person",
+                                 "objectclass: organizationalPerson",
+                                 "objectclass: inetOrgPerson",
+                                 "uid: user." + i,
+                                 "cn: User " + i,
+                                 "sn: " + i), mock(AddOperation.class));
+    }
+
+    serialNames = getNames(search(newSearchRequest(BACKEND_BASE_DN, SearchScope.WHOLE_SUBTREE, FILTER)));
+    assertThat(serialNames).hasSize(NB_USERS);
+  }
+
+  private void createIndex(String attributeName, IndexType... indexTypes) throws Exception
+  {
+    final BackendIndexCfg indexCfg = mock(BackendIndexCfg.class);
+    when(indexCfg.getIndexType()).thenReturn(newTreeSet(indexTypes));
+    when(indexCfg.getAttribute())
+        .thenReturn(TestCaseUtils.getServerContext().getSchema().getAttributeType(attributeName));
+    when(indexCfg.getIndexEntryLimit()).thenReturn(4000);
+    when(indexCfg.getSubstringLength()).thenReturn(6);
+    when(backendCfg.getBackendIndex(attributeName)).thenReturn(indexCfg);
+  }
+
+  @AfterMethod
+  public void resetSearchParallelism() throws Exception
+  {
+    setSearchParallelism(1);
+  }
+
+  @AfterClass
+  public void afterClass() throws Exception
+  {
+    backend.finalizeBackend();
+    backend = null;
+  }
+
+  @Test
+  public void testParallelSearchReturnsEntriesInSerialOrder() throws Exception
+  {
+    setSearchParallelism(PARALLELISM);
+    assertThat(backend.getRootContainer().getParallelSearchEvaluator()).isNotNull();
+    assertThat(serialNames.size()).isGreaterThan(MIN_CANDIDATES);
+
+    final List<DN> names = getNames(search(newSearchRequest(BACKEND_BASE_DN, SearchScope.WHOLE_SUBTREE, FILTER)));
+
+    assertThat(names).isEqualTo(serialNames);
+  }
+
+  @Test
+  public void testParallelPagedSearchResumesAcrossBatches() throws Exception
+  {
+    setSearchParallelism(PARALLELISM);
+
+    // Each page reads a first batch of 64 candidates, then a second one of 128 where the page ends
+    final List<DN> names = new ArrayList<>();
+    ByteString cookie = ByteString.empty();
+    do
+    {
+      final SearchRequest request = newSearchRequest(BACKEND_BASE_DN, SearchScope.WHOLE_SUBTREE, FILTER)
+          .addControl(new PagedResultsControl(true, 70, cookie));
+      final InternalSearchOperation search = search(request);
+      assertThat(search.getResultCode()).isEqualTo(ResultCode.SUCCESS);
+      names.addAll(getNames(search));
+      cookie = getPagedResultsCookie(search);
+    }
+    while (cookie.length() > 0);
+
+    assertThat(names).isEqualTo(serialNames);
+  }
+
+  @Test
+  public void testParallelSearchStopsAtSizeLimitInTheMiddleOfABatch() throws Exception
+  {
+    setSearchParallelism(PARALLELISM);
+
+    // The second batch holds the candidates 64 to 191
+    final InternalSearchOperation search =
+        search(newSearchRequest(BACKEND_BASE_DN, SearchScope.WHOLE_SUBTREE, FILTER).setSizeLimit(100));
+
+    assertThat(search.getResultCode()).isEqualTo(ResultCode.SIZE_LIMIT_EXCEEDED);
+    assertThat(getNames(search)).isEqualTo(serialNames.subList(0, 100));
+  }
+
+  @Test
+  public void testParallelSearchRethrowsMatchErrorInOrder() throws Exception
+  {
+    setSearchParallelism(PARALLELISM);
+
+    // Only user.300 reaches the deepest filter component, which is nested too deep to be evaluated
+    final StringBuilder filter = new StringBuilder("(&(sn=*)(|(!(uid=user.300))");
+    for (int i = 0; i < 100; i++)
+    {
+      filter.append("(&");
+    }
+    filter.append("(sn=*)");
+    for (int i = 0; i < 100; i++)
+    {
+      filter.append(')');
+    }
+    filter.append("))");
+    final SearchRequest request = newSearchRequest(BACKEND_BASE_DN, SearchScope.WHOLE_SUBTREE, filter.toString());
+    final InternalSearchOperation search = new InternalSearchOperation(getRootConnection(), -1, -1, request);
+    try
+    {
+      backend.search(new LocalBackendSearchOperation(search));
+      fail("The search should have failed on uid=user.300");
+    }
+    catch (DirectoryException e)
+    {
+      assertThat(e.getMessage()).contains("uid=user.300");
+    }
+
+    final DN failingEntry = DN.valueOf("uid=user.300," + BACKEND_BASE_DN);
+    assertThat(getNames(search)).isEqualTo(serialNames.subList(0, serialNames.indexOf(failingEntry)));
+  }
+
+  @Test
+  public void testClosedEvaluatorEvaluatesSerially() throws Exception
+  {
+    setSearchParallelism(PARALLELISM);
+    final ParallelSearchEvaluator closedEvaluator = backend.getRootContainer().getParallelSearchEvaluator();
+    setSearchParallelism(2);
+    final ParallelSearchEvaluator evaluator = backend.getRootContainer().getParallelSearchEvaluator();
+    assertThat(evaluator).isNotNull().isNotSameAs(closedEvaluator);
+
+    final int size = MIN_CANDIDATES;
+    final Candidate[] batch = new Candidate[size];
+    for (int i = 0; i < size; i++)
+    {
+      batch[i] = new Candidate();
+      batch[i].reset(new EntryID(i + 1));
+      batch[i].entry = makeEntry("dn: uid=user." + i + "," + BACKEND_BASE_DN,
+                                 "objectclass: top",
+                                 "objectclass: person",
+                                 "uid: user." + i,
+                                 "cn: User " + i,
+                                 "sn: " + i);
+    }
+    final DirectoryException matchError = new DirectoryException(ResultCode.OTHER, LocalizableMessage.raw("error"));
+    final Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+    closedEvaluator.evaluate(batch, size, null, new EntryMatcher()
+    {
+      @Override
+      public boolean matches(Entry entry) throws DirectoryException
+      {
+        threads.add(Thread.currentThread());
+        final int index = entry.parseAttribute("sn").asInteger();
+        if (index == 100)
+        {
+          throw matchError;
+        }
+        return index % 2 == 0;
+      }
+    });
+
+    assertThat(threads).containsOnly(Thread.currentThread());
+    for (int i = 0; i < size; i++)
+    {
+      assertThat(batch[i].matches).as("candidate " + i).isEqualTo(i != 100 && i % 2 == 0);
+      assertThat(batch[i].matchError).as("candidate " + i).isSameAs(i == 100 ? matchError : null);
+    }
+
+    final List<DN> names = getNames(search(newSearchRequest(BACKEND_BASE_DN, SearchScope.WHOLE_SUBTREE, FILTER)));
+    assertThat(names).isEqualTo(serialNames);
+  }
+
+  @Test
+  public void testParallelSearchCachesEntriesReadAhead() throws Exception
+  {
+    setSearchParallelism(PARALLELISM);
+    final int batchSize = backend.getRootContainer().getParallelSearchEvaluator().nextBatchSize(0);
+
+    final List<DN> cachedNames = Collections.synchronizedList(new ArrayList<DN>());
+    final EntryCache<?> entryCache = mock(EntryCache.class);
+    when(entryCache.putEntryIfAbsent(any(Entry.class), anyString(), anyLong())).thenAnswer(new Answer<Boolean>()
+    {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) throws Throwable
+      {
+        cachedNames.add(invocation.getArgumentAt(0, Entry.class).getName());
+        return true;
+      }
+    });
+    final EntryCache<?> originalEntryCache = DirectoryServer.getEntryCache();
+    DirectoryServer.setEntryCache(entryCache);
+    try
+    {
+      final SearchRequest request = newSearchRequest(BACKEND_BASE_DN, SearchScope.WHOLE_SUBTREE, FILTER)
+          .addControl(new PagedResultsControl(true, 10, ByteString.empty()));
+      final InternalSearchOperation search = search(request);
+
+      assertThat(getNames(search)).isEqualTo(serialNames.subList(0, 10));
+      // The base entry is cached too when the search checks it
+      cachedNames.remove(DN.valueOf(BACKEND_BASE_DN));
+      assertThat(cachedNames).isEqualTo(serialNames.subList(0, batchSize));
+    }
+    finally
+    {
+      DirectoryServer.setEntryCache(originalEntryCache);
+    }
+  }
+
+  private void setSearchParallelism(int parallelism)
+  {
+    when(backendCfg.getSearchParallelism()).thenReturn(parallelism);
+    backend.getRootContainer().applyConfigurationChange(backendCfg);
+  }
+
+  private InternalSearchOperation search(SearchRequest request) throws Exception
+  {
+    final InternalSearchOperation search = new InternalSearchOperation(getRootConnection(), -1, -1, request);
+    backend.search(new LocalBackendSearchOperation(search));
+    return search;
+  }
+
+  private static ByteString getPagedResultsCookie(InternalSearchOperation search)
+  {
+    for (Control control : search.getResponseControls())
+    {
+      if (control instanceof PagedResultsControl)
+      {
+        return ((PagedResultsControl) control).getCookie();
+      }
+    }
+    fail("The search did not return a paged results control");
+    return null;
+  }
+
+  private static List<DN> getNames(InternalSearchOperation search)
+  {
+    final List<DN> names = new ArrayList<>();
+    for (Entry entry : search.getSearchEntries())
+    {
+      names.add(entry.getName());
+    }
+    return names;
+  }
+}
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.backends.pluggable;
 
@@ -66,6 +67,7 @@ import org.opends.server.backends.pluggable.spi.Storage;
 import org.opends.server.backends.pluggable.spi.TreeName;
 import org.opends.server.backends.pluggable.spi.WriteOperation;
 import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+import org.opends.server.controls.PagedResultsControl;
 import org.opends.server.core.AddOperation;
 import org.opends.server.core.DeleteOperation;
 import org.opends.server.core.ModifyDNOperation;
@@ -77,6 +79,7 @@ import org.opends.server.protocols.internal.InternalSearchOperation;
 import org.opends.server.protocols.internal.SearchRequest;
 import org.opends.server.types.BackupConfig;
 import org.opends.server.types.BackupDirectory;
+import org.opends.server.types.Control;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
 import org.opends.server.types.LDIFExportConfig;
@@ -100,6 +103,7 @@ import org.testng.annotations.Test;
 public abstract class PluggableBackendImplTestCase<C extends PluggableBackendCfg> extends DirectoryServerTestCase
 {
   private BackendImpl<C> backend;
+  private C backendCfg;
   private List<Entry> topEntries;
   private List<Entry> entries;
   private List<Entry> workEntries;
@@ -149,7 +153,7 @@ public abstract class PluggableBackendImplTestCase<C extends PluggableBackendCfg
 
     testBaseDN = DN.valueOf("dc=test,dc=com");
 
-    C backendCfg = createBackendCfg();
+    backendCfg = createBackendCfg();
     when(backendCfg.dn()).thenReturn(testBaseDN);
     when(backendCfg.getBaseDN()).thenReturn(newTreeSet(testBaseDN));
     when(backendCfg.listBackendIndexes()).thenReturn(backendIndexes.keySet().toArray(new String[0]));
@@ -692,6 +696,53 @@ public abstract class PluggableBackendImplTestCase<C extends PluggableBackendCfg
     assertThat((Object) returnedEntries.get(0).getName()).isEqualTo(newEntry.getName());
   }
 
+  @Test
+  public void testModifyEntryValues() throws Exception
+  {
+    final DN dn = workEntries.get(1).getName();
+    final String oldNumber = "399-788-7334";
+    final String newNumber = "399-788-0000";
+
+    replaceValue(dn, "telephoneNumber", oldNumber, newNumber);
+    assertThat(searchEntries("(telephoneNumber=" + newNumber + ")")).hasSize(1);
+    assertThat(searchEntries("(telephoneNumber=" + oldNumber + ")")).isEmpty();
+    verifyCleanIndex("telephoneNumber");
+
+    replaceValue(dn, "telephoneNumber", newNumber, oldNumber);
+    assertThat(searchEntries("(telephoneNumber=" + oldNumber + ")")).hasSize(1);
+    assertThat(searchEntries("(telephoneNumber=" + newNumber + ")")).isEmpty();
+    verifyCleanIndex("telephoneNumber");
+  }
+
+  private void replaceValue(DN dn, String attributeName, String deletedValue, String addedValue) throws Exception
+  {
+    Entry oldEntry = backend.getEntry(dn);
+    Entry newEntry = oldEntry.duplicate(false);
+    List<Modification> mods = Arrays.asList(
+        new Modification(ADD, create(attributeName, addedValue)),
+        new Modification(DELETE, create(attributeName, deletedValue)));
+    newEntry.applyModifications(mods);
+
+    ModifyOperation modifyOp = mock(ModifyOperation.class);
+    when(modifyOp.getModifications()).thenReturn(mods);
+    backend.replaceEntry(oldEntry, newEntry, modifyOp);
+  }
+
+  private List<Entry> searchEntries(String filter) throws Exception
+  {
+    final List<Entry> returnedEntries = new ArrayList<>();
+    backend.search(createSearchOperation(testBaseDN, SearchScope.WHOLE_SUBTREE, filter, returnedEntries));
+    return returnedEntries;
+  }
+
+  private void verifyCleanIndex(String indexName) throws Exception
+  {
+    VerifyConfig config = new VerifyConfig();
+    config.setBaseDN(testBaseDN);
+    config.addCleanIndex(indexName);
+    assertThat(backend.verifyBackend(config)).isEqualTo(0);
+  }
+
   private SearchOperation createSearchOperation(DN baseDN, SearchScope scope, String searchFilter,
       final List<Entry> returnedEntries) throws DirectoryException
   {
@@ -868,6 +919,139 @@ public abstract class PluggableBackendImplTestCase<C extends PluggableBackendCfg
     assertThat(searchOperation.getEntriesSent()).isEqualTo(0);
   }
 
+  @DataProvider
+  protected Object[][] windowedSearches()
+  {
+    return new Object[][] {
+      // @formatter:off
+      { "dc=test,dc=com",                      SearchScope.WHOLE_SUBTREE, "(sn=*)" },
+      { "dc=test,dc=com",                      SearchScope.WHOLE_SUBTREE, "(&(sn=*)(mail=*user.1*))" },
+      { "dc=test,dc=com",                      SearchScope.WHOLE_SUBTREE, "(|(uid=user.1)(uid=user.539))" },
+      { "dc=test,dc=com",                      SearchScope.WHOLE_SUBTREE, "(objectClass=*)" },
+      { "ou=People,dc=test,dc=com",            SearchScope.SINGLE_LEVEL,  "(sn=A*)" },
+      { "ou=People,dc=test,dc=com",            SearchScope.SUBORDINATES,  "(sn=*)" },
+      { "uid=user.1,ou=People,dc=test,dc=com", SearchScope.WHOLE_SUBTREE, "(sn=*)" },
+      // @formatter:on
+    };
+  }
+
+  @Test(dataProvider = "windowedSearches")
+  public void testSearchIndexedByWindows(String baseDN, SearchScope scope, String filter) throws Exception
+  {
+    final SearchRequest request = newSearchRequest(DN.valueOf(baseDN), scope, filter);
+    final List<DN> expected = getNames(runSearch(request, false));
+    try
+    {
+      for (int windowSize : new int[] { 1, 3, 1000 })
+      {
+        when(backendCfg.getIndexedSearchWindowSize()).thenReturn(windowSize);
+        assertThat(getNames(runSearch(request, false))).as("window size " + windowSize).isEqualTo(expected);
+      }
+    }
+    finally
+    {
+      when(backendCfg.getIndexedSearchWindowSize()).thenReturn(0);
+    }
+  }
+
+  @Test
+  public void testSearchIndexedByWindowsChecksLookthroughLimitPerWindow() throws Exception
+  {
+    final SearchRequest request = newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, "(sn=*)");
+    final int nbCandidates = runSearch(request, false).size();
+    final ClientConnection connection = new ClientConnectionStub();
+    connection.setLookthroughLimit(5);
+    when(backendCfg.getIndexedSearchWindowSize()).thenReturn(3);
+    try
+    {
+      final InternalSearchOperation search = new InternalSearchOperation(connection, 1, 1, request, null);
+      backend.search(new LocalBackendSearchOperation(search));
+
+      // The entries of the windows evaluated before the limit was exceeded have been returned
+      assertThat(search.getResultCode()).isEqualTo(ResultCode.ADMIN_LIMIT_EXCEEDED);
+      assertThat(search.getEntriesSent()).isGreaterThan(0).isLessThanOrEqualTo(5).isLessThan(nbCandidates);
+    }
+    finally
+    {
+      when(backendCfg.getIndexedSearchWindowSize()).thenReturn(0);
+    }
+  }
+
+  @DataProvider
+  protected Object[][] indexedSearchWindowSizes()
+  {
+    return new Object[][] { { 0 }, { 3 } };
+  }
+
+  /**
+   * The paged results cookie holds the ID of the next entry to return: when this entry is deleted between two pages,
+   * the search resumes at the next candidate rather than at the first page.
+   */
+  @Test(dataProvider = "indexedSearchWindowSizes")
+  public void testPagedSearchResumesAfterDeletedCookieEntry(int windowSize) throws Exception
+  {
+    final String filter = "(sn=*)";
+    final SearchRequest request = newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, filter);
+    final List<DN> allNames = getNames(runSearch(request, false));
+    assertThat(allNames.size()).isGreaterThan(9);
+    when(backendCfg.getIndexedSearchWindowSize()).thenReturn(windowSize);
+    try
+    {
+      final InternalSearchOperation firstPage = searchPage(filter, 4, null);
+      assertThat(getNames(firstPage.getSearchEntries())).isEqualTo(allNames.subList(0, 4));
+      final ByteString cookie = getPagedResultsCookie(firstPage);
+      assertThat(cookie.length()).isGreaterThan(0);
+
+      final Entry cookieEntry = backend.getEntry(allNames.get(4));
+      backend.deleteEntry(cookieEntry.getName(), mock(DeleteOperation.class));
+      try
+      {
+        final InternalSearchOperation secondPage = searchPage(filter, 4, cookie);
+        assertThat(getNames(secondPage.getSearchEntries())).isEqualTo(allNames.subList(5, 9));
+      }
+      finally
+      {
+        backend.addEntry(cookieEntry, mock(AddOperation.class));
+      }
+    }
+    finally
+    {
+      when(backendCfg.getIndexedSearchWindowSize()).thenReturn(0);
+    }
+  }
+
+  private InternalSearchOperation searchPage(String filter, int pageSize, ByteString cookie) throws Exception
+  {
+    final SearchRequest request = newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, filter)
+        .addControl(new PagedResultsControl(true, pageSize, cookie));
+    final InternalSearchOperation search = new InternalSearchOperation(getRootConnection(), -1, -1, request);
+    backend.search(new LocalBackendSearchOperation(search));
+    return search;
+  }
+
+  private static ByteString getPagedResultsCookie(InternalSearchOperation search)
+  {
+    for (Control control : search.getResponseControls())
+    {
+      if (control instanceof PagedResultsControl)
+      {
+        return ((PagedResultsControl) control).getCookie();
+      }
+    }
+    fail("The search did not return a paged results control");
+    return null;
+  }
+
+  private static List<DN> getNames(List<? extends Entry> entries)
+  {
+    final List<DN> names = new ArrayList<>(entries.size());
+    for (Entry entry : entries)
+    {
+      names.add(entry.getName());
+    }
+    return names;
+  }
+
   private void subTreeSearch(boolean useInternalConnection) throws Exception
   {
     SearchRequest request = newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, "objectclass=*");
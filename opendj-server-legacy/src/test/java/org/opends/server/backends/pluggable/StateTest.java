@@ -52,7 +52,7 @@ import org.testng.annotations.Test;
 @Test(groups = { "precommit", "pluggablebackend" }, sequential = true)
 public class StateTest extends DirectoryServerTestCase
 {
-  private static final IndexFlag DEFAULT_FLAG = COMPACTED;
+  private static final IndexFlag DEFAULT_FLAG = BITMAP;
 
   private final TreeName stateTreeName = new TreeName("base-dn", "index-id");
   private TreeName indexTreeName;
@@ -117,7 +117,7 @@ public class StateTest extends DirectoryServerTestCase
   public void testCreateWithTrustedAndCompacted() throws Exception
   {
     addFlags(TRUSTED, COMPACTED);
-    assertThat(getFlags()).containsExactly(TRUSTED, COMPACTED);
+    assertThat(getFlags()).containsExactly(TRUSTED, COMPACTED, DEFAULT_FLAG);
   }
 
   @Test
@@ -142,12 +142,12 @@ public class StateTest extends DirectoryServerTestCase
   public void testRemoveFlags() throws Exception
   {
     addFlags(COMPACTED, TRUSTED);
-    assertThat(getFlags()).containsExactly(TRUSTED, COMPACTED);
+    assertThat(getFlags()).containsExactly(TRUSTED, COMPACTED, DEFAULT_FLAG);
 
     removeFlags(TRUSTED);
-    assertThat(getFlags()).containsExactly(COMPACTED);
+    assertThat(getFlags()).containsExactly(COMPACTED, DEFAULT_FLAG);
 
-    removeFlags(COMPACTED);
+    removeFlags(COMPACTED, DEFAULT_FLAG);
     assertThat(getFlags()).containsExactly();
   }
 
@@ -165,7 +165,7 @@ public class StateTest extends DirectoryServerTestCase
       }
     });
 
-    assertThat(getFlags()).containsExactly(COMPACTED);
+    assertThat(getFlags()).containsExactly(DEFAULT_FLAG);
   }
 
   private PDBBackendCfg createBackendCfg() throws ConfigException, DirectoryException
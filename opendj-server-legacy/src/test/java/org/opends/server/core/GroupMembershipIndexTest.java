@@ -0,0 +1,184 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.core;
+
+import static java.util.Arrays.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.forgerock.opendj.ldap.schema.CoreSchema.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.forgerock.opendj.ldap.ConditionResult;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ModificationType;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.api.Group;
+import org.opends.server.types.Attributes;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.Modification;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class GroupMembershipIndexTest extends DirectoryServerTestCase
+{
+  private static final DN GROUP1_DN = DN.valueOf("cn=group 1,ou=groups,dc=example,dc=com");
+  private static final DN GROUP2_DN = DN.valueOf("cn=group 2,ou=groups,dc=example,dc=com");
+  private static final DN GROUP3_DN = DN.valueOf("cn=group 3,ou=groups,dc=example,dc=com");
+  private static final DN DYNAMIC_DN = DN.valueOf("cn=dynamic,ou=groups,dc=example,dc=com");
+  private static final DN USER1_DN = DN.valueOf("uid=user.1,ou=people,dc=example,dc=com");
+  private static final DN USER2_DN = DN.valueOf("uid=user.2,ou=people,dc=example,dc=com");
+
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startFakeServer();
+  }
+
+  @AfterClass
+  public void tearDown() throws DirectoryException
+  {
+    TestCaseUtils.shutdownFakeServer();
+  }
+
+  private static Modification memberModification(ModificationType modType, DN memberDN)
+  {
+    return new Modification(modType, Attributes.create(getMemberAttributeType(), memberDN.toString()));
+  }
+
+  private static boolean isMember(GroupMembershipIndex index, DN groupDN, DN userDN) throws DirectoryException
+  {
+    return index.isMember(groupDN, userDN, new AtomicReference<Set<DN>>()).toBoolean();
+  }
+
+  @Test
+  public void nestedMembershipsAreIndexed() throws Exception
+  {
+    final GroupMembershipIndex index = new GroupMembershipIndex();
+    index.addIndexedGroup(GROUP1_DN, asList(GROUP2_DN));
+    index.addIndexedGroup(GROUP2_DN, asList(GROUP3_DN, USER2_DN));
+    index.addIndexedGroup(GROUP3_DN, asList(USER1_DN));
+
+    assertThat(index.getIndexedGroups(USER1_DN)).containsOnly(GROUP1_DN, GROUP2_DN, GROUP3_DN);
+    assertThat(index.getIndexedGroups(USER2_DN)).containsOnly(GROUP1_DN, GROUP2_DN);
+    assertThat(isMember(index, GROUP1_DN, USER1_DN)).isTrue();
+    assertThat(isMember(index, GROUP3_DN, USER2_DN)).isFalse();
+    assertThat(index.isMember(DYNAMIC_DN, USER1_DN, new AtomicReference<Set<DN>>()))
+        .isEqualTo(ConditionResult.UNDEFINED);
+
+    index.removeGroup(GROUP2_DN);
+    assertThat(index.getIndexedGroups(USER1_DN)).containsOnly(GROUP3_DN);
+    assertThat(index.getIndexedGroups(USER2_DN)).isEmpty();
+  }
+
+  @Test
+  public void circularNestingIsSupported() throws Exception
+  {
+    final GroupMembershipIndex index = new GroupMembershipIndex();
+    index.addIndexedGroup(GROUP1_DN, asList(GROUP2_DN, USER1_DN));
+    index.addIndexedGroup(GROUP2_DN, asList(GROUP1_DN));
+
+    assertThat(index.getIndexedGroups(USER1_DN)).containsOnly(GROUP1_DN, GROUP2_DN);
+    assertThat(index.getIndexedGroups(GROUP1_DN)).containsOnly(GROUP1_DN, GROUP2_DN);
+  }
+
+  @Test
+  public void memberUpdatesAreAppliedIncrementally() throws Exception
+  {
+    final GroupMembershipIndex index = new GroupMembershipIndex();
+    index.addIndexedGroup(GROUP1_DN, asList(GROUP2_DN));
+    index.addIndexedGroup(GROUP2_DN, Collections.<DN> emptyList());
+    assertThat(index.getIndexedGroups(USER1_DN)).isEmpty();
+
+    index.updateMembers(GROUP2_DN, getMemberAttributeType(),
+        asList(memberModification(ModificationType.ADD, USER1_DN)));
+    assertThat(index.getIndexedGroups(USER1_DN)).containsOnly(GROUP1_DN, GROUP2_DN);
+
+    // un-nesting a group invalidates the memberships of its members
+    index.updateMembers(GROUP1_DN, getMemberAttributeType(),
+        asList(memberModification(ModificationType.DELETE, GROUP2_DN)));
+    assertThat(index.getIndexedGroups(USER1_DN)).containsOnly(GROUP2_DN);
+
+    index.updateMembers(GROUP2_DN, getMemberAttributeType(),
+        asList(memberModification(ModificationType.REPLACE, USER2_DN)));
+    assertThat(index.getIndexedGroups(USER1_DN)).isEmpty();
+    assertThat(index.getIndexedGroups(USER2_DN)).containsOnly(GROUP2_DN);
+
+    // other attributes are ignored
+    index.updateMembers(GROUP2_DN, getMemberAttributeType(), asList(new Modification(
+        ModificationType.ADD, Attributes.create(getUniqueMemberAttributeType(), USER1_DN.toString()))));
+    assertThat(index.getIndexedGroups(USER1_DN)).isEmpty();
+
+    index.updateMembers(GROUP2_DN, getMemberAttributeType(),
+        asList(new Modification(ModificationType.DELETE, Attributes.empty(getMemberAttributeType()))));
+    assertThat(index.getIndexedGroups(USER2_DN)).isEmpty();
+
+    index.renameGroup(GROUP1_DN, GROUP3_DN);
+    index.updateMembers(GROUP3_DN, getMemberAttributeType(),
+        asList(memberModification(ModificationType.ADD, USER2_DN)));
+    assertThat(index.getIndexedGroups(USER2_DN)).containsOnly(GROUP3_DN);
+  }
+
+  @Test
+  public void nestedMembersAreReturned() throws Exception
+  {
+    final GroupMembershipIndex index = new GroupMembershipIndex();
+    index.addIndexedGroup(GROUP1_DN, asList(GROUP2_DN, USER1_DN));
+    index.addIndexedGroup(GROUP2_DN, asList(GROUP1_DN, USER2_DN));
+
+    assertThat(index.getMembers(GROUP1_DN, 10)).containsOnly(GROUP1_DN, GROUP2_DN, USER1_DN, USER2_DN);
+    assertThat(index.getMembers(GROUP1_DN, 3)).isNull();
+    assertThat(index.getMembers(GROUP3_DN, 10)).isNull();
+
+    final Group<?> dynamicGroup = mock(Group.class);
+    when(dynamicGroup.getGroupDN()).thenReturn(DYNAMIC_DN);
+    index.addUnindexedGroup(dynamicGroup);
+    index.addIndexedGroup(GROUP3_DN, asList(DYNAMIC_DN));
+    assertThat(index.getMembers(GROUP3_DN, 10)).isNull();
+  }
+
+  @Test
+  public void unindexedGroupsAreEvaluated() throws Exception
+  {
+    final Entry user1 = TestCaseUtils.makeEntry(
+        "dn: " + USER1_DN,
+        "objectClass: top",
+        "objectClass: person",
+        "cn: user.1",
+        "sn: user.1");
+    final Group<?> dynamicGroup = mock(Group.class);
+    when(dynamicGroup.getGroupDN()).thenReturn(DYNAMIC_DN);
+    when(dynamicGroup.isMember(user1)).thenReturn(true);
+    when(dynamicGroup.isMember(eq(USER1_DN), any(AtomicReference.class))).thenReturn(true);
+
+    final GroupMembershipIndex index = new GroupMembershipIndex();
+    index.addUnindexedGroup(dynamicGroup);
+    index.addIndexedGroup(GROUP1_DN, asList(DYNAMIC_DN));
+    index.addIndexedGroup(GROUP2_DN, asList(USER2_DN));
+
+    assertThat(index.getGroups(user1)).containsOnly(DYNAMIC_DN, GROUP1_DN);
+    assertThat(isMember(index, GROUP1_DN, USER1_DN)).isTrue();
+    assertThat(isMember(index, GROUP2_DN, USER1_DN)).isFalse();
+    verify(dynamicGroup, times(1)).isMember(eq(USER1_DN), any(AtomicReference.class));
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.core;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.EnumSet;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.controls.PersistentSearchChangeType;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.SearchFilter;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class PersistentSearchRouterTest extends DirectoryServerTestCase
+{
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startFakeServer();
+  }
+
+  @AfterClass
+  public void tearDown() throws DirectoryException
+  {
+    TestCaseUtils.shutdownFakeServer();
+  }
+
+  private static PersistentSearch newPersistentSearch(String baseDN, String filter) throws Exception
+  {
+    final SearchOperation searchOperation = mock(SearchOperation.class);
+    when(searchOperation.getBaseDN()).thenReturn(DN.valueOf(baseDN));
+    when(searchOperation.getScope()).thenReturn(SearchScope.WHOLE_SUBTREE);
+    when(searchOperation.getFilter()).thenReturn(SearchFilter.createFilterFromString(filter));
+    return new PersistentSearch(searchOperation, EnumSet.allOf(PersistentSearchChangeType.class), true, true);
+  }
+
+  private static Entry newUser(String uid, String description) throws Exception
+  {
+    return TestCaseUtils.makeEntry(
+        "dn: uid=" + uid + ",ou=people,dc=example,dc=com",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: " + uid,
+        "cn: " + uid,
+        "sn: " + uid,
+        "description: " + description);
+  }
+
+  private static DN[] dns(Entry entry)
+  {
+    return new DN[] { entry.getName() };
+  }
+
+  @Test
+  public void candidatesAreSelectedByBaseDN() throws Exception
+  {
+    final PersistentSearchRouter router = new PersistentSearchRouter();
+    final PersistentSearch people = newPersistentSearch("ou=people,dc=example,dc=com", "(objectClass=*)");
+    final PersistentSearch suffix = newPersistentSearch("dc=example,dc=com", "(objectClass=*)");
+    final PersistentSearch groups = newPersistentSearch("ou=groups,dc=example,dc=com", "(objectClass=*)");
+    router.register(people);
+    router.register(suffix);
+    router.register(groups);
+
+    final Entry user = newUser("user.0", "first");
+    assertThat(router.getCandidates(dns(user), user)).containsOnly(people, suffix);
+
+    router.deregister(people);
+    assertThat(router.getCandidates(dns(user), user)).containsOnly(suffix);
+    router.deregister(suffix);
+    router.deregister(groups);
+    assertThat(router.getCandidates(dns(user), user)).isEmpty();
+  }
+
+  @Test
+  public void candidatesAreSelectedByEqualityValue() throws Exception
+  {
+    final PersistentSearchRouter router = new PersistentSearchRouter();
+    final PersistentSearch user0 = newPersistentSearch("dc=example,dc=com", "(uid=USER.0)");
+    final PersistentSearch user1 =
+        newPersistentSearch("dc=example,dc=com", "(&(objectClass=person)(uid=user.1))");
+    final PersistentSearch persons = newPersistentSearch("dc=example,dc=com", "(objectClass=person)");
+    final PersistentSearch substring = newPersistentSearch("dc=example,dc=com", "(uid=user*)");
+    router.register(user0);
+    router.register(user1);
+    router.register(persons);
+    router.register(substring);
+
+    final Entry entry0 = newUser("user.0", "first");
+    assertThat(router.getCandidates(dns(entry0), entry0)).containsOnly(user0, persons, substring);
+
+    // the old entry of a modify is also looked up
+    final Entry entry1 = newUser("user.1", "first");
+    assertThat(router.getCandidates(dns(entry1), entry1)).containsOnly(user1, persons, substring);
+    assertThat(router.getCandidates(dns(entry1), entry0, entry1)).containsOnly(user0, user1, persons, substring);
+  }
+
+  @Test
+  public void renamedEntriesAreLookedUpUnderBothDNs() throws Exception
+  {
+    final PersistentSearchRouter router = new PersistentSearchRouter();
+    final PersistentSearch people = newPersistentSearch("ou=people,dc=example,dc=com", "(objectClass=*)");
+    final PersistentSearch users = newPersistentSearch("ou=users,dc=example,dc=com", "(objectClass=*)");
+    router.register(people);
+    router.register(users);
+
+    final Entry entry = newUser("user.0", "first");
+    final DN newDN = DN.valueOf("uid=user.0,ou=users,dc=example,dc=com");
+    assertThat(router.getCandidates(new DN[] { entry.getName(), newDN }, entry)).containsOnly(people, users);
+  }
+}
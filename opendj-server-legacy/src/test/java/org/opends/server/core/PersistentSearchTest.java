@@ -0,0 +1,166 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.core;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.api.ClientConnection;
+import org.opends.server.controls.PersistentSearchChangeType;
+import org.opends.server.types.Control;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.SearchFilter;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class PersistentSearchTest extends DirectoryServerTestCase
+{
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startFakeServer();
+  }
+
+  @AfterClass
+  public void tearDown() throws DirectoryException
+  {
+    TestCaseUtils.shutdownFakeServer();
+  }
+
+  private static SearchOperation newSearchOperation() throws Exception
+  {
+    final ClientConnection clientConnection = mock(ClientConnection.class);
+    final SearchOperation searchOperation = mock(SearchOperation.class);
+    when(searchOperation.getBaseDN()).thenReturn(DN.valueOf("dc=example,dc=com"));
+    when(searchOperation.getScope()).thenReturn(SearchScope.WHOLE_SUBTREE);
+    when(searchOperation.getFilter()).thenReturn(SearchFilter.createFilterFromString("(objectClass=*)"));
+    when(searchOperation.getClientConnection()).thenReturn(clientConnection);
+    return searchOperation;
+  }
+
+  private static PersistentSearch newPersistentSearch(SearchOperation searchOperation)
+  {
+    return new PersistentSearch(searchOperation, EnumSet.allOf(PersistentSearchChangeType.class), true, false);
+  }
+
+  private static Entry newUser(int i) throws Exception
+  {
+    return TestCaseUtils.makeEntry(
+        "dn: uid=user." + i + ",dc=example,dc=com",
+        "objectClass: top",
+        "objectClass: person",
+        "uid: user." + i,
+        "cn: user." + i,
+        "sn: user." + i);
+  }
+
+  @Test(timeOut = 10000)
+  public void notificationsAreSentInOrderByTheNotifier() throws Exception
+  {
+    final int nbEntries = 10;
+    final CountDownLatch delivered = new CountDownLatch(nbEntries);
+    final List<DN> deliveredDNs = new CopyOnWriteArrayList<>();
+    final List<Thread> notifierThreads = new CopyOnWriteArrayList<>();
+    final SearchOperation searchOperation = newSearchOperation();
+    when(searchOperation.returnEntry(any(Entry.class), anyListOf(Control.class))).thenAnswer(new Answer<Boolean>()
+    {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) throws Throwable
+      {
+        deliveredDNs.add(((Entry) invocation.getArguments()[0]).getName());
+        notifierThreads.add(Thread.currentThread());
+        delivered.countDown();
+        return true;
+      }
+    });
+
+    final PersistentSearch psearch = newPersistentSearch(searchOperation);
+    final DN[] expectedDNs = new DN[nbEntries];
+    for (int i = 0; i < nbEntries; i++)
+    {
+      final Entry entry = newUser(i);
+      expectedDNs[i] = entry.getName();
+      psearch.processAdd(entry);
+    }
+
+    assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(deliveredDNs).containsExactly(expectedDNs);
+    assertThat(notifierThreads).doesNotContain(Thread.currentThread());
+    verify(searchOperation, never()).sendSearchResultDone();
+  }
+
+  @Test(timeOut = 10000)
+  public void slowClientsAreCancelledByTheNotifier() throws Exception
+  {
+    final CountDownLatch delivering = new CountDownLatch(1);
+    final CountDownLatch clientReads = new CountDownLatch(1);
+    final List<Thread> resultThreads = new CopyOnWriteArrayList<>();
+    final SearchOperation searchOperation = newSearchOperation();
+    when(searchOperation.returnEntry(any(Entry.class), anyListOf(Control.class))).thenAnswer(new Answer<Boolean>()
+    {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) throws Throwable
+      {
+        delivering.countDown();
+        clientReads.await();
+        return true;
+      }
+    });
+    doAnswer(new Answer<Void>()
+    {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable
+      {
+        resultThreads.add(Thread.currentThread());
+        return null;
+      }
+    }).when(searchOperation).sendSearchResultDone();
+
+    final PersistentSearch psearch = newPersistentSearch(searchOperation);
+    psearch.processAdd(newUser(0));
+    delivering.await();
+
+    // the notifier is blocked sending the first entry: fill the pending notifications, then overflow them
+    for (int i = 1; i <= PersistentSearch.MAX_PENDING_NOTIFICATIONS + 1; i++)
+    {
+      psearch.processAdd(newUser(i));
+    }
+    verify(searchOperation.getClientConnection()).deregisterPersistentSearch(psearch);
+    verify(searchOperation, never()).sendSearchResultDone();
+
+    clientReads.countDown();
+    verify(searchOperation, timeout(5000)).sendSearchResultDone();
+    verify(searchOperation).setResultCode(ResultCode.ADMIN_LIMIT_EXCEEDED);
+    verify(searchOperation, times(1)).returnEntry(any(Entry.class), anyListOf(Control.class));
+    assertThat(resultThreads).doesNotContain(Thread.currentThread());
+  }
+}
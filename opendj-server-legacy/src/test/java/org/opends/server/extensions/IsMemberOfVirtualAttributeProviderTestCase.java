@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.extensions;
 
@@ -37,6 +38,7 @@ import org.opends.server.types.Attribute;
 import org.opends.server.types.Entry;
 import org.opends.server.types.SearchFilter;
 import org.opends.server.types.SearchResultEntry;
+import org.opends.server.types.VirtualAttribute;
 import org.opends.server.types.VirtualAttributeRule;
 import org.opends.server.workflowelement.localbackend.LocalBackendSearchOperation;
 import org.testng.annotations.BeforeClass;
@@ -993,6 +995,103 @@ public class IsMemberOfVirtualAttributeProviderTestCase
   }
 
 
+  /**
+   * Tests that an equality filter on isMemberOf is evaluated by the backend
+   * from the members of the group, and that the values of the returned
+   * isMemberOf attributes are generated once per returned entry.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testIndexedSearchOnStaticGroup() throws Exception
+  {
+    TestCaseUtils.clearBackend("userRoot", "dc=example,dc=com");
+    TestCaseUtils.addEntries(
+      "dn: ou=People,dc=example,dc=com",
+      "objectClass: top",
+      "objectClass: organizationalUnit",
+      "ou: People",
+      "",
+      "dn: ou=Groups,dc=example,dc=com",
+      "objectClass: top",
+      "objectClass: organizationalUnit",
+      "ou: Groups",
+      "",
+      "dn: uid=test.user.1,ou=People,dc=example,dc=com",
+      "objectClass: top",
+      "objectClass: person",
+      "objectClass: organizationalPerson",
+      "objectClass: inetOrgPerson",
+      "uid: test.user.1",
+      "givenName: Test",
+      "sn: User 1",
+      "cn: Test User 1",
+      "",
+      "dn: uid=test.user.2,ou=People,dc=example,dc=com",
+      "objectClass: top",
+      "objectClass: person",
+      "objectClass: organizationalPerson",
+      "objectClass: inetOrgPerson",
+      "uid: test.user.2",
+      "givenName: Test",
+      "sn: User 2",
+      "cn: Test User 2",
+      "",
+      "dn: uid=test.user.3,ou=People,dc=example,dc=com",
+      "objectClass: top",
+      "objectClass: person",
+      "objectClass: organizationalPerson",
+      "objectClass: inetOrgPerson",
+      "uid: test.user.3",
+      "givenName: Test",
+      "sn: User 3",
+      "cn: Test User 3",
+      "",
+      "dn: cn=Nested Group,ou=Groups,dc=example,dc=com",
+      "objectClass: top",
+      "objectClass: groupOfNames",
+      "cn: Nested Group",
+      "member: uid=test.user.2,ou=People,dc=example,dc=com",
+      "",
+      "dn: cn=Test Group,ou=Groups,dc=example,dc=com",
+      "objectClass: top",
+      "objectClass: groupOfNames",
+      "cn: Test Group",
+      "member: uid=test.user.1,ou=People,dc=example,dc=com",
+      "member: cn=Nested Group,ou=Groups,dc=example,dc=com");
+
+    String filter = "(isMemberOf=cn=Test Group,ou=Groups,dc=example,dc=com)";
+    SearchRequest request = newSearchRequest(DN.valueOf("dc=example,dc=com"), SearchScope.WHOLE_SUBTREE,
+        SearchFilter.createFilterFromString(filter), "debugsearchindex");
+    InternalSearchOperation searchOperation = getRootConnection().processSearch(request);
+    assertEquals(searchOperation.getResultCode(), ResultCode.SUCCESS);
+    List<SearchResultEntry> entries = searchOperation.getSearchEntries();
+    assertEquals(entries.size(), 1);
+    String debugSearchIndex = entries.get(0).parseAttribute("debugsearchindex").asString();
+    assertTrue(debugSearchIndex.contains("final=[COUNT:3]"), debugSearchIndex);
+
+    request = newSearchRequest(DN.valueOf("dc=example,dc=com"), SearchScope.WHOLE_SUBTREE,
+        SearchFilter.createFilterFromString("(&(objectClass=person)" + filter + ")"), "isMemberOf");
+    searchOperation = getRootConnection().processSearch(request);
+    assertEquals(searchOperation.getResultCode(), ResultCode.SUCCESS);
+    List<DN> returnedDNs = new LinkedList<>();
+    for (SearchResultEntry e : searchOperation.getSearchEntries())
+    {
+      returnedDNs.add(e.getName());
+      List<Attribute> attrs = e.getAllAttributes(isMemberOfType);
+      assertEquals(attrs.size(), 1);
+      Attribute attr = attrs.get(0);
+      assertTrue(attr instanceof VirtualAttribute);
+      assertSame(((VirtualAttribute) attr).withCachedValues(), attr);
+      assertTrue(attr.contains(ByteString.valueOfUtf8("cn=Test Group,ou=Groups,dc=example,dc=com")));
+    }
+    assertEquals(returnedDNs.size(), 2);
+    assertTrue(returnedDNs.contains(DN.valueOf("uid=test.user.1,ou=People,dc=example,dc=com")));
+    assertTrue(returnedDNs.contains(DN.valueOf("uid=test.user.2,ou=People,dc=example,dc=com")));
+
+    TestCaseUtils.clearBackend("userRoot", "dc=example,dc=com");
+  }
+
   private VirtualAttributeRule buildRule(IsMemberOfVirtualAttributeProvider provider)
   {
     return new VirtualAttributeRule(isMemberOfType, provider,
@@ -0,0 +1,200 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.extensions;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.server.config.meta.ShardedWorkQueueCfgDefn;
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.types.Operation;
+import org.opends.server.types.OperationType;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** A set of test cases for the sharded work queue. */
+@SuppressWarnings("javadoc")
+public class ShardedWorkQueueTestCase extends ExtensionsTestCase
+{
+  private MonitorProvider<? extends MonitorProviderCfg> serverWorkQueueMonitor;
+  private ShardedWorkQueue workQueue;
+  private final List<Operation> processedOperations = new CopyOnWriteArrayList<>();
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @BeforeMethod
+  public void saveServerWorkQueueMonitor()
+  {
+    serverWorkQueueMonitor = DirectoryServer.getMonitorProviders().get("work queue");
+    processedOperations.clear();
+  }
+
+  @AfterMethod
+  public void finalizeWorkQueue()
+  {
+    if (workQueue != null)
+    {
+      workQueue.finalizeWorkQueue(LocalizableMessage.raw("test done"));
+      workQueue = null;
+    }
+    // The work queue registered its own monitor in place of the server work queue monitor
+    DirectoryServer.registerMonitorProvider(serverWorkQueueMonitor);
+  }
+
+  private ShardedWorkQueue newWorkQueue(int numWorkerThreads, int maxCapacity) throws Exception
+  {
+    ShardedWorkQueue queue = new ShardedWorkQueue();
+    queue.initializeWorkQueue(InitializationUtils.getConfiguration(ShardedWorkQueueCfgDefn.getInstance(),
+        TestCaseUtils.makeEntry(
+            "dn: cn=Work Queue,cn=config",
+            "objectClass: top",
+            "objectClass: ds-cfg-work-queue",
+            "objectClass: ds-cfg-sharded-work-queue",
+            "cn: Work Queue",
+            "ds-cfg-java-class: org.opends.server.extensions.ShardedWorkQueue",
+            "ds-cfg-num-worker-threads: " + numWorkerThreads,
+            "ds-cfg-max-work-queue-capacity: " + maxCapacity)));
+    return queue;
+  }
+
+  private Operation newOperation(OperationType type, long connectionID, final CountDownLatch processed)
+  {
+    final Operation operation = mock(Operation.class);
+    when(operation.getOperationType()).thenReturn(type);
+    when(operation.getConnectionID()).thenReturn(connectionID);
+    doAnswer(new Answer<Void>()
+    {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable
+      {
+        processedOperations.add(operation);
+        processed.countDown();
+        return null;
+      }
+    }).when(operation).run();
+    return operation;
+  }
+
+  /** Returns an operation blocking the worker thread processing it until the latch is released. */
+  private Operation newBlockingOperation(final CountDownLatch started, final CountDownLatch release)
+  {
+    Operation operation = mock(Operation.class);
+    when(operation.getOperationType()).thenReturn(OperationType.SEARCH);
+    when(operation.getConnectionID()).thenReturn(1L);
+    doAnswer(new Answer<Void>()
+    {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable
+      {
+        started.countDown();
+        release.await(10, TimeUnit.SECONDS);
+        return null;
+      }
+    }).when(operation).run();
+    return operation;
+  }
+
+  @Test
+  public void testAllOperationsAreProcessed() throws Exception
+  {
+    workQueue = newWorkQueue(4, 10000);
+    int nbOperations = 1000;
+    CountDownLatch processed = new CountDownLatch(nbOperations);
+    for (int i = 0; i < nbOperations; i++)
+    {
+      workQueue.submitOperation(newOperation(OperationType.SEARCH, i % 10, processed));
+    }
+
+    assertThat(processed.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(workQueue.waitUntilIdle(10000)).isTrue();
+    assertThat(processedOperations).hasSize(nbOperations);
+    assertThat(workQueue.getOpsSubmitted()).isEqualTo(nbOperations);
+    assertThat(workQueue.size()).isEqualTo(0);
+
+    long waitTimesCount = 0;
+    for (int shard = 0; shard < workQueue.getNumShards(); shard++)
+    {
+      assertThat(workQueue.getShardDepth(shard)).isEqualTo(0);
+      for (long count : workQueue.getShardWaitTimes(shard))
+      {
+        waitTimesCount += count;
+      }
+    }
+    assertThat(waitTimesCount).isEqualTo(nbOperations);
+  }
+
+  @Test
+  public void testPriorityLaneIsProcessedFirst() throws Exception
+  {
+    workQueue = newWorkQueue(1, 100);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    workQueue.submitOperation(newBlockingOperation(started, release));
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+    CountDownLatch processed = new CountDownLatch(4);
+    Operation search1 = newOperation(OperationType.SEARCH, 2, processed);
+    Operation search2 = newOperation(OperationType.SEARCH, 3, processed);
+    Operation bind = newOperation(OperationType.BIND, 4, processed);
+    Operation abandon = newOperation(OperationType.ABANDON, 5, processed);
+    workQueue.submitOperation(search1);
+    workQueue.submitOperation(search2);
+    workQueue.submitOperation(bind);
+    workQueue.submitOperation(abandon);
+    assertThat(workQueue.getShardDepth(-1)).isEqualTo(2);
+
+    release.countDown();
+    assertThat(processed.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(processedOperations).containsExactly(bind, abandon, search1, search2);
+  }
+
+  @Test
+  public void testTrySubmitOperationWhenFull() throws Exception
+  {
+    workQueue = newWorkQueue(1, 2);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    workQueue.submitOperation(newBlockingOperation(started, release));
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+    CountDownLatch processed = new CountDownLatch(2);
+    assertThat(workQueue.trySubmitOperation(newOperation(OperationType.SEARCH, 2, processed))).isTrue();
+    assertThat(workQueue.trySubmitOperation(newOperation(OperationType.SEARCH, 3, processed))).isTrue();
+    assertThat(workQueue.trySubmitOperation(newOperation(OperationType.SEARCH, 4, processed))).isFalse();
+    assertThat(workQueue.getOpsRejectedDueToQueueFull()).isEqualTo(1);
+
+    release.countDown();
+    assertThat(processed.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(processedOperations).hasSize(2);
+  }
+}
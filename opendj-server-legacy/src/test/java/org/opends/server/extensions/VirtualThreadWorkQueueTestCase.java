@@ -0,0 +1,178 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.extensions;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.server.config.meta.VirtualThreadWorkQueueCfgDefn;
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.types.Operation;
+import org.opends.server.types.OperationType;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** A set of test cases for the virtual thread work queue. */
+@SuppressWarnings("javadoc")
+public class VirtualThreadWorkQueueTestCase extends ExtensionsTestCase
+{
+  private MonitorProvider<? extends MonitorProviderCfg> serverWorkQueueMonitor;
+  private VirtualThreadWorkQueue workQueue;
+  private final AtomicInteger processedOperations = new AtomicInteger();
+  private final AtomicInteger runningOperations = new AtomicInteger();
+  private final AtomicInteger maxRunningOperations = new AtomicInteger();
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @BeforeMethod
+  public void saveServerWorkQueueMonitor()
+  {
+    serverWorkQueueMonitor = DirectoryServer.getMonitorProviders().get("work queue");
+    processedOperations.set(0);
+    runningOperations.set(0);
+    maxRunningOperations.set(0);
+  }
+
+  @AfterMethod
+  public void finalizeWorkQueue()
+  {
+    if (workQueue != null)
+    {
+      workQueue.finalizeWorkQueue(LocalizableMessage.raw("test done"));
+      workQueue = null;
+    }
+    // The work queue registered its own monitor in place of the server work queue monitor
+    DirectoryServer.registerMonitorProvider(serverWorkQueueMonitor);
+  }
+
+  private VirtualThreadWorkQueue newWorkQueue(int maxConcurrentOperations, int maxCapacity) throws Exception
+  {
+    VirtualThreadWorkQueue queue = new VirtualThreadWorkQueue();
+    queue.initializeWorkQueue(InitializationUtils.getConfiguration(VirtualThreadWorkQueueCfgDefn.getInstance(),
+        TestCaseUtils.makeEntry(
+            "dn: cn=Work Queue,cn=config",
+            "objectClass: top",
+            "objectClass: ds-cfg-work-queue",
+            "objectClass: ds-cfg-virtual-thread-work-queue",
+            "cn: Work Queue",
+            "ds-cfg-java-class: org.opends.server.extensions.VirtualThreadWorkQueue",
+            "ds-cfg-max-concurrent-operations: " + maxConcurrentOperations,
+            "ds-cfg-max-work-queue-capacity: " + maxCapacity)));
+    return queue;
+  }
+
+  /** Returns an operation sleeping a little while, to let other operations run at the same time. */
+  private Operation newOperation(final CountDownLatch processed)
+  {
+    Operation operation = mock(Operation.class);
+    when(operation.getOperationType()).thenReturn(OperationType.SEARCH);
+    doAnswer(new Answer<Void>()
+    {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable
+      {
+        int running = runningOperations.incrementAndGet();
+        int max;
+        while (running > (max = maxRunningOperations.get()) && !maxRunningOperations.compareAndSet(max, running))
+        {
+          // retry
+        }
+        Thread.sleep(1);
+        runningOperations.decrementAndGet();
+        processedOperations.incrementAndGet();
+        processed.countDown();
+        return null;
+      }
+    }).when(operation).run();
+    return operation;
+  }
+
+  /** Returns an operation blocking the thread processing it until the latch is released. */
+  private Operation newBlockingOperation(final CountDownLatch started, final CountDownLatch release)
+  {
+    Operation operation = mock(Operation.class);
+    when(operation.getOperationType()).thenReturn(OperationType.SEARCH);
+    doAnswer(new Answer<Void>()
+    {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable
+      {
+        started.countDown();
+        release.await(10, TimeUnit.SECONDS);
+        return null;
+      }
+    }).when(operation).run();
+    return operation;
+  }
+
+  @Test
+  public void testAllOperationsAreProcessedWithinConcurrencyLimit() throws Exception
+  {
+    workQueue = newWorkQueue(8, 10000);
+    int nbOperations = 500;
+    CountDownLatch processed = new CountDownLatch(nbOperations);
+    for (int i = 0; i < nbOperations; i++)
+    {
+      workQueue.submitOperation(newOperation(processed));
+    }
+
+    assertThat(processed.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(workQueue.waitUntilIdle(10000)).isTrue();
+    assertThat(processedOperations.get()).isEqualTo(nbOperations);
+    assertThat(maxRunningOperations.get()).isBetween(1, 8);
+    assertThat(workQueue.getOpsSubmitted()).isEqualTo(nbOperations);
+    assertThat(workQueue.size()).isEqualTo(0);
+    assertThat(workQueue.getActiveOperations()).isEqualTo(0);
+  }
+
+  @Test
+  public void testTrySubmitOperationWhenFull() throws Exception
+  {
+    workQueue = newWorkQueue(1, 2);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    workQueue.submitOperation(newBlockingOperation(started, release));
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+    CountDownLatch processed = new CountDownLatch(2);
+    assertThat(workQueue.trySubmitOperation(newOperation(processed))).isTrue();
+    assertThat(workQueue.trySubmitOperation(newOperation(processed))).isTrue();
+    assertThat(workQueue.trySubmitOperation(newOperation(processed))).isFalse();
+    assertThat(workQueue.getOpsRejectedDueToQueueFull()).isEqualTo(1);
+    assertThat(workQueue.size()).isEqualTo(2);
+
+    release.countDown();
+    assertThat(processed.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(processedOperations.get()).isEqualTo(2);
+    assertThat(maxRunningOperations.get()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.protocols.ldap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.opends.server.TestCaseUtils.makeEntry;
+import static org.opends.server.protocols.ldap.LDAPConstants.OP_TYPE_SEARCH_RESULT_ENTRY;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.forgerock.opendj.ldap.SearchScope;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.api.LocalBackend;
+import org.opends.server.core.AddOperation;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.plugins.InvocationCounterPlugin;
+import org.opends.server.tools.RemoteConnection;
+import org.opends.server.types.LDAPException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the LDAP connection handler disconnects the clients which do not read the responses sent to them for longer
+ * than the max-blocked-write-time-limit.
+ */
+@SuppressWarnings("javadoc")
+public class MaxBlockedWriteTimeLimitTestCase extends LdapTestCase
+{
+  private static final String BASE_DN = "dc=example,dc=com";
+  /** Enough large entries to fill the socket buffers and the queue of responses many times over. */
+  private static final int NB_ENTRIES = 1000;
+  private static final int DESCRIPTION_LENGTH = 32 * 1024;
+  private static final long MAX_BLOCKED_WRITE_TIME_LIMIT_MS = 500;
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+    TestCaseUtils.clearBackend("userRoot", BASE_DN);
+
+    final char[] description = new char[DESCRIPTION_LENGTH];
+    Arrays.fill(description, 'x');
+    final LocalBackend<?> backend =
+        TestCaseUtils.getServerContext().getBackendConfigManager().getLocalBackendById("userRoot");
+    for (int i = 0; i < NB_ENTRIES; i++)
+    {
+      backend.addEntry(makeEntry("dn: cn=user." + i + "," + BASE_DN,
+                                 "objectClass: top",
+                                 "objectClass: person",
+                                 "cn: user." + i,
+                                 "sn: " + i,
+                                 "description: " + new String(description)), mock(AddOperation.class));
+    }
+  }
+
+  @AfterClass
+  public void clearBackend() throws Exception
+  {
+    TestCaseUtils.clearBackend("userRoot");
+  }
+
+  @Test(timeOut = 60000)
+  public void testClientNotReadingSearchResultsIsDisconnected() throws Exception
+  {
+    setMaxBlockedWriteTimeLimit(MAX_BLOCKED_WRITE_TIME_LIMIT_MS + " ms");
+    try (RemoteConnection conn = new RemoteConnection("localhost", TestCaseUtils.getServerLdapPort()))
+    {
+      conn.bind("cn=Directory Manager", "password");
+      InvocationCounterPlugin.resetSearchEntryCount();
+      InvocationCounterPlugin.resetPostDisconnectCount();
+
+      // description is not indexed: the search checks whether it has been cancelled after each entry
+      conn.search(BASE_DN, SearchScope.WHOLE_SUBTREE, "(description=*)");
+
+      // The client does not read anything until the write of a response times out
+      final long timeout = System.currentTimeMillis() + 10000;
+      while (InvocationCounterPlugin.getPostDisconnectCount() == 0 && System.currentTimeMillis() < timeout)
+      {
+        Thread.sleep(10);
+      }
+      assertThat(InvocationCounterPlugin.getPostDisconnectCount()).as("disconnections").isEqualTo(1);
+
+      // Blocking the worker thread once per remaining entry would last minutes
+      assertThat(DirectoryServer.getWorkQueue().waitUntilIdle(5 * MAX_BLOCKED_WRITE_TIME_LIMIT_MS)).isTrue();
+      final int nbEntriesReturned = InvocationCounterPlugin.getSearchEntryCount();
+      assertThat(nbEntriesReturned).as("entries returned by the cancelled search").isBetween(1, NB_ENTRIES - 1);
+
+      // Only the entries written before the time out reach the client, then the connection is closed
+      int nbEntriesRead = 0;
+      try
+      {
+        while (true)
+        {
+          assertThat(conn.readMessage().getProtocolOpType()).isEqualTo(OP_TYPE_SEARCH_RESULT_ENTRY);
+          nbEntriesRead++;
+        }
+      }
+      catch (IOException | LDAPException expected)
+      {
+        // The server closed the connection
+      }
+      assertThat(nbEntriesRead).isLessThan(nbEntriesReturned);
+    }
+    finally
+    {
+      setMaxBlockedWriteTimeLimit("2 minutes");
+    }
+  }
+
+  private void setMaxBlockedWriteTimeLimit(String limit) throws Exception
+  {
+    TestCaseUtils.applyModifications(true,
+        "dn: cn=LDAP Connection Handler,cn=Connection Handlers,cn=config",
+        "changetype: modify",
+        "replace: ds-cfg-max-blocked-write-time-limit",
+        "ds-cfg-max-blocked-write-time-limit: " + limit);
+  }
+}
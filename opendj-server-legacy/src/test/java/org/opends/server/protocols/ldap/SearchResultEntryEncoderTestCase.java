@@ -0,0 +1,167 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.protocols.ldap;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.forgerock.opendj.io.ASN1;
+import org.forgerock.opendj.io.ASN1Writer;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.types.Entry;
+import org.opends.server.types.SearchResultEntry;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class SearchResultEntryEncoderTestCase extends LdapTestCase
+{
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @DataProvider
+  public Object[][] entries() throws Exception
+  {
+    Entry entry = TestCaseUtils.makeEntry(
+        "dn: uid=rogasawara,ou=People,o=airius",
+        "objectclass: top",
+        "objectclass: person",
+        "objectclass: organizationalPerson",
+        "objectclass: inetOrgPerson",
+        "uid: rogasawara",
+        "mail: rogasawara@airius.co.jp",
+        "givenname;lang-ja:: 44Ot44OJ44OL44O8",
+        "sn;lang-ja:: 5bCP56yg5Y6f",
+        "cn;lang-ja:: 5bCP56yg5Y6fIOODreODieODi+ODvA==",
+        "givenname: Rodney",
+        "sn: Ogasawara",
+        "cn: Rodney Ogasawara",
+        "title;lang-ja;phonetic:: ",
+        "createtimestamp: 20060915161843Z",
+        "modifytimestamp: 20060915161843Z");
+
+    char[] longValue = new char[3 * SearchResultEntryEncoder.BUFFER_SIZE];
+    Arrays.fill(longValue, 'x');
+    Entry largeEntry = TestCaseUtils.makeEntry(
+        "dn: cn=large,o=test",
+        "objectclass: top",
+        "objectclass: device",
+        "cn: large",
+        "description: " + new String(longValue, 0, 200),
+        "description: " + new String(longValue));
+
+    Entry emptyEntry = TestCaseUtils.makeEntry(
+        "dn: o=test",
+        "objectclass: top",
+        "objectclass: organization");
+    emptyEntry.getUserAttributes().clear();
+
+    return new Object[][] {
+      { entry, 1 },
+      { entry, 127 },
+      { entry, 128 },
+      { entry, 70000 },
+      { entry, Integer.MAX_VALUE },
+      { largeEntry, 2 },
+      { emptyEntry, 3 },
+    };
+  }
+
+  @Test(dataProvider = "entries")
+  public void testEncodeMatchesLDAPMessage(Entry entry, int messageID) throws Exception
+  {
+    SearchResultEntry searchEntry = new SearchResultEntry(entry);
+
+    SearchResultEntryEncoder encoder = new SearchResultEntryEncoder();
+    try
+    {
+      ByteBuffer[] buffers = encoder.encode(messageID, searchEntry);
+      assertThat(buffers).isNotNull();
+
+      ByteStringBuilder encoded = new ByteStringBuilder();
+      for (ByteBuffer buffer : buffers)
+      {
+        assertThat(buffer.isDirect()).isTrue();
+        encoded.appendBytes(buffer, buffer.remaining());
+      }
+      ByteString expected = writeLDAPMessage(messageID, searchEntry);
+      assertThat(encoded.toByteString()).isEqualTo(expected);
+      assertThat(encoder.getBytesCopied()).isEqualTo(expected.length());
+      assertThat(encoder.getBuffersAllocated()).isLessThanOrEqualTo(buffers.length);
+    }
+    finally
+    {
+      encoder.release();
+    }
+  }
+
+  @Test
+  public void testBuffersAreReused() throws Exception
+  {
+    SearchResultEntry searchEntry = new SearchResultEntry(TestCaseUtils.makeEntry(
+        "dn: cn=test,o=test",
+        "objectclass: top",
+        "objectclass: device",
+        "cn: test"));
+
+    SearchResultEntryEncoder encoder = new SearchResultEntryEncoder();
+    encoder.encode(1, searchEntry);
+    encoder.release();
+    encoder.encode(2, searchEntry);
+    encoder.release();
+    assertThat(encoder.getBuffersAllocated()).isEqualTo(0);
+  }
+
+  @Test
+  public void testTooLargeEntryIsNotEncoded() throws Exception
+  {
+    char[] longValue = new char[SearchResultEntryEncoder.MAX_MESSAGE_LENGTH];
+    Arrays.fill(longValue, 'x');
+    SearchResultEntry searchEntry = new SearchResultEntry(TestCaseUtils.makeEntry(
+        "dn: cn=test,o=test",
+        "objectclass: top",
+        "objectclass: device",
+        "cn: test",
+        "description: " + new String(longValue)));
+
+    SearchResultEntryEncoder encoder = new SearchResultEntryEncoder();
+    try
+    {
+      assertThat(encoder.encode(1, searchEntry)).isNull();
+    }
+    finally
+    {
+      encoder.release();
+    }
+  }
+
+  private ByteString writeLDAPMessage(int messageID, SearchResultEntry searchEntry) throws Exception
+  {
+    ByteStringBuilder builder = new ByteStringBuilder();
+    ASN1Writer writer = ASN1.getWriter(builder);
+    new LDAPMessage(messageID, new SearchResultEntryProtocolOp(searchEntry, 3)).write(writer);
+    writer.close();
+    return builder.toByteString();
+  }
+}
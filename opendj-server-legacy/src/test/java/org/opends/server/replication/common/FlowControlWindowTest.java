@@ -0,0 +1,122 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.common;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.replication.common.FlowControlWindow.*;
+
+import org.opends.server.DirectoryServerTestCase;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class FlowControlWindowTest extends DirectoryServerTestCase
+{
+  private static void receive(FlowControlWindow window, int count)
+  {
+    for (int i = 0; i < count; i++)
+    {
+      window.updateReceived();
+    }
+  }
+
+  @Test
+  public void fixedWindowGrantsHalfWindowCredits()
+  {
+    final FlowControlWindow window = new FlowControlWindow(100, false);
+    assertThat(window.getInitialSize()).isEqualTo(100);
+
+    receive(window, 50);
+    assertThat(window.updatesConsumed(49)).isEqualTo(0);
+    assertThat(window.updatesConsumed(1)).isEqualTo(50);
+    assertThat(window.getAvailable()).isEqualTo(100);
+    assertThat(window.getSize()).isEqualTo(100);
+  }
+
+  @Test
+  public void queuedUpdatesWithholdCredits()
+  {
+    final FlowControlWindow window = new FlowControlWindow(100, false);
+    receive(window, 100);
+    assertThat(window.getAvailable()).isEqualTo(0);
+    assertThat(window.checkCredits()).isEqualTo(0);
+
+    assertThat(window.updatesConsumed(40)).isEqualTo(0);
+    assertThat(window.updatesConsumed(10)).isEqualTo(50);
+  }
+
+  @Test
+  public void discardedUpdatesDoNotShrinkTheWindow()
+  {
+    final FlowControlWindow window = new FlowControlWindow(100, false);
+    receive(window, 100);
+    window.updateDiscarded();
+    assertThat(window.updatesConsumed(49)).isEqualTo(50);
+    assertThat(window.getAvailable()).isEqualTo(50);
+    assertThat(window.updatesConsumed(50)).isEqualTo(50);
+    assertThat(window.getAvailable()).isEqualTo(100);
+  }
+
+  @Test
+  public void adaptiveWindowStartsSmall()
+  {
+    assertThat(new FlowControlWindow(100000, true).getInitialSize()).isEqualTo(INITIAL_ADAPTIVE_SIZE);
+    assertThat(new FlowControlWindow(10, true).getInitialSize()).isEqualTo(10);
+  }
+
+  @Test
+  public void adaptiveWindowGrowsWhenTheRemotePeerWaitsForCredits() throws Exception
+  {
+    final FlowControlWindow window = new FlowControlWindow(100000, true);
+    final int initialSize = window.getSize();
+
+    // the remote peer sends its credits without pause, then waits for more
+    receive(window, INITIAL_ADAPTIVE_SIZE);
+    assertThat(window.updatesConsumed(INITIAL_ADAPTIVE_SIZE)).isEqualTo(INITIAL_ADAPTIVE_SIZE);
+    Thread.sleep(50);
+    window.updateReceived();
+
+    assertThat(window.getSize()).isEqualTo(initialSize * 3 / 2);
+    receive(window, 31);
+    assertThat(window.updatesConsumed(32)).isEqualTo(initialSize * 3 / 4);
+  }
+
+  @Test
+  public void adaptiveWindowShrinksWhenUpdatesQueueUp() throws Exception
+  {
+    final FlowControlWindow window = new FlowControlWindow(100000, true);
+
+    // the consumer falls behind
+    receive(window, INITIAL_ADAPTIVE_SIZE);
+    Thread.sleep(150);
+    assertThat(window.checkCredits()).isEqualTo(0);
+    assertThat(window.getSize()).isEqualTo(INITIAL_ADAPTIVE_SIZE * 3 / 4);
+
+    // at most once per round trip
+    assertThat(window.checkCredits()).isEqualTo(0);
+    assertThat(window.getSize()).isEqualTo(INITIAL_ADAPTIVE_SIZE * 3 / 4);
+  }
+
+  @Test
+  public void fixedWindowDoesNotAdapt() throws Exception
+  {
+    final FlowControlWindow window = new FlowControlWindow(100, false);
+    receive(window, 100);
+    assertThat(window.updatesConsumed(100)).isEqualTo(100);
+    Thread.sleep(50);
+    window.updateReceived();
+    assertThat(window.getSize()).isEqualTo(100);
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2007-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.replication.plugin;
 
@@ -183,6 +184,12 @@ public class DomainFakeCfg implements ReplicationDomainCfg
     this.windowSize = windowSize;
   }
 
+  @Override
+  public boolean isAdaptiveWindow()
+  {
+    return false;
+  }
+
   /** {@inheritDoc} */
   @Override
   public void removeChangeListener(
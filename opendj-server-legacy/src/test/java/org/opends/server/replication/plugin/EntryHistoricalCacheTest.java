@@ -0,0 +1,105 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.plugin;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.opends.server.TestCaseUtils;
+import org.opends.server.replication.ReplicationTestCase;
+import org.opends.server.types.Entry;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class EntryHistoricalCacheTest extends ReplicationTestCase
+{
+  private static Entry newEntry(String dn, String... histValues) throws Exception
+  {
+    final String[] lines = new String[histValues.length + 3];
+    lines[0] = "dn: " + dn;
+    lines[1] = "objectClass: top";
+    lines[2] = "objectClass: organizationalUnit";
+    for (int i = 0; i < histValues.length; i++)
+    {
+      lines[i + 3] = "ds-sync-hist: " + histValues[i];
+    }
+    return TestCaseUtils.makeEntry(lines);
+  }
+
+  private static void assertSameHistorical(EntryHistorical actual, Entry entry)
+  {
+    final EntryHistorical expected = EntryHistorical.newInstanceFromEntry(entry);
+    assertThat(actual.encodeAndPurge()).isEqualTo(expected.encodeAndPurge());
+    assertThat(actual.getDNDate()).isEqualTo(expected.getDNDate());
+    assertThat(actual.getOldestCSN()).isEqualTo(expected.getOldestCSN());
+  }
+
+  @Test
+  public void reloadingAnEntryOnlyParsesTheChangedValues() throws Exception
+  {
+    final EntryHistoricalCache cache = new EntryHistoricalCache(100);
+    final Entry entry = newEntry("ou=cached,dc=example,dc=com",
+        "dn:0000014f2d0c9f53000100000001:add",
+        "description:0000014f2d0c9f53000100000002:add:first",
+        "description:0000014f2d0c9f53000100000003:add:second");
+    assertSameHistorical(cache.newInstanceFromEntry(entry), entry);
+    assertThat(cache.getParsedValuesCount()).isEqualTo(3);
+    assertThat(cache.getReusedValuesCount()).isEqualTo(0);
+
+    final Entry modifiedEntry = newEntry("ou=cached,dc=example,dc=com",
+        "dn:0000014f2d0c9f53000100000001:add",
+        "description:0000014f2d0c9f53000100000002:add:first",
+        "description:0000014f2d0c9f53000100000004:del:second");
+    assertSameHistorical(cache.newInstanceFromEntry(modifiedEntry), modifiedEntry);
+    assertThat(cache.getParsedValuesCount()).isEqualTo(4);
+    assertThat(cache.getReusedValuesCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void cachedValuesAreNotSharedBetweenInstances() throws Exception
+  {
+    final EntryHistoricalCache cache = new EntryHistoricalCache(100);
+    final Entry entry = newEntry("ou=shared,dc=example,dc=com",
+        "description:0000014f2d0c9f53000100000002:add:first");
+    final EntryHistorical first = cache.newInstanceFromEntry(entry);
+    first.setPurgeDelay(1);
+    first.encodeAndPurge();
+    assertThat(first.getLastPurgedValuesCount()).isEqualTo(1);
+
+    assertSameHistorical(cache.newInstanceFromEntry(entry), entry);
+    assertThat(cache.getReusedValuesCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void leastRecentlyLoadedEntriesAreEvicted() throws Exception
+  {
+    final EntryHistoricalCache cache = new EntryHistoricalCache(3);
+    final Entry entry1 = newEntry("ou=entry1,dc=example,dc=com",
+        "dn:0000014f2d0c9f53000100000001:add",
+        "description:0000014f2d0c9f53000100000002:add:first");
+    final Entry entry2 = newEntry("ou=entry2,dc=example,dc=com",
+        "dn:0000014f2d0c9f53000100000003:add",
+        "description:0000014f2d0c9f53000100000004:add:first");
+    cache.newInstanceFromEntry(entry1);
+    cache.newInstanceFromEntry(entry2);
+    assertThat(cache.getParsedValuesCount()).isEqualTo(4);
+
+    cache.newInstanceFromEntry(entry2);
+    assertThat(cache.getReusedValuesCount()).isEqualTo(2);
+    cache.newInstanceFromEntry(entry1);
+    assertThat(cache.getReusedValuesCount()).isEqualTo(2);
+    assertThat(cache.getParsedValuesCount()).isEqualTo(6);
+  }
+}
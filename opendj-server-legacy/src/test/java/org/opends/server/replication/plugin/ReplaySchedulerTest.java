@@ -0,0 +1,180 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.plugin;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.forgerock.opendj.ldap.schema.CoreSchema.*;
+
+import java.util.Collections;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.replication.ReplicationTestCase;
+import org.opends.server.replication.common.CSN;
+import org.opends.server.replication.protocol.AddMsg;
+import org.opends.server.replication.protocol.DeleteMsg;
+import org.opends.server.replication.protocol.LDAPUpdateMsg;
+import org.opends.server.replication.protocol.ModifyDNMsg;
+import org.opends.server.replication.protocol.ModifyMsg;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Attributes;
+import org.opends.server.types.Modification;
+import org.opends.server.util.TimeThread;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class ReplaySchedulerTest extends ReplicationTestCase
+{
+  private static final DN BASE_DN = DN.valueOf("dc=example,dc=com");
+
+  private ReplayScheduler scheduler;
+  private int seqnum;
+
+  @BeforeMethod
+  public void createScheduler()
+  {
+    scheduler = new ReplayScheduler(BASE_DN);
+  }
+
+  private CSN nextCSN()
+  {
+    return new CSN(TimeThread.getTime(), ++seqnum, 1);
+  }
+
+  private AddMsg add(String dn)
+  {
+    Attribute objectClass = Attributes.create(getObjectClassAttributeType(), "organizationalUnit");
+    return new AddMsg(nextCSN(), DN.valueOf(dn), "uuid-" + seqnum, "parent-uuid", objectClass,
+        Collections.<Attribute> emptyList(), Collections.<Attribute> emptyList());
+  }
+
+  private ModifyMsg modify(String dn)
+  {
+    return new ModifyMsg(nextCSN(), DN.valueOf(dn), Collections.<Modification> emptyList(), "uuid");
+  }
+
+  private DeleteMsg delete(String dn)
+  {
+    return new DeleteMsg(DN.valueOf(dn), nextCSN(), "uuid");
+  }
+
+  private ModifyDNMsg rename(String dn, String newRDN)
+  {
+    return new ModifyDNMsg(DN.valueOf(dn), nextCSN(), "uuid", null, true, null, newRDN);
+  }
+
+  @Test
+  public void independentUpdatesAreReadyImmediately() throws Exception
+  {
+    assertThat(scheduler.schedule(add("ou=people,dc=example,dc=com"))).isTrue();
+    assertThat(scheduler.schedule(add("ou=groups,dc=example,dc=com"))).isTrue();
+    assertThat(scheduler.schedule(modify("dc=example,dc=com"))).isTrue();
+    assertThat(scheduler.schedule(modify("uid=user.1,ou=other,dc=example,dc=com"))).isTrue();
+    assertThat(scheduler.getWaitingUpdates()).isEqualTo(0);
+  }
+
+  @Test
+  public void updatesOfTheSameEntryAreReplayedInOrder() throws Exception
+  {
+    LDAPUpdateMsg first = modify("uid=user.1,ou=people,dc=example,dc=com");
+    LDAPUpdateMsg second = modify("uid=user.1,ou=people,dc=example,dc=com");
+    LDAPUpdateMsg third = delete("uid=user.1,ou=people,dc=example,dc=com");
+    assertThat(scheduler.schedule(first)).isTrue();
+    assertThat(scheduler.schedule(second)).isFalse();
+    assertThat(scheduler.schedule(third)).isFalse();
+    assertThat(scheduler.getWaitingUpdates()).isEqualTo(2);
+
+    assertThat(scheduler.updateReplayed(first)).containsExactly(second);
+    assertThat(scheduler.updateReplayed(second)).containsExactly(third);
+    assertThat(scheduler.updateReplayed(third)).isEmpty();
+    assertThat(scheduler.getWaitingUpdates()).isEqualTo(0);
+  }
+
+  @Test
+  public void childrenWaitForTheAddOfTheirParent() throws Exception
+  {
+    LDAPUpdateMsg parent = add("ou=people,dc=example,dc=com");
+    LDAPUpdateMsg child1 = add("uid=user.1,ou=people,dc=example,dc=com");
+    LDAPUpdateMsg child2 = add("uid=user.2,ou=people,dc=example,dc=com");
+    assertThat(scheduler.schedule(parent)).isTrue();
+    assertThat(scheduler.schedule(child1)).isFalse();
+    assertThat(scheduler.schedule(child2)).isFalse();
+
+    // Both children are independent once their parent exists
+    assertThat(scheduler.updateReplayed(parent)).containsExactly(child1, child2);
+  }
+
+  @Test
+  public void modifyOfParentDoesNotBlockChildren() throws Exception
+  {
+    assertThat(scheduler.schedule(modify("ou=people,dc=example,dc=com"))).isTrue();
+    assertThat(scheduler.schedule(modify("uid=user.1,ou=people,dc=example,dc=com"))).isTrue();
+  }
+
+  @Test
+  public void deleteOfParentWaitsForChildren() throws Exception
+  {
+    LDAPUpdateMsg child1 = delete("uid=user.1,ou=people,dc=example,dc=com");
+    LDAPUpdateMsg child2 = modify("uid=user.2,ou=people,dc=example,dc=com");
+    LDAPUpdateMsg parent = delete("ou=people,dc=example,dc=com");
+    assertThat(scheduler.schedule(child1)).isTrue();
+    assertThat(scheduler.schedule(child2)).isTrue();
+    assertThat(scheduler.schedule(parent)).isFalse();
+
+    assertThat(scheduler.updateReplayed(child2)).isEmpty();
+    assertThat(scheduler.updateReplayed(child1)).containsExactly(parent);
+  }
+
+  @Test
+  public void renameDependsOnOldAndNewDN() throws Exception
+  {
+    LDAPUpdateMsg modifyOld = modify("uid=user.1,ou=people,dc=example,dc=com");
+    LDAPUpdateMsg addNew = add("uid=user.2,ou=people,dc=example,dc=com");
+    LDAPUpdateMsg rename = rename("uid=user.1,ou=people,dc=example,dc=com", "uid=user.2");
+    LDAPUpdateMsg modifyNew = modify("uid=user.2,ou=people,dc=example,dc=com");
+    assertThat(scheduler.schedule(modifyOld)).isTrue();
+    assertThat(scheduler.schedule(addNew)).isTrue();
+    assertThat(scheduler.schedule(rename)).isFalse();
+    assertThat(scheduler.schedule(modifyNew)).isFalse();
+
+    assertThat(scheduler.updateReplayed(modifyOld)).isEmpty();
+    assertThat(scheduler.updateReplayed(addNew)).containsExactly(rename);
+    assertThat(scheduler.updateReplayed(rename)).containsExactly(modifyNew);
+  }
+
+  @Test
+  public void parallelismIsReported() throws Exception
+  {
+    LDAPUpdateMsg update1 = add("ou=people,dc=example,dc=com");
+    LDAPUpdateMsg update2 = add("ou=groups,dc=example,dc=com");
+    scheduler.schedule(update1);
+    scheduler.schedule(update2);
+    scheduler.replayStarted();
+    scheduler.replayStarted();
+    assertThat(scheduler.getUpdatesInProgress()).isEqualTo(2);
+
+    // a conflicting update is put aside, then replayed again
+    scheduler.replayDeferred();
+    assertThat(scheduler.getUpdatesInProgress()).isEqualTo(1);
+    scheduler.replayStarted();
+
+    scheduler.updateReplayed(update1);
+    scheduler.updateReplayed(update2);
+    assertThat(scheduler.getUpdatesInProgress()).isEqualTo(0);
+    assertThat(scheduler.getMaxUpdatesInProgress()).isEqualTo(2);
+    assertThat(scheduler.getReplayLag()).isGreaterThanOrEqualTo(0);
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.protocol;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.zip.DataFormatException;
+
+import org.opends.server.DirectoryServerTestCase;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class SessionCompressionTest extends DirectoryServerTestCase
+{
+  private static byte[] message(int i)
+  {
+    return ("dn: uid=user." + i + ",ou=people,dc=example,dc=com\nchangetype: modify\nreplace: description\n"
+        + "description: updated description of user " + i).getBytes();
+  }
+
+  @Test
+  public void batchIsDecompressedInOrder() throws Exception
+  {
+    final SessionCompression sender = new SessionCompression();
+    final SessionCompression receiver = new SessionCompression();
+    final List<byte[]> batch = Arrays.asList(message(1), message(2), message(3));
+
+    final byte[] frame = sender.compress(batch);
+    final Queue<byte[]> received = new ArrayDeque<>();
+    receiver.decompress(frame, received);
+
+    assertThat(received).containsExactly(message(1), message(2), message(3));
+    assertThat(frame.length).isLessThan(message(1).length + message(2).length + message(3).length);
+  }
+
+  @Test
+  public void framesShareTheSameStream() throws Exception
+  {
+    final SessionCompression sender = new SessionCompression();
+    final SessionCompression receiver = new SessionCompression();
+    final Queue<byte[]> received = new ArrayDeque<>();
+
+    final byte[] firstFrame = sender.compress(Collections.singletonList(message(1)));
+    final byte[] secondFrame = sender.compress(Collections.singletonList(message(2)));
+    // the second message is compressed against the first one
+    assertThat(secondFrame.length).isLessThan(firstFrame.length);
+
+    receiver.decompress(firstFrame, received);
+    receiver.decompress(secondFrame, received);
+    assertThat(received).containsExactly(message(1), message(2));
+  }
+
+  @Test
+  public void smallBatchesAreNotWorthCompressing()
+  {
+    assertThat(SessionCompression.isWorthCompressing(Collections.singletonList(new byte[10]))).isFalse();
+    assertThat(SessionCompression.isWorthCompressing(Collections.singletonList(message(1)))).isTrue();
+    assertThat(SessionCompression.isWorthCompressing(Arrays.asList(new byte[100], new byte[100]))).isTrue();
+  }
+
+  @Test(expectedExceptions = DataFormatException.class)
+  public void invalidFrameIsRejected() throws Exception
+  {
+    new SessionCompression().decompress(message(1), new ArrayDeque<byte[]>());
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void compressAfterEndFails() throws Exception
+  {
+    final SessionCompression compression = new SessionCompression();
+    compression.end();
+    compression.compress(Collections.singletonList(message(1)));
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.server;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.replication.common.CSN;
+import org.opends.server.replication.common.CSNGenerator;
+import org.opends.server.replication.protocol.DeleteMsg;
+import org.opends.server.replication.protocol.UpdateMsg;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class MsgQueueTest extends DirectoryServerTestCase
+{
+  private static final DN DN1 = DN.valueOf("ou=example,dc=example,dc=com");
+
+  private static UpdateMsg[] newMsgs(int nb)
+  {
+    final CSNGenerator gen = new CSNGenerator(1, 0);
+    final UpdateMsg[] msgs = new UpdateMsg[nb];
+    for (int i = 0; i < nb; i++)
+    {
+      msgs[i] = new DeleteMsg(DN1, gen.newCSN(), "uid");
+    }
+    return msgs;
+  }
+
+  @Test
+  public void messagesAreRemovedInCSNOrder()
+  {
+    final UpdateMsg[] msgs = newMsgs(3);
+    final MsgQueue queue = new MsgQueue();
+    queue.add(msgs[2]);
+    queue.add(msgs[0]);
+    queue.add(msgs[1]);
+
+    assertThat(queue.count()).isEqualTo(3);
+    assertThat(queue.bytesCount()).isEqualTo(msgs[0].size() + msgs[1].size() + msgs[2].size());
+    assertThat(queue.first()).isSameAs(msgs[0]);
+    assertThat(queue.removeFirst()).isSameAs(msgs[0]);
+    assertThat(queue.removeFirst()).isSameAs(msgs[1]);
+    assertThat(queue.removeFirst()).isSameAs(msgs[2]);
+
+    assertThat(queue.isEmpty()).isTrue();
+    assertThat(queue.count()).isEqualTo(0);
+    assertThat(queue.bytesCount()).isEqualTo(0);
+    assertThat(queue.getRemovedCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void emptyQueueReturnsNull()
+  {
+    final MsgQueue queue = new MsgQueue();
+    assertThat(queue.first()).isNull();
+    assertThat(queue.removeFirst()).isNull();
+    assertThat(queue.getAverageQueuedTimeMicros()).isEqualTo(0);
+  }
+
+  @Test
+  public void sameCSNIsCountedOnce()
+  {
+    final UpdateMsg[] msgs = newMsgs(1);
+    final MsgQueue queue = new MsgQueue();
+    queue.add(msgs[0]);
+    queue.add(new DeleteMsg(DN1, msgs[0].getCSN(), "uid"));
+
+    assertThat(queue.count()).isEqualTo(1);
+    assertThat(queue.bytesCount()).isEqualTo(msgs[0].size());
+  }
+
+  @Test
+  public void consumeUpToRemovesOlderMessages()
+  {
+    final UpdateMsg[] msgs = newMsgs(4);
+    final MsgQueue queue = new MsgQueue();
+    for (UpdateMsg msg : msgs)
+    {
+      queue.add(msg);
+    }
+
+    queue.consumeUpTo(msgs[2]);
+    assertThat(queue.count()).isEqualTo(1);
+    assertThat(queue.bytesCount()).isEqualTo(msgs[3].size());
+    assertThat(queue.first()).isSameAs(msgs[3]);
+    assertThat(queue.contains(msgs[2])).isFalse();
+    assertThat(queue.contains(msgs[3])).isTrue();
+
+    queue.clear();
+    assertThat(queue.isEmpty()).isTrue();
+    assertThat(queue.bytesCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void consumeUpToUnknownMessage()
+  {
+    final UpdateMsg[] msgs = newMsgs(3);
+    final MsgQueue queue = new MsgQueue();
+    queue.add(msgs[0]);
+    queue.add(msgs[2]);
+
+    queue.consumeUpTo(msgs[1]);
+    assertThat(queue.count()).isEqualTo(1);
+    assertThat(queue.first().getCSN()).isEqualTo((Object) msgs[2].getCSN());
+  }
+
+  @Test
+  public void concurrentProducersAreAllCounted() throws Exception
+  {
+    final MsgQueue queue = new MsgQueue();
+    final Thread[] producers = new Thread[4];
+    for (int i = 0; i < producers.length; i++)
+    {
+      final int serverId = i + 1;
+      producers[i] = new Thread(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          final CSNGenerator gen = new CSNGenerator(serverId, 0);
+          for (int j = 0; j < 1000; j++)
+          {
+            queue.add(new DeleteMsg(DN1, gen.newCSN(), "uid"));
+          }
+        }
+      });
+      producers[i].start();
+    }
+    for (Thread producer : producers)
+    {
+      producer.join();
+    }
+
+    assertThat(queue.count()).isEqualTo(4000);
+    CSN previous = null;
+    UpdateMsg msg;
+    while ((msg = queue.removeFirst()) != null)
+    {
+      assertThat(previous == null || previous.isOlderThan(msg.getCSN())).isTrue();
+      previous = msg.getCSN();
+    }
+    assertThat(queue.bytesCount()).isEqualTo(0);
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2007-2009 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.replication.server;
 
@@ -181,6 +182,12 @@ public class ReplServerFakeConfiguration implements ReplicationServerCfg
     return windowSize;
   }
 
+  @Override
+  public boolean isAdaptiveWindow()
+  {
+    return false;
+  }
+
   @Override
   public void removeChangeListener(ConfigurationChangeListener<ReplicationServerCfg> listener)
   {
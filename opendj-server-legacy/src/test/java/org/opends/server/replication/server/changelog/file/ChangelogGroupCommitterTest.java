@@ -0,0 +1,159 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.server.changelog.file;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.opends.server.replication.server.changelog.file.LogFileTest.*;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.replication.server.changelog.file.Log.LogRotationParameters;
+import org.opends.server.util.StaticUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(sequential=true)
+public class ChangelogGroupCommitterTest extends DirectoryServerTestCase
+{
+  /** Use a directory dedicated to this test class. */
+  private static final File LOG_DIRECTORY = new File(TestCaseUtils.getUnitTestRootPath(), "changelog-group-commit");
+
+  /** Long enough for the tests to never rely on the periodic synchronization. */
+  private static final long MAX_DELAY_IN_MILLIS = 60000;
+
+  private ReplicationEnvironment replicationEnv;
+  private Log<String, String> log;
+  private ChangelogGroupCommitter committer;
+
+  @BeforeMethod
+  public void openLog() throws Exception
+  {
+    StaticUtils.recursiveDelete(LOG_DIRECTORY);
+    replicationEnv = mock(ReplicationEnvironment.class);
+    log = Log.openLog(replicationEnv, LOG_DIRECTORY, RECORD_PARSER, new LogRotationParameters(1024 * 1024, 0, 0));
+    final List<Log<?, ?>> logs = Collections.<Log<?, ?>> singletonList(log);
+    when(replicationEnv.getOpenedLogs()).thenReturn(logs);
+  }
+
+  @AfterMethod
+  public void closeLog() throws Exception
+  {
+    if (committer != null)
+    {
+      committer.initiateShutdown();
+      committer.join();
+      committer = null;
+    }
+    StaticUtils.close(log);
+    StaticUtils.recursiveDelete(LOG_DIRECTORY);
+  }
+
+  @Test
+  public void logTracksUnsyncedRecords() throws Exception
+  {
+    assertThat(log.hasUnsyncedRecords()).isFalse();
+
+    log.append(Record.from("key001", "value1"));
+    log.append(Record.from("key002", "value2"));
+    assertThat(log.hasUnsyncedRecords()).isTrue();
+    verify(replicationEnv, times(2)).notifyRecordAppended(anyLong());
+
+    log.syncToFileSystem();
+    assertThat(log.hasUnsyncedRecords()).isFalse();
+  }
+
+  @Test
+  public void recordBreakingKeyOrderingIsNotNotified() throws Exception
+  {
+    log.append(Record.from("key002", "value2"));
+    log.syncToFileSystem();
+
+    log.append(Record.from("key001", "value1"));
+    assertThat(log.hasUnsyncedRecords()).isFalse();
+    verify(replicationEnv, times(1)).notifyRecordAppended(anyLong());
+  }
+
+  @Test
+  public void taskIsRunOnceRecordsArePersisted() throws Exception
+  {
+    committer = new ChangelogGroupCommitter(replicationEnv, MAX_DELAY_IN_MILLIS, Long.MAX_VALUE);
+    committer.start();
+
+    log.append(Record.from("key001", "value1"));
+    log.append(Record.from("key002", "value2"));
+    final CountDownLatch persisted = new CountDownLatch(2);
+    final Runnable task = new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        assertThat(log.hasUnsyncedRecords()).isFalse();
+        persisted.countDown();
+      }
+    };
+    committer.runWhenDurable(task);
+    committer.runWhenDurable(task);
+
+    assertThat(persisted.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(log.hasUnsyncedRecords()).isFalse();
+  }
+
+  @Test
+  public void recordsAreSyncedAboveTheSizeThreshold() throws Exception
+  {
+    committer = new ChangelogGroupCommitter(replicationEnv, MAX_DELAY_IN_MILLIS, 10);
+    committer.start();
+
+    log.append(Record.from("key001", "value1"));
+    committer.recordAppended(10);
+
+    final long timeout = System.currentTimeMillis() + 10000;
+    while (log.hasUnsyncedRecords() && System.currentTimeMillis() < timeout)
+    {
+      Thread.sleep(10);
+    }
+    assertThat(log.hasUnsyncedRecords()).isFalse();
+  }
+
+  @Test
+  public void taskIsRunImmediatelyAfterShutdown() throws Exception
+  {
+    committer = new ChangelogGroupCommitter(replicationEnv, MAX_DELAY_IN_MILLIS, Long.MAX_VALUE);
+    committer.start();
+    committer.initiateShutdown();
+    committer.join();
+
+    final boolean[] run = new boolean[1];
+    committer.runWhenDurable(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        run[0] = true;
+      }
+    });
+    assertThat(run[0]).isTrue();
+  }
+}
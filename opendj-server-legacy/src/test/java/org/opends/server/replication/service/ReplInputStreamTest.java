@@ -0,0 +1,117 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.CountDownLatch;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.opends.server.DirectoryServerTestCase;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class ReplInputStreamTest extends DirectoryServerTestCase
+{
+  private static String readFully(ReplInputStream input) throws Exception
+  {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[5];
+    int length;
+    while ((length = input.read(buffer, 0, buffer.length)) != -1)
+    {
+      output.write(buffer, 0, length);
+    }
+    return output.toString();
+  }
+
+  @Test
+  public void receivedEntriesAreReadInOrder() throws Exception
+  {
+    final ReplicationDomain domain = mock(ReplicationDomain.class);
+    when(domain.receiveEntryBytes()).thenReturn(
+        "dn: dc=example,dc=com\n\n".getBytes(),
+        "dn: ou=people,dc=example,dc=com\n\n".getBytes(),
+        null);
+
+    final ReplInputStream input = new ReplInputStream(domain, 1);
+    input.start();
+    try
+    {
+      assertThat(readFully(input)).isEqualTo("dn: dc=example,dc=com\n\ndn: ou=people,dc=example,dc=com\n\n");
+      assertThat(input.read(new byte[1], 0, 1)).isEqualTo(-1);
+    }
+    finally
+    {
+      input.close();
+    }
+    verify(domain, times(3)).receiveEntryBytes();
+  }
+
+  @Test
+  public void closeStopsTheReception() throws Exception
+  {
+    final ReplicationDomain domain = mock(ReplicationDomain.class);
+    when(domain.receiveEntryBytes()).thenReturn("dn: dc=example,dc=com\n\n".getBytes());
+
+    final ReplInputStream input = new ReplInputStream(domain, 1);
+    input.start();
+    assertThat(input.read(new byte[4], 0, 4)).isEqualTo(4);
+    input.close();
+
+    assertThat(input.read(new byte[4], 0, 4)).isEqualTo(-1);
+  }
+
+  @Test(timeOut = 10000)
+  public void closeReleasesTheReceiverWaitingForAMessage() throws Exception
+  {
+    final CountDownLatch receiving = new CountDownLatch(1);
+    final CountDownLatch sessionClosed = new CountDownLatch(1);
+    final ReplicationDomain domain = mock(ReplicationDomain.class);
+    when(domain.receiveEntryBytes()).thenAnswer(new Answer<byte[]>()
+    {
+      @Override
+      public byte[] answer(InvocationOnMock invocation) throws Throwable
+      {
+        receiving.countDown();
+        sessionClosed.await();
+        return null;
+      }
+    });
+    doAnswer(new Answer<Void>()
+    {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable
+      {
+        sessionClosed.countDown();
+        return null;
+      }
+    }).when(domain).stopEntryReception();
+
+    final ReplInputStream input = new ReplInputStream(domain, 1);
+    input.start();
+    receiving.await();
+    input.close();
+
+    verify(domain).stopEntryReception();
+    verify(domain, times(1)).receiveEntryBytes();
+    assertThat(input.getQueuedMessages()).isEqualTo(0);
+    assertThat(input.isReceiver(Thread.currentThread())).isFalse();
+  }
+}
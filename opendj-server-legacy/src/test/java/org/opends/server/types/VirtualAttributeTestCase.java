@@ -13,9 +13,11 @@
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Open Identity Platform Community.
  */
 package org.opends.server.types;
 
+import static org.mockito.Mockito.*;
 import static org.testng.Assert.*;
 
 import java.util.Collections;
@@ -29,6 +31,7 @@ import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.ldap.schema.CoreSchema;
 import org.forgerock.opendj.server.config.meta.VirtualAttributeCfgDefn.ConflictBehavior;
 import org.opends.server.TestCaseUtils;
+import org.opends.server.api.VirtualAttributeProvider;
 import org.opends.server.extensions.EntryDNVirtualAttributeProvider;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -164,5 +167,49 @@ public class VirtualAttributeTestCase
     assertNotNull(vattrString);
     assertTrue(vattrString.length() > 0);
   }
-}
 
+
+
+  /**
+   * Tests that the values of a virtual attribute are generated once when
+   * they are cached, and each time they are used otherwise.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testCachedValues()
+         throws Exception
+  {
+    Entry entry = TestCaseUtils.makeEntry(
+      "dn: o=test",
+      "objectClass: top",
+      "objectClass: organization",
+      "o: test");
+    VirtualAttributeProvider<?> provider = mock(VirtualAttributeProvider.class);
+    VirtualAttributeRule rule = new VirtualAttributeRule(entryDNType, provider,
+                                    Collections.<DN>emptySet(),
+                                    SearchScope.WHOLE_SUBTREE,
+                                    Collections.<DN>emptySet(),
+                                    Collections.<SearchFilter>emptySet(),
+                                    ConflictBehavior.VIRTUAL_OVERRIDES_REAL);
+    when(provider.isMultiValued()).thenReturn(true);
+    when(provider.getValues(entry, rule)).thenReturn(Attributes.create(entryDNType, "o=test"));
+
+    VirtualAttribute notCached = new VirtualAttribute(entryDNType, entry, rule);
+    assertSame(notCached.withCachedValues(), notCached);
+    assertEquals(notCached.size(), 1);
+    assertEquals(notCached.iterator().next(), ByteString.valueOfUtf8("o=test"));
+    verify(provider, times(2)).getValues(entry, rule);
+
+    when(provider.mayCacheValues()).thenReturn(true);
+    VirtualAttribute cached = notCached.withCachedValues();
+    assertNotSame(cached, notCached);
+    assertSame(cached.withCachedValues(), cached);
+    assertFalse(cached.isEmpty());
+    assertEquals(cached.size(), 1);
+    assertTrue(cached.contains(ByteString.valueOfUtf8("o=test")));
+    assertEquals(cached.iterator().next(), ByteString.valueOfUtf8("o=test"));
+    verify(provider, times(3)).getValues(entry, rule);
+    verify(provider, never()).hasValue(entry, rule);
+  }
+}